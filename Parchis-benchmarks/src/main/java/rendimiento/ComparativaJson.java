@@ -0,0 +1,127 @@
+/**
+ * Comprueba el JSON disperso de CodecJson y lo compara con el Gson por reflexion
+ * Reproduce partidas grabadas: cada estado se codifica desde una partida y se
+ * decodifica sobre otra ya existente, que debe quedar igual (fichas, turno y
+ * casillas). Saca bytes por mensaje y mensajes por segundo de cada forma
+ * Uso: java -cp target/benchmarks.jar rendimiento.ComparativaJson [partidas]
+ */
+package rendimiento;
+
+import com.google.gson.Gson;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import modelo.Casilla;
+import modelo.EstadoPartida;
+import modelo.Partida;
+import red.CodecJson;
+
+public class ComparativaJson {
+    
+    public static void main(String[] args) {
+        int partidas = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        List<List<EstadoPartida>> grabadas = new ArrayList<>();
+        for (int i = 0; i < partidas; i++) {
+            grabadas.add(Escenarios.grabarPartida(i));
+        }
+        
+        // Ida y vuelta sobre la misma partida receptora durante toda la partida grabada
+        CodecJson emisor = new CodecJson();
+        CodecJson receptor = new CodecJson();
+        Partida emisora = Escenarios.crearPartida(4);
+        long mensajes = 0;
+        long bytesCodec = 0;
+        long errores = 0;
+        for (List<EstadoPartida> estados : grabadas) {
+            Partida receptora = new Partida(0);
+            for (EstadoPartida estado : estados) {
+                cargar(emisora, estado);
+                String json = emisor.codificar(emisora);
+                bytesCodec += json.getBytes(StandardCharsets.UTF_8).length;
+                receptor.decodificar(json, receptora);
+                if (!iguales(emisora, receptora)) {
+                    errores++;
+                }
+                mensajes++;
+            }
+        }
+        
+        Gson gson = new Gson();
+        long bytesGson = 0;
+        for (List<EstadoPartida> estados : grabadas) {
+            for (EstadoPartida estado : estados) {
+                bytesGson += gson.toJson(EstadoJson.desde(1, estado)).getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        
+        System.out.println("=== JSON disperso vs Gson ===");
+        System.out.printf("Mensajes: %d, errores de ida y vuelta: %d%n", mensajes, errores);
+        System.out.printf("Bytes por mensaje: codec %.1f, Gson %.1f (%.1fx)%n",
+                (double) bytesCodec / mensajes, (double) bytesGson / mensajes, (double) bytesGson / bytesCodec);
+        
+        for (int ronda = 0; ronda < 3; ronda++) {
+            long inicio = System.nanoTime();
+            for (List<EstadoPartida> estados : grabadas) {
+                Partida receptora = new Partida(0);
+                for (EstadoPartida estado : estados) {
+                    cargar(emisora, estado);
+                    receptor.decodificar(emisor.codificar(emisora), receptora);
+                }
+            }
+            double codec = mensajes * 1e9 / (System.nanoTime() - inicio);
+            
+            inicio = System.nanoTime();
+            for (List<EstadoPartida> estados : grabadas) {
+                EstadoPartida receptora = new EstadoPartida();
+                for (EstadoPartida estado : estados) {
+                    String json = gson.toJson(EstadoJson.desde(1, estado));
+                    gson.fromJson(json, EstadoJson.class).aplicarA(receptora);
+                }
+            }
+            double json = mensajes * 1e9 / (System.nanoTime() - inicio);
+            System.out.printf("Ronda %d: codec %.0f msg/s, Gson %.0f msg/s%n", ronda + 1, codec, json);
+        }
+        
+        if (errores > 0) {
+            System.exit(1);
+        }
+    }
+    
+    static void cargar(Partida partida, EstadoPartida estado) {
+        partida.getEstado().copiarDe(estado);
+        partida.sincronizarVistas();
+    }
+    
+    private static boolean iguales(Partida a, Partida b) {
+        EstadoPartida ea = a.getEstado();
+        EstadoPartida eb = b.getEstado();
+        for (int j = 0; j < EstadoPartida.MAX_JUGADORES; j++) {
+            if (ea.getPalabraFichas(j) != eb.getPalabraFichas(j)) {
+                return false;
+            }
+        }
+        if (ea.getTurno() != eb.getTurno() || ea.getContadorSeis() != eb.getContadorSeis()) {
+            return false;
+        }
+        for (int c = 0; c < EstadoPartida.TOTAL_CASILLAS; c++) {
+            Casilla ca = a.getTablero().getCasilla(c);
+            Casilla cb = b.getTablero().getCasilla(c);
+            if (ca.getCantidad() != cb.getCantidad()) {
+                return false;
+            }
+            if (ocupantes(ca) != ocupantes(cb)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // Slots de la casilla como mascara, el orden de llegada no cuenta
+    private static int ocupantes(Casilla casilla) {
+        int mascara = 0;
+        for (int i = 0; i < casilla.getCantidad(); i++) {
+            mascara |= 1 << casilla.getFicha(i).getSlot();
+        }
+        return mascara;
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Comprueba el protocolo binario y lo compara con el JSON de Gson
+ * Reproduce partidas grabadas: ida y vuelta de cada mensaje, bytes por
+ * mensaje y mensajes por segundo de cada codificacion
+ * Uso: java -cp target/benchmarks.jar rendimiento.ComparativaProtocolo [partidas]
+ */
+package rendimiento;
+
+import com.google.gson.Gson;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import modelo.EstadoPartida;
+import modelo.Partida;
+import red.EmisorDeltas;
+import red.ProtocoloBinario;
+import red.ReceptorDeltas;
+
+public class ComparativaProtocolo {
+    
+    public static void main(String[] args) {
+        int partidas = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        List<List<EstadoPartida>> grabadas = new ArrayList<>();
+        for (int i = 0; i < partidas; i++) {
+            grabadas.add(Escenarios.grabarPartida(i));
+        }
+        
+        // Ida y vuelta: el receptor debe acabar con el mismo estado tras cada mensaje
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+        long mensajes = 0;
+        long bytesBinario = 0;
+        long errores = 0;
+        for (List<EstadoPartida> estados : grabadas) {
+            EmisorDeltas emisor = new EmisorDeltas(1);
+            Partida receptora = Escenarios.crearPartida(4);
+            ReceptorDeltas receptor = new ReceptorDeltas(receptora);
+            for (EstadoPartida estado : estados) {
+                buffer.clear();
+                bytesBinario += emisor.emitir(estado, buffer);
+                buffer.flip();
+                if (!receptor.recibir(buffer) || !iguales(estado, receptora.getEstado())) {
+                    errores++;
+                }
+                mensajes++;
+            }
+        }
+        
+        Gson gson = new Gson();
+        long bytesGson = 0;
+        for (List<EstadoPartida> estados : grabadas) {
+            for (EstadoPartida estado : estados) {
+                bytesGson += gson.toJson(EstadoJson.desde(1, estado)).getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        
+        System.out.println("=== Protocolo binario vs Gson ===");
+        System.out.printf("Mensajes: %d, errores de ida y vuelta: %d%n", mensajes, errores);
+        System.out.printf("Bytes por mensaje: binario %.1f, Gson %.1f (%.1fx)%n",
+                (double) bytesBinario / mensajes, (double) bytesGson / mensajes, (double) bytesGson / bytesBinario);
+        
+        for (int ronda = 0; ronda < 3; ronda++) {
+            long inicio = System.nanoTime();
+            for (List<EstadoPartida> estados : grabadas) {
+                EmisorDeltas emisor = new EmisorDeltas(1);
+                EstadoPartida receptor = new EstadoPartida();
+                for (EstadoPartida estado : estados) {
+                    buffer.clear();
+                    emisor.emitir(estado, buffer);
+                    buffer.flip();
+                    ProtocoloBinario.leer(buffer, receptor, null);
+                }
+            }
+            double binario = mensajes * 1e9 / (System.nanoTime() - inicio);
+            
+            inicio = System.nanoTime();
+            for (List<EstadoPartida> estados : grabadas) {
+                EstadoPartida receptor = new EstadoPartida();
+                for (EstadoPartida estado : estados) {
+                    String json = gson.toJson(EstadoJson.desde(1, estado));
+                    gson.fromJson(json, EstadoJson.class).aplicarA(receptor);
+                }
+            }
+            double json = mensajes * 1e9 / (System.nanoTime() - inicio);
+            System.out.printf("Ronda %d: binario %.0f msg/s, Gson %.0f msg/s%n", ronda + 1, binario, json);
+        }
+        
+        if (errores > 0) {
+            System.exit(1);
+        }
+    }
+    
+    private static boolean iguales(EstadoPartida a, EstadoPartida b) {
+        for (int j = 0; j < EstadoPartida.MAX_JUGADORES; j++) {
+            if (a.getPalabraFichas(j) != b.getPalabraFichas(j)) {
+                return false;
+            }
+        }
+        return a.getTurno() == b.getTurno() && a.getContadorSeis() == b.getContadorSeis();
+    }
+}
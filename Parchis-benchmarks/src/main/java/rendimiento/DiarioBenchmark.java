@@ -0,0 +1,76 @@
+/**
+ * Benchmark de escritura en el diario de movimientos
+ * Latencia de anotar una tirada y un snapshot, con uno y con varios hilos
+ * escribiendo a la vez en el mismo diario
+ */
+package rendimiento;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import modelo.EstadoPartida;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import persistencia.DiarioMovimientos;
+
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiarioBenchmark {
+    // Segmentos pequenos para que la medida incluya el cambio de segmento
+    private static final int REGISTROS_POR_SEGMENTO = 1 << 16;
+    
+    private Path directorio;
+    private DiarioMovimientos diario;
+    private EstadoPartida estado;
+    
+    @Setup(Level.Iteration)
+    public void abrir() throws IOException {
+        directorio = Files.createTempDirectory("diario-bench");
+        diario = new DiarioMovimientos(directorio, REGISTROS_POR_SEGMENTO);
+        estado = Escenarios.grabarPartida(3).get(40);
+    }
+    
+    @TearDown(Level.Iteration)
+    public void cerrar() throws IOException {
+        diario.close();
+        try (Stream<Path> segmentos = Files.list(directorio)) {
+            for (Path segmento : (Iterable<Path>) segmentos::iterator) {
+                Files.delete(segmento);
+            }
+        }
+        Files.deleteIfExists(directorio);
+    }
+    
+    @Benchmark
+    public void tirada() {
+        diario.registrarTirada(1, 6);
+    }
+    
+    @Benchmark
+    public void snapshot() {
+        diario.registrarSnapshot(1, estado, 3);
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public void tiradaCuatroHilos() {
+        diario.registrarTirada(1, 6);
+    }
+}
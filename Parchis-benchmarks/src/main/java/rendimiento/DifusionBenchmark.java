@@ -0,0 +1,96 @@
+/**
+ * Benchmark de la difusion a espectadores con 1, 100 y 1000 espectadores
+ * Compara codificar una vez y compartir el buffer con codificar para cada uno
+ * Cada operacion es un cambio de estado repartido a todos; entregas/s = ops/s * espectadores
+ */
+package rendimiento;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import modelo.GestorTurno;
+import modelo.InstantaneaPartida;
+import modelo.Partida;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import red.ProtocoloBinario;
+import servidor.CanalEspectador;
+import servidor.DifusionEspectadores;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DifusionBenchmark {
+    @Param({"1", "100", "1000"})
+    private int espectadores;
+    
+    private InstantaneaPartida instantanea;
+    private DifusionEspectadores difusion;
+    private CanalContador[] canales;
+    
+    /**
+     * Canal que solo cuenta bytes, como una conexion que nunca se satura
+     */
+    static final class CanalContador implements CanalEspectador {
+        long bytes;
+        
+        @Override
+        public void enviar(ByteBuffer mensaje) {
+            bytes += mensaje.duplicate().remaining();
+        }
+        
+        @Override
+        public boolean isSaturado() {
+            return false;
+        }
+        
+        @Override
+        public boolean isAbierto() {
+            return true;
+        }
+    }
+    
+    @Setup
+    public void preparar() {
+        Partida partida = Escenarios.crearPartida(4);
+        GestorTurno turno = new GestorTurno(partida);
+        turno.tirarDado();
+        instantanea = InstantaneaPartida.tomar(partida, turno, null);
+        
+        // Ejecutor en linea: se mide codificar y repartir en el mismo hilo
+        difusion = new DifusionEspectadores(Runnable::run);
+        canales = new CanalContador[espectadores];
+        for (int i = 0; i < espectadores; i++) {
+            canales[i] = new CanalContador();
+            difusion.suscribir(instantanea.getIdPartida(), canales[i], null);
+        }
+    }
+    
+    @Benchmark
+    public long codificarUnaVez() {
+        difusion.publicar(instantanea);
+        return canales[0].bytes;
+    }
+    
+    @Benchmark
+    public long codificarPorEspectador() {
+        for (CanalContador canal : canales) {
+            ByteBuffer mensaje = ByteBuffer.allocate(ProtocoloBinario.TAMANO_KEYFRAME);
+            ProtocoloBinario.escribirKeyframe(mensaje, instantanea);
+            mensaje.flip();
+            canal.enviar(mensaje);
+        }
+        return canales[0].bytes;
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Punto de entrada del jar de benchmarks
+ * Acepta las mismas opciones que JMH (-wi, -i, -f, -prof, -rff...) y por
+ * defecto anade el perfilador gc para medir asignacion de memoria y guarda
+ * los resultados en JSON
+ * Uso: java -jar target/benchmarks.jar [opciones JMH] [regex]
+ */
+package rendimiento;
+
+import java.io.IOException;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class EjecutorBenchmarks {
+    private static final String RESULTADOS = "resultados-jmh.json";
+    
+    public static void main(String[] args) throws RunnerException, IOException {
+        CommandLineOptions linea;
+        try {
+            linea = new CommandLineOptions(args);
+        } catch (CommandLineOptionException e) {
+            System.err.println("Opciones no validas: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (linea.shouldHelp()) {
+            linea.showHelp();
+            return;
+        }
+        
+        ChainedOptionsBuilder opciones = new OptionsBuilder().parent(linea);
+        if (linea.getProfilers().isEmpty()) {
+            opciones.addProfiler(GCProfiler.class);
+        }
+        // El JSON se guarda para comparar entre versiones
+        if (!linea.getResultFormat().hasValue()) {
+            opciones.resultFormat(ResultFormatType.JSON);
+        }
+        if (!linea.getResult().hasValue()) {
+            opciones.result(RESULTADOS);
+        }
+        
+        new Runner(opciones.build()).run();
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Utilidades compartidas por los benchmarks
+ * Construye partidas con fichas colocadas en casillas concretas
+ */
+package rendimiento;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import modelo.Casilla;
+import modelo.EstadoPartida;
+import modelo.Ficha;
+import modelo.GestorTurno;
+import modelo.Jugador;
+import modelo.Partida;
+import modelo.Tablero;
+import simulacion.JuegoRapido;
+import simulacion.TablaFinales;
+
+final class Escenarios {
+    static final String[] COLORES = {"Rojo", "Verde", "Azul", "Amarillo"};
+    
+    private Escenarios() {
+    }
+    
+    /**
+     * Crea una partida iniciada con el numero de jugadores indicado
+     */
+    static Partida crearPartida(int numJugadores) {
+        Partida partida = new Partida(1);
+        for (int i = 0; i < numJugadores; i++) {
+            partida.agregarJugador(new Jugador(i + 1, "Jugador" + (i + 1), COLORES[i]));
+        }
+        partida.iniciarPartida();
+        return partida;
+    }
+    
+    /**
+     * Coloca una ficha en una casilla como si hubiera salido de casa
+     */
+    static void colocar(Tablero tablero, Ficha ficha, int posicion) {
+        Casilla actual = tablero.getCasilla(ficha.getPosicion());
+        if (actual != null) {
+            actual.removerFicha(ficha);
+        }
+        ficha.setEnCasa(false);
+        ficha.setEnMeta(false);
+        ficha.setPosicion(posicion);
+        tablero.getCasilla(posicion).agregarFicha(ficha);
+    }
+    
+    /**
+     * Casilla de salida de cada jugador: 5, 22, 39, 56
+     */
+    static int casillaSalida(int indiceJugador) {
+        return EstadoPartida.casillaSalida(indiceJugador);
+    }
+    
+    /**
+     * Juega una partida de 4 bots aleatorios y guarda el estado tras cada tirada
+     * @param semilla Semilla de las estrategias
+     * @return Copia del estado compacto tras cada tirada
+     */
+    static List<EstadoPartida> grabarPartida(long semilla) {
+        Partida partida = crearPartida(4);
+        GestorTurno turno = new GestorTurno(partida);
+        Random random = new Random(semilla);
+        List<EstadoPartida> estados = new ArrayList<>();
+        
+        while (!turno.isTerminada() && estados.size() < 5_000) {
+            turno.tirarDado();
+            while (turno.getValorDado() != 0 || turno.getPremioPendiente() > 0) {
+                List<Ficha> disponibles = turno.getFichasDisponibles();
+                Ficha ficha = disponibles.get(random.nextInt(disponibles.size()));
+                if (turno.getPremioPendiente() > 0) {
+                    turno.moverPremio(ficha);
+                } else {
+                    turno.moverFicha(ficha);
+                }
+            }
+            EstadoPartida copia = new EstadoPartida();
+            copia.copiarDe(partida.getEstado());
+            estados.add(copia);
+        }
+        return estados;
+    }
+    
+    /**
+     * Juego en carrera: todas las fichas fuera de casa y a TablaFinales.MAX_DISTANCIA
+     * casillas o menos de la meta; cada ficha esta ya en meta con probabilidad 1/8
+     * @return Juego con el turno del asiento 0, listo para tirar
+     */
+    static JuegoRapido carrera(int numJugadores, SplittableRandom random) {
+        JuegoRapido juego = new JuegoRapido();
+        EstadoPartida estado = juego.getEstado();
+        estado.setNumJugadores(numJugadores);
+        estado.setTurno(0);
+        for (int jugador = 0; jugador < numJugadores; jugador++) {
+            do {
+                for (int k = 0; k < EstadoPartida.FICHAS_POR_JUGADOR; k++) {
+                    int slot = jugador * EstadoPartida.FICHAS_POR_JUGADOR + k;
+                    boolean enMeta = random.nextInt(8) == 0;
+                    estado.setEnCasa(slot, false);
+                    estado.setEnMeta(slot, enMeta);
+                    estado.setPosicion(slot, enMeta ? EstadoPartida.CASILLA_META
+                            : EstadoPartida.CASILLA_META - 1 - random.nextInt(TablaFinales.MAX_DISTANCIA));
+                }
+            } while (estado.getMascaraMeta(jugador) == 0xF);
+        }
+        return juego;
+    }
+}
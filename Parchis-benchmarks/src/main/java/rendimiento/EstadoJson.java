@@ -0,0 +1,49 @@
+/**
+ * Estado completo de una partida en la forma que se enviaba con Gson
+ * Sirve de referencia para comparar con el protocolo binario
+ */
+package rendimiento;
+
+import java.util.ArrayList;
+import java.util.List;
+import modelo.EstadoPartida;
+
+final class EstadoJson {
+    int idPartida;
+    int turno;
+    int contadorSeis;
+    List<FichaJson> fichas = new ArrayList<>();
+    
+    static final class FichaJson {
+        int slot;
+        int posicion;
+        boolean enCasa;
+        boolean enMeta;
+    }
+    
+    static EstadoJson desde(int idPartida, EstadoPartida estado) {
+        EstadoJson json = new EstadoJson();
+        json.idPartida = idPartida;
+        json.turno = estado.getTurno();
+        json.contadorSeis = estado.getContadorSeis();
+        for (int slot = 0; slot < EstadoPartida.TOTAL_FICHAS; slot++) {
+            FichaJson ficha = new FichaJson();
+            ficha.slot = slot;
+            ficha.posicion = estado.getPosicion(slot);
+            ficha.enCasa = estado.isEnCasa(slot);
+            ficha.enMeta = estado.isEnMeta(slot);
+            json.fichas.add(ficha);
+        }
+        return json;
+    }
+    
+    void aplicarA(EstadoPartida estado) {
+        estado.setTurno(turno);
+        estado.setContadorSeis(contadorSeis);
+        for (FichaJson ficha : fichas) {
+            estado.setPosicion(ficha.slot, ficha.posicion);
+            estado.setEnCasa(ficha.slot, ficha.enCasa);
+            estado.setEnMeta(ficha.slot, ficha.enMeta);
+        }
+    }
+}
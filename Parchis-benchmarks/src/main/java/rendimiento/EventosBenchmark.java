@@ -0,0 +1,47 @@
+/**
+ * Benchmark del bus de eventos
+ * Coste de publicar sin sumideros y con un sumidero de contadores
+ */
+package rendimiento;
+
+import eventos.BusEventos;
+import eventos.SumideroContadores;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventosBenchmark {
+    private BusEventos sinSumideros;
+    private BusEventos conContadores;
+    
+    @Setup
+    public void preparar() {
+        sinSumideros = new BusEventos(BusEventos.CAPACIDAD_POR_DEFECTO);
+        conContadores = new BusEventos(BusEventos.CAPACIDAD_POR_DEFECTO);
+        conContadores.agregarSumidero(new SumideroContadores());
+    }
+    
+    @Benchmark
+    public void publicarSinSumideros() {
+        sinSumideros.cambioTurno(1, 1, 2, "Jugador2");
+    }
+    
+    @Benchmark
+    public void publicarConContadores() {
+        conContadores.cambioTurno(1, 1, 2, "Jugador2");
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Benchmark de la tabla de finales mapeada: indice de un jugador, probabilidad
+ * de victoria, sorteo del ganador y mejor ficha; frente a una partida al azar
+ * hasta el final desde la misma posicion (lo que cuesta una simulacion de BotMCTS)
+ */
+package rendimiento;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import modelo.EstadoPartida;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import simulacion.GeneradorFinales;
+import simulacion.JuegoRapido;
+import simulacion.TablaFinales;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FinalesBenchmark {
+    private static final int POSICIONES = 1024;
+    
+    private Path archivo;
+    private TablaFinales tabla;
+    private JuegoRapido[] carreras;
+    private JuegoRapido juego;
+    private SplittableRandom random;
+    private int indice;
+    
+    @Setup
+    public void preparar() throws IOException {
+        archivo = Files.createTempFile("finales", ".bin");
+        GeneradorFinales.generar(archivo, 0);
+        tabla = TablaFinales.abrir(archivo);
+        random = new SplittableRandom(5);
+        carreras = new JuegoRapido[POSICIONES];
+        for (int i = 0; i < POSICIONES; i++) {
+            carreras[i] = Escenarios.carrera(EstadoPartida.MAX_JUGADORES, random);
+        }
+        juego = new JuegoRapido();
+    }
+    
+    @TearDown
+    public void borrar() throws IOException {
+        Files.deleteIfExists(archivo);
+    }
+    
+    private EstadoPartida siguiente() {
+        indice = (indice + 1) & (POSICIONES - 1);
+        return carreras[indice].getEstado();
+    }
+    
+    @Benchmark
+    public int indice() {
+        return TablaFinales.indice(siguiente(), indice & 3);
+    }
+    
+    @Benchmark
+    public double probabilidadVictoria() {
+        return tabla.probabilidadVictoria(siguiente(), 0);
+    }
+    
+    @Benchmark
+    public int sortearGanador() {
+        return tabla.sortearGanador(siguiente(), random);
+    }
+    
+    @Benchmark
+    public int mejorFicha() {
+        return tabla.mejorFicha(siguiente(), 1 + (indice % 5), 0);
+    }
+    
+    @Benchmark
+    public int jugarAlAzar() {
+        siguiente();
+        juego.copiarDe(carreras[indice]);
+        return juego.jugarAlAzar(random, 2_000);
+    }
+}
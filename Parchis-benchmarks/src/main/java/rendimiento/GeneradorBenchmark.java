@@ -0,0 +1,98 @@
+/**
+ * Benchmark de GeneradorMovimientos y del perft sobre JuegoRapido
+ * Recorre las posiciones de una partida grabada con cada valor del dado;
+ * la lista completa (con banderas) frente a la mascara rapida y frente a
+ * la lista de fichas de Jugador que usaba el simulador
+ */
+package rendimiento;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import modelo.EstadoPartida;
+import modelo.Ficha;
+import modelo.GeneradorMovimientos;
+import modelo.Jugador;
+import modelo.ListaMovimientos;
+import modelo.Partida;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import simulacion.JuegoRapido;
+import simulacion.Perft;
+
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeneradorBenchmark {
+    private EstadoPartida[] estados;
+    private Partida partida;
+    private ListaMovimientos lista;
+    private JuegoRapido raiz;
+    private Perft perft;
+    private int siguiente;
+    
+    @Setup
+    public void preparar() {
+        List<EstadoPartida> grabados = Escenarios.grabarPartida(3);
+        estados = grabados.toArray(new EstadoPartida[0]);
+        partida = Escenarios.crearPartida(4);
+        lista = new ListaMovimientos();
+        
+        raiz = new JuegoRapido();
+        raiz.cargar(Escenarios.crearPartida(4), 0, 0);
+        raiz.jugarAlAzar(new SplittableRandom(1), 80);
+        perft = new Perft(false);
+    }
+    
+    // Siguiente posicion grabada y valor del dado (1-6)
+    private int avanzar() {
+        siguiente++;
+        return siguiente % 6 + 1;
+    }
+    
+    private EstadoPartida actual() {
+        return estados[(siguiente / 6) % estados.length];
+    }
+    
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int generarLista() {
+        int valor = avanzar();
+        EstadoPartida estado = actual();
+        return GeneradorMovimientos.generar(estado, estado.getTurno(), valor, 0, lista);
+    }
+    
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int generarMascara() {
+        int valor = avanzar();
+        EstadoPartida estado = actual();
+        return GeneradorMovimientos.mascara(estado, estado.getTurno(), valor, 0);
+    }
+    
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Ficha> fichasDisponiblesJugador() {
+        int valor = avanzar();
+        EstadoPartida estado = actual();
+        partida.getEstado().copiarDe(estado);
+        Jugador jugador = partida.getJugadores().get(estado.getTurno());
+        return jugador.getFichasDisponibles(valor);
+    }
+    
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long perftTresTiradas() {
+        return perft.contar(raiz, 3);
+    }
+}
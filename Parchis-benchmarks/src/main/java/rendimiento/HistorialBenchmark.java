@@ -0,0 +1,84 @@
+/**
+ * Benchmark del historial de jugadas: registrar, deshacer y rehacer, y saltar
+ * a una jugada al azar; frente a guardar cada jugada copiando el estado
+ */
+package rendimiento;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import modelo.EstadoPartida;
+import modelo.HistorialJugadas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HistorialBenchmark {
+    private EstadoPartida[] estados;
+    private HistorialJugadas historial;
+    private HistorialJugadas lleno;
+    private EstadoPartida estado;
+    private int indice;
+    private long semilla;
+    
+    @Setup
+    public void preparar() {
+        List<EstadoPartida> grabados = Escenarios.grabarPartida(7);
+        estados = grabados.toArray(new EstadoPartida[0]);
+        historial = new HistorialJugadas(1024);
+        lleno = new HistorialJugadas(1024);
+        for (EstadoPartida grabado : estados) {
+            lleno.registrar(grabado, 0);
+        }
+        estado = new EstadoPartida();
+        estado.copiarDe(estados[estados.length - 1]);
+    }
+    
+    private int siguiente() {
+        indice = indice + 1 < estados.length ? indice + 1 : 0;
+        return indice;
+    }
+    
+    @Benchmark
+    public long registrar() {
+        return historial.registrar(estados[siguiente()], indice);
+    }
+    
+    @Benchmark
+    public EstadoPartida copiarEstado() {
+        // Lo que costaba guardar una jugada sin historial: un estado nuevo por jugada
+        EstadoPartida copia = new EstadoPartida();
+        copia.copiarDe(estados[siguiente()]);
+        return copia;
+    }
+    
+    @Benchmark
+    public long deshacerYRehacer() {
+        if (!lleno.deshacer(estado)) {
+            lleno.ir(lleno.getUltima(), estado);
+        }
+        lleno.rehacer(estado);
+        lleno.deshacer(estado);
+        return estado.getHash();
+    }
+    
+    @Benchmark
+    public long irAlAzar() {
+        semilla = semilla * 6364136223846793005L + 1442695040888963407L;
+        long rango = lleno.getUltima() - lleno.getPrimera() + 1;
+        lleno.ir(lleno.getPrimera() + ((semilla >>> 33) % rango), estado);
+        return estado.getHash();
+    }
+}
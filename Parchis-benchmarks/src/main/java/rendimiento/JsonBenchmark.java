@@ -0,0 +1,88 @@
+/**
+ * Benchmark del JSON de estado: CodecJson (disperso, sin reflexion, buffers
+ * reutilizados y lectura sobre la partida existente) frente a Gson por reflexion
+ */
+package rendimiento;
+
+import com.google.gson.Gson;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import modelo.EstadoPartida;
+import modelo.Partida;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import red.CodecJson;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonBenchmark {
+    private EstadoPartida[] estados;
+    private Partida emisora;
+    private Partida receptora;
+    private CodecJson codec;
+    private String[] mensajes;
+    private Gson gson;
+    private String[] jsons;
+    private EstadoPartida receptor;
+    private int indice;
+    
+    @Setup
+    public void preparar() {
+        List<EstadoPartida> grabados = Escenarios.grabarPartida(7);
+        estados = grabados.toArray(new EstadoPartida[0]);
+        emisora = Escenarios.crearPartida(4);
+        codec = new CodecJson();
+        gson = new Gson();
+        mensajes = new String[estados.length];
+        jsons = new String[estados.length];
+        for (int i = 0; i < estados.length; i++) {
+            ComparativaJson.cargar(emisora, estados[i]);
+            mensajes[i] = codec.codificar(emisora);
+            jsons[i] = gson.toJson(EstadoJson.desde(1, estados[i]));
+        }
+        receptora = new Partida(0);
+        codec.decodificar(mensajes[0], receptora);
+        receptor = new EstadoPartida();
+    }
+    
+    private int siguiente() {
+        indice = indice + 1 < estados.length ? indice + 1 : 0;
+        return indice;
+    }
+    
+    @Benchmark
+    public String codecCodificar() {
+        // La emisora ya tiene los jugadores; solo cambian las fichas
+        emisora.getEstado().copiarDe(estados[siguiente()]);
+        return codec.codificar(emisora);
+    }
+    
+    @Benchmark
+    public int codecDecodificar() {
+        codec.decodificar(mensajes[siguiente()], receptora);
+        return receptora.getEstado().getTurno();
+    }
+    
+    @Benchmark
+    public String gsonCodificar() {
+        return gson.toJson(EstadoJson.desde(1, estados[siguiente()]));
+    }
+    
+    @Benchmark
+    public int gsonDecodificar() {
+        gson.fromJson(jsons[siguiente()], EstadoJson.class).aplicarA(receptor);
+        return receptor.getTurno();
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Benchmark de Jugador.getFichasDisponibles
+ * Jugador con dos fichas en casa, una en juego y una en meta
+ * Compara las listas con las mascaras y los contadores sin reservar memoria
+ */
+package rendimiento;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import modelo.Ficha;
+import modelo.Jugador;
+import modelo.Partida;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JugadorBenchmark {
+    private Jugador jugador;
+    
+    @Setup
+    public void preparar() {
+        Partida partida = Escenarios.crearPartida(2);
+        jugador = partida.getJugadores().get(0);
+        Escenarios.colocar(partida.getTablero(), jugador.getFichas().get(0), 20);
+        Ficha enMeta = jugador.getFichas().get(1);
+        enMeta.setPosicion(partida.getTablero().getCasillaMeta());
+        enMeta.llegarMeta();
+    }
+    
+    @Benchmark
+    public List<Ficha> fichasDisponiblesConCinco() {
+        return jugador.getFichasDisponibles(5);
+    }
+    
+    @Benchmark
+    public List<Ficha> fichasDisponiblesSinCinco() {
+        return jugador.getFichasDisponibles(3);
+    }
+    
+    @Benchmark
+    public int mascaraDisponiblesConCinco() {
+        return jugador.getMascaraDisponibles(5);
+    }
+    
+    @Benchmark
+    public int contarEnJuego() {
+        return jugador.contarEnJuego();
+    }
+    
+    @Benchmark
+    public boolean todasEnMeta() {
+        return jugador.isTodasEnMeta();
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Benchmark de Partida.cambiarTurno y de partidas completas
+ * partidaCompleta se lee directamente como partidas por segundo
+ */
+package rendimiento;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import modelo.Partida;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import simulacion.EstadisticasSimulacion;
+import simulacion.EstrategiaMovimiento;
+import simulacion.SimuladorPartida;
+
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PartidaBenchmark {
+    private Partida partida;
+    private Partida reciclada;
+    private SimuladorPartida simulador;
+    private EstadisticasSimulacion estadisticas;
+    private Random random;
+    
+    @Setup
+    public void preparar() {
+        partida = Escenarios.crearPartida(4);
+        simulador = new SimuladorPartida(EstrategiaMovimiento.ALEATORIA, EstrategiaMovimiento.ALEATORIA,
+                EstrategiaMovimiento.ALEATORIA, EstrategiaMovimiento.ALEATORIA);
+        estadisticas = new EstadisticasSimulacion(4);
+        random = new Random(42);
+        reciclada = simulador.crearPartida(1);
+    }
+    
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object cambiarTurno() {
+        partida.cambiarTurno();
+        return partida.getTurnoActual();
+    }
+    
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int partidaCompleta() {
+        return simulador.jugar(simulador.crearPartida(1), random, estadisticas);
+    }
+    
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int partidaReciclada() {
+        return simulador.jugar(simulador.prepararPartida(reciclada, 1), random, estadisticas);
+    }
+}
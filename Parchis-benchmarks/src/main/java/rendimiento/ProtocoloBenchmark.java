@@ -0,0 +1,84 @@
+/**
+ * Benchmark de codificacion de estado por movimiento
+ * Delta binario sobre un ByteBuffer reutilizado frente a JSON completo con Gson
+ */
+package rendimiento;
+
+import com.google.gson.Gson;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import modelo.EstadoPartida;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import red.ProtocoloBinario;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProtocoloBenchmark {
+    private EstadoPartida[] estados;
+    private ByteBuffer buffer;
+    private EstadoPartida receptor;
+    private Gson gson;
+    private String[] jsons;
+    private int indice;
+    
+    @Setup
+    public void preparar() {
+        List<EstadoPartida> grabados = Escenarios.grabarPartida(7);
+        estados = grabados.toArray(new EstadoPartida[0]);
+        buffer = ByteBuffer.allocateDirect(ProtocoloBinario.TAMANO_KEYFRAME);
+        receptor = new EstadoPartida();
+        gson = new Gson();
+        jsons = new String[estados.length];
+        for (int i = 0; i < estados.length; i++) {
+            jsons[i] = gson.toJson(EstadoJson.desde(1, estados[i]));
+        }
+    }
+    
+    private int siguiente() {
+        indice = indice + 1 < estados.length ? indice + 1 : 1;
+        return indice;
+    }
+    
+    @Benchmark
+    public int deltaIdaYVuelta() {
+        int i = siguiente();
+        buffer.clear();
+        ProtocoloBinario.escribirDelta(buffer, 1, i, estados[i - 1], estados[i]);
+        buffer.flip();
+        receptor.copiarDe(estados[i - 1]);
+        return ProtocoloBinario.leer(buffer, receptor, null);
+    }
+    
+    @Benchmark
+    public int keyframeIdaYVuelta() {
+        int i = siguiente();
+        buffer.clear();
+        ProtocoloBinario.escribirKeyframe(buffer, 1, i, estados[i]);
+        buffer.flip();
+        return ProtocoloBinario.leer(buffer, receptor, null);
+    }
+    
+    @Benchmark
+    public String gsonCodificar() {
+        return gson.toJson(EstadoJson.desde(1, estados[siguiente()]));
+    }
+    
+    @Benchmark
+    public EstadoJson gsonDecodificar() {
+        return gson.fromJson(jsons[siguiente()], EstadoJson.class);
+    }
+}
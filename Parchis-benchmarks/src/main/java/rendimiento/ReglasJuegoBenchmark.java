@@ -0,0 +1,82 @@
+/**
+ * Benchmark de ReglasJuego.aplicar por cada camino de las reglas
+ * Comer ficha, formar barrera y llegar a meta
+ * Cada camino incluye el coste de restaurar el escenario
+ */
+package rendimiento;
+
+import java.util.concurrent.TimeUnit;
+import modelo.Ficha;
+import modelo.Jugador;
+import modelo.Partida;
+import modelo.ReglasJuego;
+import modelo.Tablero;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReglasJuegoBenchmark {
+    private static final int CASILLA_CAPTURA = 10;
+    private static final int CASILLA_BARRERA = 30;
+    
+    private Partida partida;
+    private Tablero tablero;
+    private ReglasJuego reglas;
+    private Jugador atacante;
+    private Ficha fichaAtacante;
+    private Ficha fichaVictima;
+    private Ficha fichaBarrera;
+    private Ficha fichaMeta;
+    
+    @Setup
+    public void preparar() {
+        partida = Escenarios.crearPartida(2);
+        tablero = partida.getTablero();
+        reglas = partida.getReglas();
+        atacante = partida.getJugadores().get(0);
+        
+        fichaAtacante = atacante.getFichas().get(0);
+        fichaVictima = partida.getJugadores().get(1).getFichas().get(0);
+        Escenarios.colocar(tablero, fichaVictima, CASILLA_CAPTURA);
+        Escenarios.colocar(tablero, fichaAtacante, CASILLA_CAPTURA);
+        
+        fichaBarrera = atacante.getFichas().get(1);
+        Escenarios.colocar(tablero, atacante.getFichas().get(2), CASILLA_BARRERA);
+        Escenarios.colocar(tablero, fichaBarrera, CASILLA_BARRERA);
+        
+        fichaMeta = atacante.getFichas().get(3);
+        Escenarios.colocar(tablero, fichaMeta, tablero.getCasillaMeta());
+    }
+    
+    @Benchmark
+    public int capturar() {
+        int premio = reglas.aplicar(atacante, fichaAtacante, tablero, partida);
+        Escenarios.colocar(tablero, fichaVictima, CASILLA_CAPTURA);
+        return premio;
+    }
+    
+    @Benchmark
+    public int barrera() {
+        return reglas.aplicar(atacante, fichaBarrera, tablero, partida);
+    }
+    
+    @Benchmark
+    public int meta() {
+        int premio = reglas.aplicar(atacante, fichaMeta, tablero, partida);
+        Escenarios.colocar(tablero, fichaMeta, tablero.getCasillaMeta());
+        return premio;
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Benchmark de Tablero.moverFicha
+ * Una ficha recorre el tablero y vuelve a su salida al acercarse a la meta
+ */
+package rendimiento;
+
+import java.util.concurrent.TimeUnit;
+import modelo.Casilla;
+import modelo.Ficha;
+import modelo.Partida;
+import modelo.Tablero;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TableroBenchmark {
+    private Tablero tablero;
+    private Ficha ficha;
+    private Casilla ocupada;
+    private Ficha rival;
+    
+    @Setup
+    public void preparar() {
+        Partida partida = Escenarios.crearPartida(4);
+        tablero = partida.getTablero();
+        ficha = partida.getJugadores().get(0).getFichas().get(0);
+        Escenarios.colocar(tablero, ficha, Escenarios.casillaSalida(0));
+        
+        // Rivales repartidos para que las casillas no esten vacias
+        for (int j = 1; j < 4; j++) {
+            Escenarios.colocar(tablero, partida.getJugadores().get(j).getFichas().get(0), 10 + j * 11);
+        }
+        
+        // Casilla con barrera de un jugador y una ficha rival que entra y sale
+        ocupada = tablero.getCasilla(30);
+        Escenarios.colocar(tablero, partida.getJugadores().get(1).getFichas().get(1), 30);
+        Escenarios.colocar(tablero, partida.getJugadores().get(1).getFichas().get(2), 30);
+        rival = partida.getJugadores().get(2).getFichas().get(1);
+    }
+    
+    @Benchmark
+    public int moverFicha() {
+        if (ficha.getPosicion() >= 60) {
+            Escenarios.colocar(tablero, ficha, Escenarios.casillaSalida(0));
+        }
+        tablero.moverFicha(ficha, 3);
+        return ficha.getPosicion();
+    }
+    
+    @Benchmark
+    public boolean barrera() {
+        return ocupada.tieneBarrera();
+    }
+    
+    @Benchmark
+    public boolean ocupadaPorRival() {
+        return ocupada.ocupadaPorRival(rival);
+    }
+    
+    @Benchmark
+    public int entrarYSalir() {
+        ocupada.agregarFicha(rival);
+        int cantidad = ocupada.getCantidad();
+        ocupada.removerFicha(rival);
+        return cantidad;
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Benchmark de plazos de turno: rueda de temporizadores frente a
+ * ScheduledThreadPoolExecutor con 10k partidas vivas
+ * Cada operacion cancela el plazo de una partida y arma el siguiente
+ */
+package rendimiento;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import servidor.RuedaTemporizadores;
+import servidor.RuedaTemporizadores.Temporizador;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TemporizadoresBenchmark {
+    private static final int PARTIDAS = 10_000;
+    private static final long PLAZO = TimeUnit.SECONDS.toNanos(30);
+    
+    private RuedaTemporizadores rueda;
+    private RuedaTemporizadores.Destino destino;
+    private Temporizador[] temporizadores;
+    private long ahora;
+    private ScheduledThreadPoolExecutor ejecutor;
+    private Runnable nada;
+    private ScheduledFuture<?>[] futuros;
+    private int indice;
+    private int operaciones;
+    
+    @Setup
+    public void preparar() {
+        rueda = new RuedaTemporizadores(TimeUnit.MILLISECONDS.toNanos(10), 0);
+        destino = t -> { };
+        temporizadores = new Temporizador[PARTIDAS];
+        ejecutor = new ScheduledThreadPoolExecutor(1);
+        ejecutor.setRemoveOnCancelPolicy(true);
+        nada = () -> { };
+        futuros = new ScheduledFuture<?>[PARTIDAS];
+        for (int i = 0; i < PARTIDAS; i++) {
+            temporizadores[i] = rueda.armar(ahora, PLAZO, destino, i);
+            futuros[i] = ejecutor.schedule(nada, PLAZO, TimeUnit.NANOSECONDS);
+        }
+        rueda.avanzar(ahora);
+    }
+    
+    @TearDown
+    public void cerrar() {
+        ejecutor.shutdownNow();
+    }
+    
+    private int siguiente() {
+        indice = indice + 1 < PARTIDAS ? indice + 1 : 0;
+        return indice;
+    }
+    
+    @Benchmark
+    public Temporizador ruedaCancelarYArmar() {
+        int i = siguiente();
+        temporizadores[i].cancelar();
+        temporizadores[i] = rueda.armar(ahora, PLAZO, destino, i);
+        // El hilo de la rueda: 1 ms simulado cada 1024 operaciones
+        if ((++operaciones & 1023) == 0) {
+            ahora += TimeUnit.MILLISECONDS.toNanos(1);
+            rueda.avanzar(ahora);
+        }
+        return temporizadores[i];
+    }
+    
+    @Benchmark
+    public ScheduledFuture<?> ejecutorCancelarYArmar() {
+        int i = siguiente();
+        futuros[i].cancel(false);
+        futuros[i] = ejecutor.schedule(nada, PLAZO, TimeUnit.NANOSECONDS);
+        return futuros[i];
+    }
+}
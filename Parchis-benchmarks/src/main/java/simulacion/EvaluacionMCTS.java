@@ -0,0 +1,103 @@
+/**
+ * Informe del bot MCTS con presupuestos de 10, 50 y 200 ms por jugada
+ * Mide simulaciones por segundo y la calidad de las decisiones como
+ * victorias del bot frente a 3 bots aleatorios, comparadas con las de
+ * un bot aleatorio en el mismo asiento (el asiento influye mucho)
+ * Con tabla de transposicion informa tambien de aciertos y memoria
+ * Uso: java -cp target/benchmarks.jar simulacion.EvaluacionMCTS [partidas por presupuesto] [--hilos N] [--tabla MB]
+ */
+package simulacion;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import modelo.Partida;
+
+public class EvaluacionMCTS {
+    private static final long[] PRESUPUESTOS_MS = {10, 50, 200};
+    private static final int JUGADORES = 4;
+    private static final int PARTIDAS_REFERENCIA = 200_000;
+    
+    /**
+     * Victorias por asiento con 4 bots aleatorios, jugando sobre JuegoRapido
+     */
+    static double[] referenciaAleatoria(int partidas) {
+        SimuladorPartida simulador = new SimuladorPartida(EstrategiaMovimiento.ALEATORIA,
+                EstrategiaMovimiento.ALEATORIA, EstrategiaMovimiento.ALEATORIA, EstrategiaMovimiento.ALEATORIA);
+        Partida partida = simulador.crearPartida(0);
+        JuegoRapido inicial = new JuegoRapido();
+        inicial.cargar(partida, 0, 0);
+        
+        JuegoRapido juego = new JuegoRapido();
+        SplittableRandom random = new SplittableRandom(7);
+        long[] victorias = new long[JUGADORES];
+        for (int i = 0; i < partidas; i++) {
+            juego.copiarDe(inicial);
+            int ganador = juego.jugarAlAzar(random, BotMCTS.LIMITE_TIRADAS);
+            if (ganador >= 0) {
+                victorias[ganador]++;
+            }
+        }
+        double[] porcentajes = new double[JUGADORES];
+        for (int j = 0; j < JUGADORES; j++) {
+            porcentajes[j] = 100.0 * victorias[j] / partidas;
+        }
+        return porcentajes;
+    }
+    
+    public static void main(String[] args) {
+        int partidas = 20;
+        int hilos = Runtime.getRuntime().availableProcessors();
+        int megabytes = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--hilos") && i + 1 < args.length) {
+                hilos = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--tabla") && i + 1 < args.length) {
+                megabytes = Integer.parseInt(args[++i]);
+            } else {
+                partidas = Integer.parseInt(args[i]);
+            }
+        }
+        
+        double[] referencia = referenciaAleatoria(PARTIDAS_REFERENCIA);
+        System.out.println("=== Bot MCTS (" + hilos + " hilos, perdida virtual " + BotMCTS.PERDIDA_VIRTUAL + ") ===");
+        System.out.printf("Victorias de un bot aleatorio por asiento: %.1f%% %.1f%% %.1f%% %.1f%%%n",
+                referencia[0], referencia[1], referencia[2], referencia[3]);
+        
+        Random random = new Random(11);
+        for (long presupuesto : PRESUPUESTOS_MS) {
+            TablaTransposicion tabla = megabytes > 0 ? new TablaTransposicion(megabytes) : null;
+            try (BotMCTS bot = new BotMCTS(presupuesto, hilos, tabla)) {
+                int victorias = 0;
+                double esperado = 0;
+                long inicio = System.nanoTime();
+                
+                // El bot rota por los asientos, el resto juega al azar
+                for (int p = 0; p < partidas; p++) {
+                    int asiento = p % JUGADORES;
+                    EstrategiaMovimiento[] estrategias = new EstrategiaMovimiento[JUGADORES];
+                    for (int j = 0; j < JUGADORES; j++) {
+                        estrategias[j] = j == asiento ? bot : EstrategiaMovimiento.ALEATORIA;
+                    }
+                    SimuladorPartida simulador = new SimuladorPartida(estrategias);
+                    int ganador = simulador.jugar(simulador.crearPartida(p), random,
+                            new EstadisticasSimulacion(JUGADORES));
+                    if (ganador == asiento) {
+                        victorias++;
+                    }
+                    esperado += referencia[asiento];
+                }
+                
+                double segundos = (System.nanoTime() - inicio) / 1e9;
+                long busquedas = Math.max(1, bot.getBusquedas());
+                System.out.printf("%4d ms: %6.0f simulaciones/s, %7.0f por jugada, victorias %5.1f%% (aleatorio %5.1f%%), %d partidas en %.1f s%n",
+                        presupuesto, bot.getSimulacionesPorSegundo(), (double) bot.getSimulaciones() / busquedas,
+                        100.0 * victorias / partidas, esperado / partidas, partidas, segundos);
+                if (tabla != null) {
+                    System.out.printf("         tabla: %.1f%% aciertos en %d consultas, %d de %d entradas ocupadas, %.1f MB%n",
+                            tabla.getTasaAciertos(), tabla.getConsultas(), tabla.contarOcupadas(),
+                            tabla.getEntradas(), tabla.getBytes() / (1024.0 * 1024.0));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ * Genera la tabla de finales de carrera que lee TablaFinales
+ * Recorre todos los multiconjuntos de 4 distancias a meta (0-MAX_DISTANCIA)
+ * de menos a mas casillas pendientes: despues de un turno siempre quedan
+ * menos, asi cada estado solo consulta estados ya resueltos (memoizacion por
+ * indice). Para cada uno el expectimax de ExpectimaxCarrera da los turnos
+ * esperados y, siguiendo sus decisiones, la distribucion de turnos hasta acabar
+ * 
+ * Uso: java -cp target/benchmarks.jar simulacion.GeneradorFinales [archivo] [premioMeta]
+ * premioMeta por defecto 0, como se juega hoy (ver ExpectimaxCarrera); 10 para
+ * la regla del premio por llegar a meta
+ */
+package simulacion;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class GeneradorFinales {
+    public static final String ARCHIVO_POR_DEFECTO = "finales.bin";
+    
+    private static final int ESTADOS = ExpectimaxCarrera.ESTADOS;
+    private static final int TURNOS = TablaFinales.MAX_TURNOS + 1;
+    
+    private final double[] esperados;
+    // P(acabar justo en t turnos) por estado, TURNOS valores cada uno
+    private final double[] distribuciones;
+    private final double[] fuera;
+    private final ExpectimaxCarrera expectimax;
+    private final int premioMeta;
+    // Estado en curso mientras se sigue su politica
+    private final double[] actual;
+    private double fueraActual;
+    
+    /**
+     * @param premioMeta Casillas de premio al llegar a meta, 0 sin premio
+     */
+    public GeneradorFinales(int premioMeta) {
+        this.premioMeta = premioMeta;
+        this.esperados = new double[ESTADOS];
+        this.distribuciones = new double[ESTADOS * TURNOS];
+        this.fuera = new double[ESTADOS];
+        this.expectimax = new ExpectimaxCarrera(i -> esperados[i], premioMeta);
+        this.actual = new double[TURNOS];
+    }
+    
+    /**
+     * Resuelve todos los estados
+     * @return Estados resueltos
+     */
+    public int resolver() {
+        int maxima = ExpectimaxCarrera.MAX_DISTANCIA;
+        int[] porSuma = new int[ESTADOS];
+        int[] inicioSuma = new int[4 * maxima + 2];
+        
+        // Orden por casillas pendientes (ordenacion por cuentas)
+        for (int pasada = 0; pasada < 2; pasada++) {
+            int[] siguiente = pasada == 1 ? inicioSuma.clone() : null;
+            for (int a = 0; a <= maxima; a++) {
+                for (int b = a; b <= maxima; b++) {
+                    for (int c = b; c <= maxima; c++) {
+                        for (int d = c; d <= maxima; d++) {
+                            int suma = a + b + c + d;
+                            if (pasada == 0) {
+                                inicioSuma[suma + 1]++;
+                            } else {
+                                porSuma[siguiente[suma]++] = ExpectimaxCarrera.ordenar(a, b, c, d);
+                            }
+                        }
+                    }
+                }
+            }
+            if (pasada == 0) {
+                for (int s = 1; s < inicioSuma.length; s++) {
+                    inicioSuma[s] += inicioSuma[s - 1];
+                }
+            }
+        }
+        
+        for (int fichas : porSuma) {
+            resolver(fichas);
+        }
+        return porSuma.length;
+    }
+    
+    private void resolver(int fichas) {
+        int indice = ExpectimaxCarrera.indice(fichas);
+        int base = indice * TURNOS;
+        if (fichas == 0) {
+            distribuciones[base] = 1;
+            return;
+        }
+        esperados[indice] = expectimax.turnos(fichas);
+        
+        Arrays.fill(actual, 0);
+        fueraActual = 0;
+        tirada(fichas, 0, 0, 1);
+        System.arraycopy(actual, 0, distribuciones, base, TURNOS);
+        fuera[indice] = fueraActual;
+    }
+    
+    // ---- Politica: mismo recorrido que ExpectimaxCarrera, con su eleccion ----
+    
+    private void tirada(int fichas, int seises, int ultima, double peso) {
+        double p = peso / 6;
+        for (int v = 1; v <= 6; v++) {
+            if (v == 6 && seises == 2) {
+                if (ultima > 0) {
+                    fueraActual += p;
+                } else {
+                    terminar(fichas, p);
+                }
+            } else {
+                int s = v == 6 ? seises + 1 : seises;
+                mover(fichas, expectimax.elegir(fichas, v, s), v, s, p);
+            }
+        }
+    }
+    
+    private void mover(int fichas, int i, int valorDado, int seises, double peso) {
+        int d = ExpectimaxCarrera.distancia(fichas, i);
+        int nuevas = ExpectimaxCarrera.cambiar(fichas, i, Math.max(0, d - valorDado));
+        if (d > valorDado) {
+            continuar(nuevas, valorDado, seises, d - valorDado, peso);
+        } else if (premioMeta > 0) {
+            premio(nuevas, valorDado, seises, peso);
+        } else {
+            continuar(nuevas, valorDado, seises, 0, peso);
+        }
+    }
+    
+    private void premio(int fichas, int valorDado, int seises, double peso) {
+        if (fichas == 0) {
+            actual[1] += peso;
+            return;
+        }
+        int i = expectimax.elegirPremio(fichas, valorDado, seises);
+        int d = ExpectimaxCarrera.distancia(fichas, i);
+        int nuevas = ExpectimaxCarrera.cambiar(fichas, i, Math.max(0, d - premioMeta));
+        if (d <= premioMeta) {
+            premio(nuevas, valorDado, seises, peso);
+        } else {
+            continuar(nuevas, valorDado, seises, 0, peso);
+        }
+    }
+    
+    private void continuar(int fichas, int valorDado, int seises, int ultima, double peso) {
+        if (fichas == 0) {
+            actual[1] += peso;
+        } else if (valorDado == 6) {
+            tirada(fichas, seises, ultima, peso);
+        } else {
+            terminar(fichas, peso);
+        }
+    }
+    
+    /**
+     * Fin del turno: lo que le falta al estado resultante, un turno despues
+     * La cola mas alla de MAX_TURNOS se acumula en el ultimo
+     */
+    private void terminar(int fichas, double peso) {
+        int indice = ExpectimaxCarrera.indice(fichas);
+        int base = indice * TURNOS;
+        for (int t = 0; t < TURNOS; t++) {
+            double p = distribuciones[base + t];
+            if (p != 0) {
+                actual[Math.min(t + 1, TURNOS - 1)] += peso * p;
+            }
+        }
+        fueraActual += peso * fuera[indice];
+    }
+    
+    // ---- Archivo ----
+    
+    /**
+     * Escribe la tabla en el formato de TablaFinales
+     * @param nanosGeneracion Tiempo de generacion que se guarda en la cabecera
+     */
+    public void escribir(Path archivo, long nanosGeneracion) throws IOException {
+        ByteArrayOutputStream registros = new ByteArrayOutputStream(ESTADOS * 40);
+        DataOutputStream datos = new DataOutputStream(registros);
+        int[] desplazamientos = new int[ESTADOS];
+        int inicioRegistros = TablaFinales.TAMANO_CABECERA + ESTADOS * 4;
+        int[] acumulada = new int[TURNOS];
+        
+        for (int indice = 0; indice < ESTADOS; indice++) {
+            desplazamientos[indice] = inicioRegistros + datos.size();
+            double suma = 0;
+            for (int t = 0; t < TURNOS; t++) {
+                suma += distribuciones[indice * TURNOS + t];
+                acumulada[t] = (int) Math.round(Math.min(1, suma) * TablaFinales.ESCALA);
+            }
+            // Solo el tramo en que la acumulada cambia
+            int primero = 0;
+            while (primero < TURNOS - 1 && acumulada[primero] == 0) {
+                primero++;
+            }
+            int ultimo = TURNOS - 1;
+            while (ultimo > primero && acumulada[ultimo - 1] == acumulada[ultimo]) {
+                ultimo--;
+            }
+            datos.writeFloat((float) esperados[indice]);
+            datos.writeChar((int) Math.round(Math.min(1, fuera[indice]) * TablaFinales.ESCALA));
+            datos.writeByte(primero);
+            datos.writeByte(ultimo - primero + 1);
+            for (int t = primero; t <= ultimo; t++) {
+                datos.writeChar(acumulada[t]);
+            }
+        }
+        
+        try (OutputStream salida = new BufferedOutputStream(Files.newOutputStream(archivo));
+             DataOutputStream cabecera = new DataOutputStream(salida)) {
+            cabecera.writeInt(TablaFinales.MAGIA);
+            cabecera.writeInt(TablaFinales.VERSION);
+            cabecera.writeInt(ExpectimaxCarrera.MAX_DISTANCIA);
+            cabecera.writeInt(ESTADOS);
+            cabecera.writeInt(TablaFinales.MAX_TURNOS);
+            cabecera.writeInt(premioMeta);
+            cabecera.writeLong(nanosGeneracion);
+            for (int desplazamiento : desplazamientos) {
+                cabecera.writeInt(desplazamiento);
+            }
+            registros.writeTo(cabecera);
+        }
+    }
+    
+    /**
+     * Resuelve y escribe la tabla
+     * @return Nanosegundos de generacion (sin contar la escritura)
+     */
+    public static long generar(Path archivo, int premioMeta) throws IOException {
+        GeneradorFinales generador = new GeneradorFinales(premioMeta);
+        long inicio = System.nanoTime();
+        generador.resolver();
+        long nanos = System.nanoTime() - inicio;
+        generador.escribir(archivo, nanos);
+        return nanos;
+    }
+    
+    public double getTurnosEsperados(int indice) { return esperados[indice]; }
+    public double getFuera(int indice) { return fuera[indice]; }
+    
+    public static void main(String[] args) throws IOException {
+        Path archivo = Paths.get(args.length > 0 ? args[0] : ARCHIVO_POR_DEFECTO);
+        int premioMeta = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        long nanos = generar(archivo, premioMeta);
+        System.out.printf("Estados: %d (hasta %d casillas de meta, premio de meta %d)%n",
+                ESTADOS, ExpectimaxCarrera.MAX_DISTANCIA, premioMeta);
+        System.out.printf("Generacion: %.2f s%n", nanos / 1e9);
+        System.out.printf("Archivo: %s, %d bytes (%.1f por estado)%n", archivo, Files.size(archivo),
+                (double) Files.size(archivo) / ESTADOS);
+        
+        // Muestra: las 4 fichas en la salida del jugador 3 (a 11 de meta) y a MAX_DISTANCIA
+        TablaFinales tabla = TablaFinales.abrir(archivo);
+        int[] muestras = {
+                ExpectimaxCarrera.ordenar(11, 11, 11, 11),
+                ExpectimaxCarrera.ordenar(ExpectimaxCarrera.MAX_DISTANCIA, ExpectimaxCarrera.MAX_DISTANCIA,
+                        ExpectimaxCarrera.MAX_DISTANCIA, ExpectimaxCarrera.MAX_DISTANCIA)
+        };
+        for (int fichas : muestras) {
+            int indice = ExpectimaxCarrera.indice(fichas);
+            System.out.printf("  %d-%d-%d-%d: %.2f turnos, P(<=10)=%.4f, fuera=%.5f%n",
+                    ExpectimaxCarrera.distancia(fichas, 0), ExpectimaxCarrera.distancia(fichas, 1),
+                    ExpectimaxCarrera.distancia(fichas, 2), ExpectimaxCarrera.distancia(fichas, 3),
+                    tabla.getTurnosEsperados(indice), tabla.probabilidadAcabar(indice, 10),
+                    tabla.probabilidadFuera(indice));
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Recuento exhaustivo del arbol de juego (perft) sobre JuegoRapido
+ * Cada tirada abre las 6 caras del dado y cada decision todos los movimientos
+ * de GeneradorMovimientos, premios encadenados incluidos. Sirve para fijar
+ * las reglas (un cambio en el generador cambia los totales) y para medirlo
+ * 
+ * Con comprobar activo cada movimiento se aplica tambien sobre el estado
+ * y sus banderas tienen que coincidir con lo que hace EstadoPartida.aplicar,
+ * y la mascara rapida de fichas movibles con la lista completa
+ * Uso: java -cp target/benchmarks.jar simulacion.Perft [tiradas] [tiradasPrevias] [semilla]
+ */
+package simulacion;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import modelo.EstadoPartida;
+import modelo.GeneradorMovimientos;
+import modelo.ListaMovimientos;
+import modelo.Partida;
+
+public class Perft {
+    private final boolean comprobar;
+    // Un juego y una lista por nivel, crecen con los premios encadenados
+    private JuegoRapido[] juegos;
+    private ListaMovimientos[] listas;
+    private final EstadoPartida auxiliar;
+    
+    private long nodos;
+    private long movimientos;
+    private long salidas;
+    private long capturas;
+    private long metas;
+    private long barreras;
+    private long premios;
+    private long errores;
+    
+    /**
+     * @param comprobar Aplica cada movimiento y compara sus banderas con el resultado
+     */
+    public Perft(boolean comprobar) {
+        this.comprobar = comprobar;
+        this.juegos = new JuegoRapido[0];
+        this.listas = new ListaMovimientos[0];
+        this.auxiliar = new EstadoPartida();
+    }
+    
+    /**
+     * Cuenta las hojas del arbol tras un numero de tiradas
+     * @param raiz Punto de partida, no se modifica
+     * @param tiradas Tiradas de profundidad
+     * @return Hojas (partidas terminadas o esperando la tirada siguiente a la ultima)
+     */
+    public long contar(JuegoRapido raiz, int tiradas) {
+        juego(0).copiarDe(raiz);
+        return contar(0, tiradas);
+    }
+    
+    private long contar(int nivel, int tiradas) {
+        JuegoRapido juego = juegos[nivel];
+        nodos++;
+        if (juego.isTerminada() || (juego.necesitaTirada() && tiradas == 0)) {
+            return 1;
+        }
+        
+        JuegoRapido hijo = juego(nivel + 1);
+        long hojas = 0;
+        if (juego.necesitaTirada()) {
+            for (int valor = 1; valor <= 6; valor++) {
+                hijo.copiarDe(juego);
+                hijo.tirar(valor);
+                hojas += contar(nivel + 1, tiradas - 1);
+            }
+            return hojas;
+        }
+        
+        ListaMovimientos lista = listas[nivel];
+        int cantidad = juego.generarMovimientos(lista);
+        // La mascara rapida (sin lista) tiene que dar las mismas fichas
+        if (comprobar && lista.getMascaraFichas() != GeneradorMovimientos.mascara(juego.getEstado(),
+                juego.getJugador(), juego.getValorDado(), juego.getPremioPendiente())) {
+            errores++;
+        }
+        for (int i = 0; i < cantidad; i++) {
+            int movimiento = lista.get(i);
+            anotar(juego, movimiento);
+            hijo.copiarDe(juego);
+            hijo.mover(GeneradorMovimientos.slot(movimiento));
+            hojas += contar(nivel + 1, tiradas);
+        }
+        return hojas;
+    }
+    
+    private JuegoRapido juego(int nivel) {
+        if (nivel >= juegos.length) {
+            int anterior = juegos.length;
+            juegos = Arrays.copyOf(juegos, Math.max(8, anterior * 2));
+            listas = Arrays.copyOf(listas, juegos.length);
+            for (int i = anterior; i < juegos.length; i++) {
+                juegos[i] = new JuegoRapido();
+                listas[i] = new ListaMovimientos();
+            }
+        }
+        return juegos[nivel];
+    }
+    
+    private void anotar(JuegoRapido juego, int movimiento) {
+        movimientos++;
+        if (GeneradorMovimientos.esSalida(movimiento)) salidas++;
+        if (GeneradorMovimientos.esCaptura(movimiento)) capturas++;
+        if (GeneradorMovimientos.llegaAMeta(movimiento)) metas++;
+        if (GeneradorMovimientos.formaBarrera(movimiento)) barreras++;
+        if (GeneradorMovimientos.esPremio(movimiento)) premios++;
+        if (comprobar && !coincide(juego, movimiento)) {
+            errores++;
+        }
+    }
+    
+    /**
+     * Aplica el movimiento sobre una copia del estado y compara destino y banderas
+     */
+    private boolean coincide(JuegoRapido juego, int movimiento) {
+        int slot = GeneradorMovimientos.slot(movimiento);
+        EstadoPartida estado = auxiliar;
+        estado.copiarDe(juego.getEstado());
+        if (GeneradorMovimientos.origen(movimiento) != estado.getPosicion(slot)) {
+            return false;
+        }
+        if (GeneradorMovimientos.esSalida(movimiento)) {
+            estado.sacarFicha(slot);
+        } else {
+            estado.moverFicha(slot, juego.getPremioPendiente() > 0 ? juego.getPremioPendiente() : juego.getValorDado());
+        }
+        int resultado = estado.aplicar(slot);
+        
+        boolean meta = estado.isEnMeta(slot);
+        if (meta != GeneradorMovimientos.llegaAMeta(movimiento)) {
+            return false;
+        }
+        if (meta) {
+            return GeneradorMovimientos.destino(movimiento) == EstadoPartida.CASILLA_META;
+        }
+        return GeneradorMovimientos.destino(movimiento) == estado.getPosicion(slot)
+                && GeneradorMovimientos.esCaptura(movimiento) == (EstadoPartida.fichasCapturadas(resultado) != 0)
+                && GeneradorMovimientos.formaBarrera(movimiento) == EstadoPartida.formoBarrera(resultado);
+    }
+    
+    public void reiniciarContadores() {
+        nodos = 0;
+        movimientos = 0;
+        salidas = 0;
+        capturas = 0;
+        metas = 0;
+        barreras = 0;
+        premios = 0;
+        errores = 0;
+    }
+    
+    public long getNodos() { return nodos; }
+    public long getMovimientos() { return movimientos; }
+    public long getErrores() { return errores; }
+    
+    public static void main(String[] args) {
+        int tiradas = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int previas = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        long semilla = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        
+        // Posicion de medio juego: 4 jugadores y unas tiradas al azar
+        Partida partida = new SimuladorPartida(new EstrategiaMovimiento[4]).crearPartida(1);
+        JuegoRapido raiz = new JuegoRapido();
+        raiz.cargar(partida, 0, 0);
+        raiz.jugarAlAzar(new SplittableRandom(semilla), previas);
+        
+        System.out.println("=== Perft (" + previas + " tiradas previas, semilla " + semilla + ") ===");
+        System.out.printf("%8s %14s %14s %12s %10s %10s %10s %10s %8s %10s%n", "tiradas", "hojas", "movimientos",
+                "salidas", "capturas", "metas", "barreras", "premios", "errores", "Mnodos/s");
+        Perft perft = new Perft(true);
+        for (int t = 1; t <= tiradas; t++) {
+            perft.reiniciarContadores();
+            long inicio = System.nanoTime();
+            long hojas = perft.contar(raiz, t);
+            long nanos = System.nanoTime() - inicio;
+            System.out.printf("%8d %14d %14d %12d %10d %10d %10d %10d %8d %10.2f%n", t, hojas, perft.movimientos,
+                    perft.salidas, perft.capturas, perft.metas, perft.barreras, perft.premios, perft.errores,
+                    perft.nodos / (nanos / 1e3));
+        }
+    }
+}
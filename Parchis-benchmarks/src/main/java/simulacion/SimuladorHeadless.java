@@ -0,0 +1,51 @@
+/**
+ * Modo de simulacion sin interfaz
+ * Uso: java -cp target/benchmarks.jar simulacion.SimuladorHeadless [partidas] [estrategia...] [--hilos N]
+ * Estrategias: primera, aleatoria, adelantada, segura (una por asiento, 2-4)
+ */
+package simulacion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SimuladorHeadless {
+    
+    public static void main(String[] args) {
+        long partidas = 100_000;
+        int hilos = Runtime.getRuntime().availableProcessors();
+        List<EstrategiaMovimiento> estrategias = new ArrayList<>();
+        
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--hilos") && i + 1 < args.length) {
+                hilos = Integer.parseInt(args[++i]);
+            } else if (Character.isDigit(args[i].charAt(0))) {
+                partidas = Long.parseLong(args[i]);
+            } else {
+                EstrategiaMovimiento estrategia = EstrategiaMovimiento.porNombre(args[i]);
+                if (estrategia == null) {
+                    System.err.println("Estrategia desconocida: " + args[i]);
+                    return;
+                }
+                estrategias.add(estrategia);
+            }
+        }
+        
+        // Sin estrategias: 4 bots aleatorios
+        if (estrategias.isEmpty()) {
+            for (int i = 0; i < 4; i++) {
+                estrategias.add(EstrategiaMovimiento.ALEATORIA);
+            }
+        }
+        if (estrategias.size() < 2 || estrategias.size() > 4) {
+            System.err.println("Se necesitan entre 2 y 4 jugadores");
+            return;
+        }
+        
+        SimuladorPartida simulador = new SimuladorPartida(estrategias.toArray(new EstrategiaMovimiento[0]));
+        
+        EstadisticasSimulacion estadisticas = new SimulacionParalela(simulador, hilos).ejecutar(partidas);
+        
+        System.out.println("=== Simulacion Parchis Star (" + hilos + " hilos) ===");
+        System.out.print(estadisticas.resumen());
+    }
+}
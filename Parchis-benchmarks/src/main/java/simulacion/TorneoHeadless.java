@@ -0,0 +1,85 @@
+/**
+ * Torneo de bots sin interfaz
+ * Juega el mismo torneo con 1, 2, 4... hasta todos los nucleos y muestra
+ * el tiempo total y las partidas por segundo de cada uno, y la clasificacion
+ * Uso: java -cp target/benchmarks.jar simulacion.TorneoHeadless [liga|suizo] [estrategia...]
+ *      [--mesa K] [--repeticiones R] [--rondas N]
+ * Estrategias: primera, aleatoria, adelantada, segura (se pueden repetir)
+ */
+package simulacion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TorneoHeadless {
+    
+    public static void main(String[] args) {
+        Torneo.Formato formato = Torneo.Formato.LIGA;
+        int mesa = 2;
+        int repeticiones = 1000;
+        int rondas = 5;
+        List<String> nombres = new ArrayList<>();
+        List<EstrategiaMovimiento> estrategias = new ArrayList<>();
+        
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--mesa") && i + 1 < args.length) {
+                mesa = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--repeticiones") && i + 1 < args.length) {
+                repeticiones = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--rondas") && i + 1 < args.length) {
+                rondas = Integer.parseInt(args[++i]);
+            } else if (args[i].equalsIgnoreCase("liga") || args[i].equalsIgnoreCase("suizo")) {
+                formato = Torneo.Formato.valueOf(args[i].toUpperCase());
+            } else {
+                EstrategiaMovimiento estrategia = EstrategiaMovimiento.porNombre(args[i]);
+                if (estrategia == null) {
+                    System.err.println("Estrategia desconocida: " + args[i]);
+                    return;
+                }
+                nombres.add(args[i] + "#" + (nombres.size() + 1));
+                estrategias.add(estrategia);
+            }
+        }
+        
+        if (estrategias.isEmpty()) {
+            for (String nombre : new String[] {"primera", "aleatoria", "adelantada", "segura"}) {
+                nombres.add(nombre);
+                estrategias.add(EstrategiaMovimiento.porNombre(nombre));
+            }
+        }
+        if (mesa < 2 || mesa > 4 || mesa > estrategias.size()) {
+            System.err.println("La mesa debe ser de 2 a 4 jugadores y no mas que los participantes");
+            return;
+        }
+        
+        String[] arrayNombres = nombres.toArray(new String[0]);
+        EstrategiaMovimiento[] arrayEstrategias = estrategias.toArray(new EstrategiaMovimiento[0]);
+        int nucleos = Runtime.getRuntime().availableProcessors();
+        
+        System.out.println("=== Torneo " + formato.name().toLowerCase() + " (" + estrategias.size()
+                + " participantes, mesas de " + mesa + ") ===");
+        System.out.printf("%6s %10s %12s %10s%n", "hilos", "tiempo (s)", "partidas/s", "escalado");
+        double base = 0;
+        Torneo ultimo = null;
+        for (int hilos = 1; ; hilos = Math.min(hilos * 2, nucleos)) {
+            Torneo torneo = new Torneo(arrayNombres, arrayEstrategias, mesa, repeticiones);
+            AtomicLong terminadas = new AtomicLong();
+            EstadisticasSimulacion estadisticas = torneo.ejecutar(formato, rondas, hilos,
+                    resultado -> terminadas.incrementAndGet());
+            double segundos = estadisticas.getNanos() / 1e9;
+            double porSegundo = terminadas.get() / segundos;
+            if (base == 0) {
+                base = porSegundo;
+            }
+            System.out.printf("%6d %10.2f %12.0f %9.2fx%n", hilos, segundos, porSegundo, porSegundo / base);
+            ultimo = torneo;
+            if (hilos == nucleos) {
+                break;
+            }
+        }
+        
+        System.out.println();
+        System.out.print(ultimo.clasificacion());
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Pruebas de los contadores por jugador que EstadoPartida mantiene en cada cambio
+ * Reproduce partidas grabadas: las mascaras de casa, juego y meta deben
+ * coincidir con las fichas una a una, y los pasos restantes con los de un
+ * estado reconstruido desde las palabras empaquetadas
+ */
+package rendimiento;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import modelo.EstadoPartida;
+import org.junit.jupiter.api.Test;
+
+class ContadoresTest {
+    private static final int PARTIDAS = 100;
+    
+    @Test
+    void contadoresIgualesALasFichas() {
+        EstadoPartida reconstruido = new EstadoPartida();
+        for (int i = 0; i < PARTIDAS; i++) {
+            for (EstadoPartida estado : Escenarios.grabarPartida(i)) {
+                reconstruido.reiniciar();
+                for (int j = 0; j < EstadoPartida.MAX_JUGADORES; j++) {
+                    reconstruido.setPalabraFichas(j, estado.getPalabraFichas(j));
+                }
+                for (int j = 0; j < EstadoPartida.MAX_JUGADORES; j++) {
+                    comprobarMascaras(estado, j);
+                    assertEquals(reconstruido.getPasosRestantes(j), estado.getPasosRestantes(j),
+                            "Pasos del jugador " + j);
+                }
+            }
+        }
+    }
+    
+    private static void comprobarMascaras(EstadoPartida estado, int jugador) {
+        int casa = 0;
+        int meta = 0;
+        int enJuego = 0;
+        for (int i = 0; i < EstadoPartida.FICHAS_POR_JUGADOR; i++) {
+            int slot = jugador * EstadoPartida.FICHAS_POR_JUGADOR + i;
+            if (estado.isEnMeta(slot)) {
+                meta |= 1 << i;
+            } else if (estado.isEnCasa(slot)) {
+                casa |= 1 << i;
+            } else {
+                enJuego |= 1 << i;
+            }
+        }
+        assertEquals(casa, estado.getMascaraCasa(jugador), "Casa del jugador " + jugador);
+        assertEquals(meta, estado.getMascaraMeta(jugador), "Meta del jugador " + jugador);
+        assertEquals(enJuego, estado.getMascaraEnJuego(jugador), "En juego del jugador " + jugador);
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Pruebas del historial de jugadas y de un perft que deshace cada rama
+ * Reproduce partidas grabadas en un historial mas pequeno que la partida:
+ * tras cada deshacer, rehacer o salto al azar el estado debe ser el grabado
+ * (fichas, control, hash y contadores). Despues cuenta el arbol de juego
+ * deshaciendo cada rama y compara con simulacion.Perft, que copia un juego por nivel
+ */
+package rendimiento;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import modelo.EstadoPartida;
+import modelo.GeneradorMovimientos;
+import modelo.HistorialJugadas;
+import modelo.Partida;
+import org.junit.jupiter.api.Test;
+import simulacion.EstrategiaMovimiento;
+import simulacion.JuegoRapido;
+import simulacion.Perft;
+import simulacion.SimuladorPartida;
+
+class HistorialJugadasTest {
+    private static final int CAPACIDAD = 64;
+    private static final int PARTIDAS = 100;
+    private static final int TIRADAS = 3;
+    
+    @Test
+    void deshacerRehacerYSaltarDejanElEstadoGrabado() {
+        SplittableRandom random = new SplittableRandom(3);
+        HistorialJugadas historial = new HistorialJugadas(CAPACIDAD);
+        EstadoPartida estado = new EstadoPartida();
+        for (int i = 0; i < PARTIDAS; i++) {
+            List<EstadoPartida> grabados = Escenarios.grabarPartida(i);
+            historial.vaciar();
+            for (EstadoPartida grabado : grabados) {
+                estado.copiarDe(grabado);
+                historial.registrar(estado, historial.getActual() + 1);
+            }
+            for (int k = 0; k < 200; k++) {
+                int operacion = random.nextInt(4);
+                if (operacion == 0) {
+                    historial.deshacer(estado);
+                } else if (operacion == 1) {
+                    historial.rehacer(estado);
+                } else {
+                    long jugada = historial.getPrimera() - 2
+                            + random.nextLong(historial.getUltima() - historial.getPrimera() + 5);
+                    // Fuera del buffer no se puede, dentro siempre
+                    assertEquals(jugada >= historial.getPrimera() && jugada <= historial.getUltima(),
+                            historial.ir(jugada, estado), "Ir a la jugada " + jugada);
+                }
+                long actual = historial.getActual();
+                assertEquals(actual, historial.getExtra());
+                comprobarIguales(grabados.get((int) actual), estado);
+            }
+            // Registrar tras deshacer corta las jugadas por rehacer
+            if (historial.deshacer(estado)) {
+                historial.registrar(estado, -1);
+                assertFalse(historial.puedeRehacer());
+            }
+        }
+    }
+    
+    @Test
+    void perftDeshaciendoIgualQueCopiando() {
+        Partida partida = new SimuladorPartida(new EstrategiaMovimiento[4]).crearPartida(1);
+        JuegoRapido raiz = new JuegoRapido();
+        raiz.cargar(partida, 0, 0);
+        raiz.jugarAlAzar(new SplittableRandom(1), 60);
+        Perft perft = new Perft(false);
+        for (int t = 1; t <= TIRADAS; t++) {
+            JuegoRapido juego = new JuegoRapido();
+            juego.copiarDe(raiz);
+            assertEquals(perft.contar(raiz, t), contar(juego, new HistorialJugadas(256), t),
+                    "Hojas a " + t + " tiradas");
+            assertEquals(raiz.getClave(), juego.getClave());
+        }
+    }
+    
+    /**
+     * Mismo recorrido que Perft, pero cada rama se deshace con el historial
+     */
+    private static long contar(JuegoRapido juego, HistorialJugadas historial, int tiradas) {
+        if (juego.isTerminada() || (juego.necesitaTirada() && tiradas == 0)) {
+            return 1;
+        }
+        long aqui = juego.registrarEn(historial);
+        long hojas = 0;
+        if (juego.necesitaTirada()) {
+            for (int valor = 1; valor <= 6; valor++) {
+                juego.tirar(valor);
+                hojas += contar(juego, historial, tiradas - 1);
+                juego.irA(historial, aqui);
+            }
+            return hojas;
+        }
+        // La mascara se lee antes de mover; al volver de cada rama el historial deja el juego como estaba
+        int mascara = GeneradorMovimientos.mascara(juego.getEstado(), juego.getJugador(),
+                juego.getValorDado(), juego.getPremioPendiente());
+        int base = juego.getJugador() * EstadoPartida.FICHAS_POR_JUGADOR;
+        for (int m = mascara; m != 0; m &= m - 1) {
+            juego.mover(base + Integer.numberOfTrailingZeros(m));
+            hojas += contar(juego, historial, tiradas);
+            juego.irA(historial, aqui);
+        }
+        return hojas;
+    }
+    
+    private static void comprobarIguales(EstadoPartida esperado, EstadoPartida estado) {
+        for (int j = 0; j < EstadoPartida.MAX_JUGADORES; j++) {
+            assertEquals(esperado.getPalabraFichas(j), estado.getPalabraFichas(j), "Fichas del jugador " + j);
+            assertEquals(esperado.getMascaraCasa(j), estado.getMascaraCasa(j), "Casa del jugador " + j);
+            assertEquals(esperado.getMascaraMeta(j), estado.getMascaraMeta(j), "Meta del jugador " + j);
+            assertEquals(esperado.getPasosRestantes(j), estado.getPasosRestantes(j), "Pasos del jugador " + j);
+        }
+        assertEquals(esperado.getControl(), estado.getControl());
+        assertEquals(esperado.getHash(), estado.getHash());
+        assertEquals(estado.calcularHash(), estado.getHash(), "Hash distinto del calculado desde cero");
+    }
+}
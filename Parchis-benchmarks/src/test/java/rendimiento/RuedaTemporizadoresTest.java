@@ -0,0 +1,99 @@
+/**
+ * Pruebas de la rueda de temporizadores con un reloj simulado
+ * Cada plazo no cancelado debe vencer una sola vez, nunca antes de tiempo y
+ * como mucho un tick tarde si el reloj avanza tick a tick; uno cancelado a
+ * tiempo no debe vencer
+ */
+package rendimiento;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import servidor.RuedaTemporizadores;
+import servidor.RuedaTemporizadores.Temporizador;
+
+class RuedaTemporizadoresTest {
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long PLAZO = TimeUnit.SECONDS.toNanos(30);
+    private static final int PLAZOS = 50_000;
+    
+    /**
+     * Arma plazos de hasta 10 horas (mas que los 4 niveles) y cancela un tercio
+     * mientras el reloj simulado avanza a saltos al azar
+     */
+    @Test
+    void venceUnaVezYNuncaAntes() {
+        SplittableRandom random = new SplittableRandom(7);
+        RuedaTemporizadores rueda = new RuedaTemporizadores(TICK, 0);
+        long[] limite = new long[PLAZOS];
+        long[] vencido = new long[PLAZOS];
+        int[] veces = new int[PLAZOS];
+        boolean[] cancelado = new boolean[PLAZOS];
+        Temporizador[] temporizadores = new Temporizador[PLAZOS];
+        long[] reloj = new long[1];
+        RuedaTemporizadores.Destino destino = t -> {
+            vencido[(int) t.getDato()] = reloj[0];
+            veces[(int) t.getDato()]++;
+        };
+        
+        long maximo = TimeUnit.HOURS.toNanos(10);
+        int armados = 0;
+        while (armados < PLAZOS || rueda.getArmados() > 0) {
+            // Unos cuantos plazos nuevos, la mayoria cortos
+            for (int k = 0; k < 50 && armados < PLAZOS; k++, armados++) {
+                long plazo = random.nextInt(4) == 0 ? random.nextLong(maximo) : random.nextLong(PLAZO);
+                limite[armados] = reloj[0] + plazo;
+                temporizadores[armados] = rueda.armar(reloj[0], plazo, destino, armados);
+            }
+            for (int k = 0; k < 20 && armados > 0; k++) {
+                int i = random.nextInt(armados);
+                if (veces[i] == 0 && !cancelado[i]) {
+                    cancelado[i] = temporizadores[i].cancelar();
+                }
+            }
+            // Pasos cortos mientras se arma y largos al final, para cruzar las vueltas de los niveles
+            long paso = armados < PLAZOS ? random.nextLong(5 * TICK) : random.nextLong(TimeUnit.MINUTES.toNanos(10));
+            reloj[0] += paso;
+            rueda.avanzar(reloj[0]);
+            if (armados == PLAZOS && reloj[0] > 2 * maximo) {
+                break;
+            }
+        }
+        
+        for (int i = 0; i < PLAZOS; i++) {
+            if (cancelado[i]) {
+                assertEquals(0, veces[i], "Plazo cancelado " + i);
+            } else {
+                assertEquals(1, veces[i], "Plazo " + i);
+                assertTrue(vencido[i] >= limite[i], "Plazo " + i + " vencido antes de tiempo");
+            }
+        }
+    }
+    
+    @Test
+    void avanzandoTickATickVenceComoMuchoUnTickTarde() {
+        SplittableRandom random = new SplittableRandom(7);
+        RuedaTemporizadores rueda = new RuedaTemporizadores(TICK, 0);
+        long[] reloj = new long[1];
+        long[] limites = new long[20_000];
+        long[] retrasos = new long[limites.length];
+        RuedaTemporizadores.Destino destino = t -> retrasos[(int) t.getDato()] = reloj[0] - limites[(int) t.getDato()];
+        for (int i = 0; i < limites.length; i++) {
+            limites[i] = random.nextLong(TimeUnit.MINUTES.toNanos(5));
+            rueda.armar(0, limites[i], destino, i);
+        }
+        long vencidos = 0;
+        while (rueda.getArmados() > 0 || reloj[0] == 0) {
+            reloj[0] += TICK;
+            vencidos += rueda.avanzar(reloj[0]);
+        }
+        
+        assertEquals(limites.length, vencidos);
+        for (int i = 0; i < limites.length; i++) {
+            assertTrue(retrasos[i] >= 0 && retrasos[i] < TICK, "Plazo " + i + " con retraso " + retrasos[i]);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Pruebas de la tabla de finales de carrera contra partidas de JuegoRapido
+ * 1. Un jugador solo jugando con mejorFicha: la distribucion de turnos hasta
+ *    acabar tiene que coincidir con la tabla (solo las barreras propias la
+ *    separan del modelo)
+ * 2. Varios jugadores: probabilidadVictoria y sortearGanador frente a carreras
+ *    sueltas de cada jugador
+ */
+package rendimiento;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import modelo.EstadoPartida;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import simulacion.GeneradorFinales;
+import simulacion.JuegoRapido;
+import simulacion.TablaFinales;
+
+class TablaFinalesTest {
+    // Diferencia maxima entre distribuciones (Kolmogorov-Smirnov) sin contar el azar
+    private static final double TOLERANCIA = 0.02;
+    private static final int POSICIONES = 20;
+    private static final int PARTIDAS = 500;
+    
+    @TempDir
+    static Path directorio;
+    private static TablaFinales tabla;
+    
+    @BeforeAll
+    static void generar() throws IOException {
+        Path archivo = directorio.resolve("finales.bin");
+        GeneradorFinales.generar(archivo, 0);
+        tabla = TablaFinales.abrir(archivo);
+    }
+    
+    @Test
+    void turnosDeUnJugadorComoLaTabla() {
+        SplittableRandom random = new SplittableRandom(11);
+        int[] movimientos = new int[JuegoRapido.MAX_MOVIMIENTOS];
+        int[] turnos = new int[TablaFinales.MAX_TURNOS + 1];
+        JuegoRapido juego = new JuegoRapido();
+        for (int p = 0; p < POSICIONES; p++) {
+            JuegoRapido inicial = Escenarios.carrera(1, random);
+            int indice = TablaFinales.indice(inicial.getEstado(), 0);
+            Arrays.fill(turnos, 0);
+            for (int i = 0; i < PARTIDAS; i++) {
+                juego.copiarDe(inicial);
+                int t = jugarSolo(juego, random, movimientos);
+                if (t >= 0) {
+                    turnos[Math.min(t, TablaFinales.MAX_TURNOS)]++;
+                }
+            }
+            
+            double ks = 0;
+            double acumulada = 0;
+            for (int t = 0; t <= TablaFinales.MAX_TURNOS; t++) {
+                acumulada += (double) turnos[t] / PARTIDAS;
+                ks = Math.max(ks, Math.abs(acumulada - tabla.probabilidadAcabar(indice, t)));
+            }
+            // Con n partidas el azar da hasta ~1.63/sqrt(n) (KS al 1%)
+            assertTrue(ks <= TOLERANCIA + 1.63 / Math.sqrt(PARTIDAS), "Posicion " + p + ", KS " + ks);
+        }
+    }
+    
+    @Test
+    void victoriaComoCarrerasSueltas() {
+        SplittableRandom random = new SplittableRandom(11);
+        int[] movimientos = new int[JuegoRapido.MAX_MOVIMIENTOS];
+        JuegoRapido juego = new JuegoRapido();
+        for (int n = 2; n <= EstadoPartida.MAX_JUGADORES; n++) {
+            JuegoRapido[] solos = new JuegoRapido[n];
+            for (int p = 0; p < POSICIONES / 4; p++) {
+                JuegoRapido inicial = Escenarios.carrera(n, random);
+                for (int j = 0; j < n; j++) {
+                    solos[j] = solo(inicial.getEstado(), j);
+                }
+                double esperada = tabla.probabilidadVictoria(inicial.getEstado(), 0);
+                int carreras = 0;
+                int sorteadas = 0;
+                for (int i = 0; i < PARTIDAS; i++) {
+                    // Gana el primero en acabar; empates para el que juega antes
+                    int ganador = -1;
+                    int mejor = Integer.MAX_VALUE;
+                    for (int j = 0; j < n; j++) {
+                        juego.copiarDe(solos[j]);
+                        int t = jugarSolo(juego, random, movimientos);
+                        if (t >= 0 && t < mejor) {
+                            mejor = t;
+                            ganador = j;
+                        }
+                    }
+                    carreras += ganador == 0 ? 1 : 0;
+                    sorteadas += tabla.sortearGanador(inicial.getEstado(), random) == 0 ? 1 : 0;
+                }
+                double margen = TOLERANCIA + 4 * Math.sqrt(esperada * (1 - esperada) / PARTIDAS);
+                String posicion = n + " jugadores, posicion " + p + ", esperada " + esperada;
+                assertTrue(Math.abs((double) carreras / PARTIDAS - esperada) <= margen,
+                        posicion + ", carreras " + carreras);
+                assertTrue(Math.abs((double) sorteadas / PARTIDAS - esperada) <= margen,
+                        posicion + ", sorteo " + sorteadas);
+            }
+        }
+    }
+    
+    /**
+     * Juega el jugador 0 solo hasta meter todas las fichas
+     * @return Turnos usados, -1 si una ficha volvio a casa
+     */
+    private static int jugarSolo(JuegoRapido juego, SplittableRandom random, int[] movimientos) {
+        EstadoPartida estado = juego.getEstado();
+        int turnos = 0;
+        while (!juego.isTerminada()) {
+            turnos++;
+            // Un turno dura mientras salgan 6 (el tercero lo corta y pone el contador a 0)
+            do {
+                juego.tirar(random.nextInt(6) + 1);
+                while (!juego.isTerminada() && !juego.necesitaTirada()) {
+                    juego.mover(elegir(juego, movimientos));
+                }
+                if (estado.getMascaraCasa(0) != 0) {
+                    return -1;
+                }
+            } while (!juego.isTerminada() && estado.getContadorSeis() > 0);
+        }
+        return turnos;
+    }
+    
+    /**
+     * Juego de un solo jugador con las fichas del asiento dado
+     */
+    private static JuegoRapido solo(EstadoPartida origen, int jugador) {
+        JuegoRapido juego = new JuegoRapido();
+        EstadoPartida estado = juego.getEstado();
+        estado.setNumJugadores(1);
+        estado.setTurno(0);
+        for (int k = 0; k < EstadoPartida.FICHAS_POR_JUGADOR; k++) {
+            estado.setFicha(k, origen.getFicha(jugador * EstadoPartida.FICHAS_POR_JUGADOR + k));
+        }
+        return juego;
+    }
+    
+    /**
+     * Ficha de la tabla si se puede mover; si no (fuera de la tabla o bloqueada) la primera
+     */
+    private static int elegir(JuegoRapido juego, int[] movimientos) {
+        int cantidad = juego.movimientos(movimientos);
+        int slot = tabla.mejorFicha(juego.getEstado(), juego.getValorDado(), juego.getPremioPendiente());
+        for (int i = 0; i < cantidad; i++) {
+            if (movimientos[i] == slot) {
+                return slot;
+            }
+        }
+        return movimientos[0];
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Pruebas del hash Zobrist incremental y de la tabla de transposicion
+ * Reproduce partidas grabadas: el hash mantenido en cada cambio debe
+ * coincidir con el calculado desde cero, y dos estados distintos no
+ * deben compartir hash
+ */
+package rendimiento;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import modelo.EstadoPartida;
+import org.junit.jupiter.api.Test;
+import simulacion.TablaTransposicion;
+
+class ZobristTest {
+    private static final int PARTIDAS = 100;
+    
+    @Test
+    void hashIncrementalSinColisiones() {
+        Map<Long, String> vistos = new HashMap<>();
+        for (int i = 0; i < PARTIDAS; i++) {
+            int tirada = 0;
+            for (EstadoPartida estado : Escenarios.grabarPartida(i)) {
+                long hash = estado.getHash();
+                assertEquals(estado.calcularHash(), hash, "Partida " + i + ", tirada " + tirada);
+                
+                String contenido = contenido(estado);
+                String anterior = vistos.putIfAbsent(hash, contenido);
+                if (anterior != null) {
+                    assertEquals(anterior, contenido, "Colision del hash " + Long.toHexString(hash));
+                }
+                tirada++;
+            }
+        }
+    }
+    
+    @Test
+    void laTablaCuentaLasPosicionesRepetidas() {
+        Map<Long, Integer> repeticiones = new HashMap<>();
+        TablaTransposicion tabla = new TablaTransposicion(16);
+        for (int i = 0; i < PARTIDAS; i++) {
+            for (EstadoPartida estado : Escenarios.grabarPartida(i)) {
+                long hash = estado.getHash();
+                repeticiones.merge(hash, 1, Integer::sum);
+                long dato = tabla.buscar(hash);
+                tabla.guardar(hash, TablaTransposicion.visitas(dato) + 1, 0);
+            }
+        }
+        // Muchas menos posiciones que entradas: ninguna se pierde
+        for (Map.Entry<Long, Integer> entrada : repeticiones.entrySet()) {
+            assertEquals(entrada.getValue(), TablaTransposicion.visitas(tabla.buscar(entrada.getKey())));
+        }
+    }
+    
+    private static String contenido(EstadoPartida estado) {
+        StringBuilder sb = new StringBuilder();
+        for (int slot = 0; slot < EstadoPartida.TOTAL_FICHAS; slot++) {
+            if (estado.isEnMeta(slot)) {
+                sb.append('M');
+            } else if (estado.isEnCasa(slot)) {
+                sb.append('C');
+            } else {
+                sb.append(estado.getPosicion(slot));
+            }
+            sb.append(',');
+        }
+        return sb.append(estado.getTurno()).append('/').append(Math.min(3, estado.getContadorSeis())).toString();
+    }
+}
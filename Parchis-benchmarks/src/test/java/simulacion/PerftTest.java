@@ -0,0 +1,51 @@
+/**
+ * Pruebas del recuento perft
+ * Fija los totales de la posicion de medio juego de Perft.main: un cambio en
+ * las reglas o en GeneradorMovimientos los cambia, y con comprobar activo
+ * ningun movimiento puede discrepar de EstadoPartida.aplicar
+ */
+package simulacion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+import modelo.Partida;
+import org.junit.jupiter.api.Test;
+
+class PerftTest {
+    private static final long[] HOJAS = {6, 36, 541, 4871};
+    private static final long[] MOVIMIENTOS = {1, 7, 493, 3259};
+    
+    @Test
+    void totalesDeMedioJuego() {
+        JuegoRapido raiz = medioJuego();
+        Perft perft = new Perft(true);
+        for (int tiradas = 1; tiradas <= HOJAS.length; tiradas++) {
+            perft.reiniciarContadores();
+            assertEquals(HOJAS[tiradas - 1], perft.contar(raiz, tiradas), "Hojas a " + tiradas + " tiradas");
+            assertEquals(MOVIMIENTOS[tiradas - 1], perft.getMovimientos(), "Movimientos a " + tiradas + " tiradas");
+            assertEquals(0, perft.getErrores(), "Errores a " + tiradas + " tiradas");
+        }
+    }
+    
+    @Test
+    void laRaizNoCambia() {
+        JuegoRapido raiz = medioJuego();
+        JuegoRapido copia = new JuegoRapido();
+        copia.copiarDe(raiz);
+        Perft perft = new Perft(false);
+        assertEquals(perft.contar(raiz, 3), perft.contar(raiz, 3));
+        assertEquals(copia.getEstado().getHash(), raiz.getEstado().getHash());
+    }
+    
+    /**
+     * Misma posicion que Perft.main por defecto: 4 jugadores y 60 tiradas al azar con semilla 1
+     */
+    private static JuegoRapido medioJuego() {
+        Partida partida = new SimuladorPartida(new EstrategiaMovimiento[4]).crearPartida(1);
+        JuegoRapido raiz = new JuegoRapido();
+        raiz.cargar(partida, 0, 0);
+        raiz.jugarAlAzar(new SplittableRandom(1), 60);
+        return raiz;
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * Bus de eventos del juego sobre un buffer circular sin bloqueos
+ * Las partidas publican desde cualquier hilo y un hilo de drenado
+ * entrega los eventos a los sumideros fuera del camino critico
+ * Sin sumideros publicar solo cuesta leer un volatile y el hilo de drenado
+ * se queda dormido hasta que se agrega otro
+ */
+package eventos;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public class BusEventos {
+    public static final int CAPACIDAD_POR_DEFECTO = 1 << 16;
+    private static final long ESPERA_VACIO_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    
+    private static final BusEventos GLOBAL = new BusEventos(CAPACIDAD_POR_DEFECTO);
+    
+    private final Evento[] celdas;
+    private final int mascara;
+    private final AtomicLong escritura;
+    private volatile long lectura;
+    private final LongAdder descartados;
+    private final LongAdder fallosSumideros;
+    private final CopyOnWriteArrayList<SumideroEventos> sumideros;
+    private volatile boolean activo;
+    private volatile Thread drenador;
+    
+    /**
+     * Constructor del bus
+     * @param capacidad Numero de celdas, se redondea a potencia de 2
+     */
+    public BusEventos(int capacidad) {
+        int tamano = Integer.highestOneBit(Math.max(2, capacidad - 1)) << 1;
+        this.celdas = new Evento[tamano];
+        for (int i = 0; i < tamano; i++) {
+            celdas[i] = new Evento();
+        }
+        this.mascara = tamano - 1;
+        this.escritura = new AtomicLong();
+        this.descartados = new LongAdder();
+        this.fallosSumideros = new LongAdder();
+        this.sumideros = new CopyOnWriteArrayList<>();
+    }
+    
+    /**
+     * Bus compartido por todas las partidas del proceso
+     */
+    public static BusEventos getGlobal() {
+        return GLOBAL;
+    }
+    
+    /**
+     * Agrega un sumidero y arranca el hilo de drenado si hace falta
+     */
+    public synchronized void agregarSumidero(SumideroEventos sumidero) {
+        sumideros.add(sumidero);
+        activo = true;
+        if (drenador == null) {
+            drenador = new Thread(this::drenarSiempre, "bus-eventos");
+            drenador.setDaemon(true);
+            drenador.start();
+        } else {
+            LockSupport.unpark(drenador);
+        }
+    }
+    
+    /**
+     * Quita un sumidero, sin sumideros el bus deja de aceptar eventos
+     */
+    public synchronized void quitarSumidero(SumideroEventos sumidero) {
+        sumideros.remove(sumidero);
+        activo = !sumideros.isEmpty();
+    }
+    
+    /**
+     * Indica si hay algun sumidero escuchando
+     */
+    public boolean isActivo() {
+        return activo;
+    }
+    
+    // ---- Publicacion ----
+    
+    public void jugadorAgregado(int idPartida, int jugadorId, String nombre, String color) {
+        Evento e = reservar(TipoEvento.JUGADOR_AGREGADO, idPartida, jugadorId, nombre);
+        if (e == null) return;
+        e.detalle = color;
+        publicar(e);
+    }
+    
+    public void inicioPartida(int idPartida, int numJugadores) {
+        Evento e = reservar(TipoEvento.INICIO_PARTIDA, idPartida, 0, null);
+        if (e == null) return;
+        e.valor = numJugadores;
+        publicar(e);
+    }
+    
+    public void cambioTurno(int idPartida, int jugadorAnterior, int jugadorId, String nombre) {
+        Evento e = reservar(TipoEvento.CAMBIO_TURNO, idPartida, jugadorId, nombre);
+        if (e == null) return;
+        e.otroJugadorId = jugadorAnterior;
+        publicar(e);
+    }
+    
+    public void fichaComida(int idPartida, int jugadorId, String nombre, int victimaId, String colorVictima,
+                            int fichaId, int casilla, int premio) {
+        Evento e = reservar(TipoEvento.FICHA_COMIDA, idPartida, jugadorId, nombre);
+        if (e == null) return;
+        e.otroJugadorId = victimaId;
+        e.detalle = colorVictima;
+        e.fichaId = fichaId;
+        e.casilla = casilla;
+        e.valor = premio;
+        publicar(e);
+    }
+    
+    public void barreraFormada(int idPartida, int jugadorId, String nombre, int casilla) {
+        Evento e = reservar(TipoEvento.BARRERA_FORMADA, idPartida, jugadorId, nombre);
+        if (e == null) return;
+        e.casilla = casilla;
+        publicar(e);
+    }
+    
+    public void fichaEnMeta(int idPartida, int jugadorId, String nombre, int fichaId, int premio) {
+        Evento e = reservar(TipoEvento.FICHA_EN_META, idPartida, jugadorId, nombre);
+        if (e == null) return;
+        e.fichaId = fichaId;
+        e.valor = premio;
+        publicar(e);
+    }
+    
+    public void finPartida(int idPartida, int ganadorId, String nombreGanador, int fichasEnMeta) {
+        Evento e = reservar(TipoEvento.FIN_PARTIDA, idPartida, ganadorId, nombreGanador);
+        if (e == null) return;
+        e.valor = fichasEnMeta;
+        publicar(e);
+    }
+    
+    /**
+     * Reserva la siguiente celda libre
+     * @return La celda, o null si no hay sumideros o el buffer esta lleno
+     */
+    private Evento reservar(TipoEvento tipo, int idPartida, int jugadorId, String nombre) {
+        if (!activo) return null;
+        
+        long secuencia;
+        do {
+            secuencia = escritura.get();
+            if (secuencia - lectura >= celdas.length) {
+                // Un consumidor lento nunca frena a las partidas: el evento se pierde
+                descartados.increment();
+                return null;
+            }
+        } while (!escritura.compareAndSet(secuencia, secuencia + 1));
+        
+        Evento e = celdas[(int) secuencia & mascara];
+        e.limpiar();
+        e.tipo = tipo;
+        e.timestamp = System.nanoTime();
+        e.idPartida = idPartida;
+        e.jugadorId = jugadorId;
+        e.nombre = nombre;
+        e.reservada = secuencia;
+        return e;
+    }
+    
+    /**
+     * Hasta este punto la celda guarda una secuencia antigua y el consumidor no la lee
+     */
+    private void publicar(Evento e) {
+        e.publicada = e.reservada;
+    }
+    
+    // ---- Drenado ----
+    
+    /**
+     * Entrega a los sumideros todos los eventos ya publicados
+     * Solo lo llama el hilo de drenado
+     * @return Numero de eventos entregados
+     */
+    private int drenar() {
+        int entregados = 0;
+        long secuencia = lectura;
+        while (true) {
+            Evento e = celdas[(int) secuencia & mascara];
+            if (e.publicada != secuencia) {
+                break;
+            }
+            for (SumideroEventos sumidero : sumideros) {
+                try {
+                    sumidero.recibir(e);
+                } catch (RuntimeException ex) {
+                    // Un sumidero roto no debe parar a los demas; se cuenta y se avisa
+                    // en el primer fallo y luego en cada potencia de 2
+                    fallosSumideros.increment();
+                    long fallos = fallosSumideros.sum();
+                    if (Long.bitCount(fallos) == 1) {
+                        System.err.println("[EVENTOS] Fallo " + fallos + " en sumidero "
+                                + sumidero.getClass().getSimpleName() + ": " + ex);
+                    }
+                }
+            }
+            secuencia++;
+            lectura = secuencia;
+            entregados++;
+        }
+        return entregados;
+    }
+    
+    /**
+     * Sin sumideros duerme hasta que agregarSumidero lo despierta
+     */
+    private void drenarSiempre() {
+        while (true) {
+            if (drenar() == 0) {
+                if (activo) {
+                    LockSupport.parkNanos(ESPERA_VACIO_NANOS);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Espera a que el hilo de drenado entregue lo publicado hasta ahora
+     * Util al cerrar el proceso o al final de una simulacion
+     * @param maximoMillis Tiempo maximo de espera
+     * @return true si se vacio a tiempo
+     */
+    public boolean esperarVaciado(long maximoMillis) {
+        long objetivo = escritura.get();
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maximoMillis);
+        while (lectura < objetivo) {
+            if (drenador == null || System.nanoTime() > limite) {
+                return false;
+            }
+            LockSupport.parkNanos(ESPERA_VACIO_NANOS);
+        }
+        return true;
+    }
+    
+    /**
+     * Eventos perdidos porque el buffer estaba lleno
+     */
+    public long getDescartados() {
+        return descartados.sum();
+    }
+    
+    /**
+     * Excepciones lanzadas por los sumideros al recibir eventos
+     */
+    public long getFallosSumideros() {
+        return fallosSumideros.sum();
+    }
+    
+    public int getCapacidad() { return celdas.length; }
+}
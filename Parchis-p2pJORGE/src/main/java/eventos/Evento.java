@@ -0,0 +1,53 @@
+/**
+ * Evento del juego guardado en una celda del bus
+ * Las celdas se reutilizan: un sumidero no debe guardar la referencia,
+ * debe copiar lo que necesite dentro de recibir
+ */
+package eventos;
+
+public final class Evento {
+    // Secuencia publicada en esta celda, la escribe el productor al terminar
+    volatile long publicada = -1;
+    // Secuencia reservada por el productor que esta rellenando la celda
+    long reservada;
+    
+    TipoEvento tipo;
+    long timestamp;
+    int idPartida;
+    int jugadorId;
+    String nombre;
+    int otroJugadorId;
+    String detalle;
+    int fichaId;
+    int casilla;
+    int valor;
+    
+    Evento() {
+    }
+    
+    void limpiar() {
+        nombre = null;
+        detalle = null;
+        otroJugadorId = 0;
+        fichaId = 0;
+        casilla = -1;
+        valor = 0;
+    }
+    
+    // jugadorId: quien provoca el evento o recibe el turno
+    // otroJugadorId: jugador anterior en CAMBIO_TURNO, victima en FICHA_COMIDA
+    // detalle: color de la ficha comida en FICHA_COMIDA
+    // valor: premio en FICHA_COMIDA y FICHA_EN_META, fichas en meta en FIN_PARTIDA,
+    //        jugadores en INICIO_PARTIDA
+    // timestamp: System.nanoTime al publicar
+    public TipoEvento getTipo() { return tipo; }
+    public long getTimestamp() { return timestamp; }
+    public int getIdPartida() { return idPartida; }
+    public int getJugadorId() { return jugadorId; }
+    public String getNombre() { return nombre; }
+    public int getOtroJugadorId() { return otroJugadorId; }
+    public String getDetalle() { return detalle; }
+    public int getFichaId() { return fichaId; }
+    public int getCasilla() { return casilla; }
+    public int getValor() { return valor; }
+}
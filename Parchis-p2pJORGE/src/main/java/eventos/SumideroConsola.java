@@ -0,0 +1,56 @@
+/**
+ * Sumidero que escribe los eventos en consola
+ * Mantiene los mensajes que antes imprimia el modelo directamente
+ */
+package eventos;
+
+import java.io.PrintStream;
+
+public class SumideroConsola implements SumideroEventos {
+    private final PrintStream salida;
+    
+    public SumideroConsola() {
+        this(System.out);
+    }
+    
+    public SumideroConsola(PrintStream salida) {
+        this.salida = salida;
+    }
+    
+    @Override
+    public void recibir(Evento e) {
+        switch (e.getTipo()) {
+            case JUGADOR_AGREGADO:
+                salida.println("Jugador " + e.getNombre() + " agregado (ID: " + e.getJugadorId() + ")");
+                break;
+            case INICIO_PARTIDA:
+                salida.println("\n=== Iniciando Partida de Parchis Star ===");
+                salida.println("Partida " + e.getIdPartida() + " con " + e.getValor() + " jugadores");
+                break;
+            case CAMBIO_TURNO:
+                salida.println("[JUEGO] Turno cambiado al Jugador " + e.getJugadorId() +
+                             " (" + e.getNombre() + ")");
+                break;
+            case FICHA_COMIDA:
+                salida.println("\nFICHA COMIDA! " + e.getNombre() + " come ficha " + e.getDetalle());
+                salida.println("PREMIO: +" + e.getValor() + " casillas para avanzar con otra ficha");
+                break;
+            case BARRERA_FORMADA:
+                salida.println("BARRERA FORMADA en casilla " + e.getCasilla());
+                break;
+            case FICHA_EN_META:
+                salida.println("FICHA EN META! +" + e.getValor() + " casillas de premio");
+                break;
+            case FIN_PARTIDA:
+                salida.println("\n============================================");
+                salida.println("|        PARTIDA FINALIZADA                |");
+                salida.println("============================================");
+                if (e.getJugadorId() != 0) {
+                    salida.println("\n¡GANADOR: " + e.getNombre() + "!");
+                }
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * Sumidero de metricas: cuenta eventos por tipo
+ * Solo escribe el hilo de drenado, cualquiera puede leer
+ */
+package eventos;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class SumideroContadores implements SumideroEventos {
+    private static final TipoEvento[] TIPOS = TipoEvento.values();
+    
+    private final AtomicLongArray contadores = new AtomicLongArray(TIPOS.length);
+    
+    @Override
+    public void recibir(Evento e) {
+        int i = e.getTipo().ordinal();
+        // Un unico escritor: basta con una escritura ordenada
+        contadores.lazySet(i, contadores.get(i) + 1);
+    }
+    
+    public long getContador(TipoEvento tipo) {
+        return contadores.get(tipo.ordinal());
+    }
+    
+    /**
+     * Contadores en formato texto, una linea por tipo
+     */
+    public String resumen() {
+        StringBuilder sb = new StringBuilder();
+        for (TipoEvento tipo : TIPOS) {
+            sb.append(tipo.name().toLowerCase()).append(' ').append(getContador(tipo)).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * Consumidor de eventos del bus (log, metricas, red...)
+ * Se llama siempre desde el hilo de drenado del bus, nunca desde una partida
+ */
+package eventos;
+
+public interface SumideroEventos {
+    
+    /**
+     * Recibe un evento
+     * La celda se reutiliza despues, hay que copiar lo que se quiera guardar
+     * @param evento Evento publicado
+     */
+    void recibir(Evento evento);
+}
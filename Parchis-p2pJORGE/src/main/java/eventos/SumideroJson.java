@@ -0,0 +1,64 @@
+/**
+ * Sumidero de red: convierte cada evento en una linea JSON
+ * y la entrega a un consumidor, por ejemplo conexion::send o un broadcast
+ */
+package eventos;
+
+import java.util.function.Consumer;
+
+public class SumideroJson implements SumideroEventos {
+    private final Consumer<String> destino;
+    private final StringBuilder buffer = new StringBuilder(256);
+    
+    /**
+     * @param destino Recibe el JSON de cada evento
+     */
+    public SumideroJson(Consumer<String> destino) {
+        this.destino = destino;
+    }
+    
+    @Override
+    public void recibir(Evento e) {
+        buffer.setLength(0);
+        buffer.append("{\"tipo\":\"").append(e.getTipo().name())
+              .append("\",\"idPartida\":").append(e.getIdPartida())
+              .append(",\"jugadorId\":").append(e.getJugadorId());
+        if (e.getNombre() != null) {
+            buffer.append(",\"jugador\":\"");
+            escapar(e.getNombre());
+            buffer.append('"');
+        }
+        if (e.getOtroJugadorId() != 0) {
+            buffer.append(",\"otroJugadorId\":").append(e.getOtroJugadorId());
+        }
+        if (e.getDetalle() != null) {
+            buffer.append(",\"detalle\":\"");
+            escapar(e.getDetalle());
+            buffer.append('"');
+        }
+        if (e.getFichaId() != 0) {
+            buffer.append(",\"fichaId\":").append(e.getFichaId());
+        }
+        if (e.getCasilla() >= 0) {
+            buffer.append(",\"casilla\":").append(e.getCasilla());
+        }
+        if (e.getValor() != 0) {
+            buffer.append(",\"valor\":").append(e.getValor());
+        }
+        buffer.append('}');
+        destino.accept(buffer.toString());
+    }
+    
+    private void escapar(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer.append('\\').append(c);
+            } else if (c < 0x20) {
+                buffer.append(String.format("\\u%04x", (int) c));
+            } else {
+                buffer.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * Tipos de evento que publica el motor del juego
+ * Los nombres siguen los del registro de partida
+ */
+package eventos;
+
+public enum TipoEvento {
+    JUGADOR_AGREGADO,
+    INICIO_PARTIDA,
+    CAMBIO_TURNO,
+    FICHA_COMIDA,
+    BARRERA_FORMADA,
+    FICHA_EN_META,
+    FIN_PARTIDA
+}
@@ -0,0 +1,127 @@
+/**
+ * Histograma de latencias con cubetas log-lineales (estilo HDR)
+ * Cada potencia de 2 se divide en 16 cubetas, error relativo menor al 7%
+ * Se puede registrar desde varios hilos sin bloqueos ni reservas de memoria
+ * Las cuentas se reparten en franjas por hilo para no competir por la misma
+ * linea de cache, y se suman al leer
+ */
+package metricas;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class HistogramaLatencia {
+    private static final int SUBCUBETAS_BITS = 4;
+    private static final int SUBCUBETAS = 1 << SUBCUBETAS_BITS;
+    private static final int CUBETAS = (64 - SUBCUBETAS_BITS + 1) * SUBCUBETAS;
+    
+    private final AtomicLongArray[] franjas;
+    private final int mascaraFranjas;
+    
+    /**
+     * Constructor con una franja por nucleo (redondeado a potencia de 2)
+     */
+    public HistogramaLatencia() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Constructor
+     * @param franjas Numero de franjas, se redondea a la potencia de 2 siguiente
+     */
+    public HistogramaLatencia(int franjas) {
+        int n = Integer.highestOneBit(Math.max(1, franjas - 1) << 1);
+        this.franjas = new AtomicLongArray[n];
+        for (int i = 0; i < n; i++) {
+            this.franjas[i] = new AtomicLongArray(CUBETAS);
+        }
+        this.mascaraFranjas = n - 1;
+    }
+    
+    /**
+     * Registra una medida
+     * @param valor Latencia en nanosegundos (u otra unidad, siempre la misma)
+     */
+    public void registrar(long valor) {
+        franja().incrementAndGet(indice(Math.max(0, valor)));
+    }
+    
+    private AtomicLongArray franja() {
+        if (mascaraFranjas == 0) {
+            return franjas[0];
+        }
+        long id = Thread.currentThread().threadId();
+        return franjas[(int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & mascaraFranjas];
+    }
+    
+    private static int indice(long valor) {
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor) - SUBCUBETAS_BITS;
+        int sub = (int) (valor >>> exponente) - SUBCUBETAS;
+        return (exponente + 1) * SUBCUBETAS + sub;
+    }
+    
+    // Limite superior del rango de la cubeta
+    private static long valorDe(int indice) {
+        if (indice < SUBCUBETAS) {
+            return indice;
+        }
+        int exponente = indice / SUBCUBETAS - 1;
+        long sub = indice % SUBCUBETAS;
+        return ((SUBCUBETAS + sub + 1) << exponente) - 1;
+    }
+    
+    private long cuenta(int indice) {
+        long total = 0;
+        for (AtomicLongArray franja : franjas) {
+            total += franja.get(indice);
+        }
+        return total;
+    }
+    
+    public long getTotal() {
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            total += cuenta(i);
+        }
+        return total;
+    }
+    
+    /**
+     * Valor del percentil indicado
+     * @param percentil Entre 0 y 100, por ejemplo 99.9
+     */
+    public long percentil(double percentil) {
+        long total = getTotal();
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(total * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += cuenta(i);
+            if (acumulado >= objetivo) {
+                return valorDe(i);
+            }
+        }
+        return valorDe(CUBETAS - 1);
+    }
+    
+    /**
+     * Suma las cuentas de otro histograma a este
+     */
+    public void sumar(HistogramaLatencia otro) {
+        for (int i = 0; i < CUBETAS; i++) {
+            franjas[0].addAndGet(i, otro.cuenta(i));
+        }
+    }
+    
+    public void reiniciar() {
+        for (AtomicLongArray franja : franjas) {
+            for (int i = 0; i < CUBETAS; i++) {
+                franja.set(i, 0);
+            }
+        }
+    }
+}
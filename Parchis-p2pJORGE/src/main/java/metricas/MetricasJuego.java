@@ -0,0 +1,226 @@
+/**
+ * Metricas del motor de juego: contadores y latencias de los caminos calientes
+ * ReglasJuego.aplicar, Tablero.moverFicha, Partida.cambiarTurno y Dado.lanzar
+ * Los contadores son LongAdder (repartidos por hilo) y los histogramas usan
+ * franjas, asi medir no reserva memoria ni se convierte en el cuello de botella
+ * Los tiempos se toman por muestreo (1 de cada MUESTREO llamadas): nanoTime
+ * en cada llamada costaba casi la mitad del rendimiento del simulador
+ * Con -Dparchis.metricas.tiempos=false no se mide ningun tiempo
+ * Se publica por JMX y como texto en ServidorMetricas
+ */
+package metricas;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class MetricasJuego implements MetricasJuegoMBean {
+    public static final String NOMBRE_JMX = "parchis:type=MetricasJuego";
+    // Potencia de 2: se mide el tiempo de una de cada MUESTREO llamadas
+    public static final int MUESTREO = 16;
+    
+    private static final MetricasJuego GLOBAL = new MetricasJuego();
+    
+    private final LongAdder movimientos = new LongAdder();
+    private final LongAdder capturas = new LongAdder();
+    private final LongAdder barreras = new LongAdder();
+    private final LongAdder fichasEnMeta = new LongAdder();
+    private final LongAdder tresSeis = new LongAdder();
+    private final LongAdder tiradas = new LongAdder();
+    private final LongAdder cambiosTurno = new LongAdder();
+    private final LongAdder partidasActivas = new LongAdder();
+    private final LongAdder partidasIniciadas = new LongAdder();
+    private final LongAdder partidasTerminadas = new LongAdder();
+    
+    private final HistogramaLatencia aplicar = new HistogramaLatencia();
+    private final HistogramaLatencia moverFicha = new HistogramaLatencia();
+    private final HistogramaLatencia cambiarTurno = new HistogramaLatencia();
+    private final HistogramaLatencia lanzarDado = new HistogramaLatencia();
+    
+    private volatile boolean medirTiempos = Boolean.parseBoolean(System.getProperty("parchis.metricas.tiempos", "true"));
+    
+    /**
+     * Metricas compartidas por todas las partidas del proceso
+     */
+    public static MetricasJuego getGlobal() {
+        return GLOBAL;
+    }
+    
+    /**
+     * Registra las metricas globales en el servidor JMX de la plataforma
+     * Si ya estaban registradas no hace nada
+     */
+    public static void registrarJmx() {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nombre = new ObjectName(NOMBRE_JMX);
+            if (!servidor.isRegistered(nombre)) {
+                servidor.registerMBean(GLOBAL, nombre);
+            }
+        } catch (JMException e) {
+            System.err.println("[METRICAS] No se pudo registrar en JMX: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Marca de inicio de una medida
+     * @return System.nanoTime, o 0 si esta llamada no entra en la muestra
+     */
+    public long inicio() {
+        if (!medirTiempos || (ThreadLocalRandom.current().nextInt() & (MUESTREO - 1)) != 0) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+    
+    private static void medir(HistogramaLatencia histograma, long inicio) {
+        if (inicio != 0) {
+            histograma.registrar(System.nanoTime() - inicio);
+        }
+    }
+    
+    // ---- Registro desde el modelo ----
+    
+    /**
+     * Resultado de ReglasJuego.aplicar
+     * @param inicio Marca de inicio()
+     * @param comidas Fichas comidas en el movimiento
+     */
+    public void registrarAplicar(long inicio, int comidas, boolean barrera, boolean meta) {
+        medir(aplicar, inicio);
+        if (comidas > 0) {
+            capturas.add(comidas);
+        }
+        if (barrera) {
+            barreras.increment();
+        }
+        if (meta) {
+            fichasEnMeta.increment();
+        }
+    }
+    
+    /**
+     * Movimiento de Tablero.moverFicha o sacarFicha
+     * @param inicio Marca de inicio(), 0 para no medir tiempo
+     * @param meta true si la ficha llego a meta con este movimiento
+     */
+    public void registrarMovimiento(long inicio, boolean meta) {
+        medir(moverFicha, inicio);
+        movimientos.increment();
+        if (meta) {
+            fichasEnMeta.increment();
+        }
+    }
+    
+    public void registrarCambioTurno(long inicio) {
+        medir(cambiarTurno, inicio);
+        cambiosTurno.increment();
+    }
+    
+    public void registrarTirada(long inicio) {
+        medir(lanzarDado, inicio);
+        tiradas.increment();
+    }
+    
+    public void registrarTresSeis() {
+        tresSeis.increment();
+    }
+    
+    public void partidaIniciada() {
+        partidasIniciadas.increment();
+        partidasActivas.increment();
+    }
+    
+    public void partidaTerminada() {
+        partidasTerminadas.increment();
+        partidasActivas.decrement();
+    }
+    
+    // ---- Lectura ----
+    
+    /**
+     * Texto con todas las metricas, una por linea (formato de Prometheus)
+     */
+    public String exportarTexto() {
+        StringBuilder sb = new StringBuilder(2048);
+        contador(sb, "parchis_movimientos_total", "Fichas movidas", getMovimientos());
+        contador(sb, "parchis_capturas_total", "Fichas comidas", getCapturas());
+        contador(sb, "parchis_barreras_total", "Barreras formadas", getBarreras());
+        contador(sb, "parchis_fichas_meta_total", "Fichas llegadas a meta", getFichasEnMeta());
+        contador(sb, "parchis_tres_seis_total", "Penalizaciones por tres 6", getTresSeis());
+        contador(sb, "parchis_tiradas_total", "Tiradas de dado", getTiradas());
+        contador(sb, "parchis_cambios_turno_total", "Cambios de turno", getCambiosTurno());
+        contador(sb, "parchis_partidas_iniciadas_total", "Partidas iniciadas", getPartidasIniciadas());
+        contador(sb, "parchis_partidas_terminadas_total", "Partidas terminadas", getPartidasTerminadas());
+        sb.append("# HELP parchis_partidas_activas Partidas en curso\n");
+        sb.append("# TYPE parchis_partidas_activas gauge\n");
+        sb.append("parchis_partidas_activas ").append(getPartidasActivas()).append('\n');
+        latencia(sb, "parchis_aplicar_nanos", "ReglasJuego.aplicar", aplicar);
+        latencia(sb, "parchis_mover_ficha_nanos", "Tablero.moverFicha", moverFicha);
+        latencia(sb, "parchis_cambiar_turno_nanos", "Partida.cambiarTurno", cambiarTurno);
+        latencia(sb, "parchis_lanzar_dado_nanos", "Dado.lanzar", lanzarDado);
+        return sb.toString();
+    }
+    
+    private static void contador(StringBuilder sb, String nombre, String ayuda, long valor) {
+        sb.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n');
+        sb.append("# TYPE ").append(nombre).append(" counter\n");
+        sb.append(nombre).append(' ').append(valor).append('\n');
+    }
+    
+    private static void latencia(StringBuilder sb, String nombre, String ayuda, HistogramaLatencia h) {
+        sb.append("# HELP ").append(nombre).append(" Latencia de ").append(ayuda).append('\n');
+        sb.append("# TYPE ").append(nombre).append(" summary\n");
+        sb.append(nombre).append("{quantile=\"0.5\"} ").append(h.percentil(50)).append('\n');
+        sb.append(nombre).append("{quantile=\"0.99\"} ").append(h.percentil(99)).append('\n');
+        sb.append(nombre).append("{quantile=\"0.999\"} ").append(h.percentil(99.9)).append('\n');
+        sb.append(nombre).append("_count ").append(h.getTotal()).append('\n');
+    }
+    
+    @Override
+    public void reiniciar() {
+        movimientos.reset();
+        capturas.reset();
+        barreras.reset();
+        fichasEnMeta.reset();
+        tresSeis.reset();
+        tiradas.reset();
+        cambiosTurno.reset();
+        partidasIniciadas.reset();
+        partidasTerminadas.reset();
+        aplicar.reiniciar();
+        moverFicha.reiniciar();
+        cambiarTurno.reiniciar();
+        lanzarDado.reiniciar();
+    }
+    
+    @Override public long getMovimientos() { return movimientos.sum(); }
+    @Override public long getCapturas() { return capturas.sum(); }
+    @Override public long getBarreras() { return barreras.sum(); }
+    @Override public long getFichasEnMeta() { return fichasEnMeta.sum(); }
+    @Override public long getTresSeis() { return tresSeis.sum(); }
+    @Override public long getTiradas() { return tiradas.sum(); }
+    @Override public long getCambiosTurno() { return cambiosTurno.sum(); }
+    @Override public long getPartidasActivas() { return partidasActivas.sum(); }
+    @Override public long getPartidasIniciadas() { return partidasIniciadas.sum(); }
+    @Override public long getPartidasTerminadas() { return partidasTerminadas.sum(); }
+    @Override public long getAplicarP50() { return aplicar.percentil(50); }
+    @Override public long getAplicarP99() { return aplicar.percentil(99); }
+    @Override public long getAplicarP999() { return aplicar.percentil(99.9); }
+    @Override public long getMoverFichaP50() { return moverFicha.percentil(50); }
+    @Override public long getMoverFichaP99() { return moverFicha.percentil(99); }
+    @Override public long getMoverFichaP999() { return moverFicha.percentil(99.9); }
+    @Override public long getCambiarTurnoP50() { return cambiarTurno.percentil(50); }
+    @Override public long getCambiarTurnoP99() { return cambiarTurno.percentil(99); }
+    @Override public long getLanzarDadoP50() { return lanzarDado.percentil(50); }
+    @Override public long getLanzarDadoP99() { return lanzarDado.percentil(99); }
+    @Override public boolean isMedirTiempos() { return medirTiempos; }
+    @Override public void setMedirTiempos(boolean medirTiempos) { this.medirTiempos = medirTiempos; }
+    public HistogramaLatencia getHistogramaAplicar() { return aplicar; }
+    public HistogramaLatencia getHistogramaMoverFicha() { return moverFicha; }
+    public HistogramaLatencia getHistogramaCambiarTurno() { return cambiarTurno; }
+    public HistogramaLatencia getHistogramaLanzarDado() { return lanzarDado; }
+}
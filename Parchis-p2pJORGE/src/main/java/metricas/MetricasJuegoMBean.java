@@ -0,0 +1,37 @@
+/**
+ * Interfaz JMX de las metricas del motor de juego
+ * Los tiempos se dan en nanosegundos
+ */
+package metricas;
+
+public interface MetricasJuegoMBean {
+    long getMovimientos();
+    long getCapturas();
+    long getBarreras();
+    long getFichasEnMeta();
+    long getTresSeis();
+    long getTiradas();
+    long getCambiosTurno();
+    long getPartidasActivas();
+    long getPartidasIniciadas();
+    long getPartidasTerminadas();
+    
+    long getAplicarP50();
+    long getAplicarP99();
+    long getAplicarP999();
+    long getMoverFichaP50();
+    long getMoverFichaP99();
+    long getMoverFichaP999();
+    long getCambiarTurnoP50();
+    long getCambiarTurnoP99();
+    long getLanzarDadoP50();
+    long getLanzarDadoP99();
+    
+    boolean isMedirTiempos();
+    void setMedirTiempos(boolean medirTiempos);
+    
+    /**
+     * Pone a cero contadores e histogramas (no las partidas activas)
+     */
+    void reiniciar();
+}
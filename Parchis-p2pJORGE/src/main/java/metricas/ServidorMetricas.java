@@ -0,0 +1,75 @@
+/**
+ * Endpoint HTTP de solo lectura con las metricas en texto
+ * GET /metricas devuelve MetricasJuego.exportarTexto
+ */
+package metricas;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+public class ServidorMetricas implements AutoCloseable {
+    public static final int PUERTO_POR_DEFECTO = 9464;
+    public static final String PROPIEDAD_PUERTO = "parchis.metricas.puerto";
+    public static final String RUTA = "/metricas";
+    
+    private final HttpServer servidor;
+    private final MetricasJuego metricas;
+    
+    /**
+     * Arranca el endpoint en un hilo propio
+     * @param puerto Puerto HTTP
+     * @param metricas Metricas a publicar
+     */
+    public ServidorMetricas(int puerto, MetricasJuego metricas) throws IOException {
+        this.metricas = metricas;
+        this.servidor = HttpServer.create(new InetSocketAddress(puerto), 0);
+        this.servidor.createContext(RUTA, this::responder);
+        this.servidor.start();
+    }
+    
+    /**
+     * Arranca el endpoint en el puerto de la propiedad parchis.metricas.puerto (9464 si no esta)
+     * Con 0 u off no se abre; si el puerto esta ocupado (otro nodo en la misma maquina)
+     * se avisa y se sigue sin endpoint, las metricas siguen en JMX
+     * @param metricas Metricas a publicar
+     * @return El endpoint, o null si no se abrio
+     */
+    public static ServidorMetricas arrancar(MetricasJuego metricas) {
+        String puerto = System.getProperty(PROPIEDAD_PUERTO, String.valueOf(PUERTO_POR_DEFECTO)).trim();
+        if (puerto.equals("0") || puerto.equalsIgnoreCase("off")) {
+            return null;
+        }
+        try {
+            return new ServidorMetricas(Integer.parseInt(puerto), metricas);
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("[METRICAS] No se pudo abrir el endpoint en el puerto " + puerto + ": " + e);
+            return null;
+        }
+    }
+    
+    private void responder(HttpExchange intercambio) throws IOException {
+        try (intercambio) {
+            if (!"GET".equals(intercambio.getRequestMethod())) {
+                intercambio.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] cuerpo = metricas.exportarTexto().getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            intercambio.sendResponseHeaders(200, cuerpo.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(cuerpo);
+            }
+        }
+    }
+    
+    public int getPuerto() { return servidor.getAddress().getPort(); }
+    
+    @Override
+    public void close() {
+        servidor.stop(0);
+    }
+}
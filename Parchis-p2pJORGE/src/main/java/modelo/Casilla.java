@@ -4,14 +4,24 @@
  */
 package modelo;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Casilla {
+    // Como mucho caben todas las fichas de una partida
+    private static final int CAPACIDAD = EstadoPartida.TOTAL_FICHAS;
+    
     private int numeroCasilla;
     private String tipo;
     private boolean esSegura;
-    private List<Ficha> fichas;
+    // Ocupantes en orden de llegada y el codigo de color de cada uno
+    private Ficha[] ocupantes;
+    private byte[] colores;
+    private int cantidad;
+    // Numero de fichas de cada codigo de color
+    private final byte[] porColor;
+    private final List<Ficha> fichas;
     
     /**
      * Constructor de casilla
@@ -19,10 +29,20 @@ public class Casilla {
      * @param tipo Tipo de casilla (normal, segura, salida, meta)
      */
     public Casilla(int numero, String tipo) {
+        this(numero, tipo, tipo.equals("segura"));
+    }
+    
+    /**
+     * Constructor con la seguridad ya resuelta (desde TablaMovimientos)
+     */
+    Casilla(int numero, String tipo, boolean esSegura) {
         this.numeroCasilla = numero;
         this.tipo = tipo;
-        this.esSegura = tipo.equals("segura");
-        this.fichas = new ArrayList<>();
+        this.esSegura = esSegura;
+        this.ocupantes = new Ficha[CAPACIDAD];
+        this.colores = new byte[CAPACIDAD];
+        this.porColor = new byte[ColorFicha.MAX_CODIGOS];
+        this.fichas = new VistaFichas();
     }
     
     /**
@@ -30,7 +50,15 @@ public class Casilla {
      * @param ficha Ficha a agregar
      */
     public void agregarFicha(Ficha ficha) {
-        fichas.add(ficha);
+        if (cantidad == ocupantes.length) {
+            ocupantes = Arrays.copyOf(ocupantes, cantidad * 2);
+            colores = Arrays.copyOf(colores, cantidad * 2);
+        }
+        byte color = ficha.getCodigoColor();
+        ocupantes[cantidad] = ficha;
+        colores[cantidad] = color;
+        cantidad++;
+        porColor[color]++;
     }
     
     /**
@@ -38,7 +66,40 @@ public class Casilla {
      * @param ficha Ficha a remover
      */
     public void removerFicha(Ficha ficha) {
-        fichas.remove(ficha);
+        int indice = indiceDe(ficha);
+        if (indice >= 0) {
+            removerEn(indice);
+        }
+    }
+    
+    private Ficha removerEn(int indice) {
+        Ficha ficha = ocupantes[indice];
+        porColor[colores[indice]]--;
+        cantidad--;
+        System.arraycopy(ocupantes, indice + 1, ocupantes, indice, cantidad - indice);
+        System.arraycopy(colores, indice + 1, colores, indice, cantidad - indice);
+        ocupantes[cantidad] = null;
+        return ficha;
+    }
+    
+    /**
+     * Quita todas las fichas de la casilla
+     */
+    public void vaciar() {
+        for (int i = 0; i < cantidad; i++) {
+            porColor[colores[i]] = 0;
+            ocupantes[i] = null;
+        }
+        cantidad = 0;
+    }
+    
+    private int indiceDe(Ficha ficha) {
+        for (int i = 0; i < cantidad; i++) {
+            if (ocupantes[i] == ficha) {
+                return i;
+            }
+        }
+        return -1;
     }
     
     /**
@@ -47,18 +108,80 @@ public class Casilla {
      * @return true si hay barrera, false si no
      */
     public boolean verificarBarrera() {
-        if (fichas.size() == 2) {
-            String colorPrimera = fichas.get(0).getColor();
-            String colorSegunda = fichas.get(1).getColor();
-            return colorPrimera.equals(colorSegunda);
+        return cantidad == 2 && colores[0] == colores[1];
+    }
+    
+    /**
+     * Numero de fichas de un color en la casilla
+     * @param codigoColor Codigo de ColorFicha.codigo
+     */
+    public int contarColor(byte codigoColor) {
+        return porColor[codigoColor];
+    }
+    
+    /**
+     * Indica si hay alguna ficha de otro color que la dada
+     * Son las candidatas a ser comidas al llegar la ficha
+     * @param ficha Ficha que llega o esta en la casilla
+     */
+    public boolean ocupadaPorRival(Ficha ficha) {
+        return cantidad - porColor[ficha.getCodigoColor()] > 0;
+    }
+    
+    public boolean contiene(Ficha ficha) {
+        return indiceDe(ficha) >= 0;
+    }
+    
+    /**
+     * Vista de lista sobre los ocupantes, sin copiar
+     * Se mantiene para el codigo que recorre getFichas()
+     */
+    private final class VistaFichas extends AbstractList<Ficha> {
+        @Override
+        public Ficha get(int indice) {
+            if (indice < 0 || indice >= cantidad) {
+                throw new IndexOutOfBoundsException("Indice: " + indice + ", fichas: " + cantidad);
+            }
+            return ocupantes[indice];
+        }
+        
+        @Override
+        public int size() {
+            return cantidad;
+        }
+        
+        @Override
+        public void add(int indice, Ficha ficha) {
+            if (indice != cantidad) {
+                throw new UnsupportedOperationException("Solo se agregan fichas al final");
+            }
+            agregarFicha(ficha);
+        }
+        
+        @Override
+        public Ficha remove(int indice) {
+            get(indice);
+            return removerEn(indice);
+        }
+        
+        @Override
+        public void clear() {
+            vaciar();
+        }
+        
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Ficha && indiceDe((Ficha) o) >= 0;
         }
-        return false;
     }
     
     // Getters
     public List<Ficha> getFichas() { return fichas; }
+    public Ficha getFicha(int indice) { return ocupantes[indice]; }
+    public int getCantidad() { return cantidad; }
+    public boolean estaVacia() { return cantidad == 0; }
     public boolean esSegura() { return esSegura; }
     public int getNumeroCasilla() { return numeroCasilla; }
     public String getTipo() { return tipo; }
     public boolean tieneBarrera() { return verificarBarrera(); }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+/**
+ * Colores de las fichas como codigo pequenio
+ * Solo valen los cuatro colores del juego, con codigo fijo (0-3); un nombre
+ * que llegue por red y no sea de la paleta se rechaza
+ */
+package modelo;
+
+public enum ColorFicha {
+    ROJO("Rojo"),
+    VERDE("Verde"),
+    AZUL("Azul"),
+    AMARILLO("Amarillo");
+    
+    // Numero de codigos, uno por color de la paleta
+    public static final int MAX_CODIGOS = 4;
+    
+    private static final ColorFicha[] COLORES = values();
+    
+    private final String nombre;
+    
+    ColorFicha(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    /**
+     * Codigo de un nombre de color
+     * @param nombre Nombre del color tal como lo tiene la ficha
+     * @return Codigo entre 0 y MAX_CODIGOS - 1
+     * @throws IllegalArgumentException Si el nombre no es de la paleta
+     */
+    public static byte codigo(String nombre) {
+        ColorFicha color = desdeNombre(nombre);
+        if (color == null) {
+            throw new IllegalArgumentException("Color no valido: " + nombre);
+        }
+        return (byte) color.ordinal();
+    }
+    
+    /**
+     * Color de la paleta con ese nombre, sin distinguir mayusculas ("ROJO" en la web)
+     * @return El color, o null si no es de la paleta
+     */
+    public static ColorFicha desdeNombre(String nombre) {
+        for (ColorFicha color : COLORES) {
+            if (color.nombre.equalsIgnoreCase(nombre)) {
+                return color;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Color del juego con ese codigo
+     * @return El color, o null si el codigo no es de la paleta
+     */
+    public static ColorFicha desdeCodigo(int codigo) {
+        return codigo >= 0 && codigo < COLORES.length ? COLORES[codigo] : null;
+    }
+    
+    public String getNombre() { return nombre; }
+}
@@ -5,6 +5,7 @@
 package modelo;
 
 import java.util.Random;
+import metricas.MetricasJuego;
 
 public class Dado {
     private int valor;
@@ -24,7 +25,10 @@ public class Dado {
      * @return Valor del dado (1-6)
      */
     public int lanzar() {
+        MetricasJuego metricas = MetricasJuego.getGlobal();
+        long inicio = metricas.inicio();
         this.valor = random.nextInt(6) + 1;
+        metricas.registrarTirada(inicio);
         return this.valor;
     }
     
@@ -0,0 +1,605 @@
+/**
+ * Estado compacto de una partida
+ * Guarda las 16 fichas, el turno y el contador de 6 en unos pocos long
+ * Ficha, Tablero y Partida son vistas sobre este estado
+ */
+package modelo;
+
+public final class EstadoPartida {
+    public static final int TOTAL_CASILLAS = 68;
+    public static final int CASILLA_META = 67;
+    public static final int MAX_JUGADORES = 4;
+    public static final int FICHAS_POR_JUGADOR = 4;
+    public static final int TOTAL_FICHAS = MAX_JUGADORES * FICHAS_POR_JUGADOR;
+    // Longs que ocupa el estado volcado: una palabra por jugador y el control
+    public static final int PALABRAS = MAX_JUGADORES + 1;
+
+    // Cada ficha ocupa 16 bits: posicion+1 (8 bits), enCasa (bit 8), enMeta (bit 9)
+    private static final int BITS_FICHA = 16;
+    private static final long MASCARA_FICHA = 0xFFFFL;
+    private static final int MASCARA_POSICION = 0xFF;
+    private static final int BIT_EN_CASA = 1 << 8;
+    private static final int BIT_EN_META = 1 << 9;
+    private static final int FICHA_INICIAL = BIT_EN_CASA;
+
+    // Control: turno (4 bits, 0xF = sin turno), contadorSeis (16 bits), numJugadores (4 bits)
+    private static final int SIN_TURNO = 0xF;
+    private static final int DESPLAZAMIENTO_SEIS = 4;
+    private static final int DESPLAZAMIENTO_JUGADORES = 20;
+    private static final long CONTROL_INICIAL = SIN_TURNO;
+
+    // Resultado de aplicar: fichas comidas (16 bits), barrera (bit 16), meta (bit 17)
+    private static final int MASCARA_CAPTURAS = 0xFFFF;
+    private static final int BIT_BARRERA = 1 << 16;
+    private static final int BIT_META = 1 << 17;
+
+    // Un long por jugador, 4 fichas en cada uno
+    private final long[] fichas;
+    private long control;
+    // Hash Zobrist de fichas, turno y contador de 6, se actualiza en cada cambio
+    private long hash;
+    // Contadores por jugador, tambien incrementales: un bit por slot en casa y en meta,
+    // y los pasos que le faltan a cada jugador (16 bits por jugador)
+    private int mascaraCasa;
+    private int mascaraMeta;
+    private long pasosRestantes;
+
+    /**
+     * Constructor del estado
+     * Todas las fichas en casa y sin turno asignado
+     */
+    public EstadoPartida() {
+        this(MAX_JUGADORES);
+    }
+
+    private EstadoPartida(int jugadores) {
+        this.fichas = new long[jugadores];
+        reiniciar();
+    }
+
+    /**
+     * Estado de un solo jugador para una ficha suelta, fuera de toda partida
+     * Solo admite los slots 0-3; no se puede copiar, volcar, aplicar jugadas
+     * ni generar movimientos sobre el
+     */
+    public static EstadoPartida suelto() {
+        return new EstadoPartida(1);
+    }
+
+    /**
+     * Devuelve el estado a su configuracion inicial
+     */
+    public void reiniciar() {
+        long inicial = 0;
+        for (int i = 0; i < FICHAS_POR_JUGADOR; i++) {
+            inicial |= (long) FICHA_INICIAL << (i * BITS_FICHA);
+        }
+        for (int j = 0; j < fichas.length; j++) {
+            fichas[j] = inicial;
+        }
+        control = CONTROL_INICIAL;
+        hash = calcularHash();
+        recalcularContadores();
+    }
+
+    /**
+     * Copia todo el contenido de otro estado
+     * @param otro Estado de origen
+     */
+    public void copiarDe(EstadoPartida otro) {
+        System.arraycopy(otro.fichas, 0, fichas, 0, MAX_JUGADORES);
+        control = otro.control;
+        hash = otro.hash;
+        mascaraCasa = otro.mascaraCasa;
+        mascaraMeta = otro.mascaraMeta;
+        pasosRestantes = otro.pasosRestantes;
+    }
+
+    /**
+     * Calcula el hash Zobrist desde cero
+     * Debe coincidir siempre con getHash, que se mantiene de forma incremental
+     */
+    public long calcularHash() {
+        long h = claveControl(control);
+        for (int slot = 0; slot < fichas.length * FICHAS_POR_JUGADOR; slot++) {
+            h ^= claveFicha(slot, getFicha(slot));
+        }
+        return h;
+    }
+
+    private static long claveFicha(int slot, int valor) {
+        int estadoFicha;
+        int posicion = (valor & MASCARA_POSICION) - 1;
+        if ((valor & BIT_EN_META) != 0) {
+            estadoFicha = Zobrist.EN_META;
+        } else if ((valor & BIT_EN_CASA) != 0 || posicion < 0 || posicion >= TOTAL_CASILLAS) {
+            estadoFicha = Zobrist.EN_CASA;
+        } else {
+            estadoFicha = posicion;
+        }
+        return Zobrist.ficha(slot, estadoFicha);
+    }
+
+    /**
+     * Recalcula desde cero las mascaras y los pasos restantes
+     */
+    private void recalcularContadores() {
+        mascaraCasa = 0;
+        mascaraMeta = 0;
+        pasosRestantes = 0;
+        for (int slot = 0; slot < fichas.length * FICHAS_POR_JUGADOR; slot++) {
+            contarFicha(slot, getFicha(slot), 1);
+        }
+    }
+
+    /**
+     * Suma (signo 1) o resta (signo -1) una ficha de los contadores
+     */
+    private void contarFicha(int slot, int valor, int signo) {
+        int bit = 1 << slot;
+        if (enMetaDe(valor)) {
+            mascaraMeta ^= bit;
+        } else if (enCasaDe(valor)) {
+            mascaraCasa ^= bit;
+        }
+        pasosRestantes += (long) (signo * pasosHastaMeta(slot, valor)) << ((slot >>> 2) * BITS_FICHA);
+    }
+
+    /**
+     * Pasos que le faltan a una ficha para llegar a meta
+     * En casa cuenta el recorrido entero desde la salida mas el paso de salir
+     */
+    private static int pasosHastaMeta(int slot, int valor) {
+        if (enMetaDe(valor)) {
+            return 0;
+        }
+        int posicion = posicionDe(valor);
+        if (enCasaDe(valor) || posicion < 0) {
+            return CASILLA_META - casillaSalida(slot >>> 2) + 1;
+        }
+        return Math.max(0, CASILLA_META - posicion);
+    }
+
+    private static long claveControl(long control) {
+        int turno = (int) (control & SIN_TURNO);
+        int seis = (int) ((control >>> DESPLAZAMIENTO_SEIS) & 0xFFFF);
+        return Zobrist.control(turno == SIN_TURNO ? -1 : turno, seis);
+    }
+
+    /**
+     * Unico punto donde cambia el control, para mantener el hash
+     */
+    private void escribirControl(long nuevo) {
+        hash ^= claveControl(control) ^ claveControl(nuevo);
+        control = nuevo;
+    }
+
+    /**
+     * Indica si una casilla es segura
+     * Casillas seguras: 5, 22, 39, 56 (salidas) y cada 17 posiciones
+     * @param posicion Numero de casilla
+     * @return true si es segura, false si no o si esta fuera del tablero
+     */
+    public static boolean esSegura(int posicion) {
+        return TablaMovimientos.esSegura(posicion);
+    }
+
+    /**
+     * Casilla de salida de cada jugador: 5, 22, 39, 56
+     * @param jugador Indice del jugador (0-3)
+     */
+    public static int casillaSalida(int jugador) {
+        return 5 + 17 * jugador;
+    }
+
+    // ---- Fichas ----
+
+    /**
+     * Obtiene los 16 bits de una ficha
+     * @param slot Indice de la ficha (jugador * 4 + ficha)
+     */
+    public int getFicha(int slot) {
+        return (int) ((fichas[slot >>> 2] >>> ((slot & 3) * BITS_FICHA)) & MASCARA_FICHA);
+    }
+
+    /**
+     * Sobrescribe los 16 bits de una ficha
+     * @param slot Indice de la ficha (jugador * 4 + ficha)
+     * @param valor Ficha empaquetada
+     */
+    public void setFicha(int slot, int valor) {
+        int desplazamiento = (slot & 3) * BITS_FICHA;
+        int jugador = slot >>> 2;
+        int anterior = (int) ((fichas[jugador] >>> desplazamiento) & MASCARA_FICHA);
+        int nuevo = valor & (int) MASCARA_FICHA;
+        hash ^= claveFicha(slot, anterior) ^ claveFicha(slot, nuevo);
+        contarFicha(slot, anterior, -1);
+        contarFicha(slot, nuevo, 1);
+        fichas[jugador] = (fichas[jugador] & ~(MASCARA_FICHA << desplazamiento))
+                | ((valor & MASCARA_FICHA) << desplazamiento);
+    }
+
+    public int getPosicion(int slot) {
+        return posicionDe(getFicha(slot));
+    }
+
+    public void setPosicion(int slot, int posicion) {
+        setFicha(slot, (getFicha(slot) & ~MASCARA_POSICION) | ((posicion + 1) & MASCARA_POSICION));
+    }
+
+    public boolean isEnCasa(int slot) {
+        return enCasaDe(getFicha(slot));
+    }
+
+    public void setEnCasa(int slot, boolean enCasa) {
+        setBit(slot, BIT_EN_CASA, enCasa);
+    }
+
+    public boolean isEnMeta(int slot) {
+        return enMetaDe(getFicha(slot));
+    }
+
+    public void setEnMeta(int slot, boolean enMeta) {
+        setBit(slot, BIT_EN_META, enMeta);
+    }
+
+    private void setBit(int slot, int bit, boolean activo) {
+        int valor = getFicha(slot);
+        setFicha(slot, activo ? valor | bit : valor & ~bit);
+    }
+
+    /**
+     * Indica si la ficha ocupa una casilla del tablero
+     * @param slot Indice de la ficha
+     * @return true si esta en una casilla 0-67 y no ha llegado a meta
+     */
+    public boolean isEnTablero(int slot) {
+        return enTableroDe(getFicha(slot));
+    }
+
+    // ---- Contadores por jugador (O(1), sin recorrer fichas) ----
+
+    /**
+     * Fichas del jugador en casa
+     * @param jugador Indice del jugador
+     * @return Mascara de 4 bits, bit i a 1 si la ficha i esta en casa
+     */
+    public int getMascaraCasa(int jugador) {
+        return (mascaraCasa >>> (jugador * FICHAS_POR_JUGADOR)) & 0xF;
+    }
+
+    /**
+     * Fichas del jugador en meta
+     * @param jugador Indice del jugador
+     * @return Mascara de 4 bits, bit i a 1 si la ficha i esta en meta
+     */
+    public int getMascaraMeta(int jugador) {
+        return (mascaraMeta >>> (jugador * FICHAS_POR_JUGADOR)) & 0xF;
+    }
+
+    /**
+     * Fichas del jugador en juego (ni en casa ni en meta)
+     * @param jugador Indice del jugador
+     * @return Mascara de 4 bits
+     */
+    public int getMascaraEnJuego(int jugador) {
+        return ~((mascaraCasa | mascaraMeta) >>> (jugador * FICHAS_POR_JUGADOR)) & 0xF;
+    }
+
+    /**
+     * Pasos que le faltan al jugador para meter sus 4 fichas en meta
+     * @param jugador Indice del jugador
+     * @return 0 si ya ha ganado
+     */
+    public int getPasosRestantes(int jugador) {
+        return (int) ((pasosRestantes >>> (jugador * BITS_FICHA)) & MASCARA_FICHA);
+    }
+
+    /**
+     * Primer jugador con las 4 fichas en meta
+     * @param numJugadores Jugadores en la partida
+     * @return Indice del ganador o -1 si nadie ha terminado
+     */
+    public int getGanador(int numJugadores) {
+        for (int j = 0; j < numJugadores; j++) {
+            if (getMascaraMeta(j) == 0xF) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Puesto de un jugador segun los pasos que le faltan; empata a favor del asiento menor
+     * @param jugador Indice del jugador
+     * @param numJugadores Jugadores en la partida
+     * @return Puesto, empezando en 1
+     */
+    public int getPuesto(int jugador, int numJugadores) {
+        int restantes = getPasosRestantes(jugador);
+        int puesto = 1;
+        for (int j = 0; j < numJugadores; j++) {
+            int otro = getPasosRestantes(j);
+            if (otro < restantes || (otro == restantes && j < jugador)) {
+                puesto++;
+            }
+        }
+        return puesto;
+    }
+
+    // ---- Lectura de valores empaquetados (tambien para InstantaneaPartida) ----
+
+    static int fichaDe(long palabra, int indice) {
+        return (int) ((palabra >>> (indice * BITS_FICHA)) & MASCARA_FICHA);
+    }
+
+    static int posicionDe(int ficha) {
+        return (ficha & MASCARA_POSICION) - 1;
+    }
+
+    static boolean enCasaDe(int ficha) {
+        return (ficha & BIT_EN_CASA) != 0;
+    }
+
+    static boolean enMetaDe(int ficha) {
+        return (ficha & BIT_EN_META) != 0;
+    }
+
+    static boolean enTableroDe(int ficha) {
+        int posicion = posicionDe(ficha);
+        return !enMetaDe(ficha) && posicion >= 0 && posicion < TOTAL_CASILLAS;
+    }
+
+    static int turnoDe(long control) {
+        int turno = (int) (control & SIN_TURNO);
+        return turno == SIN_TURNO ? -1 : turno;
+    }
+
+    static int contadorSeisDe(long control) {
+        return (int) ((control >>> DESPLAZAMIENTO_SEIS) & 0xFFFF);
+    }
+
+    static int numJugadoresDe(long control) {
+        return (int) ((control >>> DESPLAZAMIENTO_JUGADORES) & 0xF);
+    }
+
+    /**
+     * Mueve la ficha si esta en juego (equivale a Ficha.mover)
+     * @param slot Indice de la ficha
+     * @param pasos Numero de casillas a avanzar
+     */
+    public void avanzar(int slot, int pasos) {
+        int valor = getFicha(slot);
+        if ((valor & (BIT_EN_CASA | BIT_EN_META)) == 0) {
+            setPosicion(slot, (valor & MASCARA_POSICION) - 1 + pasos);
+        }
+    }
+
+    /**
+     * Regresa la ficha a casa
+     * @param slot Indice de la ficha
+     */
+    public void regresarACasa(int slot) {
+        setFicha(slot, FICHA_INICIAL);
+    }
+
+    /**
+     * Saca la ficha de casa a la casilla de salida de su jugador
+     * @param slot Indice de la ficha
+     * @return Casilla de salida
+     */
+    public int sacarFicha(int slot) {
+        int salida = casillaSalida(slot >>> 2);
+        setFicha(slot, (salida + 1) & MASCARA_POSICION);
+        return salida;
+    }
+
+    /**
+     * Marca la ficha como llegada a meta
+     * @param slot Indice de la ficha
+     */
+    public void llegarMeta(int slot) {
+        setFicha(slot, (getFicha(slot) & MASCARA_POSICION) | BIT_EN_META);
+    }
+
+    /**
+     * Mueve una ficha en el tablero (equivale a Tablero.moverFicha)
+     * Si alcanza la casilla meta queda en meta
+     * @param slot Indice de la ficha
+     * @param pasos Numero de casillas a avanzar
+     * @return Nueva posicion de la ficha
+     */
+    public int moverFicha(int slot, int pasos) {
+        int posicion = getPosicion(slot);
+        if (posicion >= 0 && TablaMovimientos.cubre(posicion, pasos)) {
+            int movimiento = TablaMovimientos.movimiento(slot >>> 2, posicion, pasos);
+            int destino = TablaMovimientos.destino(movimiento);
+            setPosicion(slot, destino);
+            if (TablaMovimientos.llegaAMeta(movimiento)) {
+                llegarMeta(slot);
+            }
+            return destino;
+        }
+
+        // Fuera de la tabla (pasos negativos o mayores que un premio)
+        int nuevaPosicion = posicion + pasos;
+        if (nuevaPosicion >= CASILLA_META) {
+            setPosicion(slot, CASILLA_META);
+            llegarMeta(slot);
+            return CASILLA_META;
+        }
+
+        setPosicion(slot, nuevaPosicion);
+        return nuevaPosicion;
+    }
+
+    /**
+     * Aplica las reglas tras mover una ficha (equivale a ReglasJuego.aplicar)
+     * Come fichas rivales fuera de casillas seguras, detecta barreras y meta
+     * @param slot Indice de la ficha movida
+     * @return Resultado empaquetado, se lee con premio, fichasCapturadas, formoBarrera y llegoAMeta
+     */
+    public int aplicar(int slot) {
+        int posicion = getPosicion(slot);
+        if (posicion < 0 || posicion >= TOTAL_CASILLAS || isEnMeta(slot)) return 0;
+
+        int resultado = 0;
+        int jugador = slot >>> 2;
+
+        // Verificar si come fichas
+        if (!TablaMovimientos.esSegura(posicion)) {
+            for (int otra = 0; otra < TOTAL_FICHAS; otra++) {
+                if ((otra >>> 2) != jugador && isEnTablero(otra) && getPosicion(otra) == posicion) {
+                    regresarACasa(otra);
+                    resultado |= 1 << otra;
+                }
+            }
+        }
+
+        // Verificar barrera: exactamente 2 fichas del mismo jugador
+        int ocupantes = 0;
+        int primerJugador = -1;
+        boolean mismoJugador = true;
+        for (int otra = 0; otra < TOTAL_FICHAS; otra++) {
+            if (isEnTablero(otra) && getPosicion(otra) == posicion) {
+                ocupantes++;
+                if (primerJugador < 0) {
+                    primerJugador = otra >>> 2;
+                } else if (primerJugador != (otra >>> 2)) {
+                    mismoJugador = false;
+                }
+            }
+        }
+        if (ocupantes == 2 && mismoJugador) {
+            resultado |= BIT_BARRERA;
+        }
+
+        // Verificar llegada a meta
+        if (posicion >= CASILLA_META) {
+            llegarMeta(slot);
+            resultado |= BIT_META;
+        }
+
+        return resultado;
+    }
+
+    /**
+     * Casillas de premio de un resultado de aplicar (0, 10 o 20)
+     */
+    public static int premio(int resultado) {
+        if ((resultado & BIT_META) != 0) return 10;
+        if ((resultado & MASCARA_CAPTURAS) != 0) return 20;
+        return 0;
+    }
+
+    /**
+     * Mascara de slots comidos en un resultado de aplicar
+     */
+    public static int fichasCapturadas(int resultado) {
+        return resultado & MASCARA_CAPTURAS;
+    }
+
+    public static boolean formoBarrera(int resultado) {
+        return (resultado & BIT_BARRERA) != 0;
+    }
+
+    public static boolean llegoAMeta(int resultado) {
+        return (resultado & BIT_META) != 0;
+    }
+
+    // ---- Turno y contador de 6 ----
+
+    /**
+     * Pasa el turno al siguiente jugador (equivale a Partida.cambiarTurno)
+     * Reinicia el contador de 6 seguidos
+     * @return Indice del jugador con el turno
+     */
+    public int cambiarTurno() {
+        int numJugadores = getNumJugadores();
+        if (numJugadores == 0) return getTurno();
+
+        int siguiente = (getTurno() + 1) % numJugadores;
+        escribirControl((control & ~((long) SIN_TURNO | (0xFFFFL << DESPLAZAMIENTO_SEIS))) | siguiente);
+        return siguiente;
+    }
+
+    /**
+     * Indice del jugador con el turno
+     * @return 0-3, o -1 si no hay turno asignado
+     */
+    public int getTurno() {
+        return turnoDe(control);
+    }
+
+    public void setTurno(int indice) {
+        escribirControl((control & ~(long) SIN_TURNO) | (indice < 0 ? SIN_TURNO : indice & SIN_TURNO));
+    }
+
+    public int getContadorSeis() {
+        return contadorSeisDe(control);
+    }
+
+    public void setContadorSeis(int contador) {
+        escribirControl((control & ~(0xFFFFL << DESPLAZAMIENTO_SEIS))
+                | ((long) (contador & 0xFFFF) << DESPLAZAMIENTO_SEIS));
+    }
+
+    public void incrementarContadorSeis() {
+        setContadorSeis(getContadorSeis() + 1);
+    }
+
+    public int getNumJugadores() {
+        return numJugadoresDe(control);
+    }
+
+    public void setNumJugadores(int numJugadores) {
+        escribirControl((control & ~(0xFL << DESPLAZAMIENTO_JUGADORES))
+                | ((long) (numJugadores & 0xF) << DESPLAZAMIENTO_JUGADORES));
+    }
+
+    /**
+     * Sobrescribe las 4 fichas de un jugador (serializacion)
+     * @param jugador Indice del jugador
+     * @param palabra Fichas empaquetadas
+     */
+    public void setPalabraFichas(int jugador, long palabra) {
+        for (int i = 0; i < FICHAS_POR_JUGADOR; i++) {
+            setFicha(jugador * FICHAS_POR_JUGADOR + i, (int) ((palabra >>> (i * BITS_FICHA)) & MASCARA_FICHA));
+        }
+    }
+
+    /**
+     * Copia las palabras de fichas y el control a un array (historial)
+     * @param destino Array con sitio para PALABRAS valores desde la posicion dada
+     * @param desde Primera posicion
+     */
+    public void volcar(long[] destino, int desde) {
+        System.arraycopy(fichas, 0, destino, desde, MAX_JUGADORES);
+        destino[desde + MAX_JUGADORES] = control;
+    }
+
+    /**
+     * Carga lo guardado con volcar
+     * Solo se reescriben las fichas que cambian, con hash y contadores al dia
+     * @param origen Array con las palabras
+     * @param desde Primera posicion
+     */
+    public void cargar(long[] origen, int desde) {
+        for (int j = 0; j < MAX_JUGADORES; j++) {
+            long palabra = origen[desde + j];
+            long distintas = fichas[j] ^ palabra;
+            for (int i = 0; distintas != 0; i++, distintas >>>= BITS_FICHA) {
+                if ((distintas & MASCARA_FICHA) != 0) {
+                    setFicha(j * FICHAS_POR_JUGADOR + i, (int) ((palabra >>> (i * BITS_FICHA)) & MASCARA_FICHA));
+                }
+            }
+        }
+        escribirControl(origen[desde + MAX_JUGADORES]);
+    }
+
+    // Acceso directo a las palabras empaquetadas (serializacion, hashing)
+    public long getPalabraFichas(int jugador) { return fichas[jugador]; }
+    public long getControl() { return control; }
+    public void setControl(long control) { escribirControl(control); }
+    public long getHash() { return hash; }
+}
@@ -1,6 +1,9 @@
 /**
  * Representa una ficha del juego 
  * Cada jugador tiene 4 fichas con IDs sincronizados
+ * Dentro de una partida el ID lo asigna la propia partida, creciente desde 1
+ * en el orden en que entran los jugadores (si alguno sale y entra otro pasa
+ * de 16); el contador global solo se usa para fichas sueltas
  */
 package modelo;
 
@@ -10,10 +13,11 @@ public class Ficha {
     private static AtomicInteger contadorId = new AtomicInteger(0);
     private int idFicha;
     private String color;
-    private int posicion;
-    private boolean enCasa;
-    private boolean enMeta;
+    private byte codigoColor;
     private int jugadorId;
+    // Posicion, enCasa y enMeta viven en el estado compacto
+    private EstadoPartida estado;
+    private int slot;
     
     /**
      * Constructor basico de ficha
@@ -21,11 +25,20 @@ public class Ficha {
      * @param color Color de la ficha segun el jugador
      */
     public Ficha(String color) {
+        this(color, EstadoPartida.suelto(), 0);
         this.idFicha = contadorId.incrementAndGet();
+    }
+    
+    /**
+     * Constructor sobre un estado compartido
+     * Lo usa Jugador para que sus 4 fichas compartan estado
+     * El ID queda a 0 hasta que la partida asigna uno
+     */
+    Ficha(String color, EstadoPartida estado, int slot) {
         this.color = color;
-        this.posicion = -1;
-        this.enCasa = true;
-        this.enMeta = false;
+        this.codigoColor = ColorFicha.codigo(color);
+        this.estado = estado;
+        this.slot = slot;
     }
     
     /**
@@ -43,10 +56,10 @@ public class Ficha {
     public Ficha(String color, int jugadorId, int idFicha) {
         this.idFicha = idFicha;
         this.color = color;
+        this.codigoColor = ColorFicha.codigo(color);
         this.jugadorId = jugadorId;
-        this.posicion = -1;
-        this.enCasa = true;
-        this.enMeta = false;
+        this.estado = EstadoPartida.suelto();
+        this.slot = 0;
         
         if (idFicha > contadorId.get()) {
             contadorId.set(idFicha);
@@ -54,8 +67,8 @@ public class Ficha {
     }
     
     /**
-     * Resetea el contador de IDs
-     * IMPORTANTE: Llamar este metodo al inicio del programa
+     * Resetea el contador de IDs de las fichas sueltas
+     * No afecta a los IDs que asigna cada partida
      */
     public static void resetearContador() {
         contadorId.set(0);
@@ -75,9 +88,7 @@ public class Ficha {
      * @param pasos Numero de casillas a avanzar
      */
     public void mover(int pasos) {
-        if (!enCasa && !enMeta) {
-            posicion += pasos;
-        }
+        estado.avanzar(slot, pasos);
     }
     
     /**
@@ -85,9 +96,7 @@ public class Ficha {
      * Se usa cuando la ficha es comida
      */
     public void regresarACasa() {
-        this.posicion = -1;
-        this.enCasa = true;
-        this.enMeta = false;
+        estado.regresarACasa(slot);
     }
     
     /**
@@ -95,29 +104,58 @@ public class Ficha {
      * La ficha ya no puede moverse
      */
     public void llegarMeta() {
-        this.enMeta = true;
-        this.enCasa = false;
+        estado.llegarMeta(slot);
+    }
+    
+    /**
+     * Enlaza la ficha a otro estado compacto conservando sus valores
+     * Se usa cuando el jugador entra en una partida
+     * @param nuevoEstado Estado de la partida
+     * @param nuevoSlot Indice de la ficha en ese estado
+     * @param nuevoId ID asignado por la partida
+     */
+    void vincular(EstadoPartida nuevoEstado, int nuevoSlot, int nuevoId) {
+        nuevoEstado.setFicha(nuevoSlot, estado.getFicha(slot));
+        this.estado = nuevoEstado;
+        this.slot = nuevoSlot;
+        this.idFicha = nuevoId;
+    }
+    
+    /**
+     * Prepara la ficha para otro jugador al reciclar una partida
+     * @param nuevoColor Color del nuevo duenio
+     * @param nuevoJugadorId ID del nuevo duenio
+     */
+    void reciclar(String nuevoColor, int nuevoJugadorId) {
+        this.color = nuevoColor;
+        this.codigoColor = ColorFicha.codigo(nuevoColor);
+        this.jugadorId = nuevoJugadorId;
+        this.idFicha = 0;
+        estado.regresarACasa(slot);
     }
     
     public int getIdFicha() { return idFicha; }
     public String getColor() { return color; }
-    public int getPosicion() { return posicion; }
-    public void setPosicion(int posicion) { this.posicion = posicion; }
-    public boolean isEnCasa() { return enCasa; }
-    public void setEnCasa(boolean enCasa) { this.enCasa = enCasa; }
-    public boolean isEnMeta() { return enMeta; }
-    public void setEnMeta(boolean enMeta) { this.enMeta = enMeta; }
+    public byte getCodigoColor() { return codigoColor; }
+    public int getPosicion() { return estado.getPosicion(slot); }
+    public void setPosicion(int posicion) { estado.setPosicion(slot, posicion); }
+    public boolean isEnCasa() { return estado.isEnCasa(slot); }
+    public void setEnCasa(boolean enCasa) { estado.setEnCasa(slot, enCasa); }
+    public boolean isEnMeta() { return estado.isEnMeta(slot); }
+    public void setEnMeta(boolean enMeta) { estado.setEnMeta(slot, enMeta); }
     public int getJugadorId() { return jugadorId; }
     public void setJugadorId(int jugadorId) { this.jugadorId = jugadorId; }
+    public EstadoPartida getEstado() { return estado; }
+    public int getSlot() { return slot; }
     
     @Override
     public String toString() {
         return "Ficha{" +
                 "id=" + idFicha +
                 ", color='" + color + '\'' +
-                ", pos=" + posicion +
-                ", enCasa=" + enCasa +
-                ", enMeta=" + enMeta +
+                ", pos=" + getPosicion() +
+                ", enCasa=" + isEnCasa() +
+                ", enMeta=" + isEnMeta() +
                 '}';
     }
 }
\ No newline at end of file
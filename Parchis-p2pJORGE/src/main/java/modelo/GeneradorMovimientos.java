@@ -0,0 +1,248 @@
+/**
+ * Generador de movimientos legales sobre el estado compacto
+ * Reglas: solo se sale de casa con 5 (la primera ficha en casa), los premios
+ * de 10 y 20 los usa una ficha en juego y una barrera (2 fichas del mismo
+ * jugador solas en una casilla) no deja pasar ni caer a nadie, tampoco al
+ * duenio ni al salir de casa
+ * 
+ * Cada movimiento es un int: slot, origen, destino y banderas de salida,
+ * captura, meta, premio y barrera. Las casillas del recorrido de un jugador
+ * (de su salida a la 66) caben en un long, asi las barreras y las fichas
+ * del destino se miran con mascaras de bits
+ */
+package modelo;
+
+public final class GeneradorMovimientos {
+    // Movimiento: slot (4 bits), origen+1 (8 bits, 0 = casa), destino (8 bits), banderas
+    private static final int DESPLAZAMIENTO_ORIGEN = 4;
+    private static final int DESPLAZAMIENTO_DESTINO = 12;
+    private static final int MASCARA_CASILLA = 0xFF;
+    private static final int BIT_SALIDA = 1 << 20;
+    private static final int BIT_CAPTURA = 1 << 21;
+    private static final int BIT_META = 1 << 22;
+    private static final int BIT_PREMIO = 1 << 23;
+    private static final int BIT_BARRERA = 1 << 24;
+    
+    // Carriles de 16 bits de una palabra de fichas, con un id distinto (1-4) en los bits 12-15
+    private static final long UNO_POR_CARRIL = 0x0001000100010001L;
+    private static final long ALTO_POR_CARRIL = 0x8000800080008000L;
+    private static final long CARRILES = 0x4000300020001000L;
+    
+    private GeneradorMovimientos() {
+    }
+    
+    /**
+     * Escribe los movimientos legales del jugador en la lista
+     * Orden: primero la salida de casa y luego las fichas en juego por indice
+     * @param estado Estado de la partida
+     * @param jugador Indice del jugador que mueve
+     * @param valorDado Dado pendiente (1-6), 0 si no hay
+     * @param premioPendiente Premio pendiente (10 o 20), 0 si no hay; tiene prioridad sobre el dado
+     * @param lista Lista que se vacia y se rellena
+     * @return Numero de movimientos
+     */
+    public static int generar(EstadoPartida estado, int jugador, int valorDado, int premioPendiente,
+                              ListaMovimientos lista) {
+        lista.limpiar();
+        recorrer(estado, jugador, valorDado, premioPendiente, lista);
+        return lista.getCantidad();
+    }
+    
+    /**
+     * Fichas con algun movimiento legal, sin rellenar lista
+     * @return Mascara de 4 bits, bit i a 1 si la ficha i del jugador se puede mover
+     */
+    public static int mascara(EstadoPartida estado, int jugador, int valorDado, int premioPendiente) {
+        return recorrer(estado, jugador, valorDado, premioPendiente, null);
+    }
+    
+    private static int recorrer(EstadoPartida estado, int jugador, int valorDado, int premioPendiente,
+                                ListaMovimientos lista) {
+        int pasos = premioPendiente > 0 ? premioPendiente : valorDado;
+        if (pasos <= 0) {
+            return 0;
+        }
+        int enJuego = estado.getMascaraEnJuego(jugador);
+        int enCasa = premioPendiente == 0 && valorDado == 5 ? estado.getMascaraCasa(jugador) : 0;
+        if ((enJuego | enCasa) == 0) {
+            return 0;
+        }
+        // Sin dos fichas de un jugador en la misma casilla no hay barreras que bloqueen
+        if (lista == null && !hayParejas(estado)) {
+            return enJuego | Integer.lowestOneBit(enCasa);
+        }
+        int salida = EstadoPartida.casillaSalida(jugador);
+        
+        // Una pasada por las 16 fichas: casillas con 1, 2 y 3+ fichas propias,
+        // casillas con fichas rivales y casillas con fichas de mas de un jugador
+        long propiasUna = 0;
+        long propiasDos = 0;
+        long rivales = 0;
+        long todas = 0;
+        long varias = 0;
+        long barreras = 0;
+        for (int otro = 0; otro < EstadoPartida.MAX_JUGADORES; otro++) {
+            long una = 0;
+            long dos = 0;
+            long tres = 0;
+            for (int i = 0; i < EstadoPartida.FICHAS_POR_JUGADOR; i++) {
+                int ficha = estado.getFicha(otro * EstadoPartida.FICHAS_POR_JUGADOR + i);
+                int posicion = EstadoPartida.posicionDe(ficha);
+                if (!EstadoPartida.enTableroDe(ficha) || posicion < salida || posicion >= EstadoPartida.CASILLA_META) {
+                    continue;
+                }
+                long bit = 1L << (posicion - salida);
+                tres |= dos & bit;
+                dos |= una & bit;
+                una |= bit;
+            }
+            varias |= todas & una;
+            todas |= una;
+            barreras |= dos & ~tres;
+            if (otro == jugador) {
+                propiasUna = una;
+                propiasDos = dos;
+            } else {
+                rivales |= una;
+            }
+        }
+        barreras &= ~varias;
+        
+        int base = jugador * EstadoPartida.FICHAS_POR_JUGADOR;
+        int mascara = 0;
+        
+        // Salida de casa con 5, solo la primera ficha y si no hay barrera en la salida
+        if (enCasa != 0 && (barreras & 1L) == 0) {
+            int indice = Integer.numberOfTrailingZeros(enCasa);
+            mascara |= 1 << indice;
+            if (lista != null) {
+                lista.agregar(codificar(base + indice, TablaMovimientos.CASA, salida, BIT_SALIDA
+                        | banderasDestino(salida, salida, propiasUna, propiasDos, rivales)));
+            }
+        }
+        
+        for (int m = enJuego; m != 0; m &= m - 1) {
+            int indice = Integer.numberOfTrailingZeros(m);
+            int origen = estado.getPosicion(base + indice);
+            int destino;
+            boolean meta;
+            if (TablaMovimientos.cubre(origen, pasos)) {
+                int movimiento = TablaMovimientos.movimiento(jugador, origen, pasos);
+                destino = TablaMovimientos.destino(movimiento);
+                meta = TablaMovimientos.llegaAMeta(movimiento);
+            } else {
+                meta = origen + pasos >= EstadoPartida.CASILLA_META;
+                destino = meta ? EstadoPartida.CASILLA_META : origen + pasos;
+            }
+            
+            // Casillas que pisa: de origen (sin incluir) a destino, o a la ultima antes de meta
+            int hasta = (meta ? EstadoPartida.CASILLA_META - 1 : destino) - salida;
+            int desde = Math.max(0, origen - salida + 1);
+            if (hasta >= desde && (barreras & rango(desde, hasta)) != 0) {
+                continue;
+            }
+            
+            mascara |= 1 << indice;
+            if (lista != null) {
+                int banderas = premioPendiente > 0 ? BIT_PREMIO : 0;
+                if (meta) {
+                    banderas |= BIT_META;
+                } else {
+                    banderas |= banderasDestino(destino, salida, propiasUna, propiasDos, rivales);
+                }
+                lista.agregar(codificar(base + indice, origen, destino, banderas));
+            }
+        }
+        return mascara;
+    }
+    
+    /**
+     * Indica si algun jugador tiene dos fichas en la misma casilla del tablero
+     * Dos fichas en la misma casilla tienen los mismos 16 bits; a las que estan
+     * en casa o en meta se les marca el carril (bits 12-15) para que no coincidan.
+     * Luego se buscan carriles a cero en la palabra xor ella misma rotada
+     */
+    private static boolean hayParejas(EstadoPartida estado) {
+        for (int jugador = 0; jugador < EstadoPartida.MAX_JUGADORES; jugador++) {
+            long palabra = estado.getPalabraFichas(jugador);
+            long fuera = ((palabra >>> 8) | (palabra >>> 9)) & UNO_POR_CARRIL;
+            long marcada = palabra | ((fuera * 0xF000L) & CARRILES);
+            if (hayCarrilCero(marcada ^ Long.rotateLeft(marcada, 16))
+                    || hayCarrilCero(marcada ^ Long.rotateLeft(marcada, 32))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // Algun carril de 16 bits a cero (el bit 15 nunca esta a 1 en estas palabras)
+    private static boolean hayCarrilCero(long x) {
+        return ((x - UNO_POR_CARRIL) & ~x & ALTO_POR_CARRIL) != 0;
+    }
+    
+    /**
+     * Captura y barrera al caer en una casilla, igual que EstadoPartida.aplicar:
+     * se come a los rivales fuera de casillas seguras y hay barrera si quedan
+     * exactamente 2 fichas, las dos del jugador
+     */
+    private static int banderasDestino(int destino, int salida, long propiasUna, long propiasDos, long rivales) {
+        long bit = 1L << (destino - salida);
+        boolean hayRivales = (rivales & bit) != 0;
+        boolean segura = TablaMovimientos.esSegura(destino);
+        int banderas = 0;
+        if (hayRivales && !segura) {
+            banderas |= BIT_CAPTURA;
+        }
+        if ((propiasUna & ~propiasDos & bit) != 0 && (!hayRivales || !segura)) {
+            banderas |= BIT_BARRERA;
+        }
+        return banderas;
+    }
+    
+    // Bits desde..hasta (ambos incluidos, 0-63)
+    private static long rango(int desde, int hasta) {
+        return (-1L << desde) & (-1L >>> (63 - hasta));
+    }
+    
+    private static int codificar(int slot, int origen, int destino, int banderas) {
+        return slot | (((origen + 1) & MASCARA_CASILLA) << DESPLAZAMIENTO_ORIGEN)
+                | ((destino & MASCARA_CASILLA) << DESPLAZAMIENTO_DESTINO) | banderas;
+    }
+    
+    // ---- Lectura de movimientos ----
+    
+    public static int slot(int movimiento) {
+        return movimiento & 0xF;
+    }
+    
+    /**
+     * @return Casilla de origen o TablaMovimientos.CASA
+     */
+    public static int origen(int movimiento) {
+        return ((movimiento >>> DESPLAZAMIENTO_ORIGEN) & MASCARA_CASILLA) - 1;
+    }
+    
+    public static int destino(int movimiento) {
+        return (movimiento >>> DESPLAZAMIENTO_DESTINO) & MASCARA_CASILLA;
+    }
+    
+    public static boolean esSalida(int movimiento) {
+        return (movimiento & BIT_SALIDA) != 0;
+    }
+    
+    public static boolean esCaptura(int movimiento) {
+        return (movimiento & BIT_CAPTURA) != 0;
+    }
+    
+    public static boolean llegaAMeta(int movimiento) {
+        return (movimiento & BIT_META) != 0;
+    }
+    
+    public static boolean esPremio(int movimiento) {
+        return (movimiento & BIT_PREMIO) != 0;
+    }
+    
+    public static boolean formaBarrera(int movimiento) {
+        return (movimiento & BIT_BARRERA) != 0;
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * Lleva el flujo de una tirada: lanzar dado, mover ficha y usar premios
+ * Aplica turno extra con 6, penalizacion por tres 6 y fin de partida
+ * Las fichas movibles salen de GeneradorMovimientos (barreras incluidas)
+ * La usa el servidor de salas para validar cada comando
+ */
+package modelo;
+
+import java.util.List;
+import metricas.MetricasJuego;
+
+public class GestorTurno {
+    private final Partida partida;
+    private int valorDado;
+    private int premioPendiente;
+    private Ficha ultimaMovida;
+    private Jugador ganador;
+
+    /**
+     * Constructor del gestor
+     * @param partida Partida ya iniciada
+     */
+    public GestorTurno(Partida partida) {
+        this.partida = partida;
+    }
+
+    /**
+     * Lanza el dado para el jugador con el turno
+     * Si saca el tercer 6 seguido la ultima ficha movida vuelve a casa y pierde el turno
+     * Si no tiene fichas que mover la tirada termina sola
+     * @return Valor del dado (1-6)
+     */
+    public int tirarDado() {
+        return aplicarTirada(partida.getDado().lanzar());
+    }
+
+    /**
+     * Aplica una tirada con un valor ya conocido
+     * Se usa al reproducir tiradas guardadas (diario, red)
+     * @param valor Valor del dado (1-6)
+     * @return El mismo valor
+     */
+    public int aplicarTirada(int valor) {
+        if (valorDado != 0 || premioPendiente != 0 || ganador != null) {
+            throw new IllegalStateException("No se puede tirar el dado ahora");
+        }
+
+        ReglasJuego reglas = partida.getReglas();
+
+        if (reglas.verificarTurnoExtra(valor)) {
+            partida.incrementarContadorSeis();
+            if (reglas.verificarTresSeisSeguidos(partida.getContadorSeis())) {
+                MetricasJuego.getGlobal().registrarTresSeis();
+                if (ultimaMovida != null && !ultimaMovida.isEnMeta()) {
+                    enviarACasa(ultimaMovida);
+                }
+                ultimaMovida = null;
+                partida.cambiarTurno();
+                return valor;
+            }
+        }
+
+        valorDado = valor;
+        if (partida.getTurnoActual().getMascaraDisponibles(valor) == 0) {
+            terminarTirada();
+        }
+        return valor;
+    }
+
+    /**
+     * Fichas que puede mover el jugador con el valor pendiente
+     * @return Lista de fichas, vacia si no hay tirada pendiente
+     */
+    public List<Ficha> getFichasDisponibles() {
+        return partida.getTurnoActual().getFichas(getMascaraDisponibles());
+    }
+
+    /**
+     * Igual que getFichasDisponibles pero sin crear listas
+     * @return Mascara de 4 bits, bit i a 1 si la ficha i del jugador con el turno se puede mover
+     */
+    public int getMascaraDisponibles() {
+        return GeneradorMovimientos.mascara(partida.getEstado(), partida.getEstado().getTurno(),
+                                            valorDado, premioPendiente);
+    }
+
+    /**
+     * Movimientos legales con la tirada o el premio pendiente
+     * @param lista Lista reutilizable que se rellena
+     * @return Numero de movimientos
+     */
+    public int generarMovimientos(ListaMovimientos lista) {
+        return GeneradorMovimientos.generar(partida.getEstado(), partida.getEstado().getTurno(),
+                                            valorDado, premioPendiente, lista);
+    }
+
+    /**
+     * Mueve una ficha con el valor del dado
+     * Con 5 saca la ficha de casa a su salida
+     * @param ficha Ficha elegida entre las disponibles
+     * @return Premio obtenido (0, 10 o 20)
+     * @throws IllegalArgumentException Si la ficha no es del jugador con el turno o no se puede mover
+     */
+    public int moverFicha(Ficha ficha) {
+        if (valorDado == 0 || premioPendiente != 0) {
+            throw new IllegalStateException("No hay tirada pendiente");
+        }
+        validarFicha(ficha);
+
+        Tablero tablero = partida.getTablero();
+        if (ficha.isEnCasa()) {
+            tablero.sacarFicha(ficha);
+        } else {
+            tablero.moverFicha(ficha, valorDado);
+        }
+        ultimaMovida = ficha;
+        return aplicar(ficha);
+    }
+
+    /**
+     * Mueve otra ficha en juego con el premio pendiente
+     * El premio puede encadenar otro premio
+     * @param ficha Ficha en juego del mismo jugador
+     * @return Nuevo premio obtenido (0, 10 o 20)
+     * @throws IllegalArgumentException Si la ficha no es del jugador con el turno o no puede usar el premio
+     */
+    public int moverPremio(Ficha ficha) {
+        if (premioPendiente == 0) {
+            throw new IllegalStateException("No hay premio pendiente");
+        }
+        validarFicha(ficha);
+
+        int pasos = premioPendiente;
+        premioPendiente = 0;
+        partida.getTablero().moverFicha(ficha, pasos);
+        return aplicar(ficha);
+    }
+
+    /**
+     * La ficha tiene que ser del jugador con el turno y estar en la mascara de movimientos legales
+     */
+    private void validarFicha(Ficha ficha) {
+        EstadoPartida estado = partida.getEstado();
+        int slot = ficha.getSlot();
+        if (ficha.getEstado() != estado || slot / EstadoPartida.FICHAS_POR_JUGADOR != estado.getTurno()
+                || (getMascaraDisponibles() & (1 << (slot % EstadoPartida.FICHAS_POR_JUGADOR))) == 0) {
+            throw new IllegalArgumentException("Esa ficha no se puede mover");
+        }
+    }
+
+    private int aplicar(Ficha ficha) {
+        Jugador jugador = partida.getTurnoActual();
+        int premio = partida.getReglas().aplicar(jugador, ficha, partida.getTablero(), partida);
+
+        // El premio se pierde si ninguna ficha en juego lo puede usar (barreras)
+        EstadoPartida estado = partida.getEstado();
+        if (premio > 0 && GeneradorMovimientos.mascara(estado, estado.getTurno(), 0, premio) != 0) {
+            premioPendiente = premio;
+        } else {
+            terminarTirada();
+        }
+        return premio;
+    }
+
+    /**
+     * Cierra la tirada: comprueba victoria y pasa el turno si no saco 6
+     */
+    private void terminarTirada() {
+        Jugador jugador = partida.getTurnoActual();
+        if (jugador.isTodasEnMeta()) {
+            ganador = jugador;
+            partida.terminar();
+        } else if (!partida.getReglas().verificarTurnoExtra(valorDado)) {
+            ultimaMovida = null;
+            partida.cambiarTurno();
+        }
+        valorDado = 0;
+    }
+
+    /**
+     * Restaura una tirada a medias en una partida cargada de otro proceso
+     * (migracion entre nodos); el estado ya trae el contador de 6 sumado
+     * @param valorDado Dado pendiente de mover o 0
+     * @param premioPendiente Premio pendiente o 0
+     * @param ultimaMovida Ultima ficha movida con el dado, null si ninguna
+     */
+    public void restaurar(int valorDado, int premioPendiente, Ficha ultimaMovida) {
+        this.valorDado = valorDado;
+        this.premioPendiente = premioPendiente;
+        this.ultimaMovida = ultimaMovida;
+        this.ganador = partida.getGanador();
+        if (ganador != null) {
+            partida.terminar();
+        }
+    }
+
+    private void enviarACasa(Ficha ficha) {
+        Casilla casilla = partida.getTablero().getCasilla(ficha.getPosicion());
+        if (casilla != null) {
+            casilla.removerFicha(ficha);
+        }
+        ficha.regresarACasa();
+    }
+
+    public Partida getPartida() { return partida; }
+    public Ficha getUltimaMovida() { return ultimaMovida; }
+    public void setUltimaMovida(Ficha ultimaMovida) { this.ultimaMovida = ultimaMovida; }
+    public int getValorDado() { return valorDado; }
+    public int getPremioPendiente() { return premioPendiente; }
+    public Jugador getGanador() { return ganador; }
+    public boolean isTerminada() { return ganador != null; }
+}
@@ -0,0 +1,113 @@
+/**
+ * Historial de jugadas en un buffer circular de estados empaquetados
+ * Cada jugada guarda el estado volcado (4 palabras de fichas y el control,
+ * asi van incluidas las fichas comidas, el turno y el contador de 6) y un
+ * long libre para quien registra (p. ej. la tirada pendiente)
+ * 
+ * Las jugadas se numeran desde 0 sin reiniciar; con el buffer lleno la mas
+ * antigua se pisa. Deshacer, rehacer e ir a una jugada son O(1) y nada se
+ * crea por jugada: todo vive en un long[] reservado al construir
+ * Registrar despues de deshacer descarta las jugadas que se podian rehacer
+ */
+package modelo;
+
+public final class HistorialJugadas {
+    private static final int LONGS_POR_JUGADA = EstadoPartida.PALABRAS + 1;
+    private static final int EXTRA = EstadoPartida.PALABRAS;
+    
+    private final long[] jugadas;
+    private final int mascara;
+    // Numero de la jugada mas antigua que queda, de la actual y de la ultima registrada
+    private long primera;
+    private long actual;
+    private long ultima;
+    
+    /**
+     * Constructor del historial
+     * @param capacidad Jugadas que se conservan, se redondea a potencia de 2
+     */
+    public HistorialJugadas(int capacidad) {
+        int tamano = Integer.highestOneBit(Math.max(2, capacidad - 1)) << 1;
+        this.jugadas = new long[tamano * LONGS_POR_JUGADA];
+        this.mascara = tamano - 1;
+        vaciar();
+    }
+    
+    /**
+     * Olvida todas las jugadas
+     */
+    public void vaciar() {
+        primera = 0;
+        actual = -1;
+        ultima = -1;
+    }
+    
+    /**
+     * Guarda el estado como la jugada siguiente a la actual
+     * @param estado Estado tras la jugada (o el inicial)
+     * @param extra Dato libre que se devuelve con getExtra
+     * @return Numero de la jugada
+     */
+    public long registrar(EstadoPartida estado, long extra) {
+        actual++;
+        ultima = actual;
+        if (ultima - primera > mascara) {
+            primera = ultima - mascara;
+        }
+        int base = indice(actual);
+        estado.volcar(jugadas, base);
+        jugadas[base + EXTRA] = extra;
+        return actual;
+    }
+    
+    /**
+     * Vuelve a la jugada anterior
+     * @param estado Estado que se sobrescribe
+     * @return false si no queda ninguna anterior en el buffer
+     */
+    public boolean deshacer(EstadoPartida estado) {
+        return ir(actual - 1, estado);
+    }
+    
+    /**
+     * Avanza a la jugada siguiente, si se deshizo antes
+     * @param estado Estado que se sobrescribe
+     * @return false si la actual es la ultima
+     */
+    public boolean rehacer(EstadoPartida estado) {
+        return ir(actual + 1, estado);
+    }
+    
+    /**
+     * Salta a cualquier jugada que siga en el buffer
+     * @param jugada Numero de jugada
+     * @param estado Estado que se sobrescribe
+     * @return false si la jugada ya se piso o no existe
+     */
+    public boolean ir(long jugada, EstadoPartida estado) {
+        if (jugada < primera || jugada > ultima) {
+            return false;
+        }
+        actual = jugada;
+        estado.cargar(jugadas, indice(jugada));
+        return true;
+    }
+    
+    private int indice(long jugada) {
+        return (int) (jugada & mascara) * LONGS_POR_JUGADA;
+    }
+    
+    /**
+     * Dato libre de la jugada actual
+     */
+    public long getExtra() {
+        return actual < 0 ? 0 : jugadas[indice(actual) + EXTRA];
+    }
+    
+    public boolean puedeDeshacer() { return actual > primera; }
+    public boolean puedeRehacer() { return actual < ultima; }
+    public long getPrimera() { return primera; }
+    public long getActual() { return actual; }
+    public long getUltima() { return ultima; }
+    public int getCapacidad() { return mascara + 1; }
+}
@@ -0,0 +1,210 @@
+/**
+ * Foto inmutable de una partida para lectores concurrentes
+ * (espectadores, bots, persistencia) mientras el dueno sigue jugando
+ * 
+ * Todas las fichas caben en 4 palabras de 64 bits mas la de control, asi
+ * que se copian tal cual; lo que casi nunca cambia (los asientos) se
+ * comparte entre fotos consecutivas. Las casillas no se guardan: salen de
+ * las palabras al leer. Leer no reserva memoria ni toma cerrojos
+ */
+package modelo;
+
+import java.util.List;
+import java.util.Objects;
+
+public final class InstantaneaPartida {
+    private final int idPartida;
+    private final long version;
+    private final long fichas0;
+    private final long fichas1;
+    private final long fichas2;
+    private final long fichas3;
+    private final long control;
+    private final long hash;
+    private final int valorDado;
+    private final int premioPendiente;
+    private final boolean terminada;
+    private final int ganador;
+    // Compartido con la foto anterior mientras no entre ni salga nadie
+    private final Asiento[] asientos;
+    
+    private InstantaneaPartida(int idPartida, long version, EstadoPartida estado,
+                               int valorDado, int premioPendiente, boolean terminada, int ganador, Asiento[] asientos) {
+        this.idPartida = idPartida;
+        this.version = version;
+        this.fichas0 = estado.getPalabraFichas(0);
+        this.fichas1 = estado.getPalabraFichas(1);
+        this.fichas2 = estado.getPalabraFichas(2);
+        this.fichas3 = estado.getPalabraFichas(3);
+        this.control = estado.getControl();
+        this.hash = estado.getHash();
+        this.valorDado = valorDado;
+        this.premioPendiente = premioPendiente;
+        this.terminada = terminada;
+        this.ganador = ganador;
+        this.asientos = asientos;
+    }
+    
+    /**
+     * Toma la foto del estado actual, solo desde el hilo que escribe la partida
+     * Si nada cambio desde la anterior devuelve la anterior sin reservar memoria
+     * @param partida Partida viva
+     * @param turno Gestor del turno, null si la partida no ha empezado
+     * @param anterior Ultima foto publicada, null si es la primera
+     * @return Foto nueva o la anterior
+     */
+    public static InstantaneaPartida tomar(Partida partida, GestorTurno turno, InstantaneaPartida anterior) {
+        EstadoPartida estado = partida.getEstado();
+        int valorDado = turno != null ? turno.getValorDado() : 0;
+        int premio = turno != null ? turno.getPremioPendiente() : 0;
+        Jugador g = turno != null ? turno.getGanador() : null;
+        boolean terminada = g != null;
+        int ganador = terminada ? g.getIdJugador() : 0;
+        
+        Asiento[] asientos = anterior != null && anterior.mismosAsientos(partida)
+                ? anterior.asientos
+                : copiarAsientos(partida);
+        
+        if (anterior != null && asientos == anterior.asientos && anterior.idPartida == partida.getIdPartida()
+                && anterior.control == estado.getControl()
+                && anterior.fichas0 == estado.getPalabraFichas(0) && anterior.fichas1 == estado.getPalabraFichas(1)
+                && anterior.fichas2 == estado.getPalabraFichas(2) && anterior.fichas3 == estado.getPalabraFichas(3)
+                && anterior.valorDado == valorDado && anterior.premioPendiente == premio
+                && anterior.terminada == terminada && anterior.ganador == ganador) {
+            return anterior;
+        }
+        long version = anterior != null ? anterior.version + 1 : 1;
+        return new InstantaneaPartida(partida.getIdPartida(), version, estado, valorDado, premio,
+                terminada, ganador, asientos);
+    }
+    
+    private boolean mismosAsientos(Partida partida) {
+        List<Jugador> jugadores = partida.getJugadores();
+        if (jugadores.size() != asientos.length) {
+            return false;
+        }
+        for (int i = 0; i < asientos.length; i++) {
+            Jugador j = jugadores.get(i);
+            Asiento a = asientos[i];
+            if (j.getIdJugador() != a.id || !Objects.equals(j.getNombre(), a.nombre)
+                    || !Objects.equals(j.getColor(), a.color)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static Asiento[] copiarAsientos(Partida partida) {
+        List<Jugador> jugadores = partida.getJugadores();
+        Asiento[] copia = new Asiento[jugadores.size()];
+        for (int i = 0; i < copia.length; i++) {
+            Jugador j = jugadores.get(i);
+            copia[i] = new Asiento(j.getIdJugador(), j.getNombre(), j.getColor());
+        }
+        return copia;
+    }
+    
+    // ---- Lectura ----
+    
+    /**
+     * Fichas empaquetadas de un asiento, igual que EstadoPartida.getPalabraFichas
+     */
+    public long getPalabraFichas(int jugador) {
+        switch (jugador) {
+            case 0: return fichas0;
+            case 1: return fichas1;
+            case 2: return fichas2;
+            case 3: return fichas3;
+            default: throw new IndexOutOfBoundsException("Jugador " + jugador);
+        }
+    }
+    
+    private int ficha(int slot) {
+        return EstadoPartida.fichaDe(getPalabraFichas(slot >>> 2), slot & 3);
+    }
+    
+    public int getPosicion(int slot) {
+        return EstadoPartida.posicionDe(ficha(slot));
+    }
+    
+    public boolean isEnCasa(int slot) {
+        return EstadoPartida.enCasaDe(ficha(slot));
+    }
+    
+    public boolean isEnMeta(int slot) {
+        return EstadoPartida.enMetaDe(ficha(slot));
+    }
+    
+    public boolean isEnTablero(int slot) {
+        return EstadoPartida.enTableroDe(ficha(slot));
+    }
+    
+    /**
+     * Fichas que hay en una casilla
+     * @param casilla Numero de casilla (0-67)
+     * @return Mascara de slots (bit slot a 1 si la ficha esta ahi)
+     */
+    public int ocupantes(int casilla) {
+        int mascara = 0;
+        int total = asientos.length * EstadoPartida.FICHAS_POR_JUGADOR;
+        for (int slot = 0; slot < total; slot++) {
+            int f = ficha(slot);
+            if (EstadoPartida.enTableroDe(f) && EstadoPartida.posicionDe(f) == casilla) {
+                mascara |= 1 << slot;
+            }
+        }
+        return mascara;
+    }
+    
+    /**
+     * Fichas de un asiento que han llegado a meta
+     */
+    public int fichasEnMeta(int jugador) {
+        int enMeta = 0;
+        for (int i = 0; i < EstadoPartida.FICHAS_POR_JUGADOR; i++) {
+            if (isEnMeta(jugador * EstadoPartida.FICHAS_POR_JUGADOR + i)) {
+                enMeta++;
+            }
+        }
+        return enMeta;
+    }
+    
+    /**
+     * ID del jugador con el turno
+     * @return ID, o 0 si la partida no ha empezado
+     */
+    public int getIdJugadorTurno() {
+        int turno = getTurno();
+        return turno >= 0 && turno < asientos.length ? asientos[turno].id : 0;
+    }
+    
+    public int getIdPartida() { return idPartida; }
+    public long getVersion() { return version; }
+    public long getControl() { return control; }
+    public long getHash() { return hash; }
+    public int getTurno() { return EstadoPartida.turnoDe(control); }
+    public int getContadorSeis() { return EstadoPartida.contadorSeisDe(control); }
+    public int getValorDado() { return valorDado; }
+    public int getPremioPendiente() { return premioPendiente; }
+    /**
+     * ID del ganador, solo vale si isTerminada
+     */
+    public int getGanador() { return ganador; }
+    public boolean isTerminada() { return terminada; }
+    public int getNumJugadores() { return asientos.length; }
+    public int getIdJugador(int asiento) { return asientos[asiento].id; }
+    public String getNombre(int asiento) { return asientos[asiento].nombre; }
+    public String getColor(int asiento) { return asientos[asiento].color; }
+    
+    private static final class Asiento {
+        final int id;
+        final String nombre;
+        final String color;
+    
+        Asiento(int id, String nombre, String color) {
+            this.id = id;
+            this.nombre = nombre;
+            this.color = color;
+        }
+    }
+}
@@ -29,9 +29,25 @@ public class Jugador {
         this.fichas = new ArrayList<>();
         this.turno = false;
         
-        // Crear 4 fichas
+        // Crear 4 fichas sobre un estado propio hasta entrar en una partida
+        EstadoPartida estado = new EstadoPartida();
         for (int i = 0; i < 4; i++) {
-            fichas.add(new Ficha(color));
+            fichas.add(new Ficha(color, estado, i));
+        }
+    }
+    
+    /**
+     * Reutiliza el jugador y sus fichas para otra partida
+     * Solo lo llama Partida con jugadores de una partida ya terminada
+     */
+    void reciclar(int id, String nombre, String color) {
+        this.idJugador = id;
+        this.nombre = nombre;
+        this.color = color;
+        this.avatar = null;
+        this.turno = false;
+        for (Ficha ficha : fichas) {
+            ficha.reciclar(color, id);
         }
     }
     
@@ -49,32 +65,37 @@ public class Jugador {
     
     /**
      * Obtiene las fichas que pueden moverse segun el valor del dado
-     * Con 5 puede sacar fichas de casa
-     * Con otros valores solo mueve fichas en juego
+     * Las calcula GeneradorMovimientos.mascara con las reglas completas: con 5
+     * sale de casa la primera ficha si la salida no tiene barrera, con otros
+     * valores solo se mueven fichas en juego, y la ficha que tendria que cruzar
+     * o caer en una barrera (tambien propia) no aparece
      * @param valorDado Valor obtenido en el dado (1-6)
-     * @return Lista de fichas que pueden moverse
+     * @return Lista de fichas que pueden moverse, primero la que sale de casa
      */
     public List<Ficha> getFichasDisponibles(int valorDado) {
-        List<Ficha> disponibles = new ArrayList<>();
-        
-        // Si saca 5, puede sacar una ficha de casa
-        if (valorDado == 5) {
-            for (Ficha ficha : fichas) {
-                if (ficha.isEnCasa()) {
-                    disponibles.add(ficha);
-                    break; // Solo una ficha puede salir por turno
-                }
-            }
-        }
-        
-        // Fichas en juego siempre pueden moverse
-        for (Ficha ficha : fichas) {
-            if (!ficha.isEnCasa() && !ficha.isEnMeta()) {
-                disponibles.add(ficha);
-            }
-        }
-        
-        return disponibles;
+        return getFichas(getMascaraDisponibles(valorDado));
+    }
+    
+    /**
+     * Fichas que pueden moverse, sin crear listas (ver GeneradorMovimientos)
+     * Con 5 incluye la primera ficha en casa (solo una puede salir por turno)
+     * @param valorDado Valor obtenido en el dado (1-6)
+     * @return Mascara de 4 bits, bit i a 1 si la ficha i se puede mover
+     */
+    public int getMascaraDisponibles(int valorDado) {
+        return GeneradorMovimientos.mascara(estado(), asiento(), valorDado, 0);
+    }
+    
+    /**
+     * Fichas de una mascara, primero la que esta en casa y luego por indice
+     * @param mascara Mascara de 4 bits por indice de ficha
+     * @return Lista nueva
+     */
+    public List<Ficha> getFichas(int mascara) {
+        int salida = mascara & getMascaraEnCasa();
+        List<Ficha> lista = new ArrayList<>(Integer.bitCount(mascara));
+        agregar(lista, salida);
+        return agregar(lista, mascara & ~salida);
     }
     
     /**
@@ -82,13 +103,7 @@ public class Jugador {
      * @return Lista de fichas en casa
      */
     public List<Ficha> getFichasEnCasa() {
-        List<Ficha> enCasa = new ArrayList<>();
-        for (Ficha ficha : fichas) {
-            if (ficha.isEnCasa()) {
-                enCasa.add(ficha);
-            }
-        }
-        return enCasa;
+        return agregar(new ArrayList<>(contarEnCasa()), getMascaraEnCasa());
     }
     
     /**
@@ -96,15 +111,35 @@ public class Jugador {
      * @return Lista de fichas en juego
      */
     public List<Ficha> getFichasEnJuego() {
-        List<Ficha> enJuego = new ArrayList<>();
-        for (Ficha ficha : fichas) {
-            if (!ficha.isEnCasa() && !ficha.isEnMeta()) {
-                enJuego.add(ficha);
-            }
+        return agregar(new ArrayList<>(contarEnJuego()), getMascaraEnJuego());
+    }
+    
+    private List<Ficha> agregar(List<Ficha> lista, int mascara) {
+        for (int m = mascara; m != 0; m &= m - 1) {
+            lista.add(fichas.get(Integer.numberOfTrailingZeros(m)));
         }
-        return enJuego;
+        return lista;
     }
     
+    // ---- Contadores (los mantiene EstadoPartida en cada cambio de ficha) ----
+    
+    private EstadoPartida estado() {
+        return fichas.get(0).getEstado();
+    }
+    
+    private int asiento() {
+        return fichas.get(0).getSlot() / EstadoPartida.FICHAS_POR_JUGADOR;
+    }
+    
+    public int getMascaraEnCasa() { return estado().getMascaraCasa(asiento()); }
+    public int getMascaraEnJuego() { return estado().getMascaraEnJuego(asiento()); }
+    public int getMascaraEnMeta() { return estado().getMascaraMeta(asiento()); }
+    public int contarEnCasa() { return Integer.bitCount(getMascaraEnCasa()); }
+    public int contarEnJuego() { return Integer.bitCount(getMascaraEnJuego()); }
+    public int contarEnMeta() { return Integer.bitCount(getMascaraEnMeta()); }
+    public boolean isTodasEnMeta() { return getMascaraEnMeta() == 0xF; }
+    public int getPasosRestantes() { return estado().getPasosRestantes(asiento()); }
+    
     // Getters y Setters
     public int getIdJugador() { return idJugador; }
     public String getNombre() { return nombre; }
@@ -0,0 +1,42 @@
+/**
+ * Lista reutilizable de movimientos empaquetados en int
+ * La rellena GeneradorMovimientos; se lee con sus decodificadores
+ * Una por hilo o por nivel de busqueda, nunca reserva memoria al generar
+ */
+package modelo;
+
+public final class ListaMovimientos {
+    // Como mucho se mueve cada ficha del jugador una vez (la de casa o las que estan en juego)
+    public static final int CAPACIDAD = EstadoPartida.FICHAS_POR_JUGADOR;
+    
+    private final int[] movimientos;
+    private int cantidad;
+    
+    public ListaMovimientos() {
+        this.movimientos = new int[CAPACIDAD];
+    }
+    
+    void limpiar() {
+        cantidad = 0;
+    }
+    
+    void agregar(int movimiento) {
+        movimientos[cantidad++] = movimiento;
+    }
+    
+    /**
+     * Mascara de las fichas que aparecen en la lista
+     * @return 4 bits, bit i a 1 si la ficha i del jugador tiene movimiento
+     */
+    public int getMascaraFichas() {
+        int mascara = 0;
+        for (int i = 0; i < cantidad; i++) {
+            mascara |= 1 << (GeneradorMovimientos.slot(movimientos[i]) & 3);
+        }
+        return mascara;
+    }
+    
+    public int get(int indice) { return movimientos[indice]; }
+    public int getCantidad() { return cantidad; }
+    public boolean isVacia() { return cantidad == 0; }
+}
@@ -4,7 +4,10 @@
  */
 package modelo;
 
+import eventos.BusEventos;
+import metricas.MetricasJuego;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Partida {
@@ -13,8 +16,15 @@ public class Partida {
     private Tablero tablero;
     private Dado dado;
     private ReglasJuego reglas;
-    private Jugador turnoActual;
-    private int contadorSeis;
+    // Turno, contador de 6 y fichas de todos los jugadores
+    private EstadoPartida estado;
+    private BusEventos eventos;
+    // IDs de ficha propios de la partida, sin contador global
+    private int siguienteIdFicha;
+    // Jugadores de una vuelta anterior listos para reutilizar
+    private List<Jugador> reciclados;
+    // Iniciada y sin terminar, para el contador de partidas activas
+    private boolean activa;
     
     /**
      * Constructor de partida
@@ -26,7 +36,32 @@ public class Partida {
         this.tablero = new Tablero();
         this.dado = new Dado();
         this.reglas = new ReglasJuego();
-        this.contadorSeis = 0;
+        this.estado = new EstadoPartida();
+        this.eventos = BusEventos.getGlobal();
+        this.siguienteIdFicha = 1;
+        this.reciclados = new ArrayList<>();
+    }
+    
+    /**
+     * Deja la partida vacia para volver a usarla con otro id
+     * Tablero, estado y jugadores se conservan y se reutilizan
+     * Quien la recicla no debe seguir usando sus jugadores ni sus fichas
+     * @param id Identificador de la nueva partida
+     */
+    public void reiniciar(int id) {
+        terminar();
+        this.idPartida = id;
+        for (Casilla casilla : tablero.getCasillas()) {
+            casilla.vaciar();
+        }
+        estado.reiniciar();
+        for (Jugador j : jugadores) {
+            j.setTurno(false);
+            reciclados.add(j);
+        }
+        jugadores.clear();
+        siguienteIdFicha = 1;
+        eventos = BusEventos.getGlobal();
     }
     
     /**
@@ -35,13 +70,13 @@ public class Partida {
      */
     public void iniciarPartida() {
         if (jugadores.size() >= 2) {
-            System.out.println("\n=== Iniciando Partida de Parchis Star ===");
-            System.out.println("Jugadores:");
-            for (Jugador j : jugadores) {
-                System.out.println("- " + j.getNombre() + " (Color: " + j.getColor() + ")");
+            eventos.inicioPartida(idPartida, jugadores.size());
+            if (!activa) {
+                activa = true;
+                MetricasJuego.getGlobal().partidaIniciada();
             }
-            turnoActual = jugadores.get(0);
-            turnoActual.setTurno(true);
+            estado.setTurno(0);
+            jugadores.get(0).setTurno(true);
         }
     }
     
@@ -50,18 +85,20 @@ public class Partida {
      * Reinicia el contador de 6 seguidos
      */
     public void cambiarTurno() {
-        if (turnoActual != null) {
-            turnoActual.setTurno(false);
+        MetricasJuego metricas = MetricasJuego.getGlobal();
+        long inicio = metricas.inicio();
+        Jugador anterior = getTurnoActual();
+        if (anterior != null) {
+            anterior.setTurno(false);
         }
         
-        int indiceActual = jugadores.indexOf(turnoActual);
-        int siguienteIndice = (indiceActual + 1) % jugadores.size();
-        turnoActual = jugadores.get(siguienteIndice);
+        estado.setNumJugadores(jugadores.size());
+        Jugador turnoActual = jugadores.get(estado.cambiarTurno());
         turnoActual.setTurno(true);
-        contadorSeis = 0;
         
-        System.out.println("[JUEGO] Turno cambiado al Jugador " + turnoActual.getIdJugador() + 
-                         " (" + turnoActual.getNombre() + ")");
+        eventos.cambioTurno(idPartida, anterior != null ? anterior.getIdJugador() : 0,
+                            turnoActual.getIdJugador(), turnoActual.getNombre());
+        metricas.registrarCambioTurno(inicio);
     }
     
     /**
@@ -72,56 +109,186 @@ public class Partida {
             j.setTurno(false);
         }
         
-        for (Jugador j : jugadores) {
+        Jugador anterior = getTurnoActual();
+        for (int i = 0; i < jugadores.size(); i++) {
+            Jugador j = jugadores.get(i);
             if (j.getIdJugador() == jugadorId) {
-                this.turnoActual = j;
+                estado.setTurno(i);
                 j.setTurno(true);
-                System.out.println("[JUEGO] Turno establecido al Jugador " + jugadorId + 
-                                 " (" + j.getNombre() + ")");
+                eventos.cambioTurno(idPartida, anterior != null ? anterior.getIdJugador() : 0,
+                                    jugadorId, j.getNombre());
                 break;
             }
         }
     }
     
     /**
-     * Finaliza la partida y muestra resultados
-     * Cuenta cuantas fichas llego cada jugador a la meta
+     * Finaliza la partida y publica el resultado
+     * El ganador sale de los contadores de meta, sin recorrer fichas
      */
     public void finalizarPartida() {
-        System.out.println("\n============================================");
-        System.out.println("|        PARTIDA FINALIZADA                |");
-        System.out.println("============================================");
-        
-        String ganador = null;
-        for (Jugador j : jugadores) {
-            int fichasEnMeta = 0;
-            for (Ficha f : j.getFichas()) {
-                if (f.isEnMeta()) {
-                    fichasEnMeta++;
-                }
-            }
-            System.out.println(j.getNombre() + ": " + fichasEnMeta + " fichas en meta");
-            
-            if (fichasEnMeta == 4 && ganador == null) {
-                ganador = j.getNombre();
+        terminar();
+        Jugador ganador = getGanador();
+        if (ganador != null) {
+            eventos.finPartida(idPartida, ganador.getIdJugador(), ganador.getNombre(), 4);
+        } else {
+            eventos.finPartida(idPartida, 0, null, 0);
+        }
+    }
+    
+    // ---- Clasificacion (O(1) con los contadores del estado) ----
+    
+    /**
+     * Primer jugador con las 4 fichas en meta
+     * @return El ganador o null si nadie ha terminado
+     */
+    public Jugador getGanador() {
+        int asiento = estado.getGanador(jugadores.size());
+        return asiento >= 0 ? jugadores.get(asiento) : null;
+    }
+    
+    /**
+     * Jugador al que le faltan menos pasos para meter sus fichas
+     * @return El lider o null si no hay jugadores
+     */
+    public Jugador getLider() {
+        for (int i = 0; i < jugadores.size(); i++) {
+            if (estado.getPuesto(i, jugadores.size()) == 1) {
+                return jugadores.get(i);
             }
         }
-        
-        if (ganador != null) {
-            System.out.println("\n¡GANADOR: " + ganador + "!");
+        return null;
+    }
+    
+    /**
+     * Puesto de un jugador en la clasificacion actual
+     * @param asiento Indice del jugador en la partida
+     * @return Puesto, empezando en 1
+     */
+    public int getPuesto(int asiento) {
+        return estado.getPuesto(asiento, jugadores.size());
+    }
+    
+    /**
+     * Clasificacion actual, del que menos pasos le faltan al que mas
+     * @return Lista nueva con los jugadores ordenados
+     */
+    public List<Jugador> getClasificacion() {
+        Jugador[] orden = new Jugador[jugadores.size()];
+        for (int i = 0; i < orden.length; i++) {
+            orden[getPuesto(i) - 1] = jugadores.get(i);
+        }
+        return Arrays.asList(orden);
+    }
+    
+    /**
+     * Marca la partida como terminada en las metricas
+     * Se puede llamar varias veces, solo cuenta la primera
+     */
+    void terminar() {
+        if (activa) {
+            activa = false;
+            MetricasJuego.getGlobal().partidaTerminada();
         }
     }
     
     /**
      * Agrega un jugador a la partida
      * Maximo 4 jugadores permitidos
+     * Sus fichas pasan a vivir en el estado compacto de la partida
      * @param jugador Jugador a agregar
      */
     public void agregarJugador(Jugador jugador) {
         if (jugadores.size() < 4) {
+            int indice = jugadores.size();
+            List<Ficha> fichas = jugador.getFichas();
+            for (int i = 0; i < fichas.size() && i < EstadoPartida.FICHAS_POR_JUGADOR; i++) {
+                fichas.get(i).vincular(estado, indice * EstadoPartida.FICHAS_POR_JUGADOR + i, siguienteIdFicha++);
+            }
             jugadores.add(jugador);
-            System.out.println("Jugador " + jugador.getNombre() + " agregado (ID: " + 
-                             jugador.getIdJugador() + ")");
+            estado.setNumJugadores(jugadores.size());
+            eventos.jugadorAgregado(idPartida, jugador.getIdJugador(), jugador.getNombre(), jugador.getColor());
+        }
+    }
+    
+    /**
+     * Agrega un jugador nuevo reutilizando uno reciclado si lo hay
+     * @return El jugador agregado, o null si la partida esta llena
+     */
+    public Jugador agregarJugador(int id, String nombre, String color) {
+        if (jugadores.size() >= 4) {
+            return null;
+        }
+        Jugador jugador;
+        if (reciclados.isEmpty()) {
+            jugador = new Jugador(id, nombre, color);
+        } else {
+            jugador = reciclados.remove(reciclados.size() - 1);
+            jugador.reciclar(id, nombre, color);
+        }
+        agregarJugador(jugador);
+        return jugador;
+    }
+    
+    /**
+     * Quita un jugador antes de iniciar la partida
+     * Los siguientes bajan un asiento y sus fichas pasan a los slots de ese asiento
+     * El jugador quitado se lleva sus fichas a un estado propio y no se recicla:
+     * quien lo llamo puede seguir teniendolo
+     * @param id ID del jugador
+     * @return true si estaba en la partida
+     */
+    public boolean quitarJugador(int id) {
+        if (activa) {
+            throw new IllegalStateException("La partida ya empezo");
+        }
+        int asiento = -1;
+        for (int i = 0; i < jugadores.size(); i++) {
+            if (jugadores.get(i).getIdJugador() == id) {
+                asiento = i;
+                break;
+            }
+        }
+        if (asiento < 0) {
+            return false;
+        }
+        
+        // Antes de correr a los demas, que pisan sus slots
+        List<Ficha> suyas = jugadores.remove(asiento).getFichas();
+        EstadoPartida propio = new EstadoPartida();
+        for (int f = 0; f < suyas.size() && f < EstadoPartida.FICHAS_POR_JUGADOR; f++) {
+            Ficha ficha = suyas.get(f);
+            ficha.vincular(propio, f, ficha.getIdFicha());
+        }
+        for (int i = asiento; i < jugadores.size(); i++) {
+            List<Ficha> fichas = jugadores.get(i).getFichas();
+            for (int f = 0; f < fichas.size() && f < EstadoPartida.FICHAS_POR_JUGADOR; f++) {
+                Ficha ficha = fichas.get(f);
+                ficha.vincular(estado, i * EstadoPartida.FICHAS_POR_JUGADOR + f, ficha.getIdFicha());
+            }
+        }
+        estado.setNumJugadores(jugadores.size());
+        return true;
+    }
+    
+    /**
+     * Reconstruye casillas y turnos a partir del estado compacto
+     * Se usa tras cargar un estado completo (snapshot, keyframe)
+     */
+    public void sincronizarVistas() {
+        for (Casilla casilla : tablero.getCasillas()) {
+            casilla.vaciar();
+        }
+        
+        int turno = estado.getTurno();
+        for (int i = 0; i < jugadores.size(); i++) {
+            Jugador j = jugadores.get(i);
+            j.setTurno(i == turno);
+            for (Ficha f : j.getFichas()) {
+                if (f.getEstado() == estado && estado.isEnTablero(f.getSlot())) {
+                    tablero.getCasilla(f.getPosicion()).agregarFicha(f);
+                }
+            }
         }
     }
     
@@ -143,8 +310,18 @@ public class Partida {
     public Tablero getTablero() { return tablero; }
     public Dado getDado() { return dado; }
     public ReglasJuego getReglas() { return reglas; }
-    public Jugador getTurnoActual() { return turnoActual; }
-    public int getContadorSeis() { return contadorSeis; }
-    public void incrementarContadorSeis() { this.contadorSeis++; }
-    public void reiniciarContadorSeis() { this.contadorSeis = 0; }
+    public EstadoPartida getEstado() { return estado; }
+    public boolean isTerminada() { return getGanador() != null; }
+    public long getHash() { return estado.getHash(); }
+    public BusEventos getEventos() { return eventos; }
+    public void setEventos(BusEventos eventos) { this.eventos = eventos; }
+    public int getSiguienteIdFicha() { return siguienteIdFicha; }
+    public int getContadorSeis() { return estado.getContadorSeis(); }
+    public void incrementarContadorSeis() { estado.incrementarContadorSeis(); }
+    public void reiniciarContadorSeis() { estado.setContadorSeis(0); }
+    
+    public Jugador getTurnoActual() {
+        int turno = estado.getTurno();
+        return turno >= 0 && turno < jugadores.size() ? jugadores.get(turno) : null;
+    }
 }
@@ -0,0 +1,58 @@
+/**
+ * Pool de partidas terminadas para reutilizar tablero, estado y fichas
+ * Con muchas partidas cortas evita crear el grafo completo en cada una
+ */
+package modelo;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PoolPartidas {
+    public static final int CAPACIDAD_POR_DEFECTO = 1024;
+    
+    private final ArrayBlockingQueue<Partida> libres;
+    private final LongAdder creadas;
+    private final LongAdder reutilizadas;
+    
+    /**
+     * Constructor del pool
+     * @param capacidad Maximo de partidas guardadas, las que sobran se descartan
+     */
+    public PoolPartidas(int capacidad) {
+        this.libres = new ArrayBlockingQueue<>(capacidad);
+        this.creadas = new LongAdder();
+        this.reutilizadas = new LongAdder();
+    }
+    
+    public PoolPartidas() {
+        this(CAPACIDAD_POR_DEFECTO);
+    }
+    
+    /**
+     * Entrega una partida vacia, reciclada si hay alguna libre
+     * @param idPartida Identificador de la nueva partida
+     */
+    public Partida obtener(int idPartida) {
+        Partida partida = libres.poll();
+        if (partida == null) {
+            creadas.increment();
+            return new Partida(idPartida);
+        }
+        reutilizadas.increment();
+        partida.reiniciar(idPartida);
+        return partida;
+    }
+    
+    /**
+     * Devuelve una partida terminada al pool
+     * Despues de devolverla no se debe tocar ni ella ni sus jugadores
+     * @return true si se guardo, false si el pool estaba lleno
+     */
+    public boolean devolver(Partida partida) {
+        return libres.offer(partida);
+    }
+    
+    public int getLibres() { return libres.size(); }
+    public long getCreadas() { return creadas.sum(); }
+    public long getReutilizadas() { return reutilizadas.sum(); }
+}
@@ -4,8 +4,8 @@
  */
 package modelo;
 
-import java.util.ArrayList;
-import java.util.List;
+import eventos.BusEventos;
+import metricas.MetricasJuego;
 
 public class ReglasJuego {
     private String nombre;
@@ -55,7 +55,7 @@ public class ReglasJuego {
      * @return true si llego a meta, false si no
      */
     public boolean verificarMeta(Ficha ficha) {
-        return ficha.getPosicion() >= 67 || ficha.isEnMeta();
+        return ficha.isEnMeta() || ficha.getPosicion() >= EstadoPartida.CASILLA_META;
     }
     
     /**
@@ -68,43 +68,61 @@ public class ReglasJuego {
      * @return Numero de casillas de premio (0, 10 o 20)
      */
     public int aplicar(Jugador jugador, Ficha ficha, Tablero tablero, Partida partida) {
-        int premioCasillas = 0;
         int posicion = ficha.getPosicion();
         Casilla casilla = tablero.getCasilla(posicion);
         
         if (casilla == null || ficha.isEnMeta()) return 0;
         
-        // Verificar si come fichas
-        if (!casilla.esSegura()) {
-            List<Ficha> fichasEnCasilla = new ArrayList<>(casilla.getFichas());
-            for (Ficha otraFicha : fichasEnCasilla) {
-                if (!otraFicha.equals(ficha) && !otraFicha.getColor().equals(ficha.getColor())) {
-                    System.out.println("\nFICHA COMIDA! " + jugador.getNombre() + 
-                                     " come ficha " + otraFicha.getColor());
-                    
-                    otraFicha.regresarACasa();
+        MetricasJuego metricas = MetricasJuego.getGlobal();
+        long inicio = metricas.inicio();
+        // Las reglas se resuelven sobre el estado compacto compartido por la partida
+        EstadoPartida estado = ficha.getEstado();
+        int resultado = estado.aplicar(ficha.getSlot());
+        BusEventos eventos = partida != null ? partida.getEventos() : BusEventos.getGlobal();
+        int idPartida = partida != null ? partida.getIdPartida() : 0;
+        
+        // Sincronizar la casilla con las fichas comidas
+        int capturadas = EstadoPartida.fichasCapturadas(resultado);
+        if (capturadas != 0) {
+            int i = 0;
+            while (i < casilla.getCantidad()) {
+                Ficha otraFicha = casilla.getFicha(i);
+                if (otraFicha.getEstado() == estado && (capturadas & (1 << otraFicha.getSlot())) != 0) {
                     casilla.removerFicha(otraFicha);
-                    
-                    premioCasillas = 20;
-                    System.out.println("PREMIO: +20 casillas para avanzar con otra ficha");
+                    eventos.fichaComida(idPartida, jugador.getIdJugador(), jugador.getNombre(),
+                                        idVictima(partida, otraFicha), otraFicha.getColor(),
+                                        otraFicha.getIdFicha(), posicion, 20);
+                } else {
+                    i++;
                 }
             }
         }
         
         // Verificar barrera
-        if (casilla.verificarBarrera()) {
-            System.out.println("BARRERA FORMADA en casilla " + posicion);
+        if (EstadoPartida.formoBarrera(resultado)) {
+            eventos.barreraFormada(idPartida, jugador.getIdJugador(), jugador.getNombre(), posicion);
         }
         
         // Verificar llegada a meta
-        if (verificarMeta(ficha) && !ficha.isEnMeta()) {
-            ficha.llegarMeta();
+        if (EstadoPartida.llegoAMeta(resultado)) {
             casilla.removerFicha(ficha);
-            
-            premioCasillas = 10;
-            System.out.println("FICHA EN META! +10 casillas de premio");
+            eventos.fichaEnMeta(idPartida, jugador.getIdJugador(), jugador.getNombre(), ficha.getIdFicha(), 10);
         }
         
-        return premioCasillas;
+        metricas.registrarAplicar(inicio, Integer.bitCount(capturadas),
+                                  EstadoPartida.formoBarrera(resultado), EstadoPartida.llegoAMeta(resultado));
+        return EstadoPartida.premio(resultado);
+    }
+    
+    /**
+     * Id del jugador duenio de una ficha comida
+     * El asiento sale del slot de la ficha en el estado de la partida
+     */
+    private int idVictima(Partida partida, Ficha ficha) {
+        int asiento = ficha.getSlot() / EstadoPartida.FICHAS_POR_JUGADOR;
+        if (partida != null && asiento < partida.getJugadores().size()) {
+            return partida.getJugadores().get(asiento).getIdJugador();
+        }
+        return ficha.getJugadorId();
     }
 }
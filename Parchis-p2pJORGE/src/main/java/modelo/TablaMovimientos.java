@@ -0,0 +1,114 @@
+/**
+ * Tablas de movimiento precalculadas al cargar la clase
+ * Para cada (jugador, posicion, pasos) guarda la casilla destino,
+ * si la ficha llega a meta y si el destino es seguro
+ * Asi un movimiento se resuelve con una lectura de array
+ */
+package modelo;
+
+public final class TablaMovimientos {
+    // Pasos cubiertos por la tabla: dado (1-6) y premios (10, 20)
+    public static final int MAX_PASOS = 20;
+    public static final int CASA = -1;
+    
+    // Entrada: destino (8 bits), meta (bit 8), destino seguro (bit 9), valido (bit 10)
+    private static final int MASCARA_DESTINO = 0xFF;
+    private static final int BIT_META = 1 << 8;
+    private static final int BIT_SEGURO = 1 << 9;
+    private static final int BIT_VALIDO = 1 << 10;
+    
+    // Posiciones de la tabla: casa (-1) y las casillas 0-67
+    private static final int POSICIONES = EstadoPartida.TOTAL_CASILLAS + 1;
+    private static final int COLUMNAS = MAX_PASOS + 1;
+    private static final int[] MOVIMIENTOS = new int[EstadoPartida.MAX_JUGADORES * POSICIONES * COLUMNAS];
+    
+    // Casillas seguras como mascara de bits: 5, 22, 39, 56 y cada 17 posiciones
+    private static final long[] SEGURAS = new long[(EstadoPartida.TOTAL_CASILLAS + 63) / 64];
+    
+    static {
+        for (int i = 0; i < EstadoPartida.TOTAL_CASILLAS; i++) {
+            if (i == 5 || i == 22 || i == 39 || i == 56 || i % 17 == 0) {
+                SEGURAS[i >>> 6] |= 1L << i;
+            }
+        }
+        
+        for (int jugador = 0; jugador < EstadoPartida.MAX_JUGADORES; jugador++) {
+            int salida = EstadoPartida.casillaSalida(jugador);
+            for (int posicion = CASA; posicion < EstadoPartida.TOTAL_CASILLAS; posicion++) {
+                for (int pasos = 0; pasos <= MAX_PASOS; pasos++) {
+                    int entrada;
+                    if (posicion == CASA) {
+                        // De casa solo se sale con 5 y a la casilla de salida
+                        entrada = pasos == 5 ? codificar(salida, false) : 0;
+                    } else if (posicion + pasos >= EstadoPartida.CASILLA_META) {
+                        entrada = codificar(EstadoPartida.CASILLA_META, true);
+                    } else {
+                        entrada = codificar(posicion + pasos, false);
+                    }
+                    MOVIMIENTOS[indice(jugador, posicion, pasos)] = entrada;
+                }
+            }
+        }
+    }
+    
+    private TablaMovimientos() {
+    }
+    
+    private static int codificar(int destino, boolean meta) {
+        int entrada = destino | BIT_VALIDO;
+        if (meta) {
+            entrada |= BIT_META;
+        }
+        if (esSegura(destino)) {
+            entrada |= BIT_SEGURO;
+        }
+        return entrada;
+    }
+    
+    private static int indice(int jugador, int posicion, int pasos) {
+        return (jugador * POSICIONES + posicion + 1) * COLUMNAS + pasos;
+    }
+    
+    /**
+     * Resuelve un movimiento
+     * @param jugador Indice del jugador (0-3)
+     * @param posicion Casilla actual (0-67) o CASA
+     * @param pasos Casillas a avanzar (0-MAX_PASOS)
+     * @return Entrada empaquetada, se lee con destino, llegaAMeta, destinoSeguro y esValido
+     */
+    public static int movimiento(int jugador, int posicion, int pasos) {
+        return MOVIMIENTOS[indice(jugador, posicion, pasos)];
+    }
+    
+    /**
+     * Indica si la tabla cubre ese movimiento
+     */
+    public static boolean cubre(int posicion, int pasos) {
+        return posicion >= CASA && posicion < EstadoPartida.TOTAL_CASILLAS && pasos >= 0 && pasos <= MAX_PASOS;
+    }
+    
+    /**
+     * Indica si una casilla es segura
+     * @return true si es segura, false si no o si esta fuera del tablero
+     */
+    public static boolean esSegura(int posicion) {
+        return posicion >= 0 && posicion < EstadoPartida.TOTAL_CASILLAS
+                && (SEGURAS[posicion >>> 6] & (1L << posicion)) != 0;
+    }
+    
+    public static int destino(int movimiento) {
+        return movimiento & MASCARA_DESTINO;
+    }
+    
+    public static boolean llegaAMeta(int movimiento) {
+        return (movimiento & BIT_META) != 0;
+    }
+    
+    public static boolean destinoSeguro(int movimiento) {
+        return (movimiento & BIT_SEGURO) != 0;
+    }
+    
+    public static boolean esValido(int movimiento) {
+        return (movimiento & BIT_VALIDO) != 0;
+    }
+}
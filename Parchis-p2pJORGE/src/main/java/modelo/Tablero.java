@@ -6,11 +6,12 @@ package modelo;
 
 import java.util.ArrayList;
 import java.util.List;
+import metricas.MetricasJuego;
 
 public class Tablero {
     private List<Casilla> casillas;
-    private static final int TOTAL_CASILLAS = 68;
-    private static final int CASILLA_META = 67;
+    private static final int TOTAL_CASILLAS = EstadoPartida.TOTAL_CASILLAS;
+    private static final int CASILLA_META = EstadoPartida.CASILLA_META;
     
     /**
      * Constructor del tablero
@@ -27,41 +28,49 @@ public class Tablero {
      */
     private void inicializarTablero() {
         for (int i = 0; i < TOTAL_CASILLAS; i++) {
-            String tipo = "normal";
-            
-            if (i == 5 || i == 22 || i == 39 || i == 56 || i % 17 == 0) {
-                tipo = "segura";
-            }
-            
-            casillas.add(new Casilla(i, tipo));
+            boolean segura = TablaMovimientos.esSegura(i);
+            casillas.add(new Casilla(i, segura ? "segura" : "normal", segura));
         }
     }
     
     /**
      * Mueve una ficha en el tablero - CORREGIDO
      * Actualiza la posicion y maneja llegada a meta
+     * La aritmetica la resuelve el estado compacto, aqui solo se sincronizan las casillas
      * @param ficha Ficha a mover
      * @param pasos Numero de casillas a avanzar
      */
     public void moverFicha(Ficha ficha, int pasos) {
+        MetricasJuego metricas = MetricasJuego.getGlobal();
+        long inicio = metricas.inicio();
+        boolean estabaEnMeta = ficha.isEnMeta();
         int posicionActual = ficha.getPosicion();
-        int nuevaPosicion = posicionActual + pasos;
         
         if (posicionActual >= 0 && posicionActual < casillas.size()) {
             casillas.get(posicionActual).removerFicha(ficha);
         }
         
-        if (nuevaPosicion >= CASILLA_META) {
-            ficha.setPosicion(CASILLA_META);
-            ficha.llegarMeta();
+        int nuevaPosicion = ficha.getEstado().moverFicha(ficha.getSlot(), pasos);
+        if (ficha.isEnMeta()) {
+            metricas.registrarMovimiento(inicio, !estabaEnMeta);
             return;
         }
         
-        ficha.setPosicion(nuevaPosicion);
-        
         if (nuevaPosicion >= 0 && nuevaPosicion < casillas.size()) {
             casillas.get(nuevaPosicion).agregarFicha(ficha);
         }
+        metricas.registrarMovimiento(inicio, false);
+    }
+    
+    /**
+     * Saca una ficha de casa a la casilla de salida de su jugador
+     * La ficha debe pertenecer a un jugador agregado a la partida
+     * @param ficha Ficha a sacar
+     */
+    public void sacarFicha(Ficha ficha) {
+        int salida = ficha.getEstado().sacarFicha(ficha.getSlot());
+        casillas.get(salida).agregarFicha(ficha);
+        MetricasJuego.getGlobal().registrarMovimiento(0, false);
     }
     
     /**
@@ -0,0 +1,79 @@
+/**
+ * Claves Zobrist para identificar posiciones de una partida con un long
+ * Una clave por (ficha, casilla o casa o meta), por turno y por contador de 6
+ * La semilla es fija para que todos los procesos calculen el mismo hash
+ */
+package modelo;
+
+import java.util.SplittableRandom;
+
+public final class Zobrist {
+    // Casillas 0-67, casa y meta
+    public static final int ESTADOS_FICHA = EstadoPartida.TOTAL_CASILLAS + 2;
+    public static final int EN_CASA = EstadoPartida.TOTAL_CASILLAS;
+    public static final int EN_META = EstadoPartida.TOTAL_CASILLAS + 1;
+    private static final int MAX_SEIS = 3;
+    private static final int MAX_PASOS = TablaMovimientos.MAX_PASOS;
+    
+    private static final long[] FICHAS = new long[EstadoPartida.TOTAL_FICHAS * ESTADOS_FICHA];
+    // Turno 0-3 y sin turno
+    private static final long[] TURNOS = new long[EstadoPartida.MAX_JUGADORES + 1];
+    private static final long[] SEIS = new long[MAX_SEIS + 1];
+    // Tirada pendiente: dado, premio y ultima ficha movida (para los tres 6)
+    private static final long[] DADO = new long[7];
+    private static final long[] PREMIO = new long[MAX_PASOS + 1];
+    private static final long[] ULTIMA = new long[EstadoPartida.TOTAL_FICHAS + 1];
+    
+    static {
+        SplittableRandom random = new SplittableRandom(0x5A17_C0DE_2024L);
+        rellenar(FICHAS, random);
+        rellenar(TURNOS, random);
+        rellenar(SEIS, random);
+        rellenar(DADO, random);
+        rellenar(PREMIO, random);
+        rellenar(ULTIMA, random);
+        // Sin tirada pendiente no cambia el hash
+        SEIS[0] = 0;
+        DADO[0] = 0;
+        PREMIO[0] = 0;
+        ULTIMA[0] = 0;
+    }
+    
+    private Zobrist() {
+    }
+    
+    private static void rellenar(long[] claves, SplittableRandom random) {
+        for (int i = 0; i < claves.length; i++) {
+            claves[i] = random.nextLong();
+        }
+    }
+    
+    /**
+     * Clave de una ficha en un estado
+     * @param slot Indice de la ficha (0-15)
+     * @param estadoFicha Casilla 0-67, EN_CASA o EN_META
+     */
+    public static long ficha(int slot, int estadoFicha) {
+        return FICHAS[slot * ESTADOS_FICHA + estadoFicha];
+    }
+    
+    /**
+     * Clave del turno y del contador de 6
+     * @param turno Jugador con el turno, -1 si no hay
+     * @param contadorSeis 6 seguidos (a partir de 3 cuentan igual)
+     */
+    public static long control(int turno, int contadorSeis) {
+        return TURNOS[turno < 0 ? EstadoPartida.MAX_JUGADORES : turno] ^ SEIS[Math.min(contadorSeis, MAX_SEIS)];
+    }
+    
+    /**
+     * Clave de la tirada en curso, para distinguir el mismo tablero
+     * antes y despues de lanzar el dado
+     * @param valorDado Dado pendiente (0 si no hay)
+     * @param premioPendiente Premio pendiente (0 si no hay)
+     * @param ultimaMovida Slot de la ultima ficha movida, -1 si ninguna
+     */
+    public static long tirada(int valorDado, int premioPendiente, int ultimaMovida) {
+        return DADO[valorDado] ^ PREMIO[Math.min(premioPendiente, MAX_PASOS)] ^ ULTIMA[ultimaMovida + 1];
+    }
+}
@@ -0,0 +1,404 @@
+/**
+ * Diario de solo escritura de las partidas, en segmentos mapeados en memoria
+ * Guarda cada tirada y cada ficha elegida por idPartida, y cada cierto
+ * tiempo un snapshot compacto del tablero, para reconstruir partidas al reiniciar
+ * 
+ * Cada registro ocupa 64 bytes:
+ *   tipo u8, reservado u8, longitud u16, idPartida i32, secuencia i64, datos (48 bytes)
+ * El tipo se escribe el ultimo, un registro con tipo 0 no esta completo
+ * Los datos van a la cache de paginas: sobreviven a la caida del proceso,
+ * para sobrevivir a un corte de luz hay que llamar a forzar
+ * 
+ * Por cada partida sin FIN se guarda desde donde la necesita la recuperacion:
+ * el primer registro de sus asientos. Un snapshot escrito cuando esos asientos
+ * ya estan en un segmento anterior los repite detras (registros ASIENTO) y la
+ * partida pasa a necesitarse solo desde ese snapshot. Al abrir cada segmento
+ * nuevo se borran los que terminan antes de lo que necesitan todas las partidas
+ */
+package persistencia;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import modelo.EstadoPartida;
+import modelo.Jugador;
+
+public class DiarioMovimientos implements AutoCloseable {
+    public static final int TAMANO_REGISTRO = 64;
+    public static final int REGISTROS_POR_SEGMENTO_POR_DEFECTO = 1 << 20;
+    
+    // Tipos de registro
+    public static final byte JUGADOR = 1;
+    public static final byte INICIO = 2;
+    public static final byte TIRADA = 3;
+    public static final byte MOVIMIENTO = 4;
+    public static final byte SNAPSHOT = 5;
+    public static final byte FIN = 6;
+    // Jugador repetido tras un snapshot, por si sus registros JUGADOR ya se borraron
+    public static final byte ASIENTO = 7;
+    public static final byte SALIDA = 8;
+    
+    static final int OFFSET_ID = 4;
+    static final int OFFSET_SECUENCIA = 8;
+    static final int OFFSET_DATOS = 16;
+    static final int MAXIMO_TEXTO = 21;
+    
+    private static final String PREFIJO = "diario-";
+    private static final String EXTENSION = ".seg";
+    
+    private final Path directorio;
+    private final long tamanoSegmento;
+    private final AtomicLong siguiente;
+    // Los segmentos anteriores a primero ya se borraron y quedan a null
+    private volatile MappedByteBuffer[] segmentos;
+    private volatile int primero;
+    private final ConcurrentHashMap<Integer, Vigente> vigentes;
+    
+    /**
+     * Abre el diario, continuando tras el ultimo registro escrito
+     * @param directorio Carpeta de los segmentos (se crea si no existe)
+     * @param registrosPorSegmento Registros por archivo antes de pasar al siguiente
+     * @throws IllegalArgumentException Si un segmento no cabe en un buffer mapeado (2 GB)
+     */
+    public DiarioMovimientos(Path directorio, int registrosPorSegmento) throws IOException {
+        if (registrosPorSegmento <= 0 || (long) registrosPorSegmento * TAMANO_REGISTRO > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Registros por segmento no validos: " + registrosPorSegmento);
+        }
+        this.directorio = directorio;
+        this.tamanoSegmento = (long) registrosPorSegmento * TAMANO_REGISTRO;
+        this.vigentes = new ConcurrentHashMap<>();
+        Files.createDirectories(directorio);
+        
+        List<Integer> existentes = listarSegmentos(directorio);
+        this.primero = existentes.isEmpty() ? 0 : existentes.get(0);
+        this.segmentos = new MappedByteBuffer[primero + Math.max(1, existentes.size())];
+        for (int i = primero; i < segmentos.length; i++) {
+            segmentos[i] = mapear(i);
+        }
+        
+        // Continuar tras el ultimo registro completo del ultimo segmento
+        int ultimo = segmentos.length - 1;
+        MappedByteBuffer buffer = segmentos[ultimo];
+        long fin = 0;
+        for (long p = 0; p < tamanoSegmento; p += TAMANO_REGISTRO) {
+            if (buffer.get((int) p) != 0) {
+                fin = p + TAMANO_REGISTRO;
+            }
+        }
+        this.siguiente = new AtomicLong(ultimo * tamanoSegmento + fin);
+    }
+    
+    public DiarioMovimientos(Path directorio) throws IOException {
+        this(directorio, REGISTROS_POR_SEGMENTO_POR_DEFECTO);
+    }
+    
+    /**
+     * Indices de los segmentos existentes en orden, sin huecos
+     * Los primeros pueden faltar porque la compactacion los borro
+     */
+    static List<Integer> listarSegmentos(Path directorio) throws IOException {
+        List<Integer> indices = new ArrayList<>();
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            archivos.map(archivo -> archivo.getFileName().toString())
+                    .filter(nombre -> nombre.startsWith(PREFIJO) && nombre.endsWith(EXTENSION))
+                    .map(nombre -> nombre.substring(PREFIJO.length(), nombre.length() - EXTENSION.length()))
+                    .filter(numero -> !numero.isEmpty() && numero.chars().allMatch(Character::isDigit))
+                    .map(Integer::valueOf)
+                    .sorted()
+                    .forEach(indices::add);
+        }
+        for (int i = 1; i < indices.size(); i++) {
+            if (indices.get(i) != indices.get(i - 1) + 1) {
+                throw new IOException("Falta el segmento " + rutaSegmento(directorio, indices.get(i - 1) + 1));
+            }
+        }
+        return indices;
+    }
+    
+    static Path rutaSegmento(Path directorio, int indice) {
+        return directorio.resolve(String.format("%s%05d%s", PREFIJO, indice, EXTENSION));
+    }
+    
+    private MappedByteBuffer mapear(int indice) throws IOException {
+        try (FileChannel canal = FileChannel.open(rutaSegmento(directorio, indice),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanoSegmento);
+        }
+    }
+    
+    // ---- Escritura ----
+    
+    /**
+     * Registra un jugador que se une a la partida
+     * Nombre y color se truncan a 21 bytes
+     */
+    public void registrarJugador(int idPartida, int jugadorId, String nombre, String color) {
+        // Antes de reservar: una compactacion a la vez no puede borrar el hueco
+        Vigente vigente = vigentes.computeIfAbsent(idPartida, id -> new Vigente(siguiente.get()));
+        escribirJugador(JUGADOR, idPartida, jugadorId, nombre, color);
+        vigente.asientos.add(new Asiento(jugadorId, nombre, color));
+    }
+    
+    private void escribirJugador(byte tipo, int idPartida, int jugadorId, String nombre, String color) {
+        long secuencia = reservar();
+        MappedByteBuffer b = segmento(secuencia);
+        int base = base(secuencia);
+        b.putInt(base + OFFSET_DATOS, jugadorId);
+        escribirTexto(b, base + OFFSET_DATOS + 4, nombre);
+        escribirTexto(b, base + OFFSET_DATOS + 4 + 1 + MAXIMO_TEXTO, color);
+        cerrar(b, base, tipo, idPartida, secuencia);
+    }
+    
+    /**
+     * Registra un jugador que sale de la partida antes de empezar
+     */
+    public void registrarSalida(int idPartida, int jugadorId) {
+        long secuencia = reservar();
+        MappedByteBuffer b = segmento(secuencia);
+        int base = base(secuencia);
+        b.putInt(base + OFFSET_DATOS, jugadorId);
+        cerrar(b, base, SALIDA, idPartida, secuencia);
+        Vigente vigente = vigentes.get(idPartida);
+        if (vigente != null) {
+            vigente.asientos.removeIf(asiento -> asiento.jugadorId == jugadorId);
+        }
+    }
+    
+    public void registrarInicio(int idPartida) {
+        long secuencia = reservar();
+        cerrar(segmento(secuencia), base(secuencia), INICIO, idPartida, secuencia);
+    }
+    
+    /**
+     * Registra el valor de un Dado.lanzar
+     */
+    public void registrarTirada(int idPartida, int valor) {
+        long secuencia = reservar();
+        MappedByteBuffer b = segmento(secuencia);
+        int base = base(secuencia);
+        b.put(base + OFFSET_DATOS, (byte) valor);
+        cerrar(b, base, TIRADA, idPartida, secuencia);
+    }
+    
+    /**
+     * Registra la ficha elegida (slot en el estado compacto)
+     */
+    public void registrarMovimiento(int idPartida, int slot) {
+        long secuencia = reservar();
+        MappedByteBuffer b = segmento(secuencia);
+        int base = base(secuencia);
+        b.put(base + OFFSET_DATOS, (byte) slot);
+        cerrar(b, base, MOVIMIENTO, idPartida, secuencia);
+    }
+    
+    /**
+     * Registra un snapshot del tablero entre dos tiradas
+     * Si los asientos de la partida quedaron en un segmento anterior los repite
+     * detras, asi ese segmento se puede borrar
+     * @param estado Estado compacto de la partida
+     * @param ultimaMovida Slot de la ultima ficha movida (para los tres 6), -1 si ninguna
+     */
+    public void registrarSnapshot(int idPartida, EstadoPartida estado, int ultimaMovida) {
+        long secuencia = reservar();
+        MappedByteBuffer b = segmento(secuencia);
+        int base = base(secuencia) + OFFSET_DATOS;
+        for (int j = 0; j < EstadoPartida.MAX_JUGADORES; j++) {
+            b.putLong(base + j * 8, estado.getPalabraFichas(j));
+        }
+        b.putLong(base + 32, estado.getControl());
+        b.put(base + 40, (byte) ultimaMovida);
+        cerrar(b, base(secuencia), SNAPSHOT, idPartida, secuencia);
+        
+        Vigente vigente = vigentes.get(idPartida);
+        if (vigente != null && vigente.desde / tamanoSegmento < secuencia / tamanoSegmento) {
+            for (Asiento asiento : vigente.asientos) {
+                escribirJugador(ASIENTO, idPartida, asiento.jugadorId, asiento.nombre, asiento.color);
+            }
+            vigente.desde = secuencia;
+        }
+    }
+    
+    public void registrarFin(int idPartida) {
+        long secuencia = reservar();
+        cerrar(segmento(secuencia), base(secuencia), FIN, idPartida, secuencia);
+        vigentes.remove(idPartida);
+    }
+    
+    /**
+     * Apunta una partida leida por RecuperacionDiario que sigue sin terminar
+     * @param desde Posicion de su primer registro leido
+     */
+    void anotarVigente(int idPartida, long desde, List<Jugador> jugadores) {
+        Vigente vigente = new Vigente(desde);
+        for (Jugador jugador : jugadores) {
+            vigente.asientos.add(new Asiento(jugador.getIdJugador(), jugador.getNombre(), jugador.getColor()));
+        }
+        vigentes.put(idPartida, vigente);
+    }
+    
+    /**
+     * Reserva el hueco del siguiente registro sin bloqueos
+     * @return Posicion absoluta del registro en el diario
+     */
+    private long reservar() {
+        return siguiente.getAndAdd(TAMANO_REGISTRO);
+    }
+    
+    private int base(long posicion) {
+        return (int) (posicion % tamanoSegmento);
+    }
+    
+    /**
+     * Segmento que contiene la posicion, mapeando uno nuevo si hace falta
+     */
+    private MappedByteBuffer segmento(long posicion) {
+        int indice = (int) (posicion / tamanoSegmento);
+        MappedByteBuffer[] actuales = segmentos;
+        if (indice < actuales.length && actuales[indice] != null) {
+            return actuales[indice];
+        }
+        return crearSegmento(indice);
+    }
+    
+    private synchronized MappedByteBuffer crearSegmento(int indice) {
+        MappedByteBuffer[] actuales = segmentos;
+        if (indice < actuales.length && actuales[indice] != null) {
+            return actuales[indice];
+        }
+        MappedByteBuffer[] nuevos = indice < actuales.length
+                ? actuales.clone()
+                : Arrays.copyOf(actuales, Math.max(actuales.length * 2, indice + 1));
+        try {
+            for (int i = primero; i <= indice; i++) {
+                if (nuevos[i] == null) {
+                    nuevos[i] = mapear(i);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segmentos = nuevos;
+        compactar();
+        return nuevos[indice];
+    }
+    
+    /**
+     * Borra los segmentos que terminan antes del registro mas antiguo que
+     * necesita alguna partida sin terminar
+     * La posicion de escritura se lee antes que las partidas: una partida que
+     * se apunta despues escribe por detras de ella
+     * @return Segmentos borrados
+     */
+    public synchronized int compactar() {
+        long necesario = siguiente.get();
+        for (Vigente vigente : vigentes.values()) {
+            necesario = Math.min(necesario, vigente.desde);
+        }
+        int hasta = (int) (necesario / tamanoSegmento);
+        MappedByteBuffer[] nuevos = segmentos.clone();
+        int borrados = 0;
+        while (primero < hasta) {
+            try {
+                Files.deleteIfExists(rutaSegmento(directorio, primero));
+            } catch (IOException e) {
+                // Se reintenta al abrir el siguiente segmento
+                System.err.println("[DIARIO] No se pudo borrar el segmento " + primero + ": " + e);
+                break;
+            }
+            nuevos[primero] = null;
+            primero++;
+            borrados++;
+        }
+        segmentos = nuevos;
+        return borrados;
+    }
+    
+    private void cerrar(MappedByteBuffer b, int base, byte tipo, int idPartida, long secuencia) {
+        b.putInt(base + OFFSET_ID, idPartida);
+        b.putLong(base + OFFSET_SECUENCIA, secuencia / TAMANO_REGISTRO);
+        // El tipo al final: hasta aqui el registro no existe para la recuperacion
+        b.put(base, tipo);
+    }
+    
+    /**
+     * Escribe el texto en UTF-8, cortado a MAXIMO_TEXTO bytes sin partir un caracter
+     */
+    private static void escribirTexto(MappedByteBuffer b, int posicion, String texto) {
+        byte[] bytes = texto == null ? new byte[0] : texto.getBytes(StandardCharsets.UTF_8);
+        int longitud = Math.min(bytes.length, MAXIMO_TEXTO);
+        // Si el primer byte que se queda fuera es de continuacion, el caracter quedaria a medias
+        while (longitud < bytes.length && longitud > 0 && (bytes[longitud] & 0xC0) == 0x80) {
+            longitud--;
+        }
+        b.put(posicion, (byte) longitud);
+        b.put(posicion + 1, bytes, 0, longitud);
+    }
+    
+    static String leerTexto(MappedByteBuffer b, int posicion) {
+        int longitud = b.get(posicion) & 0xFF;
+        byte[] bytes = new byte[longitud];
+        b.get(posicion + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Fuerza los segmentos a disco
+     */
+    public void forzar() {
+        for (MappedByteBuffer segmento : segmentos) {
+            if (segmento != null) {
+                segmento.force();
+            }
+        }
+    }
+    
+    MappedByteBuffer[] getSegmentos() { return segmentos; }
+    long getTamanoSegmento() { return tamanoSegmento; }
+    long getInicio() { return primero * tamanoSegmento; }
+    long getFin() { return siguiente.get(); }
+    public Path getDirectorio() { return directorio; }
+    public int getNumSegmentos() { return segmentos.length - primero; }
+    public int getPrimerSegmento() { return primero; }
+    public int getPartidasVigentes() { return vigentes.size(); }
+    
+    @Override
+    public void close() {
+        forzar();
+    }
+    
+    /**
+     * Partida sin FIN: desde donde la necesita la recuperacion y sus asientos para repetirlos
+     * Los asientos solo los toca el hilo que escribe la partida
+     */
+    private static final class Vigente {
+        volatile long desde;
+        final List<Asiento> asientos = new ArrayList<>(EstadoPartida.MAX_JUGADORES);
+        
+        Vigente(long desde) {
+            this.desde = desde;
+        }
+    }
+    
+    private static final class Asiento {
+        final int jugadorId;
+        final String nombre;
+        final String color;
+        
+        Asiento(int jugadorId, String nombre, String color) {
+            this.jugadorId = jugadorId;
+            this.nombre = nombre;
+            this.color = color;
+        }
+    }
+}
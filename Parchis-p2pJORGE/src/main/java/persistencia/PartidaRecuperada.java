@@ -0,0 +1,141 @@
+/**
+ * Datos de una partida leidos del diario
+ * Jugadores, ultimo snapshot y registros posteriores para reproducir
+ */
+package persistencia;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import modelo.EstadoPartida;
+import modelo.Ficha;
+import modelo.GestorTurno;
+import modelo.Jugador;
+import modelo.Partida;
+
+public class PartidaRecuperada {
+    private final int idPartida;
+    // Posicion del primer registro leido de esta partida
+    private final long desde;
+    private final List<Jugador> jugadores;
+    private boolean iniciada;
+    private boolean terminada;
+    private boolean conSnapshot;
+    private final long[] snapshot;
+    private int ultimaMovida;
+    // Tras un snapshot, los ASIENTO que le siguen sustituyen a los jugadores leidos
+    private boolean asientosPorRepetir;
+    // Registros tras el snapshot: tipo << 8 | valor
+    private int[] cola;
+    private int tamanoCola;
+    
+    PartidaRecuperada(int idPartida, long desde) {
+        this.idPartida = idPartida;
+        this.desde = desde;
+        this.jugadores = new ArrayList<>();
+        this.snapshot = new long[EstadoPartida.MAX_JUGADORES + 1];
+        this.ultimaMovida = -1;
+        this.cola = new int[64];
+    }
+    
+    void agregarJugador(Jugador jugador) {
+        jugadores.add(jugador);
+    }
+    
+    void quitarJugador(int jugadorId) {
+        jugadores.removeIf(j -> j.getIdJugador() == jugadorId);
+    }
+    
+    /**
+     * Jugador repetido tras un snapshot: los JUGADOR de antes pueden estar
+     * borrados o a medias, asi que la serie de ASIENTO manda
+     */
+    void agregarAsiento(Jugador jugador) {
+        if (asientosPorRepetir) {
+            jugadores.clear();
+            asientosPorRepetir = false;
+        }
+        jugadores.add(jugador);
+        iniciada = true;
+    }
+    
+    void iniciar() {
+        iniciada = true;
+    }
+    
+    void terminar() {
+        terminada = true;
+    }
+    
+    void guardarSnapshot(long[] palabras, int ultimaMovida) {
+        System.arraycopy(palabras, 0, snapshot, 0, snapshot.length);
+        this.ultimaMovida = ultimaMovida;
+        this.conSnapshot = true;
+        this.asientosPorRepetir = true;
+        this.tamanoCola = 0;
+    }
+    
+    void agregarRegistro(byte tipo, int valor) {
+        if (tamanoCola == cola.length) {
+            cola = Arrays.copyOf(cola, cola.length * 2);
+        }
+        cola[tamanoCola++] = (tipo << 8) | (valor & 0xFF);
+    }
+    
+    /**
+     * Reconstruye la partida: carga el ultimo snapshot y reproduce lo posterior
+     * @return Gestor del turno listo para seguir jugando, o null si la partida no habia empezado
+     */
+    public GestorTurno reconstruir(Partida partida) {
+        for (Jugador jugador : jugadores) {
+            partida.agregarJugador(jugador);
+        }
+        if (!iniciada) {
+            return null;
+        }
+        
+        partida.iniciarPartida();
+        GestorTurno turno = new GestorTurno(partida);
+        EstadoPartida estado = partida.getEstado();
+        
+        if (conSnapshot) {
+            for (int j = 0; j < EstadoPartida.MAX_JUGADORES; j++) {
+                estado.setPalabraFichas(j, snapshot[j]);
+            }
+            estado.setControl(snapshot[EstadoPartida.MAX_JUGADORES]);
+            partida.sincronizarVistas();
+            if (ultimaMovida >= 0) {
+                turno.setUltimaMovida(ficha(partida, ultimaMovida));
+            }
+        }
+        
+        for (int i = 0; i < tamanoCola; i++) {
+            int tipo = cola[i] >>> 8;
+            int valor = cola[i] & 0xFF;
+            if (tipo == DiarioMovimientos.TIRADA) {
+                turno.aplicarTirada(valor);
+            } else if (tipo == DiarioMovimientos.MOVIMIENTO) {
+                Ficha ficha = ficha(partida, valor);
+                if (turno.getPremioPendiente() > 0) {
+                    turno.moverPremio(ficha);
+                } else {
+                    turno.moverFicha(ficha);
+                }
+            }
+        }
+        return turno;
+    }
+    
+    static Ficha ficha(Partida partida, int slot) {
+        return partida.getJugadores().get(slot / EstadoPartida.FICHAS_POR_JUGADOR)
+                .getFichas().get(slot % EstadoPartida.FICHAS_POR_JUGADOR);
+    }
+    
+    public int getIdPartida() { return idPartida; }
+    long getDesde() { return desde; }
+    List<Jugador> getJugadores() { return jugadores; }
+    public boolean isIniciada() { return iniciada; }
+    public boolean isTerminada() { return terminada; }
+    public boolean isConSnapshot() { return conSnapshot; }
+    public int getRegistrosPendientes() { return tamanoCola; }
+}
@@ -0,0 +1,92 @@
+/**
+ * Lee el diario al arrancar y agrupa los registros por partida
+ * Para cada partida se queda con el ultimo snapshot y los registros posteriores
+ * Empieza en el primer segmento que no borro la compactacion
+ */
+package persistencia;
+
+import java.nio.MappedByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import modelo.EstadoPartida;
+import modelo.Jugador;
+
+public final class RecuperacionDiario {
+
+    private RecuperacionDiario() {
+    }
+    
+    /**
+     * Recorre todos los registros completos del diario en orden
+     * y apunta en el diario las partidas sin terminar para la compactacion
+     * @param diario Diario recien abierto, antes de escribir nada nuevo
+     * @return Partidas encontradas por idPartida (incluidas las terminadas)
+     */
+    public static Map<Integer, PartidaRecuperada> leer(DiarioMovimientos diario) {
+        Map<Integer, PartidaRecuperada> partidas = new LinkedHashMap<>();
+        MappedByteBuffer[] segmentos = diario.getSegmentos();
+        long tamanoSegmento = diario.getTamanoSegmento();
+        long fin = diario.getFin();
+        long[] palabras = new long[EstadoPartida.MAX_JUGADORES + 1];
+        
+        for (long posicion = diario.getInicio(); posicion < fin; posicion += DiarioMovimientos.TAMANO_REGISTRO) {
+            MappedByteBuffer b = segmentos[(int) (posicion / tamanoSegmento)];
+            int base = (int) (posicion % tamanoSegmento);
+            byte tipo = b.get(base);
+            if (tipo == 0) {
+                // Hueco reservado que no llego a escribirse antes de la caida
+                continue;
+            }
+            
+            int idPartida = b.getInt(base + DiarioMovimientos.OFFSET_ID);
+            int datos = base + DiarioMovimientos.OFFSET_DATOS;
+            PartidaRecuperada partida = partidas.get(idPartida);
+            if (partida == null || (partida.isTerminada() && tipo == DiarioMovimientos.JUGADOR)) {
+                // El id vuelve a usarse tras su FIN (partida migrada de vuelta a este nodo)
+                partida = new PartidaRecuperada(idPartida, posicion);
+                partidas.put(idPartida, partida);
+            }
+            
+            switch (tipo) {
+                case DiarioMovimientos.JUGADOR:
+                    int jugadorId = b.getInt(datos);
+                    String nombre = DiarioMovimientos.leerTexto(b, datos + 4);
+                    String color = DiarioMovimientos.leerTexto(b, datos + 4 + 1 + DiarioMovimientos.MAXIMO_TEXTO);
+                    partida.agregarJugador(new Jugador(jugadorId, nombre, color));
+                    break;
+                case DiarioMovimientos.ASIENTO:
+                    partida.agregarAsiento(new Jugador(b.getInt(datos), DiarioMovimientos.leerTexto(b, datos + 4),
+                            DiarioMovimientos.leerTexto(b, datos + 4 + 1 + DiarioMovimientos.MAXIMO_TEXTO)));
+                    break;
+                case DiarioMovimientos.SALIDA:
+                    partida.quitarJugador(b.getInt(datos));
+                    break;
+                case DiarioMovimientos.INICIO:
+                    partida.iniciar();
+                    break;
+                case DiarioMovimientos.TIRADA:
+                case DiarioMovimientos.MOVIMIENTO:
+                    partida.agregarRegistro(tipo, b.get(datos));
+                    break;
+                case DiarioMovimientos.SNAPSHOT:
+                    for (int i = 0; i < palabras.length; i++) {
+                        palabras[i] = b.getLong(datos + i * 8);
+                    }
+                    partida.guardarSnapshot(palabras, b.get(datos + 40));
+                    break;
+                case DiarioMovimientos.FIN:
+                    partida.terminar();
+                    break;
+                default:
+                    break;
+            }
+        }
+        
+        for (PartidaRecuperada partida : partidas.values()) {
+            if (!partida.isTerminada()) {
+                diario.anotarVigente(partida.getIdPartida(), partida.getDesde(), partida.getJugadores());
+            }
+        }
+        return partidas;
+    }
+}
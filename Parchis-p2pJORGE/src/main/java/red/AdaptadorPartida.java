@@ -0,0 +1,276 @@
+/**
+ * TypeAdapter de Gson para Partida, escrito a mano y sin reflexion
+ * Formato disperso: solo los asientos, la posicion de cada ficha y las
+ * casillas ocupadas (nunca las 68), p. ej.
+ * {"id":7,"turno":1,"seis":0,"jugadores":[{"id":1,"nombre":"Ana","color":"Rojo",
+ *  "fichas":[-1,23,68,-1]}],"casillas":[[23,1]]}
+ * Ficha: -1 en casa, 0-67 casilla, 68 en meta. Casilla: numero y slots que la ocupan
+ * 
+ * Leer sobre una partida existente solo toca las fichas que cambiaron
+ * (y sus casillas); no se reconstruye el grafo
+ */
+package red;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.List;
+import modelo.EstadoPartida;
+import modelo.Ficha;
+import modelo.Jugador;
+import modelo.Partida;
+import modelo.Tablero;
+
+public class AdaptadorPartida extends TypeAdapter<Partida> {
+    public static final int EN_CASA = -1;
+    public static final int EN_META = EstadoPartida.TOTAL_CASILLAS;
+    
+    @Override
+    public void write(JsonWriter out, Partida partida) throws IOException {
+        if (partida == null) {
+            out.nullValue();
+            return;
+        }
+        EstadoPartida estado = partida.getEstado();
+        List<Jugador> jugadores = partida.getJugadores();
+        
+        out.beginObject();
+        out.name("id").value(partida.getIdPartida());
+        out.name("turno").value(estado.getTurno());
+        out.name("seis").value(estado.getContadorSeis());
+        
+        // Casillas ocupadas como mascara: 0-63 y 64-67
+        long ocupadas = 0;
+        long ocupadasAltas = 0;
+        out.name("jugadores").beginArray();
+        for (int i = 0; i < jugadores.size(); i++) {
+            Jugador jugador = jugadores.get(i);
+            out.beginObject();
+            out.name("id").value(jugador.getIdJugador());
+            out.name("nombre").value(jugador.getNombre());
+            out.name("color").value(jugador.getColor());
+            if (jugador.getAvatar() != null) {
+                out.name("avatar").value(jugador.getAvatar());
+            }
+            out.name("fichas").beginArray();
+            for (int k = 0; k < EstadoPartida.FICHAS_POR_JUGADOR; k++) {
+                int slot = i * EstadoPartida.FICHAS_POR_JUGADOR + k;
+                out.value(codigoFicha(estado, slot));
+                if (estado.isEnTablero(slot)) {
+                    int casilla = estado.getPosicion(slot);
+                    if (casilla < 64) {
+                        ocupadas |= 1L << casilla;
+                    } else {
+                        ocupadasAltas |= 1L << (casilla - 64);
+                    }
+                }
+            }
+            out.endArray();
+            out.endObject();
+        }
+        out.endArray();
+        
+        out.name("casillas").beginArray();
+        int total = jugadores.size() * EstadoPartida.FICHAS_POR_JUGADOR;
+        escribirCasillas(out, estado, ocupadas, 0, total);
+        escribirCasillas(out, estado, ocupadasAltas, 64, total);
+        out.endArray();
+        out.endObject();
+    }
+    
+    private static void escribirCasillas(JsonWriter out, EstadoPartida estado, long mascara, int base, int total)
+            throws IOException {
+        for (long m = mascara; m != 0; m &= m - 1) {
+            int casilla = base + Long.numberOfTrailingZeros(m);
+            out.beginArray();
+            out.value(casilla);
+            for (int slot = 0; slot < total; slot++) {
+                if (estado.isEnTablero(slot) && estado.getPosicion(slot) == casilla) {
+                    out.value(slot);
+                }
+            }
+            out.endArray();
+        }
+    }
+    
+    /**
+     * Codigo de una ficha en el JSON
+     * @return EN_CASA, la casilla (0-67) o EN_META
+     */
+    public static int codigoFicha(EstadoPartida estado, int slot) {
+        if (estado.isEnMeta(slot)) {
+            return EN_META;
+        }
+        if (estado.isEnTablero(slot)) {
+            return estado.getPosicion(slot);
+        }
+        return EN_CASA;
+    }
+    
+    /**
+     * Crea una partida nueva con el contenido del JSON
+     */
+    @Override
+    public Partida read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Partida partida = new Partida(0);
+        leer(in, partida);
+        return partida;
+    }
+    
+    /**
+     * Lee el JSON sobre una partida existente
+     * Los asientos que ya existen tienen que ser los mismos jugadores; los que
+     * faltan se agregan. Solo se mueven las fichas cuyo codigo cambio
+     * @param in Lector posicionado al inicio del objeto
+     * @param partida Partida destino, con el mismo id o vacia
+     */
+    public void leer(JsonReader in, Partida partida) throws IOException {
+        int turno = partida.getEstado().getTurno();
+        int seis = partida.getEstado().getContadorSeis();
+        
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    int id = in.nextInt();
+                    if (id != partida.getIdPartida()) {
+                        if (!partida.getJugadores().isEmpty()) {
+                            throw new JsonParseException("El estado es de la partida " + id
+                                    + ", no de la " + partida.getIdPartida());
+                        }
+                        partida.reiniciar(id);
+                    }
+                    break;
+                case "turno":
+                    turno = in.nextInt();
+                    break;
+                case "seis":
+                    seis = in.nextInt();
+                    break;
+                case "jugadores":
+                    leerJugadores(in, partida);
+                    break;
+                default:
+                    // "casillas" sale de las fichas
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        
+        EstadoPartida estado = partida.getEstado();
+        estado.setContadorSeis(seis);
+        estado.setTurno(turno);
+        List<Jugador> jugadores = partida.getJugadores();
+        for (int i = 0; i < jugadores.size(); i++) {
+            jugadores.get(i).setTurno(i == turno);
+        }
+    }
+    
+    private void leerJugadores(JsonReader in, Partida partida) throws IOException {
+        List<Jugador> jugadores = partida.getJugadores();
+        int asiento = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            int id = 0;
+            String nombre = null;
+            String color = null;
+            String avatar = null;
+            // Codigo+2 de cada ficha en 16 bits, 0 si no vino
+            long fichas = 0;
+            
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        id = in.nextInt();
+                        break;
+                    case "nombre":
+                        nombre = in.nextString();
+                        break;
+                    case "color":
+                        color = in.nextString();
+                        break;
+                    case "avatar":
+                        avatar = in.nextString();
+                        break;
+                    case "fichas":
+                        in.beginArray();
+                        for (int k = 0; in.hasNext(); k++) {
+                            int codigo = in.nextInt();
+                            if (codigo < EN_CASA || codigo > EN_META) {
+                                throw new JsonParseException("Ficha no valida: " + codigo);
+                            }
+                            if (k < EstadoPartida.FICHAS_POR_JUGADOR) {
+                                fichas |= (long) (codigo + 2) << (k * 16);
+                            }
+                        }
+                        in.endArray();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            
+            Jugador jugador;
+            if (asiento < jugadores.size()) {
+                jugador = jugadores.get(asiento);
+                if (jugador.getIdJugador() != id) {
+                    throw new JsonParseException("El asiento " + asiento + " es del jugador "
+                            + jugador.getIdJugador() + ", no del " + id);
+                }
+            } else {
+                jugador = partida.agregarJugador(id, nombre, color);
+                if (jugador == null) {
+                    throw new JsonParseException("Demasiados jugadores");
+                }
+            }
+            if (avatar != null) {
+                jugador.setAvatar(avatar);
+            }
+            for (int k = 0; k < EstadoPartida.FICHAS_POR_JUGADOR; k++) {
+                int codigo = (int) ((fichas >>> (k * 16)) & 0xFFFF) - 2;
+                if (codigo >= EN_CASA) {
+                    colocar(partida, jugador.getFichas().get(k), codigo);
+                }
+            }
+            asiento++;
+        }
+        in.endArray();
+    }
+    
+    /**
+     * Pone la ficha donde dice el codigo y la mueve de casilla si hace falta
+     */
+    private static void colocar(Partida partida, Ficha ficha, int codigo) {
+        EstadoPartida estado = partida.getEstado();
+        int slot = ficha.getSlot();
+        if (codigoFicha(estado, slot) == codigo) {
+            return;
+        }
+        
+        Tablero tablero = partida.getTablero();
+        if (estado.isEnTablero(slot)) {
+            tablero.getCasilla(estado.getPosicion(slot)).removerFicha(ficha);
+        }
+        if (codigo == EN_CASA) {
+            estado.regresarACasa(slot);
+        } else if (codigo == EN_META) {
+            estado.setEnCasa(slot, false);
+            estado.setPosicion(slot, EstadoPartida.CASILLA_META);
+            estado.setEnMeta(slot, true);
+        } else {
+            estado.setEnCasa(slot, false);
+            estado.setEnMeta(slot, false);
+            estado.setPosicion(slot, codigo);
+            tablero.getCasilla(codigo).agregarFicha(ficha);
+        }
+    }
+}
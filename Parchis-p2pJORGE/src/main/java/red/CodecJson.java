@@ -0,0 +1,106 @@
+/**
+ * Codec JSON de una conexion: AdaptadorPartida con el escritor y el lector reutilizados
+ * El JsonWriter escribe siempre sobre el mismo StringWriter (se vacia entre
+ * mensajes) y el JsonReader lee mensaje tras mensaje de una misma fuente,
+ * asi no se crean buffers por mensaje. Ambos van en modo lenient, que es lo
+ * que permite varios documentos seguidos
+ * 
+ * Uno por conexion (o por hilo): no es seguro entre hilos
+ */
+package red;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import modelo.Partida;
+
+public class CodecJson {
+    private static final AdaptadorPartida ADAPTADOR = new AdaptadorPartida();
+    
+    private final StringWriter texto;
+    private final JsonWriter escritor;
+    private final Fuente fuente;
+    private JsonReader lector;
+    
+    public CodecJson() {
+        this.texto = new StringWriter(512);
+        this.escritor = new JsonWriter(texto);
+        this.escritor.setLenient(true);
+        this.fuente = new Fuente();
+        this.lector = nuevoLector();
+    }
+    
+    private JsonReader nuevoLector() {
+        JsonReader nuevo = new JsonReader(fuente);
+        nuevo.setLenient(true);
+        return nuevo;
+    }
+    
+    /**
+     * Codifica el estado de la partida
+     * @param partida Partida a enviar
+     * @return JSON disperso (ver AdaptadorPartida)
+     */
+    public String codificar(Partida partida) {
+        StringBuffer buffer = texto.getBuffer();
+        buffer.setLength(0);
+        try {
+            ADAPTADOR.write(escritor, partida);
+            escritor.flush();
+        } catch (IOException e) {
+            // StringWriter no lanza
+            throw new IllegalStateException(e);
+        }
+        return buffer.toString();
+    }
+    
+    /**
+     * Aplica un mensaje sobre una partida existente
+     * Si el mensaje esta mal formado se descarta el lector y se crea otro
+     * @param json Mensaje de codificar
+     * @param destino Partida local, mismo id y mismos jugadores (o vacia)
+     * @throws JsonParseException si el mensaje no es valido
+     */
+    public void decodificar(String json, Partida destino) {
+        fuente.cargar(json);
+        try {
+            ADAPTADOR.leer(lector, destino);
+        } catch (IOException | RuntimeException e) {
+            lector = nuevoLector();
+            throw e instanceof JsonParseException ? (JsonParseException) e
+                    : new JsonParseException("Estado no valido: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Reader sobre el mensaje actual; al agotarse devuelve -1 hasta que se carga otro
+     */
+    private static final class Fuente extends Reader {
+        private String texto = "";
+        private int posicion;
+        
+        void cargar(String texto) {
+            this.texto = texto;
+            this.posicion = 0;
+        }
+        
+        @Override
+        public int read(char[] destino, int desde, int cantidad) {
+            int restantes = texto.length() - posicion;
+            if (restantes <= 0) {
+                return -1;
+            }
+            int leidos = Math.min(restantes, cantidad);
+            texto.getChars(posicion, posicion + leidos, destino, desde);
+            posicion += leidos;
+            return leidos;
+        }
+        
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Emite el estado de una partida como deltas binarios
+ * Cada cierto numero de mensajes envia un keyframe completo
+ * para que los que se unen tarde puedan resincronizar
+ */
+package red;
+
+import java.nio.ByteBuffer;
+import modelo.EstadoPartida;
+
+public class EmisorDeltas {
+    public static final int INTERVALO_KEYFRAME_POR_DEFECTO = 32;
+    
+    private final int idPartida;
+    private final int intervaloKeyframe;
+    private final EstadoPartida enviado;
+    private int secuencia;
+    private boolean forzarKeyframe;
+    
+    /**
+     * @param idPartida Partida que se sincroniza
+     * @param intervaloKeyframe Un keyframe cada tantos mensajes, mayor que 0
+     */
+    public EmisorDeltas(int idPartida, int intervaloKeyframe) {
+        if (intervaloKeyframe <= 0) {
+            throw new IllegalArgumentException("Intervalo de keyframe no valido: " + intervaloKeyframe);
+        }
+        this.idPartida = idPartida;
+        this.intervaloKeyframe = intervaloKeyframe;
+        this.enviado = new EstadoPartida();
+        this.forzarKeyframe = true;
+    }
+    
+    public EmisorDeltas(int idPartida) {
+        this(idPartida, INTERVALO_KEYFRAME_POR_DEFECTO);
+    }
+    
+    /**
+     * Escribe el siguiente mensaje para el estado actual
+     * El primero y uno de cada intervaloKeyframe son keyframes, el resto deltas
+     * @param actual Estado tras el ultimo movimiento
+     * @param destino Buffer reutilizable con al menos TAMANO_MAXIMO_DELTA libres
+     * @return Bytes escritos
+     */
+    public int emitir(EstadoPartida actual, ByteBuffer destino) {
+        int escritos;
+        if (forzarKeyframe || secuencia % intervaloKeyframe == 0) {
+            escritos = ProtocoloBinario.escribirKeyframe(destino, idPartida, secuencia, actual);
+            forzarKeyframe = false;
+        } else {
+            escritos = ProtocoloBinario.escribirDelta(destino, idPartida, secuencia, enviado, actual);
+        }
+        enviado.copiarDe(actual);
+        secuencia++;
+        return escritos;
+    }
+    
+    /**
+     * Escribe un keyframe fuera de la secuencia, para un espectador nuevo
+     * No altera la secuencia de los demas receptores
+     * @return Bytes escritos
+     */
+    public int escribirKeyframe(EstadoPartida actual, ByteBuffer destino) {
+        return ProtocoloBinario.escribirKeyframe(destino, idPartida, secuencia - 1, actual);
+    }
+    
+    /**
+     * El siguiente mensaje sera un keyframe (por ejemplo si un receptor lo pide)
+     */
+    public void solicitarKeyframe() {
+        forzarKeyframe = true;
+    }
+    
+    public int getIdPartida() { return idPartida; }
+    public int getSecuencia() { return secuencia; }
+}
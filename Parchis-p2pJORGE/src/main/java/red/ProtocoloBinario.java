@@ -0,0 +1,241 @@
+/**
+ * Formato binario versionado para sincronizar el estado entre pares
+ * 
+ * Cabecera (10 bytes): version u8, tipo u8, idPartida i32, secuencia i32
+ * KEYFRAME: las 4 palabras de fichas y la de control del EstadoPartida (40 bytes)
+ * DELTA: numCambios u8, por cambio slot u8, desde u8, hasta u8, flags u8,
+ *        luego turno u8 (0xFF sin turno) y contadorSeis u8
+ * Las posiciones van desplazadas en 1 para que -1 (casa) quepa en un byte
+ */
+package red;
+
+import java.nio.ByteBuffer;
+import modelo.EstadoPartida;
+import modelo.InstantaneaPartida;
+
+public final class ProtocoloBinario {
+    public static final byte VERSION = 1;
+    public static final byte TIPO_KEYFRAME = 1;
+    public static final byte TIPO_DELTA = 2;
+    
+    public static final int TAMANO_CABECERA = 10;
+    public static final int TAMANO_KEYFRAME = TAMANO_CABECERA + 8 * (EstadoPartida.MAX_JUGADORES + 1);
+    public static final int TAMANO_CAMBIO = 4;
+    public static final int TAMANO_MAXIMO_DELTA = TAMANO_CABECERA + 1
+            + EstadoPartida.TOTAL_FICHAS * TAMANO_CAMBIO + 2;
+    
+    // Flags de cada cambio
+    public static final int FLAG_EN_CASA = 1;
+    public static final int FLAG_EN_META = 1 << 1;
+    public static final int FLAG_CAPTURADA = 1 << 2;
+    
+    // Resultados de leer
+    public static final int APLICADO = 0;
+    public static final int MENSAJE_INCOMPLETO = 1;
+    public static final int VERSION_DESCONOCIDA = 2;
+    public static final int DESINCRONIZADO = 3;
+    // Tipo que no es KEYFRAME ni DELTA: el flujo esta corrupto, no a medias
+    public static final int TIPO_DESCONOCIDO = 4;
+    
+    private static final int SIN_TURNO = 0xFF;
+    
+    private ProtocoloBinario() {
+    }
+    
+    static void escribirCabecera(ByteBuffer destino, byte tipo, int idPartida, int secuencia) {
+        destino.put(VERSION).put(tipo).putInt(idPartida).putInt(secuencia);
+    }
+    
+    /**
+     * Escribe el estado completo
+     * @return Bytes escritos
+     */
+    public static int escribirKeyframe(ByteBuffer destino, int idPartida, int secuencia, EstadoPartida estado) {
+        int inicio = destino.position();
+        escribirCabecera(destino, TIPO_KEYFRAME, idPartida, secuencia);
+        for (int j = 0; j < EstadoPartida.MAX_JUGADORES; j++) {
+            destino.putLong(estado.getPalabraFichas(j));
+        }
+        destino.putLong(estado.getControl());
+        return destino.position() - inicio;
+    }
+    
+    /**
+     * Escribe el estado completo de una instantanea
+     * La secuencia es la version de la instantanea, el receptor descarta las anteriores
+     * @return Bytes escritos
+     */
+    public static int escribirKeyframe(ByteBuffer destino, InstantaneaPartida instantanea) {
+        int inicio = destino.position();
+        escribirCabecera(destino, TIPO_KEYFRAME, instantanea.getIdPartida(), (int) instantanea.getVersion());
+        for (int j = 0; j < EstadoPartida.MAX_JUGADORES; j++) {
+            destino.putLong(instantanea.getPalabraFichas(j));
+        }
+        destino.putLong(instantanea.getControl());
+        return destino.position() - inicio;
+    }
+    
+    /**
+     * Escribe solo las fichas que cambiaron entre dos estados, mas turno y contador de 6
+     * Una ficha rival que vuelve a casa se marca como capturada
+     * @param anterior Estado que ya tiene el receptor
+     * @param actual Estado tras el movimiento
+     * @return Bytes escritos
+     */
+    public static int escribirDelta(ByteBuffer destino, int idPartida, int secuencia,
+                                    EstadoPartida anterior, EstadoPartida actual) {
+        int inicio = destino.position();
+        escribirCabecera(destino, TIPO_DELTA, idPartida, secuencia);
+        int posicionCuenta = destino.position();
+        destino.put((byte) 0);
+        
+        int turno = actual.getTurno();
+        int cambios = 0;
+        for (int slot = 0; slot < EstadoPartida.TOTAL_FICHAS; slot++) {
+            if (anterior.getFicha(slot) == actual.getFicha(slot)) {
+                continue;
+            }
+            int flags = 0;
+            if (actual.isEnCasa(slot)) flags |= FLAG_EN_CASA;
+            if (actual.isEnMeta(slot)) flags |= FLAG_EN_META;
+            if (actual.isEnCasa(slot) && anterior.isEnTablero(slot) && actual.getPosicion(slot) < 0
+                    && (slot / EstadoPartida.FICHAS_POR_JUGADOR) != anterior.getTurno()) {
+                flags |= FLAG_CAPTURADA;
+            }
+            destino.put((byte) slot)
+                   .put((byte) (anterior.getPosicion(slot) + 1))
+                   .put((byte) (actual.getPosicion(slot) + 1))
+                   .put((byte) flags);
+            cambios++;
+        }
+        destino.put(posicionCuenta, (byte) cambios);
+        destino.put((byte) (turno < 0 ? SIN_TURNO : turno));
+        destino.put((byte) Math.min(actual.getContadorSeis(), 0xFF));
+        return destino.position() - inicio;
+    }
+    
+    /**
+     * Aplica un mensaje sobre un estado
+     * En un DELTA comprueba que cada "desde" coincide con el estado local
+     * @param origen Buffer posicionado al inicio del mensaje
+     * @param estado Estado del receptor
+     * @param cambiados Si no es null recibe los slots cambiados (desde y hasta por slot)
+     * @return APLICADO, MENSAJE_INCOMPLETO, VERSION_DESCONOCIDA, DESINCRONIZADO o TIPO_DESCONOCIDO
+     */
+    public static int leer(ByteBuffer origen, EstadoPartida estado, Cambios cambiados) {
+        if (origen.remaining() < TAMANO_CABECERA) return MENSAJE_INCOMPLETO;
+        int inicio = origen.position();
+        byte version = origen.get();
+        byte tipo = origen.get();
+        origen.getInt();
+        origen.getInt();
+        if (version != VERSION) {
+            origen.position(inicio);
+            return VERSION_DESCONOCIDA;
+        }
+        if (tipo != TIPO_KEYFRAME && tipo != TIPO_DELTA) {
+            origen.position(inicio);
+            return TIPO_DESCONOCIDO;
+        }
+        if (cambiados != null) {
+            cambiados.limpiar();
+        }
+        
+        if (tipo == TIPO_KEYFRAME) {
+            if (origen.remaining() < TAMANO_KEYFRAME - TAMANO_CABECERA) {
+                origen.position(inicio);
+                return MENSAJE_INCOMPLETO;
+            }
+            for (int j = 0; j < EstadoPartida.MAX_JUGADORES; j++) {
+                long palabra = origen.getLong();
+                if (cambiados != null) {
+                    for (int f = 0; f < EstadoPartida.FICHAS_POR_JUGADOR; f++) {
+                        int slot = j * EstadoPartida.FICHAS_POR_JUGADOR + f;
+                        cambiados.agregar(slot, estado.getPosicion(slot));
+                    }
+                }
+                estado.setPalabraFichas(j, palabra);
+            }
+            estado.setControl(origen.getLong());
+            return APLICADO;
+        }
+        
+        if (origen.remaining() < 1) {
+            origen.position(inicio);
+            return MENSAJE_INCOMPLETO;
+        }
+        int numCambios = origen.get() & 0xFF;
+        if (origen.remaining() < numCambios * TAMANO_CAMBIO + 2) {
+            origen.position(inicio);
+            return MENSAJE_INCOMPLETO;
+        }
+        
+        // Validar antes de tocar el estado para no dejarlo a medias
+        int datos = origen.position();
+        for (int i = 0; i < numCambios; i++) {
+            int slot = origen.get() & 0xFF;
+            int desde = (origen.get() & 0xFF) - 1;
+            origen.position(origen.position() + 2);
+            if (slot >= EstadoPartida.TOTAL_FICHAS || estado.getPosicion(slot) != desde) {
+                origen.position(inicio);
+                return DESINCRONIZADO;
+            }
+        }
+        origen.position(datos);
+        
+        for (int i = 0; i < numCambios; i++) {
+            int slot = origen.get() & 0xFF;
+            int desde = (origen.get() & 0xFF) - 1;
+            int hasta = (origen.get() & 0xFF) - 1;
+            int flags = origen.get();
+            estado.setPosicion(slot, hasta);
+            estado.setEnCasa(slot, (flags & FLAG_EN_CASA) != 0);
+            estado.setEnMeta(slot, (flags & FLAG_EN_META) != 0);
+            if (cambiados != null) {
+                cambiados.agregar(slot, desde);
+            }
+        }
+        int turno = origen.get() & 0xFF;
+        estado.setTurno(turno == SIN_TURNO ? -1 : turno);
+        estado.setContadorSeis(origen.get() & 0xFF);
+        return APLICADO;
+    }
+    
+    /**
+     * Lee el tipo de un mensaje sin consumirlo
+     */
+    public static byte tipo(ByteBuffer origen) {
+        return origen.get(origen.position() + 1);
+    }
+    
+    /**
+     * Lee la secuencia de un mensaje sin consumirlo
+     */
+    public static int secuencia(ByteBuffer origen) {
+        return origen.getInt(origen.position() + 6);
+    }
+    
+    /**
+     * Slots cambiados por el ultimo mensaje leido, con su posicion anterior
+     * Se reutiliza entre mensajes para no reservar memoria
+     */
+    public static final class Cambios {
+        private final int[] slots = new int[EstadoPartida.TOTAL_FICHAS];
+        private final int[] desde = new int[EstadoPartida.TOTAL_FICHAS];
+        private int cantidad;
+        
+        void limpiar() {
+            cantidad = 0;
+        }
+        
+        void agregar(int slot, int posicionAnterior) {
+            slots[cantidad] = slot;
+            desde[cantidad] = posicionAnterior;
+            cantidad++;
+        }
+        
+        public int getCantidad() { return cantidad; }
+        public int getSlot(int i) { return slots[i]; }
+        public int getDesde(int i) { return desde[i]; }
+    }
+}
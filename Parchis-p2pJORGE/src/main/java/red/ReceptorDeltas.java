@@ -0,0 +1,102 @@
+/**
+ * Recibe mensajes del protocolo binario y los aplica a una partida local
+ * Mantiene las casillas del tablero sincronizadas con las fichas cambiadas
+ * Si pierde un mensaje o detecta diferencias espera al siguiente keyframe
+ * Un keyframe anterior al ultimo aplicado (llega tarde o reordenado) se descarta
+ */
+package red;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import modelo.Casilla;
+import modelo.EstadoPartida;
+import modelo.Ficha;
+import modelo.Jugador;
+import modelo.Partida;
+import modelo.Tablero;
+
+public class ReceptorDeltas {
+    private final Partida partida;
+    private final ProtocoloBinario.Cambios cambios;
+    private int esperada;
+    private boolean sincronizado;
+    
+    /**
+     * @param partida Partida local con los mismos jugadores que la del emisor
+     */
+    public ReceptorDeltas(Partida partida) {
+        this.partida = partida;
+        this.cambios = new ProtocoloBinario.Cambios();
+    }
+    
+    /**
+     * Aplica un mensaje
+     * @param mensaje Buffer posicionado al inicio del mensaje
+     * @return true si se aplico; false si se descarto por atrasado (sigue
+     *         sincronizado) o si hace falta un keyframe
+     */
+    public boolean recibir(ByteBuffer mensaje) {
+        byte tipo = ProtocoloBinario.tipo(mensaje);
+        int secuencia = ProtocoloBinario.secuencia(mensaje);
+        
+        if (tipo == ProtocoloBinario.TIPO_DELTA && (!sincronizado || secuencia != esperada)) {
+            sincronizado = false;
+            return false;
+        }
+        // Volver a un estado anterior desharia deltas ya aplicados (comparacion con vuelta del contador)
+        if (tipo == ProtocoloBinario.TIPO_KEYFRAME && sincronizado && secuencia - (esperada - 1) < 0) {
+            return false;
+        }
+        
+        int resultado = ProtocoloBinario.leer(mensaje, partida.getEstado(), cambios);
+        if (resultado != ProtocoloBinario.APLICADO) {
+            sincronizado = false;
+            return false;
+        }
+        
+        sincronizarCasillas();
+        sincronizarTurno();
+        sincronizado = true;
+        esperada = secuencia + 1;
+        return true;
+    }
+    
+    /**
+     * Mueve entre casillas las fichas que cambiaron
+     */
+    private void sincronizarCasillas() {
+        Tablero tablero = partida.getTablero();
+        List<Jugador> jugadores = partida.getJugadores();
+        EstadoPartida estado = partida.getEstado();
+        
+        for (int i = 0; i < cambios.getCantidad(); i++) {
+            int slot = cambios.getSlot(i);
+            int asiento = slot / EstadoPartida.FICHAS_POR_JUGADOR;
+            if (asiento >= jugadores.size()) {
+                continue;
+            }
+            Ficha ficha = jugadores.get(asiento).getFichas().get(slot % EstadoPartida.FICHAS_POR_JUGADOR);
+            
+            Casilla anterior = tablero.getCasilla(cambios.getDesde(i));
+            if (anterior != null) {
+                anterior.removerFicha(ficha);
+            }
+            if (estado.isEnTablero(slot)) {
+                Casilla nueva = tablero.getCasilla(estado.getPosicion(slot));
+                if (!nueva.contiene(ficha)) {
+                    nueva.agregarFicha(ficha);
+                }
+            }
+        }
+    }
+    
+    private void sincronizarTurno() {
+        int turno = partida.getEstado().getTurno();
+        List<Jugador> jugadores = partida.getJugadores();
+        for (int i = 0; i < jugadores.size(); i++) {
+            jugadores.get(i).setTurno(i == turno);
+        }
+    }
+    
+    public boolean isSincronizado() { return sincronizado; }
+}
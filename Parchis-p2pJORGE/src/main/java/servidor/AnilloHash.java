@@ -0,0 +1,143 @@
+/**
+ * Anillo de hash consistente que reparte las partidas entre nodos
+ * Cada nodo pone VIRTUALES puntos en el anillo (nodos virtuales) y una
+ * partida es del nodo del primer punto igual o mayor que el hash de su id,
+ * dando la vuelta al final. Al entrar o salir un nodo solo cambian de dueno
+ * las partidas de los tramos que gana o pierde, ~1/n del total
+ * Es inmutable: con y sin devuelven otro anillo, asi se consulta sin cerrojos
+ * El dueno no depende del orden en que entraron los nodos
+ */
+package servidor;
+
+import java.util.Arrays;
+import java.util.List;
+
+public final class AnilloHash {
+    public static final int VIRTUALES_POR_DEFECTO = 160;
+    private static final long DORADO = 0x9E3779B97F4A7C15L;
+    
+    private final int virtuales;
+    // Nodos en orden alfabetico; puntos ordenados y el nodo de cada uno
+    private final String[] nodos;
+    private final long[] puntos;
+    private final int[] duenos;
+    
+    /**
+     * Anillo vacio
+     * @param virtuales Puntos por nodo, mas puntos reparte mas parejo
+     */
+    public AnilloHash(int virtuales) {
+        this(virtuales, new String[0]);
+    }
+    
+    public AnilloHash() {
+        this(VIRTUALES_POR_DEFECTO);
+    }
+    
+    private AnilloHash(int virtuales, String[] nodos) {
+        this.virtuales = virtuales;
+        this.nodos = nodos;
+        Arrays.sort(nodos);
+        
+        // Puntos de todos los nodos, ordenados sin signo con el nodo de cada uno
+        int total = nodos.length * virtuales;
+        long[] claves = new long[total];
+        Integer[] orden = new Integer[total];
+        for (int n = 0; n < nodos.length; n++) {
+            long base = hash(nodos[n]);
+            for (int v = 0; v < virtuales; v++) {
+                claves[n * virtuales + v] = mezclar(base + (v + 1) * DORADO);
+                orden[n * virtuales + v] = n * virtuales + v;
+            }
+        }
+        Arrays.sort(orden, (a, b) -> {
+            int c = Long.compareUnsigned(claves[a], claves[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        this.puntos = new long[total];
+        this.duenos = new int[total];
+        for (int i = 0; i < total; i++) {
+            puntos[i] = claves[orden[i]];
+            duenos[i] = orden[i] / virtuales;
+        }
+    }
+    
+    /**
+     * Anillo con un nodo mas
+     * @return Este mismo si ya estaba
+     */
+    public AnilloHash con(String nodo) {
+        if (contiene(nodo)) {
+            return this;
+        }
+        String[] mas = Arrays.copyOf(nodos, nodos.length + 1);
+        mas[nodos.length] = nodo;
+        return new AnilloHash(virtuales, mas);
+    }
+    
+    /**
+     * Anillo sin un nodo
+     * @return Este mismo si no estaba
+     */
+    public AnilloHash sin(String nodo) {
+        if (!contiene(nodo)) {
+            return this;
+        }
+        return new AnilloHash(virtuales, Arrays.stream(nodos).filter(n -> !n.equals(nodo)).toArray(String[]::new));
+    }
+    
+    /**
+     * Nodo dueno de una partida
+     * @return El nodo, null si el anillo esta vacio
+     */
+    public String nodoDe(int idPartida) {
+        if (puntos.length == 0) {
+            return null;
+        }
+        long h = hash(idPartida);
+        // Primer punto >= h en orden sin signo
+        int bajo = 0;
+        int alto = puntos.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (Long.compareUnsigned(puntos[medio], h) < 0) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return nodos[duenos[bajo == puntos.length ? 0 : bajo]];
+    }
+    
+    public boolean contiene(String nodo) {
+        return Arrays.binarySearch(nodos, nodo) >= 0;
+    }
+    
+    static long hash(int idPartida) {
+        return mezclar(idPartida * DORADO);
+    }
+    
+    /**
+     * FNV-1a de 64 bits, mezclado
+     */
+    static long hash(String nodo) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < nodo.length(); i++) {
+            h = (h ^ nodo.charAt(i)) * 0x100000001B3L;
+        }
+        return mezclar(h);
+    }
+    
+    /**
+     * Final de SplitMix64: cada bit de entrada cambia la mitad de los de salida
+     */
+    static long mezclar(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+    
+    public List<String> getNodos() { return List.of(nodos); }
+    public int getNumNodos() { return nodos.length; }
+    public int getVirtuales() { return virtuales; }
+}
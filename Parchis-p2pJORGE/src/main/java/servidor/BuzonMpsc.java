@@ -0,0 +1,80 @@
+/**
+ * Buzon sin bloqueos para muchos productores y un solo consumidor
+ * Cola enlazada de Vyukov: cada productor engancha su nodo con un solo
+ * intercambio atomico sobre la cola y el consumidor avanza la cabeza sin atomicas
+ * El contador de pendientes decide quien programa al consumidor: el productor
+ * que lo pasa de 0 a 1, asi nunca hay dos consumidores a la vez
+ */
+package servidor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class BuzonMpsc<T> {
+    private final AtomicReference<Nodo<T>> cola;
+    private final AtomicInteger pendientes;
+    // Solo la toca el consumidor
+    private Nodo<T> cabeza;
+    
+    public BuzonMpsc() {
+        Nodo<T> vacio = new Nodo<>(null);
+        this.cabeza = vacio;
+        this.cola = new AtomicReference<>(vacio);
+        this.pendientes = new AtomicInteger();
+    }
+    
+    /**
+     * Reserva un hueco para un mensaje
+     * Debe llamarse antes de poner, y si devuelve true el llamador debe programar al consumidor
+     * @return true si el buzon estaba vacio y nadie lo esta consumiendo
+     */
+    public boolean reservar() {
+        return pendientes.getAndIncrement() == 0;
+    }
+    
+    /**
+     * Engancha un mensaje al final, lo puede llamar cualquier hilo
+     * @param valor Mensaje, no nulo
+     */
+    public void poner(T valor) {
+        Nodo<T> nodo = new Nodo<>(valor);
+        Nodo<T> anterior = cola.getAndSet(nodo);
+        // Entre el intercambio y este enlace el consumidor ve el buzon vacio un instante
+        anterior.siguiente = nodo;
+    }
+    
+    /**
+     * Saca el primer mensaje, solo desde el consumidor
+     * @return El mensaje o null si no hay ninguno enganchado todavia
+     */
+    public T sacar() {
+        Nodo<T> siguiente = cabeza.siguiente;
+        if (siguiente == null) {
+            return null;
+        }
+        T valor = siguiente.valor;
+        siguiente.valor = null;
+        cabeza = siguiente;
+        return valor;
+    }
+    
+    /**
+     * El consumidor descuenta los mensajes que ya proceso
+     * @param procesados Mensajes sacados en esta pasada
+     * @return Mensajes reservados que aun quedan; si es mayor que 0 el consumidor debe volver a programarse
+     */
+    public int liberar(int procesados) {
+        return pendientes.addAndGet(-procesados);
+    }
+    
+    public int getPendientes() { return pendientes.get(); }
+    
+    private static final class Nodo<T> {
+        T valor;
+        volatile Nodo<T> siguiente;
+        
+        Nodo(T valor) {
+            this.valor = valor;
+        }
+    }
+}
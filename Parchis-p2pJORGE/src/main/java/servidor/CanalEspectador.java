@@ -0,0 +1,47 @@
+/**
+ * Destino de los mensajes de difusion para un espectador
+ * Normalmente una conexion WebSocket, ver deConexion
+ */
+package servidor;
+
+import java.nio.ByteBuffer;
+import org.java_websocket.WebSocket;
+
+public interface CanalEspectador {
+    /**
+     * Entrega un mensaje sin bloquear
+     * @param mensaje Buffer de solo lectura compartido con los demas espectadores,
+     *                no se debe mover su posicion (usar duplicate)
+     */
+    void enviar(ByteBuffer mensaje);
+    
+    /**
+     * @return true si el canal todavia tiene datos sin enviar y no debe recibir mas
+     */
+    boolean isSaturado();
+    
+    boolean isAbierto();
+    
+    /**
+     * Adapta una conexion de Java-WebSocket
+     * Cada envio usa un duplicate del buffer, asi los bytes no se copian hasta el marco
+     */
+    static CanalEspectador deConexion(WebSocket conexion) {
+        return new CanalEspectador() {
+            @Override
+            public void enviar(ByteBuffer mensaje) {
+                conexion.send(mensaje.duplicate());
+            }
+            
+            @Override
+            public boolean isSaturado() {
+                return conexion.hasBufferedData();
+            }
+            
+            @Override
+            public boolean isAbierto() {
+                return conexion.isOpen();
+            }
+        };
+    }
+}
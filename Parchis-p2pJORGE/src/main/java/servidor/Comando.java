@@ -0,0 +1,91 @@
+/**
+ * Comando de un jugador dirigido a una partida
+ * Se recibe como JSON, por ejemplo {"tipo":"MOVER","idPartida":7,"jugadorId":2,"ficha":1}
+ * peticion, si viene, se devuelve en la respuesta para casarlas cuando hay
+ * varios comandos en vuelo por la misma conexion (EnrutadorNodos)
+ */
+package servidor;
+
+public class Comando {
+    private TipoComando tipo;
+    private int idPartida;
+    private int jugadorId;
+    private String nombre;
+    private String color;
+    private int ficha;
+    private long peticion;
+    // Solo para IMPORTAR: la partida exportada por otro nodo (EstadoSala en Base64)
+    private String datos;
+    // Solo para TIEMPO_AGOTADO; transient para que no lleguen desde la red
+    private transient boolean interno;
+    private transient long accion;
+    
+    public Comando() {
+    }
+    
+    /**
+     * Constructor para comandos sin datos de jugador
+     */
+    public Comando(TipoComando tipo, int idPartida) {
+        this.tipo = tipo;
+        this.idPartida = idPartida;
+    }
+    
+    /**
+     * Constructor para comandos de un jugador
+     */
+    public Comando(TipoComando tipo, int idPartida, int jugadorId) {
+        this(tipo, idPartida);
+        this.jugadorId = jugadorId;
+    }
+    
+    public static Comando unirse(int idPartida, int jugadorId, String nombre, String color) {
+        Comando comando = new Comando(TipoComando.UNIRSE, idPartida, jugadorId);
+        comando.nombre = nombre;
+        comando.color = color;
+        return comando;
+    }
+    
+    public static Comando salir(int idPartida, int jugadorId) {
+        return new Comando(TipoComando.SALIR, idPartida, jugadorId);
+    }
+    
+    public static Comando mover(int idPartida, int jugadorId, int ficha) {
+        Comando comando = new Comando(TipoComando.MOVER, idPartida, jugadorId);
+        comando.ficha = ficha;
+        return comando;
+    }
+    
+    /**
+     * Aloja en un nodo una partida exportada por otro
+     * @param datos Respuesta de EXPORTAR en el nodo de origen
+     */
+    public static Comando importar(int idPartida, String datos) {
+        Comando comando = new Comando(TipoComando.IMPORTAR, idPartida);
+        comando.datos = datos;
+        return comando;
+    }
+    
+    /**
+     * Aviso de plazo vencido que la sala se envia a si misma
+     * @param accion Numero de accion que la sala esperaba al armar el plazo
+     */
+    static Comando tiempoAgotado(int idPartida, long accion) {
+        Comando comando = new Comando(TipoComando.TIEMPO_AGOTADO, idPartida);
+        comando.interno = true;
+        comando.accion = accion;
+        return comando;
+    }
+    
+    public TipoComando getTipo() { return tipo; }
+    public int getIdPartida() { return idPartida; }
+    public int getJugadorId() { return jugadorId; }
+    public String getNombre() { return nombre; }
+    public String getColor() { return color; }
+    public int getFicha() { return ficha; }
+    public long getPeticion() { return peticion; }
+    public void setPeticion(long peticion) { this.peticion = peticion; }
+    public String getDatos() { return datos; }
+    boolean isInterno() { return interno; }
+    long getAccion() { return accion; }
+}
@@ -0,0 +1,232 @@
+/**
+ * Reparte el estado de cada partida a sus espectadores
+ * Cada cambio se codifica una sola vez (keyframe del ProtocoloBinario) en un
+ * ByteBuffer de solo lectura que comparten todos los espectadores de la partida
+ * 
+ * Cada audiencia funciona como un actor con su propio BuzonMpsc, asi repartir
+ * no ocupa el hilo de la sala. Un espectador que no da abasto solo guarda el
+ * ultimo mensaje sin enviar: como cada keyframe es el estado completo, perder
+ * los anteriores no lo desincroniza. Mientras alguno tenga un mensaje guardado
+ * la audiencia se despierta cada REINTENTO_MS para enviarlo en cuanto el canal
+ * se vacie, asi el estado final llega aunque la partida ya no publique mas
+ */
+package servidor;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import modelo.InstantaneaPartida;
+import red.ProtocoloBinario;
+
+public class DifusionEspectadores {
+    // Espera entre reintentos a espectadores con el canal lleno
+    public static final long REINTENTO_MS = 10;
+    // Mensajes por pasada antes de ceder el hilo a otras audiencias
+    private static final int LOTE = 64;
+    // Aviso de reintento en el buzon, no es un mensaje para los espectadores
+    private static final ByteBuffer REINTENTO = ByteBuffer.allocate(0);
+    
+    private final ConcurrentHashMap<Integer, Audiencia> audiencias;
+    private final Executor ejecutor;
+    private final Executor retardado;
+    private final LongAdder codificados;
+    private final LongAdder entregados;
+    private final LongAdder descartados;
+    
+    /**
+     * Constructor
+     * @param ejecutor Ejecutor donde se reparten los mensajes
+     */
+    public DifusionEspectadores(Executor ejecutor) {
+        this.audiencias = new ConcurrentHashMap<>();
+        this.ejecutor = ejecutor;
+        this.retardado = CompletableFuture.delayedExecutor(REINTENTO_MS, TimeUnit.MILLISECONDS, ejecutor);
+        this.codificados = new LongAdder();
+        this.entregados = new LongAdder();
+        this.descartados = new LongAdder();
+    }
+    
+    /**
+     * Apunta un espectador a una partida
+     * @param idPartida Partida a observar
+     * @param canal Destino de los mensajes
+     * @param actual Estado actual para enviarlo ya, null si no se conoce
+     * @return Suscripcion, para cancelarla
+     */
+    public Suscriptor suscribir(int idPartida, CanalEspectador canal, InstantaneaPartida actual) {
+        Suscriptor suscriptor;
+        while (true) {
+            Audiencia audiencia = audiencias.computeIfAbsent(idPartida, Audiencia::new);
+            suscriptor = new Suscriptor(audiencia, canal);
+            audiencia.suscriptores.add(suscriptor);
+            // Si la audiencia se quito vacia a la vez, apuntarse en la nueva
+            if (audiencias.get(idPartida) == audiencia) {
+                break;
+            }
+            audiencia.suscriptores.remove(suscriptor);
+        }
+        if (actual != null) {
+            // Puede llegar despues de uno mas nuevo: el cliente descarta secuencias viejas
+            canal.enviar(codificar(actual));
+        }
+        return suscriptor;
+    }
+    
+    /**
+     * Quita un espectador
+     */
+    public void cancelar(Suscriptor suscriptor) {
+        Audiencia audiencia = suscriptor.audiencia;
+        audiencia.suscriptores.remove(suscriptor);
+        if (audiencia.suscriptores.isEmpty()) {
+            audiencias.remove(audiencia.idPartida, audiencia);
+        }
+    }
+    
+    /**
+     * Publica un cambio de estado, lo llama la sala tras cada comando
+     * No bloquea y si nadie observa la partida no hace nada
+     * @param instantanea Estado publicado por la sala
+     */
+    public void publicar(InstantaneaPartida instantanea) {
+        Audiencia audiencia = audiencias.get(instantanea.getIdPartida());
+        if (audiencia == null || audiencia.suscriptores.isEmpty()) {
+            return;
+        }
+        audiencia.encolar(codificar(instantanea));
+    }
+    
+    private ByteBuffer codificar(InstantaneaPartida instantanea) {
+        ByteBuffer mensaje = ByteBuffer.allocate(ProtocoloBinario.TAMANO_KEYFRAME);
+        ProtocoloBinario.escribirKeyframe(mensaje, instantanea);
+        mensaje.flip();
+        codificados.increment();
+        return mensaje.asReadOnlyBuffer();
+    }
+    
+    /**
+     * Numero de espectadores de una partida
+     */
+    public int getEspectadores(int idPartida) {
+        Audiencia audiencia = audiencias.get(idPartida);
+        return audiencia != null ? audiencia.suscriptores.size() : 0;
+    }
+    
+    public long getCodificados() { return codificados.sum(); }
+    public long getEntregados() { return entregados.sum(); }
+    public long getDescartados() { return descartados.sum(); }
+    
+    /**
+     * Espectadores de una partida, con un solo consumidor a la vez como SalaPartida
+     */
+    private final class Audiencia {
+        final int idPartida;
+        final CopyOnWriteArrayList<Suscriptor> suscriptores = new CopyOnWriteArrayList<>();
+        final BuzonMpsc<ByteBuffer> buzon = new BuzonMpsc<>();
+        // Solo lo toca el hilo que reparte
+        boolean reintentoProgramado;
+        
+        Audiencia(int idPartida) {
+            this.idPartida = idPartida;
+        }
+        
+        void encolar(ByteBuffer mensaje) {
+            boolean programar = buzon.reservar();
+            buzon.poner(mensaje);
+            if (programar) {
+                ejecutor.execute(this::repartir);
+            }
+        }
+        
+        /**
+         * Se queda con el ultimo mensaje pendiente y lo da a cada espectador
+         * Si alguno se queda con un mensaje guardado programa un reintento
+         */
+        void repartir() {
+            ByteBuffer mensaje;
+            ByteBuffer ultimo = null;
+            int procesados = 0;
+            int nuevos = 0;
+            while (procesados < LOTE && (mensaje = buzon.sacar()) != null) {
+                procesados++;
+                if (mensaje == REINTENTO) {
+                    reintentoProgramado = false;
+                } else {
+                    ultimo = mensaje;
+                    nuevos++;
+                }
+            }
+            if (nuevos > 1) {
+                // Los intermedios no llegan a ningun espectador: cada keyframe ya es el estado completo
+                descartados.add((long) (nuevos - 1) * suscriptores.size());
+            }
+            if (procesados > 0) {
+                int entregas = 0;
+                boolean guardados = false;
+                for (Suscriptor suscriptor : suscriptores) {
+                    entregas += suscriptor.entregar(ultimo);
+                    guardados |= suscriptor.guardado != null;
+                }
+                entregados.add(entregas);
+                if (guardados && !reintentoProgramado) {
+                    reintentoProgramado = true;
+                    retardado.execute(() -> encolar(REINTENTO));
+                }
+            }
+            if (buzon.liberar(procesados) > 0) {
+                if (procesados == 0) {
+                    Thread.yield();
+                }
+                ejecutor.execute(this::repartir);
+            }
+        }
+    }
+    
+    /**
+     * Un espectador de una partida con el ultimo mensaje que no pudo enviar
+     * Solo lo toca el hilo que reparte su audiencia, no necesita cerrojos
+     */
+    public final class Suscriptor {
+        private final Audiencia audiencia;
+        private final CanalEspectador canal;
+        private ByteBuffer guardado;
+        
+        Suscriptor(Audiencia audiencia, CanalEspectador canal) {
+            this.audiencia = audiencia;
+            this.canal = canal;
+        }
+        
+        /**
+         * Envia el mensaje si el canal no tiene datos pendientes; si los tiene
+         * lo guarda en lugar del anterior sin enviar
+         * @param mensaje Mensaje nuevo, o null para solo reintentar el guardado
+         * @return Mensajes enviados al canal
+         */
+        int entregar(ByteBuffer mensaje) {
+            if (!canal.isAbierto()) {
+                guardado = null;
+                cancelar(this);
+                return 0;
+            }
+            if (mensaje != null) {
+                if (guardado != null) {
+                    descartados.increment();
+                }
+                guardado = mensaje;
+            }
+            if (guardado == null || canal.isSaturado()) {
+                return 0;
+            }
+            canal.enviar(guardado);
+            guardado = null;
+            return 1;
+        }
+        
+        public int getIdPartida() { return audiencia.idPartida; }
+        public boolean isPendiente() { return guardado != null; }
+    }
+}
@@ -0,0 +1,435 @@
+/**
+ * Reparte las partidas entre varios nodos (procesos con ServidorSalas) con un
+ * AnilloHash y envia cada comando al nodo de su partida
+ * Al entrar o salir un nodo migra en vivo las partidas que cambian de dueno:
+ * EXPORTAR en el origen (la sala se congela detras de los comandos que ya
+ * tenia), IMPORTAR en el destino y CERRAR en el origen. Mientras tanto los
+ * comandos de esa partida esperan y luego van al destino; las demas siguen
+ * jugando. Si el destino no la acepta se queda en el origen con REANUDAR,
+ * despues de cerrar en el destino la copia que pudiera haber quedado
+ * 
+ * Los comandos a un nodo van por una sola conexion, asi llegan en orden, y
+ * cada respuesta se casa con su comando por Comando.peticion. Las respuestas
+ * se completan en hilos virtuales, nunca en el hilo de la conexion
+ * Se conecta al puerto de nodos de cada ServidorSalas (el interno), el unico
+ * que acepta PARTIDAS, EXPORTAR, IMPORTAR y REANUDAR
+ */
+package servidor;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import metricas.HistogramaLatencia;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+
+public class EnrutadorNodos implements AutoCloseable {
+    public static final long PLAZO_RESPUESTA_MS = 10_000;
+    public static final int MIGRACIONES_EN_PARALELO = 32;
+    // Reenvios de un comando que llego a una sala ya congelada
+    private static final int REINTENTOS = 3;
+    private static final long SIN_PARTIDA = -1;
+    private static final long FALLIDA = -2;
+    // Errores de EXPORTAR de una partida que ya no existe
+    private static final Set<String> CERRADA = Set.of("Partida no encontrada", "Partida cerrada");
+    
+    private final Gson gson;
+    private final ExecutorService ejecutor;
+    private final ConcurrentHashMap<String, ConexionNodo> conexiones;
+    // Partidas que siguen en un nodo que ya no es su dueno mientras dura un reparto
+    private final ConcurrentHashMap<Integer, String> anteriores;
+    // Partidas en plena migracion; sus comandos esperan a que acabe
+    private final ConcurrentHashMap<Integer, CompletableFuture<Void>> migrando;
+    // Enviar toma el de lectura para elegir nodo y mandar; un reparto el de
+    // escritura para listar las partidas de cada nodo y cambiar de anillo
+    private final ReentrantReadWriteLock cerrojo;
+    private final AtomicLong peticiones;
+    private volatile AnilloHash anillo;
+    
+    /**
+     * Constructor sin nodos
+     * @param virtuales Puntos de cada nodo en el anillo
+     */
+    public EnrutadorNodos(int virtuales) {
+        this.gson = new Gson();
+        this.ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.conexiones = new ConcurrentHashMap<>();
+        this.anteriores = new ConcurrentHashMap<>();
+        this.migrando = new ConcurrentHashMap<>();
+        this.cerrojo = new ReentrantReadWriteLock();
+        this.peticiones = new AtomicLong();
+        this.anillo = new AnilloHash(virtuales);
+    }
+    
+    public EnrutadorNodos() {
+        this(AnilloHash.VIRTUALES_POR_DEFECTO);
+    }
+    
+    /**
+     * Envia un comando al nodo de su partida, se puede llamar desde cualquier hilo
+     * @param comando Comando de un jugador; se le pone el numero de peticion
+     * @return Respuesta del nodo
+     */
+    public CompletableFuture<Respuesta> enviar(Comando comando) {
+        return enviar(comando, REINTENTOS);
+    }
+    
+    private CompletableFuture<Respuesta> enviar(Comando comando, int reintentos) {
+        CompletableFuture<Respuesta> respuesta;
+        cerrojo.readLock().lock();
+        try {
+            // Primero el nodo y despues migrando, al reves que migrar: si ya no
+            // esta en anteriores o se ve la migracion o ya ha terminado
+            String nodo = ubicar(comando.getIdPartida());
+            CompletableFuture<Void> migracion = migrando.get(comando.getIdPartida());
+            if (migracion != null) {
+                return migracion.thenCompose(v -> enviar(comando, reintentos));
+            }
+            ConexionNodo conexion = nodo != null ? conexiones.get(nodo) : null;
+            if (conexion == null) {
+                return CompletableFuture.completedFuture(Respuesta.error(comando, "No hay nodos"));
+            }
+            respuesta = conexion.enviar(comando);
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+        // Llego justo despues de EXPORTAR: se reenvia cuando acabe la migracion
+        return respuesta.thenCompose(r -> {
+            if (r.isOk() || reintentos == 0 || !SalaPartida.PARTIDA_MIGRADA.equals(r.getMensaje())) {
+                return CompletableFuture.completedFuture(r);
+            }
+            return enviar(comando, reintentos - 1);
+        });
+    }
+    
+    /**
+     * Nodo que aloja ahora la partida (el de antes si aun no se ha migrado)
+     * @return Direccion del nodo, null si no hay nodos
+     */
+    public String ubicar(int idPartida) {
+        String anterior = anteriores.get(idPartida);
+        return anterior != null ? anterior : anillo.nodoDe(idPartida);
+    }
+    
+    /**
+     * Conecta un nodo nuevo y le pasa las partidas que ahora son suyas
+     * @param direccion Direccion WebSocket del puerto de nodos del ServidorSalas
+     */
+    public synchronized Reparto agregarNodo(URI direccion) throws InterruptedException {
+        String nodo = direccion.toString();
+        if (!conexiones.containsKey(nodo)) {
+            ConexionNodo conexion = new ConexionNodo(direccion);
+            if (!conexion.connectBlocking(PLAZO_RESPUESTA_MS, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("No se pudo conectar a " + nodo);
+            }
+            conexiones.put(nodo, conexion);
+        }
+        return repartir(anillo.con(nodo));
+    }
+    
+    /**
+     * Saca un nodo del anillo, migra sus partidas al resto y lo desconecta
+     * Si alguna no se pudo migrar sigue conectado y se puede volver a intentar
+     */
+    public synchronized Reparto quitarNodo(URI direccion) throws InterruptedException {
+        String nodo = direccion.toString();
+        Reparto reparto = repartir(anillo.sin(nodo));
+        if (reparto.fallidas == 0) {
+            ConexionNodo conexion = conexiones.remove(nodo);
+            if (conexion != null) {
+                conexion.closeBlocking();
+            }
+        }
+        return reparto;
+    }
+    
+    /**
+     * Pasa al anillo nuevo: lista las partidas de cada nodo conectado y migra
+     * las que no estan en su dueno, hasta MIGRACIONES_EN_PARALELO a la vez
+     * Solo el listado detiene los comandos; cada migracion detiene solo su partida
+     */
+    private Reparto repartir(AnilloHash nuevo) throws InterruptedException {
+        long inicio = System.nanoTime();
+        Map<Integer, String> mover = new HashMap<>();
+        cerrojo.writeLock().lock();
+        try {
+            // Los comandos enviados antes del cerrojo van por delante de PARTIDAS en cada conexion
+            for (Map.Entry<String, int[]> entrada : listar().entrySet()) {
+                if (entrada.getValue() == null) {
+                    throw new IllegalStateException("No se pudieron listar las partidas de " + entrada.getKey());
+                }
+                for (int idPartida : entrada.getValue()) {
+                    if (!entrada.getKey().equals(nuevo.nodoDe(idPartida))) {
+                        mover.put(idPartida, entrada.getKey());
+                    }
+                }
+            }
+            anteriores.clear();
+            anteriores.putAll(mover);
+            anillo = nuevo;
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+        long nanosListado = System.nanoTime() - inicio;
+        
+        Semaphore cupos = new Semaphore(MIGRACIONES_EN_PARALELO);
+        HistogramaLatencia congelaciones = new HistogramaLatencia();
+        AtomicInteger movidas = new AtomicInteger();
+        AtomicInteger fallidas = new AtomicInteger();
+        AtomicLong maxima = new AtomicLong();
+        for (Map.Entry<Integer, String> entrada : mover.entrySet()) {
+            cupos.acquire();
+            migrar(entrada.getKey(), entrada.getValue(), nuevo.nodoDe(entrada.getKey())).whenComplete((nanos, e) -> {
+                if (e != null) {
+                    fallidas.incrementAndGet();
+                } else if (nanos >= 0) {
+                    movidas.incrementAndGet();
+                    congelaciones.registrar(nanos);
+                    maxima.accumulateAndGet(nanos, Math::max);
+                } else if (nanos == FALLIDA) {
+                    fallidas.incrementAndGet();
+                }
+                cupos.release();
+            });
+        }
+        cupos.acquire(MIGRACIONES_EN_PARALELO);
+        return new Reparto(mover.size(), movidas.get(), fallidas.get(), nanosListado, System.nanoTime() - inicio,
+                congelaciones.percentil(50), congelaciones.percentil(99), maxima.get());
+    }
+    
+    /**
+     * Pregunta a cada nodo conectado que partidas aloja (PARTIDAS)
+     * @return Ids por nodo, null en los que no contestaron
+     */
+    public Map<String, int[]> listar() {
+        Map<String, CompletableFuture<Respuesta>> listados = new TreeMap<>();
+        for (Map.Entry<String, ConexionNodo> entrada : conexiones.entrySet()) {
+            listados.put(entrada.getKey(), entrada.getValue().enviar(new Comando(TipoComando.PARTIDAS, 0)));
+        }
+        Map<String, int[]> partidas = new TreeMap<>();
+        for (Map.Entry<String, CompletableFuture<Respuesta>> entrada : listados.entrySet()) {
+            Respuesta listado = entrada.getValue().join();
+            partidas.put(entrada.getKey(), listado.isOk() ? listado.getPartidas() : null);
+        }
+        return partidas;
+    }
+    
+    /**
+     * Migra una partida; los comandos que lleguen mientras tanto esperan en migrando
+     * Pase lo que pase la partida sale de migrando al acabar: si algo falla
+     * por el camino se reanuda en el origen (si fallo IMPORTAR, solo cuando
+     * el destino confirma que no la tiene) y cuenta como FALLIDA
+     * @return Nanosegundos que estuvo congelada, SIN_PARTIDA si ya no estaba o FALLIDA
+     */
+    private CompletableFuture<Long> migrar(int idPartida, String origen, String destino) {
+        CompletableFuture<Void> hecha = new CompletableFuture<>();
+        migrando.put(idPartida, hecha);
+        anteriores.remove(idPartida);
+        ConexionNodo desde = conexiones.get(origen);
+        ConexionNodo hasta = conexiones.get(destino);
+        long inicio = System.nanoTime();
+        
+        CompletableFuture<Long> migracion;
+        if (desde == null || hasta == null) {
+            migracion = reanudar(idPartida, origen, destino, "Nodo desconectado");
+        } else {
+            migracion = desde.enviar(new Comando(TipoComando.EXPORTAR, idPartida)).thenCompose(exportada -> {
+                if (!exportada.isOk()) {
+                    if (CERRADA.contains(exportada.getMensaje())) {
+                        // Cerrada entre el listado y la exportacion
+                        return CompletableFuture.completedFuture(SIN_PARTIDA);
+                    }
+                    return reanudar(idPartida, origen, destino, exportada.getMensaje());
+                }
+                return hasta.enviar(Comando.importar(idPartida, exportada.getDatos())).handle((importada, e) -> {
+                    if (e == null && importada.isOk()) {
+                        return CompletableFuture.completedFuture(System.nanoTime() - inicio);
+                    }
+                    return descartarCopia(idPartida, origen, destino, e != null ? e.toString() : importada.getMensaje());
+                }).thenCompose(f -> f);
+            });
+        }
+        return migracion.exceptionallyCompose(e -> reanudar(idPartida, origen, destino, e.toString()))
+                .whenComplete((nanos, e) -> {
+                    migrando.remove(idPartida);
+                    hecha.complete(null);
+                })
+                .thenApply(nanos -> {
+                    if (nanos >= 0) {
+                        desde.enviar(new Comando(TipoComando.CERRAR, idPartida));
+                    }
+                    return nanos;
+                });
+    }
+    
+    /**
+     * IMPORTAR fallo o no contesto, pero el destino pudo alojarla igualmente:
+     * antes de reanudar en el origen se cierra su copia para que la partida no
+     * se juegue en dos nodos. Si el destino no confirma el cierre la partida
+     * se queda congelada en el origen, sin comandos, hasta otro intento
+     * @return Siempre FALLIDA
+     */
+    private CompletableFuture<Long> descartarCopia(int idPartida, String origen, String destino, String motivo) {
+        ConexionNodo hasta = conexiones.get(destino);
+        if (hasta == null) {
+            return congelada(idPartida, origen, destino, motivo);
+        }
+        return hasta.enviar(new Comando(TipoComando.CERRAR, idPartida)).handle((cerrada, e) ->
+                e == null && (cerrada.isOk() || CERRADA.contains(cerrada.getMensaje()))
+                        ? reanudar(idPartida, origen, destino, motivo)
+                        : congelada(idPartida, origen, destino, motivo))
+                .thenCompose(f -> f);
+    }
+    
+    private CompletableFuture<Long> congelada(int idPartida, String origen, String destino, String motivo) {
+        System.err.println("[ENRUTADOR] No se pudo migrar la partida " + idPartida + " a " + destino + ": " + motivo
+                + "; el destino no confirma que no la tenga y se queda congelada en " + origen);
+        anteriores.put(idPartida, origen);
+        return CompletableFuture.completedFuture(FALLIDA);
+    }
+    
+    /**
+     * La migracion fallo: la partida sigue en el origen (si EXPORTAR no llego
+     * a congelarla, REANUDAR solo devuelve un error)
+     * @return Siempre FALLIDA, aunque REANUDAR tampoco llegue
+     */
+    private CompletableFuture<Long> reanudar(int idPartida, String origen, String destino, String motivo) {
+        System.err.println("[ENRUTADOR] No se pudo migrar la partida " + idPartida + " a " + destino + ": " + motivo);
+        anteriores.put(idPartida, origen);
+        ConexionNodo conexion = conexiones.get(origen);
+        if (conexion == null) {
+            return CompletableFuture.completedFuture(FALLIDA);
+        }
+        return conexion.enviar(new Comando(TipoComando.REANUDAR, idPartida)).handle((r, e) -> FALLIDA);
+    }
+    
+    public AnilloHash getAnillo() { return anillo; }
+    public List<String> getNodos() { return new ArrayList<>(conexiones.keySet()); }
+    public int getMigrando() { return migrando.size(); }
+    
+    @Override
+    public void close() {
+        for (ConexionNodo conexion : conexiones.values()) {
+            try {
+                conexion.closeBlocking();
+            } catch (InterruptedException e) {
+                // Se deja de esperar; la conexion se sigue cerrando sola
+                Thread.currentThread().interrupt();
+                conexion.close();
+            }
+        }
+        conexiones.clear();
+        ejecutor.shutdown();
+    }
+    
+    /**
+     * Conexion con un nodo y sus comandos en vuelo por numero de peticion
+     */
+    private final class ConexionNodo extends WebSocketClient {
+        private final ConcurrentHashMap<Long, CompletableFuture<Respuesta>> enVuelo;
+        
+        ConexionNodo(URI direccion) {
+            super(direccion);
+            this.enVuelo = new ConcurrentHashMap<>();
+            // Muchos mensajes cortos en vuelo: sin Nagle cada uno sale enseguida
+            setTcpNoDelay(true);
+        }
+        
+        CompletableFuture<Respuesta> enviar(Comando comando) {
+            long peticion = peticiones.incrementAndGet();
+            comando.setPeticion(peticion);
+            CompletableFuture<Respuesta> respuesta = new CompletableFuture<>();
+            enVuelo.put(peticion, respuesta);
+            try {
+                send(gson.toJson(comando));
+            } catch (RuntimeException e) {
+                enVuelo.remove(peticion);
+                return CompletableFuture.completedFuture(Respuesta.error(comando, "Nodo desconectado"));
+            }
+            return respuesta.completeOnTimeout(Respuesta.error(comando, "Sin respuesta del nodo"),
+                    PLAZO_RESPUESTA_MS, TimeUnit.MILLISECONDS)
+                    .whenComplete((r, e) -> enVuelo.remove(peticion));
+        }
+        
+        @Override
+        public void onOpen(ServerHandshake handshake) {
+        }
+        
+        @Override
+        public void onMessage(String mensaje) {
+            Respuesta respuesta;
+            try {
+                respuesta = gson.fromJson(mensaje, Respuesta.class);
+            } catch (JsonParseException e) {
+                return;
+            }
+            CompletableFuture<Respuesta> pendiente = respuesta != null ? enVuelo.remove(respuesta.getPeticion()) : null;
+            if (pendiente != null) {
+                ejecutor.execute(() -> pendiente.complete(respuesta));
+            }
+        }
+        
+        @Override
+        public void onClose(int codigo, String motivo, boolean remoto) {
+            for (Long peticion : enVuelo.keySet()) {
+                CompletableFuture<Respuesta> pendiente = enVuelo.remove(peticion);
+                if (pendiente != null) {
+                    Comando comando = new Comando();
+                    comando.setPeticion(peticion);
+                    ejecutor.execute(() -> pendiente.complete(Respuesta.error(comando, "Nodo desconectado")));
+                }
+            }
+        }
+        
+        @Override
+        public void onError(Exception ex) {
+            System.err.println("[ENRUTADOR] Error en la conexion con " + getURI() + ": " + ex.getMessage());
+        }
+    }
+    
+    /**
+     * Resultado de un reparto tras entrar o salir un nodo
+     */
+    public static final class Reparto {
+        final int partidas;
+        final int movidas;
+        final int fallidas;
+        final long nanosListado;
+        final long nanos;
+        final long congelacionP50;
+        final long congelacionP99;
+        final long congelacionMaxima;
+        
+        Reparto(int partidas, int movidas, int fallidas, long nanosListado, long nanos,
+                long congelacionP50, long congelacionP99, long congelacionMaxima) {
+            this.partidas = partidas;
+            this.movidas = movidas;
+            this.fallidas = fallidas;
+            this.nanosListado = nanosListado;
+            this.nanos = nanos;
+            this.congelacionP50 = congelacionP50;
+            this.congelacionP99 = congelacionP99;
+            this.congelacionMaxima = congelacionMaxima;
+        }
+        
+        public int getPartidas() { return partidas; }
+        public int getMovidas() { return movidas; }
+        public int getFallidas() { return fallidas; }
+        public long getNanos() { return nanos; }
+    }
+}
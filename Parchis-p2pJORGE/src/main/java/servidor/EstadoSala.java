@@ -0,0 +1,234 @@
+/**
+ * Estado de una sala congelada para llevarla a otro nodo
+ * Guarda lo que no se puede reproducir: jugadores, las palabras del estado
+ * (EstadoPartida.volcar) y la tirada a medias (dado, premio y ultima ficha
+ * movida). Los plazos vencidos seguidos no viajan, en el destino empiezan de 0
+ * 
+ * Formato (big endian): magia i32, version u8, idPartida i32, iniciada u8,
+ * jugadores u8 y por cada uno id i32, nombre y color (u16 de longitud,
+ * 0xFFFF si es null, y UTF-8), palabras i64 x PALABRAS, valorDado u8,
+ * premioPendiente u8, ultimaMovida i8 (slot o -1)
+ */
+package servidor;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import modelo.EstadoPartida;
+import modelo.Ficha;
+import modelo.GestorTurno;
+import modelo.Jugador;
+import modelo.Partida;
+import persistencia.DiarioMovimientos;
+
+final class EstadoSala {
+    static final int MAGIA = 0x50534D31;
+    static final int VERSION = 1;
+    private static final int SIN_TEXTO = 0xFFFF;
+    
+    private final int idPartida;
+    private final int[] ids;
+    private final String[] nombres;
+    private final String[] colores;
+    private final boolean iniciada;
+    private final long[] palabras;
+    private final int valorDado;
+    private final int premioPendiente;
+    private final int ultimaMovida;
+    
+    private EstadoSala(int idPartida, int jugadores, boolean iniciada, int valorDado, int premioPendiente,
+                       int ultimaMovida) {
+        this.idPartida = idPartida;
+        this.ids = new int[jugadores];
+        this.nombres = new String[jugadores];
+        this.colores = new String[jugadores];
+        this.iniciada = iniciada;
+        this.palabras = new long[EstadoPartida.PALABRAS];
+        this.valorDado = valorDado;
+        this.premioPendiente = premioPendiente;
+        this.ultimaMovida = ultimaMovida;
+    }
+    
+    /**
+     * Foto de la sala, solo desde el consumidor de su buzon
+     * @param turno Gestor del turno, null si la partida no ha empezado
+     */
+    static EstadoSala tomar(Partida partida, GestorTurno turno) {
+        List<Jugador> jugadores = partida.getJugadores();
+        Ficha ultima = turno != null ? turno.getUltimaMovida() : null;
+        EstadoSala estado = new EstadoSala(partida.getIdPartida(), jugadores.size(), turno != null,
+                turno != null ? turno.getValorDado() : 0, turno != null ? turno.getPremioPendiente() : 0,
+                ultima != null ? ultima.getSlot() : -1);
+        for (int i = 0; i < jugadores.size(); i++) {
+            Jugador jugador = jugadores.get(i);
+            estado.ids[i] = jugador.getIdJugador();
+            estado.nombres[i] = jugador.getNombre();
+            estado.colores[i] = jugador.getColor();
+        }
+        partida.getEstado().volcar(estado.palabras, 0);
+        return estado;
+    }
+    
+    byte[] codificar() {
+        byte[][] textos = new byte[ids.length * 2][];
+        int tamano = 4 + 1 + 4 + 1 + 1 + EstadoPartida.PALABRAS * 8 + 3;
+        for (int i = 0; i < ids.length; i++) {
+            textos[i * 2] = bytes(nombres[i]);
+            textos[i * 2 + 1] = bytes(colores[i]);
+            tamano += 4 + 2 + longitud(textos[i * 2]) + 2 + longitud(textos[i * 2 + 1]);
+        }
+        
+        ByteBuffer b = ByteBuffer.allocate(tamano);
+        b.putInt(MAGIA).put((byte) VERSION).putInt(idPartida).put((byte) (iniciada ? 1 : 0)).put((byte) ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            b.putInt(ids[i]);
+            escribirTexto(b, textos[i * 2]);
+            escribirTexto(b, textos[i * 2 + 1]);
+        }
+        for (long palabra : palabras) {
+            b.putLong(palabra);
+        }
+        b.put((byte) valorDado).put((byte) premioPendiente).put((byte) ultimaMovida);
+        return b.array();
+    }
+    
+    /**
+     * Lee lo escrito por codificar
+     * @throws IllegalArgumentException Si los datos no son de una sala exportada
+     */
+    static EstadoSala decodificar(byte[] datos) {
+        try {
+            ByteBuffer b = ByteBuffer.wrap(datos);
+            if (b.getInt() != MAGIA || b.get() != VERSION) {
+                throw new IllegalArgumentException("No es una sala exportada");
+            }
+            int idPartida = b.getInt();
+            boolean iniciada = b.get() != 0;
+            int jugadores = b.get();
+            if (jugadores < 0 || jugadores > EstadoPartida.MAX_JUGADORES) {
+                throw new IllegalArgumentException("Numero de jugadores no valido: " + jugadores);
+            }
+            int[] ids = new int[jugadores];
+            String[] nombres = new String[jugadores];
+            String[] colores = new String[jugadores];
+            for (int i = 0; i < jugadores; i++) {
+                ids[i] = b.getInt();
+                nombres[i] = leerTexto(b);
+                colores[i] = leerTexto(b);
+            }
+            long[] palabras = new long[EstadoPartida.PALABRAS];
+            for (int i = 0; i < palabras.length; i++) {
+                palabras[i] = b.getLong();
+            }
+            EstadoSala estado = new EstadoSala(idPartida, jugadores, iniciada, b.get(), b.get(), b.get());
+            System.arraycopy(ids, 0, estado.ids, 0, jugadores);
+            System.arraycopy(nombres, 0, estado.nombres, 0, jugadores);
+            System.arraycopy(colores, 0, estado.colores, 0, jugadores);
+            System.arraycopy(palabras, 0, estado.palabras, 0, palabras.length);
+            return estado;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Sala exportada incompleta");
+        }
+    }
+    
+    /**
+     * Monta la partida en el nodo de destino, como PartidaRecuperada pero sin reproducir nada
+     * @param partida Partida vacia (del pool) con el mismo id
+     * @return Gestor del turno, null si la partida no habia empezado
+     */
+    GestorTurno reconstruir(Partida partida) {
+        for (int i = 0; i < ids.length; i++) {
+            partida.agregarJugador(ids[i], nombres[i], colores[i]);
+        }
+        if (!iniciada) {
+            return null;
+        }
+        partida.iniciarPartida();
+        partida.getEstado().cargar(palabras, 0);
+        partida.sincronizarVistas();
+        GestorTurno turno = new GestorTurno(partida);
+        turno.restaurar(valorDado, premioPendiente, ultimaMovida >= 0 ? ficha(partida, ultimaMovida) : null);
+        return turno;
+    }
+    
+    /**
+     * Anota la partida recibida en el diario del destino para que se recupere si cae
+     * Un snapshot solo vale entre tiradas: con dado pendiente se anota el estado
+     * de antes de tirar y la tirada. Un premio pendiente no se puede reproducir:
+     * la sala no anota su movimiento y al cerrar la tirada anota otro snapshot;
+     * si el nodo cae antes, el premio se pierde
+     * @param partida Partida ya reconstruida
+     * @return false si queda un premio sin anotar
+     */
+    boolean anotar(DiarioMovimientos diario, Partida partida) {
+        for (int i = 0; i < ids.length; i++) {
+            diario.registrarJugador(idPartida, ids[i], nombres[i], colores[i]);
+        }
+        if (!iniciada) {
+            return true;
+        }
+        diario.registrarInicio(idPartida);
+        if (partida.isTerminada()) {
+            diario.registrarFin(idPartida);
+            return true;
+        }
+        EstadoPartida estado = partida.getEstado();
+        boolean tirada = valorDado != 0 && premioPendiente == 0;
+        int seises = estado.getContadorSeis();
+        if (tirada && valorDado == 6) {
+            // Al reproducir la tirada se vuelve a sumar
+            estado.setContadorSeis(seises - 1);
+        }
+        diario.registrarSnapshot(idPartida, estado, ultimaMovida);
+        estado.setContadorSeis(seises);
+        if (tirada) {
+            diario.registrarTirada(idPartida, valorDado);
+        }
+        return premioPendiente == 0;
+    }
+    
+    private static Ficha ficha(Partida partida, int slot) {
+        return partida.getJugadores().get(slot / EstadoPartida.FICHAS_POR_JUGADOR)
+                .getFichas().get(slot % EstadoPartida.FICHAS_POR_JUGADOR);
+    }
+    
+    private static byte[] bytes(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= SIN_TEXTO) {
+            throw new IllegalStateException("Texto demasiado largo para exportar la sala");
+        }
+        return bytes;
+    }
+    
+    private static int longitud(byte[] texto) {
+        return texto != null ? texto.length : 0;
+    }
+    
+    private static void escribirTexto(ByteBuffer b, byte[] texto) {
+        if (texto == null) {
+            b.putChar((char) SIN_TEXTO);
+            return;
+        }
+        b.putChar((char) texto.length);
+        b.put(texto);
+    }
+    
+    private static String leerTexto(ByteBuffer b) {
+        int longitud = b.getChar();
+        if (longitud == SIN_TEXTO) {
+            return null;
+        }
+        byte[] texto = new byte[longitud];
+        b.get(texto);
+        return new String(texto, StandardCharsets.UTF_8);
+    }
+    
+    int getIdPartida() { return idPartida; }
+    boolean isIniciada() { return iniciada; }
+    int getValorDado() { return valorDado; }
+    int getPremioPendiente() { return premioPendiente; }
+}
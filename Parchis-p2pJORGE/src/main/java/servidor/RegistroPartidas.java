@@ -0,0 +1,221 @@
+/**
+ * Registro de todas las partidas alojadas en este proceso
+ * Crea, busca y cierra salas por idPartida y enruta los comandos a su sala
+ * Todas las salas comparten una rueda de temporizadores para los plazos de turno
+ * Con varios nodos, PARTIDAS e IMPORTAR son la parte del nodo en las
+ * migraciones de EnrutadorNodos (EXPORTAR y REANUDAR van a la sala)
+ */
+package servidor;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import modelo.GestorTurno;
+import modelo.Partida;
+import modelo.PoolPartidas;
+import persistencia.DiarioMovimientos;
+import persistencia.PartidaRecuperada;
+import persistencia.RecuperacionDiario;
+
+public class RegistroPartidas implements AutoCloseable {
+    private final ConcurrentHashMap<Integer, SalaPartida> salas;
+    private final ExecutorService ejecutor;
+    private final DiarioMovimientos diario;
+    // Las salas cerradas devuelven aqui su partida para la siguiente
+    private final PoolPartidas pool;
+    private final DifusionEspectadores difusion;
+    private final RuedaTemporizadores rueda;
+    private final long plazoTurno;
+    
+    /**
+     * Constructor del registro
+     * Las salas se ejecutan en hilos virtuales, un hilo por lote de comandos
+     */
+    public RegistroPartidas() {
+        this(null);
+    }
+    
+    /**
+     * Constructor del registro con diario de movimientos
+     * @param diario Diario compartido por todas las salas, null para no anotar
+     */
+    public RegistroPartidas(DiarioMovimientos diario) {
+        this(diario, SalaPartida.PLAZO_TURNO_POR_DEFECTO);
+    }
+    
+    /**
+     * Constructor del registro con plazo de turno
+     * @param diario Diario compartido por todas las salas, null para no anotar
+     * @param plazoTurno Nanosegundos por tirada o movimiento antes de jugar por el jugador, 0 sin plazos
+     */
+    public RegistroPartidas(DiarioMovimientos diario, long plazoTurno) {
+        this.salas = new ConcurrentHashMap<>();
+        this.ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.diario = diario;
+        this.pool = new PoolPartidas();
+        this.difusion = new DifusionEspectadores(ejecutor);
+        this.plazoTurno = plazoTurno;
+        this.rueda = plazoTurno > 0 ? RuedaTemporizadores.iniciar(RuedaTemporizadores.NANOS_POR_TICK_POR_DEFECTO) : null;
+    }
+    
+    /**
+     * Reconstruye desde el diario las partidas que no habian terminado
+     * Debe llamarse al arrancar, antes de aceptar comandos
+     * @return Numero de salas recuperadas
+     */
+    public int recuperar() {
+        if (diario == null) {
+            return 0;
+        }
+        int recuperadas = 0;
+        Map<Integer, PartidaRecuperada> partidas = RecuperacionDiario.leer(diario);
+        for (PartidaRecuperada datos : partidas.values()) {
+            if (datos.isTerminada() || salas.containsKey(datos.getIdPartida())) {
+                continue;
+            }
+            Partida partida = new Partida(datos.getIdPartida());
+            GestorTurno turno = datos.reconstruir(partida);
+            salas.put(datos.getIdPartida(), new SalaPartida(partida, turno, ejecutor, diario, pool, difusion, rueda, plazoTurno));
+            recuperadas++;
+        }
+        return recuperadas;
+    }
+    
+    /**
+     * Crea una sala nueva
+     * @param idPartida Identificador de la partida
+     * @return La sala creada, o null si el id ya existe
+     */
+    public SalaPartida crear(int idPartida) {
+        if (salas.containsKey(idPartida)) {
+            return null;
+        }
+        // Dentro del computeIfAbsent: una sala de sobra al cerrar anotaria FIN de una partida viva
+        SalaPartida[] creada = new SalaPartida[1];
+        salas.computeIfAbsent(idPartida, id -> creada[0] = new SalaPartida(pool.obtener(id), null, ejecutor,
+                diario, pool, difusion, rueda, plazoTurno));
+        return creada[0];
+    }
+    
+    /**
+     * Aloja una partida exportada por otro nodo y la anota en el diario
+     * @param datos EstadoSala codificado
+     * @return La sala creada, o null si el id ya existe
+     * @throws IllegalArgumentException Si los datos no son de una sala exportada con ese id
+     */
+    public SalaPartida importar(int idPartida, byte[] datos) {
+        EstadoSala estado = EstadoSala.decodificar(datos);
+        if (estado.getIdPartida() != idPartida) {
+            throw new IllegalArgumentException("La sala exportada es de la partida " + estado.getIdPartida());
+        }
+        // Dentro del computeIfAbsent para que nadie anote en el diario con el mismo id a la vez
+        SalaPartida[] creada = new SalaPartida[1];
+        salas.computeIfAbsent(idPartida, id -> {
+            Partida partida = pool.obtener(id);
+            GestorTurno turno = estado.reconstruir(partida);
+            boolean anotada = diario == null || estado.anotar(diario, partida);
+            creada[0] = new SalaPartida(partida, turno, ejecutor, diario, pool, difusion, rueda, plazoTurno);
+            if (!anotada) {
+                creada[0].anotarPremioConSnapshot();
+            }
+            return creada[0];
+        });
+        return creada[0];
+    }
+    
+    /**
+     * Ids de las partidas alojadas, sin orden
+     */
+    public int[] getIdsPartidas() {
+        return salas.keySet().stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    public SalaPartida buscar(int idPartida) {
+        return salas.get(idPartida);
+    }
+    
+    /**
+     * Cierra una sala y la quita del registro
+     * La sala termina los comandos que ya tenia, anota el fin en el diario
+     * detras de ellos y devuelve su partida al pool. Sale del registro cuando
+     * se ha cerrado: hasta entonces el id no se puede volver a crear, asi nada
+     * de otra partida con ese id queda en el diario antes del fin
+     * @param comando Comando CERRAR
+     * @return Respuesta de la sala, error si no existia
+     */
+    public CompletableFuture<Respuesta> cerrar(Comando comando) {
+        int idPartida = comando.getIdPartida();
+        SalaPartida sala = salas.get(idPartida);
+        if (sala == null) {
+            return CompletableFuture.completedFuture(Respuesta.error(comando, "Partida no encontrada"));
+        }
+        return sala.enviar(comando).thenApply(respuesta -> {
+            if (sala.isCerrada()) {
+                salas.remove(idPartida, sala);
+            }
+            return respuesta;
+        });
+    }
+    
+    /**
+     * Enruta un comando a la sala de su partida
+     * CREAR y CERRAR los resuelve el propio registro
+     * @param comando Comando recibido
+     * @return Respuesta del comando
+     */
+    public CompletableFuture<Respuesta> enrutar(Comando comando) {
+        if (comando.getTipo() == null) {
+            return CompletableFuture.completedFuture(Respuesta.error(comando, "Comando sin tipo"));
+        }
+        switch (comando.getTipo()) {
+            case CREAR:
+                return CompletableFuture.completedFuture(crear(comando.getIdPartida()) != null
+                        ? Respuesta.ok(comando)
+                        : Respuesta.error(comando, "La partida ya existe"));
+            case CERRAR:
+                return cerrar(comando);
+            case IMPORTAR:
+                return CompletableFuture.completedFuture(importar(comando));
+            case PARTIDAS:
+                Respuesta respuesta = Respuesta.ok(comando);
+                respuesta.setPartidas(getIdsPartidas());
+                return CompletableFuture.completedFuture(respuesta);
+            default:
+                SalaPartida sala = salas.get(comando.getIdPartida());
+                if (sala == null) {
+                    return CompletableFuture.completedFuture(Respuesta.error(comando, "Partida no encontrada"));
+                }
+                return sala.enviar(comando);
+        }
+    }
+    
+    private Respuesta importar(Comando comando) {
+        if (comando.getDatos() == null) {
+            return Respuesta.error(comando, "Faltan los datos de la sala");
+        }
+        try {
+            return importar(comando.getIdPartida(), Base64.getDecoder().decode(comando.getDatos())) != null
+                    ? Respuesta.ok(comando)
+                    : Respuesta.error(comando, "La partida ya existe");
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return Respuesta.error(comando, e.getMessage());
+        }
+    }
+    
+    public int getNumPartidas() { return salas.size(); }
+    public DiarioMovimientos getDiario() { return diario; }
+    public PoolPartidas getPool() { return pool; }
+    public DifusionEspectadores getDifusion() { return difusion; }
+    public RuedaTemporizadores getRueda() { return rueda; }
+    
+    @Override
+    public void close() {
+        if (rueda != null) {
+            rueda.close();
+        }
+        ejecutor.shutdown();
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Resultado de un comando, se devuelve como JSON al jugador
+ */
+package servidor;
+
+public class Respuesta {
+    private boolean ok;
+    private String mensaje;
+    private TipoComando tipo;
+    private int idPartida;
+    private int valorDado;
+    private int premio;
+    private int premioPendiente;
+    private int turno;
+    private boolean terminada;
+    private int ganador;
+    private int[] movibles;
+    private long peticion;
+    // EXPORTAR: estado de la partida congelada; PARTIDAS: ids alojados en el nodo
+    private String datos;
+    private int[] partidas;
+    
+    private Respuesta(boolean ok, String mensaje, Comando comando) {
+        this.ok = ok;
+        this.mensaje = mensaje;
+        this.tipo = comando.getTipo();
+        this.idPartida = comando.getIdPartida();
+        this.peticion = comando.getPeticion();
+    }
+    
+    public static Respuesta ok(Comando comando) {
+        return new Respuesta(true, null, comando);
+    }
+    
+    public static Respuesta error(Comando comando, String mensaje) {
+        return new Respuesta(false, mensaje, comando);
+    }
+    
+    /**
+     * Completa la respuesta con el estado del turno tras el comando
+     * @param valorDado Valor lanzado o 0
+     * @param premio Premio obtenido o 0
+     * @param premioPendiente Premio por usar o 0
+     * @param turno Id del jugador con el turno o 0
+     * @param terminada Si la partida ya tiene ganador
+     * @param ganador Id del ganador, solo vale con terminada
+     */
+    public Respuesta conEstado(int valorDado, int premio, int premioPendiente, int turno,
+                               boolean terminada, int ganador) {
+        this.valorDado = valorDado;
+        this.premio = premio;
+        this.premioPendiente = premioPendiente;
+        this.turno = turno;
+        this.terminada = terminada;
+        this.ganador = ganador;
+        return this;
+    }
+    
+    public boolean isOk() { return ok; }
+    public String getMensaje() { return mensaje; }
+    public TipoComando getTipo() { return tipo; }
+    public int getIdPartida() { return idPartida; }
+    public int getValorDado() { return valorDado; }
+    public int getPremio() { return premio; }
+    public int getPremioPendiente() { return premioPendiente; }
+    public int getTurno() { return turno; }
+    public boolean isTerminada() { return terminada; }
+    public int getGanador() { return ganador; }
+    public int[] getMovibles() { return movibles; }
+    public void setMovibles(int[] movibles) { this.movibles = movibles; }
+    public long getPeticion() { return peticion; }
+    public String getDatos() { return datos; }
+    public void setDatos(String datos) { this.datos = datos; }
+    public int[] getPartidas() { return partidas; }
+    public void setPartidas(int[] partidas) { this.partidas = partidas; }
+}
@@ -0,0 +1,312 @@
+/**
+ * Rueda jerarquica de temporizadores para los plazos de turno de todas las salas
+ * 4 niveles de 64 ranuras: el nivel 0 cubre 64 ticks, el 1 64*64, etc. Cada
+ * plazo se cuelga de una lista doble en su ranura y, al llegar la vuelta de
+ * su nivel, baja al nivel de abajo hasta vencer en el 0
+ * 
+ * Solo el hilo de la rueda toca las ranuras: armar y cancelar dejan el
+ * temporizador en un BuzonMpsc y el hilo los engancha o desengancha en O(1)
+ * en el siguiente tick. Cancelar es un compareAndSet, asi un plazo cancelado
+ * a la vez que vence se entrega o se cancela, nunca las dos cosas
+ * Los vencidos de cada avance se entregan juntos, al final del avance
+ */
+package servidor;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public class RuedaTemporizadores implements AutoCloseable {
+    public static final long NANOS_POR_TICK_POR_DEFECTO = TimeUnit.MILLISECONDS.toNanos(10);
+    
+    private static final int NIVELES = 4;
+    private static final int BITS_POR_NIVEL = 6;
+    private static final int RANURAS = 1 << BITS_POR_NIVEL;
+    private static final int MASCARA_RANURA = RANURAS - 1;
+    // Mas alla de 64^4 ticks el plazo se queda en el ultimo nivel y da otra vuelta
+    private static final long TICKS_MAXIMOS = 1L << (NIVELES * BITS_POR_NIVEL);
+    
+    private static final int ARMADO = 0;
+    private static final int VENCIDO = 1;
+    private static final int CANCELADO = 2;
+    
+    private final long nanosPorTick;
+    private final long origen;
+    // Cabeza de la lista de cada ranura, nivel * RANURAS + ranura
+    private final Temporizador[] ranuras;
+    private final BuzonMpsc<Temporizador> altas;
+    private final BuzonMpsc<Temporizador> bajas;
+    // Siguiente tick por procesar
+    private long tick;
+    private Temporizador[] lote;
+    private int enLote;
+    private int armados;
+    private long vencidos;
+    private volatile boolean activa;
+    private Thread hilo;
+    
+    /**
+     * Constructor de la rueda, sin hilo: hay que llamar a avanzar
+     * @param nanosPorTick Resolucion de los plazos
+     * @param origen Instante (System.nanoTime) del tick 0
+     */
+    public RuedaTemporizadores(long nanosPorTick, long origen) {
+        if (nanosPorTick <= 0) {
+            throw new IllegalArgumentException("Tick no valido: " + nanosPorTick);
+        }
+        this.nanosPorTick = nanosPorTick;
+        this.origen = origen;
+        this.ranuras = new Temporizador[NIVELES * RANURAS];
+        this.altas = new BuzonMpsc<>();
+        this.bajas = new BuzonMpsc<>();
+        this.lote = new Temporizador[64];
+    }
+    
+    /**
+     * Crea una rueda con su propio hilo, que avanza un tick cada nanosPorTick
+     */
+    public static RuedaTemporizadores iniciar(long nanosPorTick) {
+        RuedaTemporizadores rueda = new RuedaTemporizadores(nanosPorTick, System.nanoTime());
+        rueda.activa = true;
+        rueda.hilo = new Thread(rueda::avanzarSiempre, "rueda-temporizadores");
+        rueda.hilo.setDaemon(true);
+        rueda.hilo.start();
+        return rueda;
+    }
+    
+    private void avanzarSiempre() {
+        while (activa) {
+            long ahora = System.nanoTime();
+            avanzar(ahora);
+            long siguiente = origen + tick * nanosPorTick;
+            if (siguiente > ahora) {
+                LockSupport.parkNanos(siguiente - ahora);
+            }
+        }
+    }
+    
+    /**
+     * Arma un plazo, se puede llamar desde cualquier hilo
+     * @param plazoNanos Tiempo hasta que vence, desde ahora
+     * @param destino Quien recibe el vencimiento (desde el hilo de la rueda)
+     * @param dato Valor libre para el destino, p. ej. el numero de accion esperado
+     * @return Temporizador armado, para cancelarlo
+     */
+    public Temporizador armar(long plazoNanos, Destino destino, long dato) {
+        return armar(System.nanoTime(), plazoNanos, destino, dato);
+    }
+    
+    /**
+     * Igual que armar pero con el instante actual dado (rueda sin hilo, pruebas)
+     */
+    public Temporizador armar(long ahora, long plazoNanos, Destino destino, long dato) {
+        long transcurrido = ahora + Math.max(0, plazoNanos) - origen;
+        // Redondeo hacia arriba: nunca vence antes de tiempo
+        long vence = transcurrido <= 0 ? 0 : (transcurrido + nanosPorTick - 1) / nanosPorTick;
+        Temporizador temporizador = new Temporizador(this, destino, dato, vence);
+        altas.reservar();
+        altas.poner(temporizador);
+        return temporizador;
+    }
+    
+    /**
+     * Procesa los ticks hasta el instante dado y entrega los vencidos
+     * Solo desde un hilo a la vez (el de la rueda si se creo con iniciar)
+     * @param ahora Instante actual (System.nanoTime)
+     * @return Temporizadores vencidos en este avance
+     */
+    public int avanzar(long ahora) {
+        engancharAltas();
+        desengancharBajas();
+        long hasta = (ahora - origen) / nanosPorTick;
+        for (; tick <= hasta; tick++) {
+            procesarTick();
+        }
+        return entregarLote();
+    }
+    
+    private void engancharAltas() {
+        Temporizador temporizador;
+        int sacados = 0;
+        while ((temporizador = altas.sacar()) != null) {
+            sacados++;
+            if (temporizador.estado.get() == ARMADO) {
+                insertar(temporizador);
+                armados++;
+            }
+        }
+        altas.liberar(sacados);
+    }
+    
+    private void desengancharBajas() {
+        Temporizador temporizador;
+        int sacados = 0;
+        while ((temporizador = bajas.sacar()) != null) {
+            sacados++;
+            if (temporizador.ranura >= 0) {
+                quitar(temporizador);
+                armados--;
+            }
+        }
+        bajas.liberar(sacados);
+    }
+    
+    /**
+     * Baja los niveles que dan la vuelta en este tick y vacia la ranura del nivel 0
+     */
+    private void procesarTick() {
+        for (int nivel = 1; nivel < NIVELES; nivel++) {
+            int desplazamiento = nivel * BITS_POR_NIVEL;
+            if ((tick & ((1L << desplazamiento) - 1)) != 0) {
+                break;
+            }
+            int indice = nivel * RANURAS + (int) ((tick >>> desplazamiento) & MASCARA_RANURA);
+            Temporizador temporizador = vaciar(indice);
+            while (temporizador != null) {
+                Temporizador siguiente = temporizador.siguiente;
+                temporizador.siguiente = null;
+                insertar(temporizador);
+                temporizador = siguiente;
+            }
+        }
+        
+        Temporizador temporizador = vaciar((int) (tick & MASCARA_RANURA));
+        while (temporizador != null) {
+            Temporizador siguiente = temporizador.siguiente;
+            temporizador.siguiente = null;
+            armados--;
+            if (enLote == lote.length) {
+                lote = Arrays.copyOf(lote, lote.length * 2);
+            }
+            lote[enLote++] = temporizador;
+            temporizador = siguiente;
+        }
+    }
+    
+    private int entregarLote() {
+        int entregados = 0;
+        for (int i = 0; i < enLote; i++) {
+            Temporizador temporizador = lote[i];
+            lote[i] = null;
+            // Si lo cancelaron mientras tanto no se entrega
+            if (temporizador.estado.compareAndSet(ARMADO, VENCIDO)) {
+                temporizador.destino.vencido(temporizador);
+                entregados++;
+            }
+        }
+        enLote = 0;
+        vencidos += entregados;
+        return entregados;
+    }
+    
+    /**
+     * Cuelga el temporizador en el nivel que le toca segun los ticks que le quedan
+     */
+    private void insertar(Temporizador temporizador) {
+        long restantes = Math.min(Math.max(0, temporizador.vence - tick), TICKS_MAXIMOS - 1);
+        int nivel = restantes == 0 ? 0 : (63 - Long.numberOfLeadingZeros(restantes)) / BITS_POR_NIVEL;
+        // Ya vencido: a la ranura del tick actual; demasiado lejos: a la ultima y otra vuelta
+        long referencia = tick + restantes;
+        int indice = nivel * RANURAS + (int) ((referencia >>> (nivel * BITS_POR_NIVEL)) & MASCARA_RANURA);
+        Temporizador cabeza = ranuras[indice];
+        temporizador.anterior = null;
+        temporizador.siguiente = cabeza;
+        if (cabeza != null) {
+            cabeza.anterior = temporizador;
+        }
+        ranuras[indice] = temporizador;
+        temporizador.ranura = indice;
+    }
+    
+    private void quitar(Temporizador temporizador) {
+        if (temporizador.anterior != null) {
+            temporizador.anterior.siguiente = temporizador.siguiente;
+        } else {
+            ranuras[temporizador.ranura] = temporizador.siguiente;
+        }
+        if (temporizador.siguiente != null) {
+            temporizador.siguiente.anterior = temporizador.anterior;
+        }
+        temporizador.anterior = null;
+        temporizador.siguiente = null;
+        temporizador.ranura = -1;
+    }
+    
+    /**
+     * Separa la lista de una ranura; los temporizadores quedan fuera de la rueda
+     */
+    private Temporizador vaciar(int indice) {
+        Temporizador cabeza = ranuras[indice];
+        ranuras[indice] = null;
+        for (Temporizador t = cabeza; t != null; t = t.siguiente) {
+            t.anterior = null;
+            t.ranura = -1;
+        }
+        return cabeza;
+    }
+    
+    @Override
+    public void close() {
+        activa = false;
+        if (hilo != null) {
+            LockSupport.unpark(hilo);
+        }
+    }
+    
+    public long getNanosPorTick() { return nanosPorTick; }
+    public long getTick() { return tick; }
+    public int getArmados() { return armados; }
+    public long getVencidos() { return vencidos; }
+    
+    /**
+     * Recibe los plazos vencidos, siempre desde el hilo de la rueda
+     * Debe volver enseguida (p. ej. encolar un comando en su sala)
+     */
+    public interface Destino {
+        void vencido(Temporizador temporizador);
+    }
+    
+    /**
+     * Plazo armado en la rueda
+     */
+    public static final class Temporizador {
+        private final RuedaTemporizadores rueda;
+        private final Destino destino;
+        private final long dato;
+        private final long vence;
+        private final AtomicInteger estado;
+        // Solo los toca el hilo de la rueda
+        private Temporizador anterior;
+        private Temporizador siguiente;
+        private int ranura;
+        
+        Temporizador(RuedaTemporizadores rueda, Destino destino, long dato, long vence) {
+            this.rueda = rueda;
+            this.destino = destino;
+            this.dato = dato;
+            this.vence = vence;
+            this.estado = new AtomicInteger(ARMADO);
+            this.ranura = -1;
+        }
+        
+        /**
+         * Cancela el plazo, se puede llamar desde cualquier hilo
+         * @return true si estaba armado; false si ya vencio o ya estaba cancelado
+         */
+        public boolean cancelar() {
+            if (!estado.compareAndSet(ARMADO, CANCELADO)) {
+                return false;
+            }
+            rueda.bajas.reservar();
+            rueda.bajas.poner(this);
+            return true;
+        }
+        
+        public long getDato() { return dato; }
+        public long getTickVencimiento() { return vence; }
+        public boolean isArmado() { return estado.get() == ARMADO; }
+        public boolean isVencido() { return estado.get() == VENCIDO; }
+        public boolean isCancelado() { return estado.get() == CANCELADO; }
+    }
+}
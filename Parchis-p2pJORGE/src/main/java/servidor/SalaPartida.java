@@ -0,0 +1,524 @@
+/**
+ * Sala que aloja una partida en el servidor
+ * Funciona como un actor: los comandos se encolan en un buzon sin bloqueos
+ * y un solo consumidor a la vez los aplica en orden en el ejecutor compartido
+ * Solo ese consumidor toca la partida, asi no hacen falta cerrojos dentro de
+ * ella y una sala lenta no bloquea a las demas
+ * Tras cada comando publica una InstantaneaPartida para los lectores de fuera
+ * y, si hay espectadores, la pasa a la difusion
+ * 
+ * Con rueda de temporizadores cada accion esperada (tirar o mover) tiene un
+ * plazo: si vence, la sala recibe TIEMPO_AGOTADO por su buzon y juega por el
+ * jugador (tira o mueve la primera ficha). Tras AUSENCIAS_PARA_ABANDONO plazos
+ * seguidos el asiento se da por abandonado y se juega con PLAZO_AUSENTE hasta
+ * que el jugador vuelva a mandar un comando
+ * 
+ * Para migrar la partida a otro nodo EXPORTAR la congela detras de los
+ * comandos ya encolados y devuelve su EstadoSala; congelada solo acepta
+ * CERRAR (ya vive en el destino) o REANUDAR (la migracion fallo) y los demas
+ * comandos reciben PARTIDA_MIGRADA para que el enrutador los reenvie
+ */
+package servidor;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import modelo.ColorFicha;
+import modelo.Ficha;
+import modelo.GestorTurno;
+import modelo.InstantaneaPartida;
+import modelo.Jugador;
+import modelo.Partida;
+import modelo.PoolPartidas;
+import persistencia.DiarioMovimientos;
+
+public class SalaPartida {
+    public static final int CAPACIDAD_COLA = 64;
+    // Comandos por pasada antes de ceder el hilo a otras salas
+    private static final int LOTE = 16;
+    // Tiradas entre dos snapshots en el diario
+    public static final int TIRADAS_POR_SNAPSHOT = 32;
+    public static final long PLAZO_TURNO_POR_DEFECTO = TimeUnit.SECONDS.toNanos(30);
+    public static final long PLAZO_AUSENTE = TimeUnit.SECONDS.toNanos(1);
+    public static final int AUSENCIAS_PARA_ABANDONO = 3;
+    public static final String PARTIDA_MIGRADA = "Partida migrada";
+    
+    private final Partida partida;
+    private final Executor ejecutor;
+    private final BuzonMpsc<Pendiente> buzon;
+    private final DiarioMovimientos diario;
+    private final PoolPartidas pool;
+    private final DifusionEspectadores difusion;
+    private final RuedaTemporizadores rueda;
+    private final long plazoTurno;
+    private final RuedaTemporizadores.Destino alVencer;
+    private GestorTurno turno;
+    // Plazo de la accion esperada; acciones cuenta tiradas y movimientos aplicados
+    private RuedaTemporizadores.Temporizador plazo;
+    private long acciones;
+    // Plazos vencidos seguidos por asiento
+    private final int[] ausencias;
+    private int tiradasSinSnapshot;
+    // Importada con un premio pendiente: su movimiento no se puede reproducir
+    // desde el snapshot del diario, en su lugar se anota otro al cerrar la tirada
+    private boolean premioSinAnotar;
+    private boolean cerrada;
+    private boolean congelada;
+    // Ultima foto publicada, la leen otros hilos sin cerrojos
+    private volatile InstantaneaPartida instantanea;
+    
+    /**
+     * Constructor de la sala
+     * @param idPartida Identificador de la partida alojada
+     * @param ejecutor Ejecutor compartido por todas las salas
+     */
+    public SalaPartida(int idPartida, Executor ejecutor) {
+        this(new Partida(idPartida), null, ejecutor, null, null);
+    }
+    
+    /**
+     * Constructor de la sala con diario
+     * @param idPartida Identificador de la partida alojada
+     * @param ejecutor Ejecutor compartido por todas las salas
+     * @param diario Diario donde se anotan los comandos aplicados, null para no anotar
+     */
+    public SalaPartida(int idPartida, Executor ejecutor, DiarioMovimientos diario) {
+        this(new Partida(idPartida), null, ejecutor, diario, null);
+    }
+    
+    /**
+     * Constructor sobre una partida ya creada (del pool o recuperada del diario)
+     * @param partida Partida vacia o reconstruida
+     * @param turno Gestor del turno reconstruido, null si no habia empezado
+     * @param pool Pool al que se devuelve la partida al cerrar, null para no reciclarla
+     */
+    public SalaPartida(Partida partida, GestorTurno turno, Executor ejecutor,
+                       DiarioMovimientos diario, PoolPartidas pool) {
+        this(partida, turno, ejecutor, diario, pool, null);
+    }
+    
+    /**
+     * Constructor sin plazos de turno
+     * @param difusion Difusion a espectadores, null si no se observa la partida
+     */
+    public SalaPartida(Partida partida, GestorTurno turno, Executor ejecutor,
+                       DiarioMovimientos diario, PoolPartidas pool, DifusionEspectadores difusion) {
+        this(partida, turno, ejecutor, diario, pool, difusion, null, 0);
+    }
+    
+    /**
+     * Constructor completo
+     * @param rueda Rueda compartida para los plazos de turno, null para no tener plazos
+     * @param plazoTurno Nanosegundos para cada tirada o movimiento
+     */
+    public SalaPartida(Partida partida, GestorTurno turno, Executor ejecutor, DiarioMovimientos diario,
+                       PoolPartidas pool, DifusionEspectadores difusion, RuedaTemporizadores rueda, long plazoTurno) {
+        this.partida = partida;
+        this.turno = turno;
+        this.ejecutor = ejecutor;
+        this.diario = diario;
+        this.pool = pool;
+        this.difusion = difusion;
+        this.rueda = rueda;
+        this.plazoTurno = plazoTurno;
+        this.alVencer = t -> enviar(Comando.tiempoAgotado(partida.getIdPartida(), t.getDato()));
+        this.ausencias = new int[4];
+        this.buzon = new BuzonMpsc<>();
+        this.instantanea = InstantaneaPartida.tomar(partida, turno, null);
+        // Una partida recuperada ya espera una accion
+        reprogramarPlazo();
+    }
+    
+    /**
+     * Encola un comando para esta partida, se puede llamar desde cualquier hilo
+     * Si el buzon esta lleno el comando se rechaza en lugar de esperar
+     * (el limite es aproximado con muchos productores a la vez)
+     * @param comando Comando del jugador
+     * @return Respuesta que se completa cuando el comando se ejecuta
+     */
+    public CompletableFuture<Respuesta> enviar(Comando comando) {
+        if (buzon.getPendientes() >= CAPACIDAD_COLA) {
+            return CompletableFuture.completedFuture(Respuesta.error(comando, "Sala saturada"));
+        }
+        Pendiente pendiente = new Pendiente(comando);
+        boolean programar = buzon.reservar();
+        buzon.poner(pendiente);
+        if (programar) {
+            ejecutor.execute(this::drenar);
+        }
+        return pendiente.respuesta;
+    }
+    
+    /**
+     * Ejecuta un lote de comandos y vuelve a programarse si quedan
+     * Un comando reservado pero aun sin enganchar corta el lote; se recoge en la siguiente pasada
+     * El lote se libera siempre, asi un fallo no deja la sala sin consumidor
+     */
+    private void drenar() {
+        Pendiente pendiente;
+        int procesados = 0;
+        try {
+            while (procesados < LOTE && (pendiente = buzon.sacar()) != null) {
+                procesados++;
+                atender(pendiente);
+            }
+        } finally {
+            if (buzon.liberar(procesados) > 0) {
+                if (procesados == 0) {
+                    Thread.yield();
+                }
+                ejecutor.execute(this::drenar);
+            }
+        }
+    }
+    
+    /**
+     * Ejecuta un comando y completa su respuesta pase lo que pase
+     * Los comandos se validan antes de tocar la partida, asi un fallo inesperado
+     * se contesta como error y la sala sigue con los demas comandos
+     * Un fallo al armar el plazo o publicar no cambia la respuesta: el cambio ya esta hecho
+     */
+    private void atender(Pendiente pendiente) {
+        Respuesta respuesta;
+        try {
+            respuesta = ejecutar(pendiente.comando);
+        } catch (RuntimeException e) {
+            registrarFallo(pendiente.comando, e);
+            respuesta = Respuesta.error(pendiente.comando, "Error interno");
+        }
+        try {
+            if (!cerrada) {
+                reprogramarPlazo();
+                publicar();
+            }
+        } catch (RuntimeException e) {
+            registrarFallo(pendiente.comando, e);
+        }
+        pendiente.respuesta.complete(respuesta);
+    }
+    
+    private void registrarFallo(Comando comando, RuntimeException e) {
+        System.err.println("[SALA] Partida " + partida.getIdPartida() + ", " + comando.getTipo() + ": " + e);
+    }
+    
+    /**
+     * Arma el plazo de la accion esperada y cancela el anterior si ya no vale
+     * Solo desde drenar (o el constructor)
+     */
+    private void reprogramarPlazo() {
+        if (rueda == null) {
+            return;
+        }
+        boolean esperando = !cerrada && !congelada && turno != null && !turno.isTerminada();
+        if (plazo != null && (!esperando || plazo.getDato() != acciones || !plazo.isArmado())) {
+            plazo.cancelar();
+            plazo = null;
+        }
+        if (esperando && plazo == null) {
+            boolean ausente = ausencias[partida.getEstado().getTurno()] >= AUSENCIAS_PARA_ABANDONO;
+            plazo = rueda.armar(ausente ? Math.min(PLAZO_AUSENTE, plazoTurno) : plazoTurno, alVencer, acciones);
+        }
+    }
+    
+    private void publicar() {
+        InstantaneaPartida anterior = instantanea;
+        InstantaneaPartida nueva = InstantaneaPartida.tomar(partida, turno, anterior);
+        if (nueva != anterior) {
+            instantanea = nueva;
+            if (difusion != null) {
+                difusion.publicar(nueva);
+            }
+        }
+    }
+    
+    /**
+     * Aplica un comando sobre la partida, solo se llama desde drenar
+     */
+    private Respuesta ejecutar(Comando comando) {
+        if (cerrada) {
+            return Respuesta.error(comando, "Partida cerrada");
+        }
+        if (congelada && comando.getTipo() != TipoComando.CERRAR && comando.getTipo() != TipoComando.REANUDAR) {
+            return Respuesta.error(comando, PARTIDA_MIGRADA);
+        }
+        try {
+            switch (comando.getTipo()) {
+                case CERRAR: return cerrar(comando);
+                case UNIRSE: return unirse(comando);
+                case SALIR: return salir(comando);
+                case INICIAR: return iniciar(comando);
+                case TIRAR: return tirar(comando);
+                case MOVER: return mover(comando);
+                case TIEMPO_AGOTADO: return tiempoAgotado(comando);
+                case EXPORTAR: return exportar(comando);
+                case REANUDAR: return reanudar(comando);
+                default: return Respuesta.error(comando, "Comando no valido para una sala");
+            }
+        } catch (IllegalStateException e) {
+            return Respuesta.error(comando, e.getMessage());
+        }
+    }
+    
+    private Respuesta unirse(Comando comando) {
+        if (comando.getJugadorId() == 0) {
+            return Respuesta.error(comando, "Falta el jugador");
+        }
+        if (comando.getNombre() == null || comando.getNombre().isBlank()) {
+            return Respuesta.error(comando, "Falta el nombre");
+        }
+        if (turno != null) {
+            return Respuesta.error(comando, "La partida ya empezo");
+        }
+        if (partida.getJugadores().size() >= 4) {
+            return Respuesta.error(comando, "Partida llena");
+        }
+        for (Jugador jugador : partida.getJugadores()) {
+            if (jugador.getIdJugador() == comando.getJugadorId()) {
+                return Respuesta.error(comando, "El jugador ya esta en la partida");
+            }
+        }
+        ColorFicha paleta = ColorFicha.desdeNombre(comando.getColor() != null ? comando.getColor() : colorLibre());
+        if (paleta == null) {
+            return Respuesta.error(comando, "Color no valido");
+        }
+        // Siempre con el nombre de la paleta, llegue como llegue
+        String color = paleta.getNombre();
+        if (partida.buscarJugadorPorColor(color) != null) {
+            return Respuesta.error(comando, "Color ocupado");
+        }
+        partida.agregarJugador(comando.getJugadorId(), comando.getNombre(), color);
+        if (diario != null) {
+            diario.registrarJugador(partida.getIdPartida(), comando.getJugadorId(), comando.getNombre(), color);
+        }
+        return conEstado(Respuesta.ok(comando), 0, 0);
+    }
+    
+    /**
+     * Primer color de la paleta que no tiene nadie (tras una salida los asientos se corren)
+     */
+    private String colorLibre() {
+        for (ColorFicha color : ColorFicha.values()) {
+            if (partida.buscarJugadorPorColor(color.getNombre()) == null) {
+                return color.getNombre();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Quita al jugador de la sala antes de empezar
+     * Los que quedan conservan su orden y sus colores
+     */
+    private Respuesta salir(Comando comando) {
+        if (turno != null) {
+            return Respuesta.error(comando, "La partida ya empezo");
+        }
+        if (!partida.quitarJugador(comando.getJugadorId())) {
+            return Respuesta.error(comando, "El jugador no esta en la partida");
+        }
+        if (diario != null) {
+            diario.registrarSalida(partida.getIdPartida(), comando.getJugadorId());
+        }
+        return conEstado(Respuesta.ok(comando), 0, 0);
+    }
+    
+    /**
+     * Cierra la sala y devuelve la partida al pool
+     * Se ejecuta en la cola, detras de los comandos ya aceptados, asi el fin
+     * queda en el diario despues de sus movimientos
+     */
+    private Respuesta cerrar(Comando comando) {
+        // Una partida ganada ya anoto su fin al cerrar la ultima tirada
+        if (diario != null && (turno == null || !turno.isTerminada())) {
+            diario.registrarFin(partida.getIdPartida());
+        }
+        cerrada = true;
+        turno = null;
+        reprogramarPlazo();
+        if (pool != null) {
+            pool.devolver(partida);
+        }
+        return Respuesta.ok(comando);
+    }
+    
+    /**
+     * Congela la sala y devuelve su estado en Base64 para alojarla en otro nodo
+     */
+    private Respuesta exportar(Comando comando) {
+        byte[] datos = EstadoSala.tomar(partida, turno).codificar();
+        congelada = true;
+        Respuesta respuesta = Respuesta.ok(comando);
+        respuesta.setDatos(Base64.getEncoder().encodeToString(datos));
+        return respuesta;
+    }
+    
+    /**
+     * Vuelve a jugar tras una migracion fallida, con plazo nuevo
+     */
+    private Respuesta reanudar(Comando comando) {
+        if (!congelada) {
+            return Respuesta.error(comando, "La partida no estaba congelada");
+        }
+        congelada = false;
+        return conEstado(Respuesta.ok(comando), 0, 0);
+    }
+    
+    private Respuesta iniciar(Comando comando) {
+        if (turno != null) {
+            return Respuesta.error(comando, "La partida ya empezo");
+        }
+        if (partida.getJugadores().size() < 2) {
+            return Respuesta.error(comando, "Se necesitan al menos 2 jugadores");
+        }
+        partida.iniciarPartida();
+        turno = new GestorTurno(partida);
+        if (diario != null) {
+            diario.registrarInicio(partida.getIdPartida());
+        }
+        return conEstado(Respuesta.ok(comando), 0, 0);
+    }
+    
+    private Respuesta tirar(Comando comando) {
+        Respuesta error = validarTurno(comando);
+        if (error != null) {
+            return error;
+        }
+        ausencias[partida.getEstado().getTurno()] = 0;
+        return conEstado(Respuesta.ok(comando), lanzar(), 0);
+    }
+    
+    private int lanzar() {
+        int valor = turno.tirarDado();
+        acciones++;
+        if (diario != null) {
+            diario.registrarTirada(partida.getIdPartida(), valor);
+            tiradasSinSnapshot++;
+            anotarCierreTirada();
+        }
+        return valor;
+    }
+    
+    private Respuesta mover(Comando comando) {
+        Respuesta error = validarTurno(comando);
+        if (error != null) {
+            return error;
+        }
+        Ficha ficha = partida.getTurnoActual().seleccionarFicha(comando.getFicha());
+        if (ficha == null || (turno.getMascaraDisponibles() & (1 << comando.getFicha())) == 0) {
+            return Respuesta.error(comando, "Esa ficha no se puede mover");
+        }
+        ausencias[partida.getEstado().getTurno()] = 0;
+        return conEstado(Respuesta.ok(comando), 0, moverFicha(ficha));
+    }
+    
+    private int moverFicha(Ficha ficha) {
+        int premio = turno.getPremioPendiente() > 0 ? turno.moverPremio(ficha) : turno.moverFicha(ficha);
+        acciones++;
+        if (diario != null) {
+            if (!premioSinAnotar) {
+                diario.registrarMovimiento(partida.getIdPartida(), ficha.getSlot());
+            }
+            anotarCierreTirada();
+        }
+        return premio;
+    }
+    
+    /**
+     * Vencio el plazo de una accion: se juega por el jugador con el turno
+     * Si el jugador ya actuo (o el aviso no viene de la rueda) no se hace nada
+     */
+    private Respuesta tiempoAgotado(Comando comando) {
+        if (!comando.isInterno() || turno == null || turno.isTerminada() || comando.getAccion() != acciones) {
+            return Respuesta.error(comando, "Plazo ya atendido");
+        }
+        ausencias[partida.getEstado().getTurno()]++;
+        if (turno.getValorDado() == 0 && turno.getPremioPendiente() == 0) {
+            return conEstado(Respuesta.ok(comando), lanzar(), 0);
+        }
+        int mascara = turno.getMascaraDisponibles();
+        if (mascara == 0) {
+            return Respuesta.error(comando, "No hay fichas que mover");
+        }
+        Ficha ficha = partida.getTurnoActual().getFichas().get(Integer.numberOfTrailingZeros(mascara));
+        return conEstado(Respuesta.ok(comando), 0, moverFicha(ficha));
+    }
+    
+    /**
+     * Tras cerrar una tirada anota el fin de partida o, cada cierto numero
+     * de tiradas, un snapshot para no reproducir la partida desde el principio
+     */
+    private void anotarCierreTirada() {
+        if (turno.isTerminada()) {
+            diario.registrarFin(partida.getIdPartida());
+            return;
+        }
+        if (turno.getValorDado() != 0 || turno.getPremioPendiente() != 0
+                || (tiradasSinSnapshot < TIRADAS_POR_SNAPSHOT && !premioSinAnotar)) {
+            return;
+        }
+        Ficha ultima = turno.getUltimaMovida();
+        diario.registrarSnapshot(partida.getIdPartida(), partida.getEstado(),
+                ultima != null ? ultima.getSlot() : -1);
+        tiradasSinSnapshot = 0;
+        premioSinAnotar = false;
+    }
+    
+    /**
+     * Para salas importadas con un premio pendiente, antes de recibir comandos
+     */
+    void anotarPremioConSnapshot() {
+        premioSinAnotar = true;
+    }
+    
+    private Respuesta validarTurno(Comando comando) {
+        if (turno == null) {
+            return Respuesta.error(comando, "La partida no ha empezado");
+        }
+        if (turno.isTerminada()) {
+            return Respuesta.error(comando, "La partida ha terminado");
+        }
+        if (partida.getTurnoActual().getIdJugador() != comando.getJugadorId()) {
+            return Respuesta.error(comando, "No es tu turno");
+        }
+        return null;
+    }
+    
+    private Respuesta conEstado(Respuesta respuesta, int valorDado, int premio) {
+        Jugador actual = partida.getTurnoActual();
+        Jugador ganador = turno != null ? turno.getGanador() : null;
+        
+        // Indices de las fichas que el jugador con el turno puede mover ahora
+        if (turno != null && ganador == null && (turno.getValorDado() != 0 || turno.getPremioPendiente() > 0)) {
+            List<Ficha> disponibles = turno.getFichasDisponibles();
+            int[] movibles = new int[disponibles.size()];
+            for (int i = 0; i < movibles.length; i++) {
+                movibles[i] = actual.getFichas().indexOf(disponibles.get(i));
+            }
+            respuesta.setMovibles(movibles);
+        }
+        
+        return respuesta.conEstado(valorDado, premio,
+                turno != null ? turno.getPremioPendiente() : 0,
+                actual != null ? actual.getIdJugador() : 0,
+                ganador != null, ganador != null ? ganador.getIdJugador() : 0);
+    }
+    
+    public Partida getPartida() { return partida; }
+    public GestorTurno getTurno() { return turno; }
+    public boolean isCerrada() { return cerrada; }
+    public boolean isCongelada() { return congelada; }
+    public InstantaneaPartida getInstantanea() { return instantanea; }
+    public int getComandosEnCola() { return buzon.getPendientes(); }
+    public int getAusencias(int asiento) { return ausencias[asiento]; }
+    
+    private static final class Pendiente {
+        final Comando comando;
+        final CompletableFuture<Respuesta> respuesta = new CompletableFuture<>();
+        
+        Pendiente(Comando comando) {
+            this.comando = comando;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * Servidor WebSocket que aloja muchas partidas a la vez
+ * Cada mensaje es un Comando en JSON y se contesta con una Respuesta en JSON
+ * Uso: ServidorSalas [puerto] [directorioDiario] [puertoNodos]
+ * Con directorio de diario se anotan los movimientos y al arrancar se recuperan las partidas
+ * Con puerto de nodos abre un segundo servidor interno sobre el mismo registro
+ * para EnrutadorNodos; los comandos entre nodos (PARTIDAS, EXPORTAR, IMPORTAR
+ * y REANUDAR) solo se aceptan ahi. Ese puerto no se debe abrir a los jugadores
+ * Las metricas se publican por JMX y en http://host:9464/metricas (el puerto sale de
+ * -Dparchis.metricas.puerto, 0 u off para no abrirlo) y los eventos de las partidas
+ * se escriben en consola
+ * OBSERVAR apunta la conexion como espectador: recibe un keyframe binario
+ * del ProtocoloBinario con cada cambio de la partida
+ */
+package servidor;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import eventos.BusEventos;
+import eventos.SumideroConsola;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.Set;
+import metricas.MetricasJuego;
+import metricas.ServidorMetricas;
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import persistencia.DiarioMovimientos;
+
+public class ServidorSalas extends WebSocketServer {
+    public static final int PUERTO_POR_DEFECTO = 8887;
+    // Solo para EnrutadorNodos: congelan, sacan, meten o listan partidas enteras
+    private static final Set<TipoComando> ENTRE_NODOS = EnumSet.of(TipoComando.PARTIDAS, TipoComando.EXPORTAR,
+            TipoComando.IMPORTAR, TipoComando.REANUDAR);
+    
+    private final RegistroPartidas registro;
+    private final Gson gson;
+    private final boolean interno;
+    
+    /**
+     * Constructor del servidor para jugadores
+     * @param direccion Direccion donde escuchar
+     * @param registro Registro de partidas que atiende este servidor
+     */
+    public ServidorSalas(InetSocketAddress direccion, RegistroPartidas registro) {
+        this(direccion, registro, false);
+    }
+    
+    /**
+     * Constructor del servidor
+     * @param direccion Direccion donde escuchar
+     * @param registro Registro de partidas que atiende este servidor
+     * @param interno true si es el puerto de los nodos, el unico que acepta los comandos entre nodos
+     */
+    public ServidorSalas(InetSocketAddress direccion, RegistroPartidas registro, boolean interno) {
+        super(direccion);
+        this.registro = registro;
+        this.gson = new Gson();
+        this.interno = interno;
+    }
+    
+    /**
+     * Arranca el servidor en su propio hilo
+     * Reutiliza la direccion para poder volver a escuchar enseguida en el mismo puerto
+     */
+    @Override
+    public void start() {
+        setReuseAddr(true);
+        super.start();
+    }
+    
+    @Override
+    public void onOpen(WebSocket conexion, ClientHandshake handshake) {
+    }
+    
+    @Override
+    public void onClose(WebSocket conexion, int codigo, String motivo, boolean remoto) {
+        dejarDeObservar(conexion);
+    }
+    
+    @Override
+    public void onMessage(WebSocket conexion, String mensaje) {
+        Comando comando;
+        try {
+            comando = gson.fromJson(mensaje, Comando.class);
+        } catch (JsonParseException e) {
+            comando = null;
+        }
+        if (comando == null) {
+            conexion.send(gson.toJson(Respuesta.error(new Comando(), "Mensaje no valido")));
+            return;
+        }
+        
+        // TIEMPO_AGOTADO solo lo encola la propia sala
+        if (comando.getTipo() == TipoComando.TIEMPO_AGOTADO || (!interno && ENTRE_NODOS.contains(comando.getTipo()))) {
+            conexion.send(gson.toJson(Respuesta.error(comando, "Comando no permitido")));
+            return;
+        }
+        
+        if (comando.getTipo() == TipoComando.OBSERVAR || comando.getTipo() == TipoComando.DEJAR_OBSERVAR) {
+            conexion.send(gson.toJson(observar(conexion, comando)));
+            return;
+        }
+        
+        registro.enrutar(comando).thenAccept(respuesta -> {
+            if (conexion.isOpen()) {
+                conexion.send(gson.toJson(respuesta));
+            }
+        });
+    }
+    
+    /**
+     * Apunta o quita la conexion como espectador, una partida por conexion
+     */
+    private Respuesta observar(WebSocket conexion, Comando comando) {
+        dejarDeObservar(conexion);
+        if (comando.getTipo() == TipoComando.DEJAR_OBSERVAR) {
+            return Respuesta.ok(comando);
+        }
+        SalaPartida sala = registro.buscar(comando.getIdPartida());
+        if (sala == null) {
+            return Respuesta.error(comando, "Partida no encontrada");
+        }
+        conexion.setAttachment(registro.getDifusion().suscribir(comando.getIdPartida(),
+                CanalEspectador.deConexion(conexion), sala.getInstantanea()));
+        return Respuesta.ok(comando);
+    }
+    
+    private void dejarDeObservar(WebSocket conexion) {
+        DifusionEspectadores.Suscriptor suscriptor = conexion.getAttachment();
+        if (suscriptor != null) {
+            registro.getDifusion().cancelar(suscriptor);
+            conexion.setAttachment(null);
+        }
+    }
+    
+    @Override
+    public void onError(WebSocket conexion, Exception ex) {
+        System.err.println("[SERVIDOR] Error: " + ex.getMessage());
+    }
+    
+    @Override
+    public void onStart() {
+        System.out.println("[SERVIDOR] Escuchando en el puerto " + getPort() + (interno ? " (nodos)" : ""));
+    }
+    
+    public RegistroPartidas getRegistro() { return registro; }
+    public boolean isInterno() { return interno; }
+    
+    public static void main(String[] args) throws IOException {
+        int puerto = args.length > 0 ? Integer.parseInt(args[0]) : PUERTO_POR_DEFECTO;
+        RegistroPartidas registro;
+        if (args.length > 1) {
+            registro = new RegistroPartidas(new DiarioMovimientos(Paths.get(args[1])));
+            System.out.println("[SERVIDOR] Partidas recuperadas del diario: " + registro.recuperar());
+        } else {
+            registro = new RegistroPartidas();
+        }
+        // Los mensajes de las partidas salen por consola como antes del bus de eventos
+        BusEventos.getGlobal().agregarSumidero(new SumideroConsola());
+        MetricasJuego.registrarJmx();
+        ServidorMetricas.arrancar(MetricasJuego.getGlobal());
+        new ServidorSalas(new InetSocketAddress(puerto), registro).start();
+        if (args.length > 2) {
+            new ServidorSalas(new InetSocketAddress(Integer.parseInt(args[2])), registro, true).start();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+/**
+ * Tipos de comando que un jugador envia al servidor de salas
+ */
+package servidor;
+
+public enum TipoComando {
+    CREAR,
+    UNIRSE,
+    SALIR,
+    INICIAR,
+    TIRAR,
+    MOVER,
+    CERRAR,
+    OBSERVAR,
+    DEJAR_OBSERVAR,
+    // Lo encola la propia sala cuando vence el plazo del turno
+    TIEMPO_AGOTADO,
+    // Entre nodos, los manda EnrutadorNodos al repartir partidas
+    PARTIDAS,
+    EXPORTAR,
+    IMPORTAR,
+    REANUDAR
+}
@@ -0,0 +1,400 @@
+/**
+ * Bot que elige ficha con Monte Carlo Tree Search
+ * Los nodos de decision tienen un hijo por ficha movible y los de azar
+ * uno por cara del dado. Varios hilos comparten el mismo arbol y se
+ * reparten las ramas con perdida virtual
+ * Con tabla de transposicion los nodos nuevos parten de lo aprendido en
+ * busquedas anteriores sobre la misma posicion
+ */
+package simulacion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import modelo.EstadoPartida;
+import modelo.Ficha;
+import modelo.GestorTurno;
+import modelo.Jugador;
+import modelo.Partida;
+
+public class BotMCTS implements EstrategiaMovimiento, AutoCloseable {
+    public static final double EXPLORACION = 0.7;
+    // Visitas sin victoria que se suman al bajar por un nodo mientras dura la simulacion
+    public static final int PERDIDA_VIRTUAL = 3;
+    public static final int LIMITE_TIRADAS = 2_000;
+    private static final int PROFUNDIDAD_MAXIMA = 1_024;
+    private static final Nodo[] TERMINAL = new Nodo[0];
+    // Visitas maximas que aporta la tabla a un nodo nuevo
+    private static final int PREVIA_MAXIMA = 64;
+    // Visitas minimas para guardar un nodo en la tabla
+    private static final int VISITAS_PARA_GUARDAR = 8;
+    
+    private final long presupuestoNanos;
+    private final int hilos;
+    private final ExecutorService ejecutor;
+    private final SplittableRandom semillas;
+    private final LongAdder simulaciones;
+    private final LongAdder nanosBusqueda;
+    private final LongAdder busquedas;
+    private final TablaTransposicion tabla;
+    
+    /**
+     * Constructor del bot
+     * @param presupuestoMs Tiempo de busqueda por jugada en milisegundos
+     * @param hilos Hilos que buscan a la vez sobre el mismo arbol
+     */
+    public BotMCTS(long presupuestoMs, int hilos) {
+        this(presupuestoMs, hilos, null);
+    }
+    
+    /**
+     * Constructor del bot con tabla de transposicion
+     * @param tabla Tabla compartida, puede usarla mas de un bot, null para no usarla
+     */
+    public BotMCTS(long presupuestoMs, int hilos, TablaTransposicion tabla) {
+        this.tabla = tabla;
+        this.presupuestoNanos = presupuestoMs * 1_000_000L;
+        this.hilos = hilos;
+        this.ejecutor = Executors.newFixedThreadPool(hilos, r -> {
+            Thread hilo = new Thread(r, "bot-mcts");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.semillas = new SplittableRandom();
+        this.simulaciones = new LongAdder();
+        this.nanosBusqueda = new LongAdder();
+        this.busquedas = new LongAdder();
+    }
+    
+    public BotMCTS(long presupuestoMs) {
+        this(presupuestoMs, Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Agrega bots en los asientos libres de una partida sin empezar
+     * @param partida Partida con menos de 4 jugadores
+     * @return Asientos ocupados por bots
+     */
+    public static List<Integer> rellenarAsientos(Partida partida) {
+        List<Integer> asientos = new ArrayList<>();
+        int id = 0;
+        for (Jugador j : partida.getJugadores()) {
+            id = Math.max(id, j.getIdJugador());
+        }
+        while (partida.getJugadores().size() < EstadoPartida.MAX_JUGADORES) {
+            int asiento = partida.getJugadores().size();
+            id++;
+            partida.agregarJugador(id, "Bot" + (asiento + 1), SimuladorPartida.COLORES[asiento]);
+            asientos.add(asiento);
+        }
+        return asientos;
+    }
+    
+    /**
+     * Juega una tirada completa del jugador con el turno
+     * Lanza el dado y mueve, incluidos los premios encadenados
+     * @param turno Gestor de la partida
+     */
+    public void jugarTirada(GestorTurno turno) {
+        turno.tirarDado();
+        while (!turno.isTerminada() && (turno.getValorDado() != 0 || turno.getPremioPendiente() > 0)) {
+            Ficha ficha = elegir(turno);
+            if (turno.getPremioPendiente() > 0) {
+                turno.moverPremio(ficha);
+            } else {
+                turno.moverFicha(ficha);
+            }
+        }
+    }
+    
+    /**
+     * Elige ficha con toda la informacion del gestor
+     * @param turno Gestor con una tirada o un premio pendiente
+     * @return Ficha elegida entre las disponibles
+     */
+    public Ficha elegir(GestorTurno turno) {
+        List<Ficha> disponibles = turno.getFichasDisponibles();
+        if (disponibles.size() == 1) {
+            return disponibles.get(0);
+        }
+        JuegoRapido raiz = new JuegoRapido();
+        raiz.cargar(turno.getPartida(), turno);
+        return buscarFicha(disponibles, buscar(raiz));
+    }
+    
+    /**
+     * Version para el simulador: solo conoce los pasos
+     * Con premio no se sabe si la tirada fue un 6, se supone que si
+     * cuando el contador de 6 no esta a cero
+     */
+    @Override
+    public Ficha elegirFicha(Partida partida, Jugador jugador, List<Ficha> disponibles, int pasos, Random random) {
+        if (disponibles.size() == 1) {
+            return disponibles.get(0);
+        }
+        JuegoRapido raiz = new JuegoRapido();
+        if (pasos <= 6) {
+            raiz.cargar(partida, pasos, 0);
+        } else {
+            raiz.cargar(partida, partida.getContadorSeis() > 0 ? 6 : 1, pasos);
+        }
+        return buscarFicha(disponibles, buscar(raiz));
+    }
+    
+    private static Ficha buscarFicha(List<Ficha> disponibles, int slot) {
+        for (Ficha ficha : disponibles) {
+            if (ficha.getSlot() == slot) {
+                return ficha;
+            }
+        }
+        return disponibles.get(0);
+    }
+    
+    /**
+     * Busca durante el presupuesto y devuelve la jugada mas visitada
+     * @param raiz Punto de la partida con un movimiento pendiente
+     * @return Slot de la ficha a mover
+     */
+    public int buscar(JuegoRapido raiz) {
+        Nodo nodoRaiz = new Nodo(-1, -1);
+        if (tabla != null) {
+            tabla.nuevaGeneracion();
+        }
+        long inicio = System.nanoTime();
+        long limite = inicio + presupuestoNanos;
+        
+        List<Future<Integer>> tareas = new ArrayList<>(hilos);
+        for (int i = 0; i < hilos; i++) {
+            SplittableRandom random = semillas.split();
+            Callable<Integer> tarea = () -> buscarHasta(nodoRaiz, raiz, random, limite, tabla);
+            tareas.add(ejecutor.submit(tarea));
+        }
+        int total = 0;
+        for (Future<Integer> tarea : tareas) {
+            try {
+                total += tarea.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Fallo en la busqueda", e.getCause());
+            }
+        }
+        simulaciones.add(total);
+        nanosBusqueda.add(System.nanoTime() - inicio);
+        busquedas.increment();
+        if (tabla != null) {
+            guardar(nodoRaiz);
+        }
+        
+        Nodo[] hijos = nodoRaiz.hijos;
+        Nodo mejor = hijos[0];
+        for (Nodo hijo : hijos) {
+            if (hijo.visitas.get() > mejor.visitas.get()) {
+                mejor = hijo;
+            }
+        }
+        return mejor.movimiento;
+    }
+    
+    /**
+     * Bucle de un hilo: seleccion, expansion, simulacion y retropropagacion
+     * @return Simulaciones hechas por este hilo
+     */
+    private static int buscarHasta(Nodo raiz, JuegoRapido inicial, SplittableRandom random, long limite,
+                                   TablaTransposicion tabla) {
+        JuegoRapido juego = new JuegoRapido();
+        JuegoRapido auxiliar = tabla != null ? new JuegoRapido() : null;
+        Nodo[] camino = new Nodo[PROFUNDIDAD_MAXIMA];
+        int hechas = 0;
+        
+        do {
+            juego.copiarDe(inicial);
+            Nodo nodo = raiz;
+            int longitud = 0;
+            camino[longitud++] = nodo;
+            nodo.visitas.addAndGet(PERDIDA_VIRTUAL);
+            
+            // Bajar por el arbol hasta expandir un nodo nuevo
+            while (longitud < PROFUNDIDAD_MAXIMA) {
+                Nodo[] hijos = nodo.hijos;
+                boolean nuevo = hijos == null;
+                if (nuevo) {
+                    hijos = nodo.expandir(juego, tabla, auxiliar);
+                }
+                if (hijos.length == 0) {
+                    break;
+                }
+                Nodo hijo;
+                if (nodo.azar) {
+                    int dado = random.nextInt(6) + 1;
+                    hijo = hijos[dado - 1];
+                    juego.tirar(dado);
+                } else {
+                    hijo = seleccionar(nodo, hijos);
+                    juego.mover(hijo.movimiento);
+                }
+                hijo.visitas.addAndGet(PERDIDA_VIRTUAL);
+                camino[longitud++] = hijo;
+                nodo = hijo;
+                if (nuevo) {
+                    break;
+                }
+            }
+            
+            int ganador = juego.isTerminada() ? juego.getGanador() : juego.jugarAlAzar(random, LIMITE_TIRADAS);
+            
+            // Quitar la perdida virtual y sumar el resultado
+            for (int i = 0; i < longitud; i++) {
+                Nodo n = camino[i];
+                int visitas = n.visitas.addAndGet(1 - PERDIDA_VIRTUAL);
+                int victorias = n.jugadorPadre >= 0 && n.jugadorPadre == ganador
+                        ? n.victorias.incrementAndGet() : n.victorias.get();
+                // Los demas hilos y busquedas ven el nodo al doblar sus visitas
+                if (tabla != null && n.clave != 0 && visitas >= VISITAS_PARA_GUARDAR && (visitas & (visitas - 1)) == 0) {
+                    tabla.guardar(n.clave, visitas, victorias);
+                }
+            }
+            hechas++;
+        } while (System.nanoTime() < limite);
+        return hechas;
+    }
+    
+    /**
+     * Guarda en la tabla los nodos de decision con suficientes visitas
+     */
+    private void guardar(Nodo nodo) {
+        Nodo[] hijos = nodo.hijos;
+        if (hijos == null) {
+            return;
+        }
+        for (Nodo hijo : hijos) {
+            int n = hijo.visitas.get();
+            if (n < VISITAS_PARA_GUARDAR) {
+                continue;
+            }
+            if (hijo.clave != 0) {
+                tabla.guardar(hijo.clave, n, hijo.victorias.get());
+            }
+            guardar(hijo);
+        }
+    }
+    
+    /**
+     * UCT: primero los hijos sin visitar, despues el de mejor cota
+     */
+    private static Nodo seleccionar(Nodo padre, Nodo[] hijos) {
+        double logPadre = Math.log(Math.max(1, padre.visitas.get()));
+        Nodo mejor = null;
+        double mejorValor = Double.NEGATIVE_INFINITY;
+        for (Nodo hijo : hijos) {
+            int n = hijo.visitas.get();
+            if (n <= 0) {
+                return hijo;
+            }
+            double valor = (double) hijo.victorias.get() / n + EXPLORACION * Math.sqrt(logPadre / n);
+            if (valor > mejorValor) {
+                mejorValor = valor;
+                mejor = hijo;
+            }
+        }
+        return mejor;
+    }
+    
+    @Override
+    public void close() {
+        ejecutor.shutdownNow();
+    }
+    
+    public long getPresupuestoMs() { return presupuestoNanos / 1_000_000L; }
+    public int getHilos() { return hilos; }
+    public long getSimulaciones() { return simulaciones.sum(); }
+    public long getBusquedas() { return busquedas.sum(); }
+    public TablaTransposicion getTabla() { return tabla; }
+    
+    /**
+     * Simulaciones por segundo de busqueda, sumando todos los hilos
+     */
+    public double getSimulacionesPorSegundo() {
+        long nanos = nanosBusqueda.sum();
+        return nanos == 0 ? 0 : simulaciones.sum() * 1e9 / nanos;
+    }
+    
+    /**
+     * Nodo del arbol compartido entre hilos
+     */
+    static final class Nodo {
+        // Slot movido para llegar aqui, o cara del dado en hijos de azar
+        final int movimiento;
+        // Jugador que eligio el movimiento, -1 en hijos de azar y en la raiz
+        final int jugadorPadre;
+        final AtomicInteger visitas = new AtomicInteger();
+        final AtomicInteger victorias = new AtomicInteger();
+        volatile Nodo[] hijos;
+        // Se escriben antes que hijos, por eso son visibles al leer hijos
+        boolean azar;
+        // Hash de la posicion tras el movimiento, 0 si no hay tabla
+        long clave;
+        
+        Nodo(int movimiento, int jugadorPadre) {
+            this.movimiento = movimiento;
+            this.jugadorPadre = jugadorPadre;
+        }
+        
+        /**
+         * Parte de las visitas guardadas en la tabla, escaladas a PREVIA_MAXIMA
+         */
+        void cargarPrevia(long dato) {
+            int n = TablaTransposicion.visitas(dato);
+            if (n == 0) {
+                return;
+            }
+            int previas = Math.min(n, PREVIA_MAXIMA);
+            visitas.set(previas);
+            victorias.set((int) ((long) TablaTransposicion.victorias(dato) * previas / n));
+        }
+        
+        /**
+         * Crea los hijos segun el punto de la partida al llegar al nodo
+         * El estado es el mismo para todos los hilos que llegan por el mismo camino
+         */
+        synchronized Nodo[] expandir(JuegoRapido juego, TablaTransposicion tabla, JuegoRapido auxiliar) {
+            if (hijos != null) {
+                return hijos;
+            }
+            Nodo[] nuevos;
+            if (juego.isTerminada()) {
+                nuevos = TERMINAL;
+            } else if (juego.necesitaTirada()) {
+                azar = true;
+                nuevos = new Nodo[6];
+                for (int i = 0; i < 6; i++) {
+                    nuevos[i] = new Nodo(i + 1, -1);
+                }
+            } else {
+                int[] movimientos = new int[JuegoRapido.MAX_MOVIMIENTOS];
+                int cantidad = juego.movimientos(movimientos);
+                int jugador = juego.getJugador();
+                nuevos = new Nodo[cantidad];
+                for (int i = 0; i < cantidad; i++) {
+                    nuevos[i] = new Nodo(movimientos[i], jugador);
+                    if (tabla != null) {
+                        auxiliar.copiarDe(juego);
+                        auxiliar.mover(movimientos[i]);
+                        nuevos[i].clave = auxiliar.getClave();
+                        nuevos[i].cargarPrevia(tabla.buscar(nuevos[i].clave));
+                    }
+                }
+            }
+            hijos = nuevos;
+            return nuevos;
+        }
+    }
+}
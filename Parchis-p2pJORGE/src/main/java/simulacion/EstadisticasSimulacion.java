@@ -0,0 +1,91 @@
+/**
+ * Acumula resultados de muchas partidas simuladas
+ * Cada hilo usa su propia instancia y al final se combinan con sumar
+ */
+package simulacion;
+
+public class EstadisticasSimulacion {
+    private final long[] victorias;
+    private long partidas;
+    private long sinTerminar;
+    private long tiradas;
+    private long capturas;
+    private long nanos;
+    
+    /**
+     * @param numJugadores Numero de asientos por partida
+     */
+    public EstadisticasSimulacion(int numJugadores) {
+        this.victorias = new long[numJugadores];
+    }
+    
+    /**
+     * Registra el resultado de una partida
+     * @param ganador Asiento ganador o -1 si no termino
+     * @param tiradasPartida Tiradas de dado que duro la partida
+     * @param capturasPartida Fichas comidas en la partida
+     */
+    public void registrar(int ganador, int tiradasPartida, int capturasPartida) {
+        partidas++;
+        if (ganador >= 0) {
+            victorias[ganador]++;
+        } else {
+            sinTerminar++;
+        }
+        tiradas += tiradasPartida;
+        capturas += capturasPartida;
+    }
+    
+    /**
+     * Suma los resultados de otro acumulador a este
+     */
+    public EstadisticasSimulacion sumar(EstadisticasSimulacion otras) {
+        for (int i = 0; i < victorias.length; i++) {
+            victorias[i] += otras.victorias[i];
+        }
+        partidas += otras.partidas;
+        sinTerminar += otras.sinTerminar;
+        tiradas += otras.tiradas;
+        capturas += otras.capturas;
+        return this;
+    }
+    
+    public double getPorcentajeVictorias(int asiento) {
+        return partidas == 0 ? 0 : 100.0 * victorias[asiento] / partidas;
+    }
+    
+    public double getTiradasPorPartida() {
+        return partidas == 0 ? 0 : (double) tiradas / partidas;
+    }
+    
+    public double getCapturasPorPartida() {
+        return partidas == 0 ? 0 : (double) capturas / partidas;
+    }
+    
+    public double getPartidasPorSegundo() {
+        return nanos == 0 ? 0 : partidas * 1_000_000_000.0 / nanos;
+    }
+    
+    /**
+     * Resumen legible de los resultados
+     */
+    public String resumen() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Partidas: %d (sin terminar: %d)%n", partidas, sinTerminar));
+        for (int i = 0; i < victorias.length; i++) {
+            sb.append(String.format("  Asiento %d: %.2f%% victorias%n", i + 1, getPorcentajeVictorias(i)));
+        }
+        sb.append(String.format("Tiradas por partida: %.1f%n", getTiradasPorPartida()));
+        sb.append(String.format("Capturas por partida: %.2f%n", getCapturasPorPartida()));
+        sb.append(String.format("Rendimiento: %.0f partidas/s (%.2f s)%n", getPartidasPorSegundo(), nanos / 1e9));
+        return sb.toString();
+    }
+    
+    public long getVictorias(int asiento) { return victorias[asiento]; }
+    public long getPartidas() { return partidas; }
+    public long getSinTerminar() { return sinTerminar; }
+    public long getTiradas() { return tiradas; }
+    public long getCapturas() { return capturas; }
+    public long getNanos() { return nanos; }
+    public void setNanos(long nanos) { this.nanos = nanos; }
+}
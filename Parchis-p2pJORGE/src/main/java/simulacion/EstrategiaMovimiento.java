@@ -0,0 +1,91 @@
+/**
+ * Estrategia que decide que ficha mover
+ * Permite enchufar distintos bots en el simulador
+ */
+package simulacion;
+
+import java.util.List;
+import java.util.Random;
+import modelo.Ficha;
+import modelo.Jugador;
+import modelo.Partida;
+import modelo.TablaMovimientos;
+
+public interface EstrategiaMovimiento {
+    
+    /**
+     * Elige la ficha a mover entre las disponibles
+     * @param partida Partida en curso
+     * @param jugador Jugador con el turno
+     * @param disponibles Fichas que pueden moverse (nunca vacia)
+     * @param pasos Casillas a avanzar (valor del dado o premio)
+     * @param random Generador del hilo que simula
+     * @return Ficha elegida, debe estar en disponibles
+     */
+    Ficha elegirFicha(Partida partida, Jugador jugador, List<Ficha> disponibles, int pasos, Random random);
+    
+    /**
+     * Siempre mueve la primera ficha disponible
+     */
+    EstrategiaMovimiento PRIMERA_FICHA = (partida, jugador, disponibles, pasos, random) -> disponibles.get(0);
+    
+    /**
+     * Mueve una ficha disponible al azar
+     */
+    EstrategiaMovimiento ALEATORIA = (partida, jugador, disponibles, pasos, random) ->
+            disponibles.get(random.nextInt(disponibles.size()));
+    
+    /**
+     * Prefiere la ficha mas adelantada, asi llega antes a meta
+     */
+    EstrategiaMovimiento MAS_ADELANTADA = (partida, jugador, disponibles, pasos, random) -> {
+        Ficha mejor = disponibles.get(0);
+        for (Ficha ficha : disponibles) {
+            if (ficha.getPosicion() > mejor.getPosicion()) {
+                mejor = ficha;
+            }
+        }
+        return mejor;
+    };
+    
+    /**
+     * Prefiere llegar a meta, despues caer en casilla segura y si no la mas adelantada
+     * Cada candidata se resuelve con una lectura de TablaMovimientos
+     */
+    EstrategiaMovimiento SEGURA = (partida, jugador, disponibles, pasos, random) -> {
+        Ficha mejor = disponibles.get(0);
+        int mejorPuntos = -1;
+        for (Ficha ficha : disponibles) {
+            int posicion = ficha.isEnCasa() ? TablaMovimientos.CASA : ficha.getPosicion();
+            if (!TablaMovimientos.cubre(posicion, pasos)) {
+                continue;
+            }
+            int movimiento = TablaMovimientos.movimiento(ficha.getSlot() >>> 2, posicion, pasos);
+            int puntos = TablaMovimientos.destino(movimiento);
+            if (TablaMovimientos.llegaAMeta(movimiento)) {
+                puntos += 200;
+            } else if (TablaMovimientos.destinoSeguro(movimiento)) {
+                puntos += 100;
+            }
+            if (puntos > mejorPuntos) {
+                mejorPuntos = puntos;
+                mejor = ficha;
+            }
+        }
+        return mejor;
+    };
+    
+    /**
+     * Busca una estrategia por nombre (primera, aleatoria, adelantada, segura)
+     * @return La estrategia o null si el nombre no existe
+     */
+    static EstrategiaMovimiento porNombre(String nombre) {
+        switch (nombre.toLowerCase()) {
+            case "primera": return PRIMERA_FICHA;
+            case "aleatoria": return ALEATORIA;
+            case "adelantada": return MAS_ADELANTADA;
+            case "segura": return SEGURA;
+            default: return null;
+        }
+    }
+}
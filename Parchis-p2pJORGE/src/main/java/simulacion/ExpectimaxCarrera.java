@@ -0,0 +1,201 @@
+/**
+ * Expectimax de un turno en una carrera final, compartido por GeneradorFinales y TablaFinales
+ * Una carrera es un jugador sin fichas en casa y con todas las que le quedan a
+ * MAX_DISTANCIA casillas o menos de la meta; se ignoran capturas y barreras
+ * Las distancias de sus 4 fichas (0 = en meta) van ordenadas en un int, 8 bits cada una
+ * 
+ * Un turno sigue las reglas de JuegoRapido: cualquier tirada que llegue o pase
+ * la meta entra, con 6 se vuelve a tirar y al tercer 6 la ultima ficha movida
+ * con el dado vuelve a casa si no estaba en meta (la posicion sale de la
+ * tabla: FUERA). Con premioMeta, al entrar se mueve otra ficha esas casillas
+ * (en cadena); hoy las reglas no lo dan porque la ficha queda en meta antes de
+ * EstadoPartida.aplicar
+ * Las decisiones minimizan los turnos esperados hasta meter las 4 fichas
+ */
+package simulacion;
+
+import java.util.function.IntToDoubleFunction;
+import modelo.EstadoPartida;
+
+final class ExpectimaxCarrera {
+    static final int MAX_DISTANCIA = 30;
+    static final int FICHAS = EstadoPartida.FICHAS_POR_JUGADOR;
+    // Turnos que se cargan a una posicion que sale de la tabla, solo para decidir
+    static final double FUERA = 100;
+    
+    // Multiconjuntos de 4 distancias 0-MAX_DISTANCIA: C(MAX_DISTANCIA + 4, 4)
+    private static final int[][] BINOMIAL = new int[MAX_DISTANCIA + FICHAS + 1][FICHAS + 1];
+    static final int ESTADOS;
+    
+    static {
+        for (int n = 0; n < BINOMIAL.length; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= FICHAS && k <= n; k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + (k <= n - 1 ? BINOMIAL[n - 1][k] : 0);
+            }
+        }
+        ESTADOS = BINOMIAL[MAX_DISTANCIA + FICHAS][FICHAS];
+    }
+    
+    // Turnos esperados al empezar un turno, por indice de estado
+    private final IntToDoubleFunction valor;
+    // Casillas de premio al llegar a meta, 0 sin premio
+    private final int premioMeta;
+    
+    ExpectimaxCarrera(IntToDoubleFunction valor, int premioMeta) {
+        this.valor = valor;
+        this.premioMeta = premioMeta;
+    }
+    
+    // ---- Estados empaquetados ----
+    
+    static int distancia(int fichas, int i) {
+        return (fichas >>> (i * 8)) & 0xFF;
+    }
+    
+    /**
+     * Empaqueta 4 distancias en orden creciente
+     */
+    static int ordenar(int a, int b, int c, int d) {
+        int t;
+        if (a > b) { t = a; a = b; b = t; }
+        if (c > d) { t = c; c = d; d = t; }
+        if (a > c) { t = a; a = c; c = t; }
+        if (b > d) { t = b; b = d; d = t; }
+        if (b > c) { t = b; b = c; c = t; }
+        return a | (b << 8) | (c << 16) | (d << 24);
+    }
+    
+    /**
+     * Cambia la distancia de la ficha i y vuelve a ordenar
+     */
+    static int cambiar(int fichas, int i, int nueva) {
+        int f = (fichas & ~(0xFF << (i * 8))) | (nueva << (i * 8));
+        return ordenar(distancia(f, 0), distancia(f, 1), distancia(f, 2), distancia(f, 3));
+    }
+    
+    /**
+     * Indice del estado en la tabla (sistema combinatorio), O(1)
+     * @param fichas Distancias ordenadas, todas 0-MAX_DISTANCIA
+     */
+    static int indice(int fichas) {
+        int indice = 0;
+        for (int i = 0; i < FICHAS; i++) {
+            indice += BINOMIAL[distancia(fichas, i) + i][i + 1];
+        }
+        return indice;
+    }
+    
+    // ---- Expectimax ----
+    
+    /**
+     * Turnos esperados desde el inicio de un turno
+     */
+    double turnos(int fichas) {
+        return fichas == 0 ? 0 : 1 + tirada(fichas, 0, 0);
+    }
+    
+    /**
+     * Valor esperado al ir a tirar dentro del turno
+     * @param seises 6 seguidos ya sacados en este turno
+     * @param ultima Distancia de la ultima ficha movida con el dado, 0 si ninguna o en meta
+     * @return Turnos esperados despues de este
+     */
+    double tirada(int fichas, int seises, int ultima) {
+        double total = 0;
+        for (int v = 1; v <= 6; v++) {
+            if (v == 6 && seises == 2) {
+                total += ultima > 0 ? FUERA : valor.applyAsDouble(indice(fichas));
+            } else {
+                total += mover(fichas, elegir(fichas, v, v == 6 ? seises + 1 : seises),
+                        v, v == 6 ? seises + 1 : seises);
+            }
+        }
+        return total / 6;
+    }
+    
+    /**
+     * Mejor ficha para mover con el dado
+     * @param seises 6 seguidos contando esta tirada
+     * @return Posicion de la ficha en el empaquetado, -1 si no queda ninguna
+     */
+    int elegir(int fichas, int valorDado, int seises) {
+        int mejor = -1;
+        double mejorValor = Double.MAX_VALUE;
+        int anterior = -1;
+        for (int i = 0; i < FICHAS; i++) {
+            int d = distancia(fichas, i);
+            // Fichas con la misma distancia son intercambiables
+            if (d == 0 || d == anterior) {
+                continue;
+            }
+            anterior = d;
+            double v = mover(fichas, i, valorDado, seises);
+            if (v < mejorValor) {
+                mejorValor = v;
+                mejor = i;
+            }
+        }
+        return mejor;
+    }
+    
+    /**
+     * Mejor ficha para el premio de meta
+     * @return Posicion de la ficha en el empaquetado, -1 si no queda ninguna
+     */
+    int elegirPremio(int fichas, int valorDado, int seises) {
+        int mejor = -1;
+        double mejorValor = Double.MAX_VALUE;
+        int anterior = -1;
+        for (int i = 0; i < FICHAS; i++) {
+            int d = distancia(fichas, i);
+            if (d == 0 || d == anterior) {
+                continue;
+            }
+            anterior = d;
+            double v = moverPremio(fichas, i, valorDado, seises);
+            if (v < mejorValor) {
+                mejorValor = v;
+                mejor = i;
+            }
+        }
+        return mejor;
+    }
+    
+    double mover(int fichas, int i, int valorDado, int seises) {
+        int d = distancia(fichas, i);
+        int nuevas = cambiar(fichas, i, Math.max(0, d - valorDado));
+        if (d > valorDado) {
+            return continuar(nuevas, valorDado, seises, d - valorDado);
+        }
+        return premioMeta > 0 ? premio(nuevas, valorDado, seises) : continuar(nuevas, valorDado, seises, 0);
+    }
+    
+    double premio(int fichas, int valorDado, int seises) {
+        if (fichas == 0) {
+            return 0;
+        }
+        return moverPremio(fichas, elegirPremio(fichas, valorDado, seises), valorDado, seises);
+    }
+    
+    double moverPremio(int fichas, int i, int valorDado, int seises) {
+        int d = distancia(fichas, i);
+        int nuevas = cambiar(fichas, i, Math.max(0, d - premioMeta));
+        if (d <= premioMeta) {
+            return premio(nuevas, valorDado, seises);
+        }
+        return continuar(nuevas, valorDado, seises, 0);
+    }
+    
+    /**
+     * Tras mover: fin de la partida, otra tirada con 6 o fin del turno
+     */
+    double continuar(int fichas, int valorDado, int seises, int ultima) {
+        if (fichas == 0) {
+            return 0;
+        }
+        return valorDado == 6 ? tirada(fichas, seises, ultima) : valor.applyAsDouble(indice(fichas));
+    }
+    
+    int getPremioMeta() { return premioMeta; }
+}
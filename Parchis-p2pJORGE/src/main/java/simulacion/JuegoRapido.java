@@ -0,0 +1,258 @@
+/**
+ * Flujo de GestorTurno sobre el estado compacto, sin casillas ni jugadores
+ * Lo usan las busquedas (MCTS) para jugar miles de partidas por segundo
+ * Mismas reglas: sacar con 5, turno extra con 6, tres 6 a casa,
+ * premio de 20 por comer y de 10 por llegar a meta, barreras que no dejan pasar
+ * Con un HistorialJugadas se puede deshacer y rehacer sin copiar juegos
+ */
+package simulacion;
+
+import java.util.SplittableRandom;
+import modelo.EstadoPartida;
+import modelo.Ficha;
+import modelo.GeneradorMovimientos;
+import modelo.GestorTurno;
+import modelo.HistorialJugadas;
+import modelo.ListaMovimientos;
+import modelo.Partida;
+import modelo.Zobrist;
+
+public class JuegoRapido {
+    // Como mucho 4 fichas movibles con el dado
+    public static final int MAX_MOVIMIENTOS = EstadoPartida.FICHAS_POR_JUGADOR;
+    
+    private final EstadoPartida estado;
+    private int valorDado;
+    private int premioPendiente;
+    private int ultimaMovida;
+    private int ganador;
+    private final int[] auxiliar;
+    
+    public JuegoRapido() {
+        this.estado = new EstadoPartida();
+        this.auxiliar = new int[MAX_MOVIMIENTOS];
+        this.ultimaMovida = -1;
+        this.ganador = -1;
+    }
+    
+    /**
+     * Copia el punto de una partida real
+     * @param partida Partida en curso
+     * @param turno Gestor de esa partida
+     */
+    public void cargar(Partida partida, GestorTurno turno) {
+        estado.copiarDe(partida.getEstado());
+        estado.setNumJugadores(partida.getJugadores().size());
+        valorDado = turno.getValorDado();
+        premioPendiente = turno.getPremioPendiente();
+        Ficha ultima = turno.getUltimaMovida();
+        ultimaMovida = ultima != null ? ultima.getSlot() : -1;
+        ganador = turno.isTerminada() ? partida.getJugadores().indexOf(turno.getGanador()) : -1;
+    }
+    
+    /**
+     * Copia el punto de una partida cuando solo se conoce la tirada
+     * @param partida Partida en curso
+     * @param valorDado Dado pendiente de mover (0 si no hay)
+     * @param premioPendiente Premio pendiente de mover (0 si no hay)
+     */
+    public void cargar(Partida partida, int valorDado, int premioPendiente) {
+        estado.copiarDe(partida.getEstado());
+        estado.setNumJugadores(partida.getJugadores().size());
+        this.valorDado = valorDado;
+        this.premioPendiente = premioPendiente;
+        this.ultimaMovida = -1;
+        this.ganador = -1;
+    }
+    
+    public void copiarDe(JuegoRapido otro) {
+        estado.copiarDe(otro.estado);
+        valorDado = otro.valorDado;
+        premioPendiente = otro.premioPendiente;
+        ultimaMovida = otro.ultimaMovida;
+        ganador = otro.ganador;
+    }
+    
+    /**
+     * Indica si el siguiente paso es lanzar el dado
+     */
+    public boolean necesitaTirada() {
+        return ganador < 0 && valorDado == 0 && premioPendiente == 0;
+    }
+    
+    /**
+     * Aplica una tirada (equivale a GestorTurno.aplicarTirada)
+     * @param valor Valor del dado (1-6)
+     */
+    public void tirar(int valor) {
+        if (valor == 6) {
+            estado.incrementarContadorSeis();
+            if (estado.getContadorSeis() >= 3) {
+                if (ultimaMovida >= 0 && !estado.isEnMeta(ultimaMovida)) {
+                    estado.regresarACasa(ultimaMovida);
+                }
+                ultimaMovida = -1;
+                estado.cambiarTurno();
+                return;
+            }
+        }
+        valorDado = valor;
+        if (movimientos(null) == 0) {
+            terminarTirada();
+        }
+    }
+    
+    /**
+     * Slots que puede mover el jugador con el turno (ver GeneradorMovimientos)
+     * Mismo orden que Jugador.getFichasDisponibles y getFichasEnJuego
+     * @param destino Array donde dejar los slots (MAX_MOVIMIENTOS), o null para solo contar
+     * @return Numero de movimientos
+     */
+    public int movimientos(int[] destino) {
+        int jugador = estado.getTurno();
+        int mascara = GeneradorMovimientos.mascara(estado, jugador, valorDado, premioPendiente);
+        if (destino == null) {
+            return Integer.bitCount(mascara);
+        }
+        int base = jugador * EstadoPartida.FICHAS_POR_JUGADOR;
+        int salida = mascara & estado.getMascaraCasa(jugador);
+        int cantidad = 0;
+        if (salida != 0) {
+            destino[cantidad++] = base + Integer.numberOfTrailingZeros(salida);
+        }
+        for (int m = mascara & ~salida; m != 0; m &= m - 1) {
+            destino[cantidad++] = base + Integer.numberOfTrailingZeros(m);
+        }
+        return cantidad;
+    }
+    
+    /**
+     * Movimientos legales completos, con origen, destino y banderas
+     * @param lista Lista reutilizable que se rellena
+     * @return Numero de movimientos
+     */
+    public int generarMovimientos(ListaMovimientos lista) {
+        return GeneradorMovimientos.generar(estado, estado.getTurno(), valorDado, premioPendiente, lista);
+    }
+    
+    /**
+     * Mueve una ficha con el dado o con el premio pendiente
+     * @param slot Slot elegido entre los movimientos
+     * @return Premio obtenido (0, 10 o 20)
+     */
+    public int mover(int slot) {
+        if (premioPendiente > 0) {
+            int pasos = premioPendiente;
+            premioPendiente = 0;
+            estado.moverFicha(slot, pasos);
+        } else {
+            if (estado.isEnCasa(slot)) {
+                estado.sacarFicha(slot);
+            } else {
+                estado.moverFicha(slot, valorDado);
+            }
+            ultimaMovida = slot;
+        }
+        
+        int premio = EstadoPartida.premio(estado.aplicar(slot));
+        if (premio > 0 && GeneradorMovimientos.mascara(estado, estado.getTurno(), 0, premio) != 0) {
+            premioPendiente = premio;
+        } else {
+            terminarTirada();
+        }
+        return premio;
+    }
+    
+    private void terminarTirada() {
+        int jugador = estado.getTurno();
+        if (estado.getMascaraMeta(jugador) == 0xF) {
+            ganador = jugador;
+        } else if (valorDado != 6) {
+            ultimaMovida = -1;
+            estado.cambiarTurno();
+        }
+        valorDado = 0;
+    }
+    
+    /**
+     * Juega al azar hasta el final
+     * @param random Generador del hilo
+     * @param limiteTiradas Tiradas maximas antes de abandonar
+     * @return Asiento ganador, -1 si se alcanzo el limite
+     */
+    public int jugarAlAzar(SplittableRandom random, int limiteTiradas) {
+        int[] movimientos = auxiliar;
+        int tiradas = 0;
+        while (ganador < 0) {
+            if (necesitaTirada()) {
+                if (++tiradas > limiteTiradas) {
+                    return -1;
+                }
+                tirar(random.nextInt(6) + 1);
+            } else {
+                int cantidad = movimientos(movimientos);
+                mover(movimientos[random.nextInt(cantidad)]);
+            }
+        }
+        return ganador;
+    }
+    
+    // ---- Historial ----
+    
+    /**
+     * Guarda la posicion actual como jugada siguiente del historial
+     * @return Numero de la jugada
+     */
+    public long registrarEn(HistorialJugadas historial) {
+        long flujo = valorDado | (premioPendiente << 8) | ((ultimaMovida + 1) << 16) | ((ganador + 1) << 24);
+        return historial.registrar(estado, flujo);
+    }
+    
+    /**
+     * Vuelve a la jugada anterior del historial
+     * @return false si no hay ninguna anterior
+     */
+    public boolean deshacer(HistorialJugadas historial) {
+        return historial.deshacer(estado) && restaurarFlujo(historial);
+    }
+    
+    /**
+     * Avanza a la jugada siguiente del historial
+     * @return false si no hay ninguna siguiente
+     */
+    public boolean rehacer(HistorialJugadas historial) {
+        return historial.rehacer(estado) && restaurarFlujo(historial);
+    }
+    
+    /**
+     * Salta a una jugada cualquiera del historial
+     * @return false si ya no esta en el buffer
+     */
+    public boolean irA(HistorialJugadas historial, long jugada) {
+        return historial.ir(jugada, estado) && restaurarFlujo(historial);
+    }
+    
+    private boolean restaurarFlujo(HistorialJugadas historial) {
+        int flujo = (int) historial.getExtra();
+        valorDado = flujo & 0xFF;
+        premioPendiente = (flujo >>> 8) & 0xFF;
+        ultimaMovida = ((flujo >>> 16) & 0xFF) - 1;
+        ganador = ((flujo >>> 24) & 0xFF) - 1;
+        return true;
+    }
+    
+    /**
+     * Hash Zobrist de la posicion, incluida la tirada en curso
+     */
+    public long getClave() {
+        return estado.getHash() ^ Zobrist.tirada(valorDado, premioPendiente, ultimaMovida);
+    }
+    
+    public EstadoPartida getEstado() { return estado; }
+    public int getJugador() { return estado.getTurno(); }
+    public int getValorDado() { return valorDado; }
+    public int getPremioPendiente() { return premioPendiente; }
+    public int getUltimaMovida() { return ultimaMovida; }
+    public int getGanador() { return ganador; }
+    public boolean isTerminada() { return ganador >= 0; }
+}
@@ -0,0 +1,81 @@
+/**
+ * Ratings Elo de los participantes de un torneo
+ * Se actualizan partida a partida desde varios hilos sin cerrojos: cada
+ * rating es un double guardado en un AtomicLongArray y se suma con CAS
+ * 
+ * En partidas de 3 o 4 jugadores el ganador cuenta como victoria contra
+ * cada rival y entre los perdedores no cambia nada
+ */
+package simulacion;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class RatingElo {
+    public static final double RATING_INICIAL = 1500;
+    public static final double FACTOR_K = 16;
+    
+    private final AtomicLongArray ratings;
+    private final AtomicLongArray partidas;
+    private final AtomicLongArray victorias;
+    
+    /**
+     * @param participantes Numero de participantes
+     */
+    public RatingElo(int participantes) {
+        this.ratings = new AtomicLongArray(participantes);
+        this.partidas = new AtomicLongArray(participantes);
+        this.victorias = new AtomicLongArray(participantes);
+        for (int i = 0; i < participantes; i++) {
+            ratings.set(i, Double.doubleToRawLongBits(RATING_INICIAL));
+        }
+    }
+    
+    /**
+     * Probabilidad esperada de que a gane a b
+     */
+    public static double esperado(double a, double b) {
+        return 1 / (1 + Math.pow(10, (b - a) / 400));
+    }
+    
+    /**
+     * Aplica el resultado de una partida
+     * Los ratings de los rivales se leen al empezar; si otro hilo los cambia
+     * a la vez, el error es el de haber jugado las partidas en otro orden
+     * @param asientos Participante de cada asiento
+     * @param ganador Asiento ganador, -1 si la partida no termino (no cuenta)
+     */
+    public void registrar(int[] asientos, int ganador) {
+        if (ganador < 0) {
+            return;
+        }
+        int idGanador = asientos[ganador];
+        double rGanador = getRating(idGanador);
+        double k = FACTOR_K / (asientos.length - 1);
+        double ganado = 0;
+        for (int i = 0; i < asientos.length; i++) {
+            partidas.incrementAndGet(asientos[i]);
+            if (i == ganador) {
+                continue;
+            }
+            double delta = k * (1 - esperado(rGanador, getRating(asientos[i])));
+            ganado += delta;
+            sumar(asientos[i], -delta);
+        }
+        sumar(idGanador, ganado);
+        victorias.incrementAndGet(idGanador);
+    }
+    
+    private void sumar(int participante, double delta) {
+        long actual;
+        long nuevo;
+        do {
+            actual = ratings.get(participante);
+            nuevo = Double.doubleToRawLongBits(Double.longBitsToDouble(actual) + delta);
+        } while (!ratings.compareAndSet(participante, actual, nuevo));
+    }
+    
+    public double getRating(int participante) { return Double.longBitsToDouble(ratings.get(participante)); }
+    public long getPartidas(int participante) { return partidas.get(participante); }
+    public long getVictorias(int participante) { return victorias.get(participante); }
+    public int getParticipantes() { return ratings.length(); }
+}
@@ -0,0 +1,84 @@
+/**
+ * Reparte muchas partidas simuladas entre todos los nucleos
+ * Usa fork-join: cada tarea divide su rango hasta un tamano minimo
+ * y acumula en sus propias estadisticas, sin estado compartido
+ */
+package simulacion;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import modelo.Partida;
+
+public class SimulacionParalela {
+    private static final int PARTIDAS_POR_TAREA = 256;
+    
+    private final SimuladorPartida simulador;
+    private final int hilos;
+    
+    /**
+     * @param simulador Simulador con las estrategias de cada asiento
+     * @param hilos Numero de hilos del pool
+     */
+    public SimulacionParalela(SimuladorPartida simulador, int hilos) {
+        this.simulador = simulador;
+        this.hilos = hilos;
+    }
+    
+    /**
+     * Usa tantos hilos como procesadores disponibles
+     */
+    public SimulacionParalela(SimuladorPartida simulador) {
+        this(simulador, Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Simula el numero de partidas indicado y espera a que terminen
+     * @param partidas Numero total de partidas
+     * @return Estadisticas combinadas con el tiempo total
+     */
+    public EstadisticasSimulacion ejecutar(long partidas) {
+        ForkJoinPool pool = new ForkJoinPool(hilos);
+        try {
+            long inicio = System.nanoTime();
+            EstadisticasSimulacion resultado = pool.invoke(new TareaSimulacion(0, partidas));
+            resultado.setNanos(System.nanoTime() - inicio);
+            return resultado;
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    private class TareaSimulacion extends RecursiveTask<EstadisticasSimulacion> {
+        private static final long serialVersionUID = 1L;
+        
+        private final long desde;
+        private final long hasta;
+        
+        TareaSimulacion(long desde, long hasta) {
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+        
+        @Override
+        protected EstadisticasSimulacion compute() {
+            if (hasta - desde <= PARTIDAS_POR_TAREA) {
+                EstadisticasSimulacion estadisticas = new EstadisticasSimulacion(simulador.getNumJugadores());
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                // Una sola partida por tarea, reciclada entre partidas
+                Partida partida = new Partida((int) desde);
+                for (long i = desde; i < hasta; i++) {
+                    simulador.prepararPartida(partida, (int) i);
+                    simulador.jugar(partida, random, estadisticas);
+                }
+                return estadisticas;
+            }
+            
+            long mitad = (desde + hasta) >>> 1;
+            TareaSimulacion izquierda = new TareaSimulacion(desde, mitad);
+            izquierda.fork();
+            EstadisticasSimulacion derecha = new TareaSimulacion(mitad, hasta).compute();
+            return derecha.sumar(izquierda.join());
+        }
+    }
+}
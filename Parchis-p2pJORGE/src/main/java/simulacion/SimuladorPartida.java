@@ -0,0 +1,152 @@
+/**
+ * Juega una partida completa sin interaccion
+ * Lanza el dado, elige fichas con una estrategia y aplica ReglasJuego
+ * hasta que un jugador tiene sus 4 fichas en meta
+ */
+package simulacion;
+
+import java.util.List;
+import java.util.Random;
+import modelo.Casilla;
+import modelo.Ficha;
+import modelo.Jugador;
+import modelo.Partida;
+import modelo.ReglasJuego;
+import modelo.Tablero;
+
+public class SimuladorPartida {
+    public static final String[] COLORES = {"Rojo", "Verde", "Azul", "Amarillo"};
+    public static final int LIMITE_TIRADAS = 10_000;
+    
+    private final EstrategiaMovimiento[] estrategias;
+    
+    /**
+     * Constructor del simulador
+     * @param estrategias Estrategia de cada asiento, en orden de turno
+     */
+    public SimuladorPartida(EstrategiaMovimiento... estrategias) {
+        this.estrategias = estrategias;
+    }
+    
+    /**
+     * Crea e inicia una partida con un jugador por estrategia
+     * @param id Identificador de la partida
+     */
+    public Partida crearPartida(int id) {
+        return prepararPartida(new Partida(id), id);
+    }
+    
+    /**
+     * Recicla una partida ya jugada para la siguiente
+     * Reutiliza su tablero, estado y jugadores en lugar de crear otros
+     * @param partida Partida terminada
+     * @param id Identificador de la nueva partida
+     */
+    public Partida prepararPartida(Partida partida, int id) {
+        partida.reiniciar(id);
+        for (int i = 0; i < estrategias.length; i++) {
+            partida.agregarJugador(i + 1, "Bot" + (i + 1), COLORES[i]);
+        }
+        partida.iniciarPartida();
+        return partida;
+    }
+    
+    /**
+     * Juega la partida hasta el final o hasta LIMITE_TIRADAS
+     * @param partida Partida iniciada
+     * @param random Generador para las estrategias
+     * @param estadisticas Acumulador de resultados
+     * @return Indice del asiento ganador, -1 si se alcanzo el limite
+     */
+    public int jugar(Partida partida, Random random, EstadisticasSimulacion estadisticas) {
+        Tablero tablero = partida.getTablero();
+        ReglasJuego reglas = partida.getReglas();
+        List<Jugador> jugadores = partida.getJugadores();
+        Ficha ultimaMovida = null;
+        int capturas = 0;
+        int tiradas = 0;
+        int ganador = -1;
+        
+        while (ganador < 0 && tiradas < LIMITE_TIRADAS) {
+            tiradas++;
+            Jugador jugador = partida.getTurnoActual();
+            int asiento = jugadores.indexOf(jugador);
+            int valor = partida.getDado().lanzar();
+            
+            // Tres 6 seguidos: la ultima ficha movida vuelve a casa
+            if (reglas.verificarTurnoExtra(valor)) {
+                partida.incrementarContadorSeis();
+                if (reglas.verificarTresSeisSeguidos(partida.getContadorSeis())) {
+                    if (ultimaMovida != null && !ultimaMovida.isEnMeta()) {
+                        enviarACasa(tablero, ultimaMovida);
+                    }
+                    ultimaMovida = null;
+                    partida.cambiarTurno();
+                    continue;
+                }
+            }
+            
+            List<Ficha> disponibles = jugador.getFichasDisponibles(valor);
+            if (!disponibles.isEmpty()) {
+                Ficha ficha = estrategias[asiento].elegirFicha(partida, jugador, disponibles, valor, random);
+                if (ficha.isEnCasa()) {
+                    tablero.sacarFicha(ficha);
+                } else {
+                    tablero.moverFicha(ficha, valor);
+                }
+                ultimaMovida = ficha;
+                
+                int premio = reglas.aplicar(jugador, ficha, tablero, partida);
+                // El premio se usa con otra ficha en juego, puede encadenar mas premios
+                while (premio > 0) {
+                    if (premio == 20) {
+                        capturas++;
+                    }
+                    List<Ficha> enJuego = jugador.getFichasEnJuego();
+                    if (enJuego.isEmpty()) {
+                        break;
+                    }
+                    Ficha otra = estrategias[asiento].elegirFicha(partida, jugador, enJuego, premio, random);
+                    tablero.moverFicha(otra, premio);
+                    premio = reglas.aplicar(jugador, otra, tablero, partida);
+                }
+                
+                if (fichasEnMeta(jugador) == 4) {
+                    ganador = asiento;
+                    break;
+                }
+            }
+            
+            if (!reglas.verificarTurnoExtra(valor)) {
+                ultimaMovida = null;
+                partida.cambiarTurno();
+            }
+        }
+        
+        estadisticas.registrar(ganador, tiradas, capturas);
+        return ganador;
+    }
+    
+    private static void enviarACasa(Tablero tablero, Ficha ficha) {
+        Casilla casilla = tablero.getCasilla(ficha.getPosicion());
+        if (casilla != null) {
+            casilla.removerFicha(ficha);
+        }
+        ficha.regresarACasa();
+    }
+    
+    /**
+     * Misma condicion de victoria que Partida.finalizarPartida
+     */
+    private static int fichasEnMeta(Jugador jugador) {
+        int enMeta = 0;
+        for (Ficha ficha : jugador.getFichas()) {
+            if (ficha.isEnMeta()) {
+                enMeta++;
+            }
+        }
+        return enMeta;
+    }
+    
+    public int getNumJugadores() { return estrategias.length; }
+}
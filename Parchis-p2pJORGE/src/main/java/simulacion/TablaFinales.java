@@ -0,0 +1,271 @@
+/**
+ * Tabla de finales de carrera generada por GeneradorFinales (modulo de benchmarks), mapeada en memoria
+ * Por cada jugador en carrera (ver ExpectimaxCarrera) guarda los turnos que le
+ * faltan jugando lo mejor posible; combinando los de todos los jugadores sale
+ * la probabilidad de ganar de cada uno. No se carga nada en el heap: cada
+ * consulta es un indice combinatorio y unas lecturas absolutas del buffer
+ * 
+ * Formato (big endian):
+ *   cabecera: magia i32, version i32, maxDistancia i32, estados i32, maxTurnos i32,
+ *             premioMeta i32, nanosGeneracion i64
+ *   indice: desplazamiento i32 de cada registro, por indice de estado
+ *   registro: turnosEsperados f32, fuera u16, primero u8, cantidad u8,
+ *             acumulada u16 por cada turno desde primero
+ * Acumulada es P(acabar en t turnos o menos) * 65535; antes de primero vale 0
+ * y despues la del ultimo turno guardado. Fuera es la probabilidad de que el
+ * tercer 6 mande una ficha a casa (la posicion sale de la tabla)
+ * Solo hay lecturas absolutas: la misma tabla se comparte entre hilos
+ */
+package simulacion;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import modelo.EstadoPartida;
+
+public class TablaFinales {
+    public static final int MAGIA = 0x50464E31;
+    public static final int VERSION = 1;
+    public static final int MAX_DISTANCIA = ExpectimaxCarrera.MAX_DISTANCIA;
+    public static final int MAX_TURNOS = 64;
+    public static final int ESCALA = 0xFFFF;
+    
+    static final int TAMANO_CABECERA = 32;
+    static final int OFFSET_PREMIO_META = 20;
+    static final int OFFSET_NANOS = 24;
+    
+    private final MappedByteBuffer datos;
+    private final int estados;
+    private final long nanosGeneracion;
+    private final ExpectimaxCarrera expectimax;
+    
+    private TablaFinales(MappedByteBuffer datos) throws IOException {
+        this.datos = datos;
+        if (datos.capacity() < TAMANO_CABECERA || datos.getInt(0) != MAGIA) {
+            throw new IOException("No es una tabla de finales");
+        }
+        if (datos.getInt(4) != VERSION || datos.getInt(8) != MAX_DISTANCIA
+                || datos.getInt(12) != ExpectimaxCarrera.ESTADOS || datos.getInt(16) != MAX_TURNOS) {
+            throw new IOException("Tabla de finales de otra version, hay que generarla otra vez");
+        }
+        this.estados = datos.getInt(12);
+        this.nanosGeneracion = datos.getLong(OFFSET_NANOS);
+        this.expectimax = new ExpectimaxCarrera(this::getTurnosEsperados, datos.getInt(OFFSET_PREMIO_META));
+    }
+    
+    /**
+     * Mapea el archivo en solo lectura; el canal se cierra enseguida
+     * @param archivo Tabla escrita por GeneradorFinales
+     */
+    public static TablaFinales abrir(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            return new TablaFinales(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        }
+    }
+    
+    // ---- Posiciones ----
+    
+    /**
+     * Indice en la tabla de las fichas de un jugador
+     * @return -1 si tiene fichas en casa o a mas de MAX_DISTANCIA de la meta
+     */
+    public static int indice(EstadoPartida estado, int jugador) {
+        int fichas = fichas(estado, jugador);
+        return fichas < 0 ? -1 : ExpectimaxCarrera.indice(fichas);
+    }
+    
+    /**
+     * Distancias a meta de las fichas del jugador, empaquetadas y ordenadas
+     * @return -1 si no esta en carrera
+     */
+    private static int fichas(EstadoPartida estado, int jugador) {
+        int base = jugador * EstadoPartida.FICHAS_POR_JUGADOR;
+        int a = distancia(estado, base);
+        int b = distancia(estado, base + 1);
+        int c = distancia(estado, base + 2);
+        int d = distancia(estado, base + 3);
+        if ((a | b | c | d) < 0) {
+            return -1;
+        }
+        return ExpectimaxCarrera.ordenar(a, b, c, d);
+    }
+    
+    /**
+     * Casillas hasta la meta, 0 en meta, -1 en casa o fuera de la tabla
+     */
+    private static int distancia(EstadoPartida estado, int slot) {
+        if (estado.isEnMeta(slot)) {
+            return 0;
+        }
+        if (!estado.isEnTablero(slot)) {
+            return -1;
+        }
+        int d = EstadoPartida.CASILLA_META - estado.getPosicion(slot);
+        return d <= MAX_DISTANCIA ? d : -1;
+    }
+    
+    // ---- Consultas ----
+    
+    private int registro(int indice) {
+        return datos.getInt(TAMANO_CABECERA + indice * 4);
+    }
+    
+    /**
+     * Turnos esperados hasta meter todas las fichas (salir de la tabla cuenta
+     * como ExpectimaxCarrera.FUERA turnos)
+     */
+    public double getTurnosEsperados(int indice) {
+        return datos.getFloat(registro(indice));
+    }
+    
+    /**
+     * Probabilidad de que el tercer 6 saque la posicion de la tabla
+     */
+    public double probabilidadFuera(int indice) {
+        return (double) (datos.getChar(registro(indice) + 4)) / ESCALA;
+    }
+    
+    /**
+     * Probabilidad de meter todas las fichas en turnos turnos o menos
+     */
+    public double probabilidadAcabar(int indice, int turnos) {
+        return (double) acumulada(registro(indice), turnos) / ESCALA;
+    }
+    
+    private int acumulada(int registro, int turnos) {
+        int primero = datos.get(registro + 6) & 0xFF;
+        int cantidad = datos.get(registro + 7) & 0xFF;
+        if (turnos < primero) {
+            return 0;
+        }
+        int t = Math.min(turnos - primero, cantidad - 1);
+        return datos.getChar(registro + 8 + t * 2);
+    }
+    
+    /**
+     * Probabilidad de ganar de un jugador si todos estan en carrera, al empezar
+     * el turno de estado.getTurno() (un 6 pendiente de repetir cuenta como turno
+     * nuevo). Cada jugador acaba en su turno T con la distribucion de la tabla;
+     * gana el primero en acabar en el orden de turnos
+     * @return -1 si algun jugador no esta en la tabla
+     */
+    public double probabilidadVictoria(EstadoPartida estado, int jugador) {
+        int n = estado.getNumJugadores();
+        int turno = estado.getTurno();
+        // Registros de los asientos en variables, sin crear arrays por consulta
+        int r0 = registro(estado, 0);
+        int r1 = n > 1 ? registro(estado, 1) : 0;
+        int r2 = n > 2 ? registro(estado, 2) : 0;
+        int r3 = n > 3 ? registro(estado, 3) : 0;
+        if ((r0 | r1 | r2 | r3) < 0) {
+            return -1;
+        }
+        
+        // Orden de jugada: los que van antes tienen que seguir sin acabar en
+        // el turno t, los que van despues en el t-1
+        int propio = elegir(jugador, r0, r1, r2, r3);
+        int orden = Math.floorMod(jugador - turno, n);
+        double total = 0;
+        for (int t = 1; t <= MAX_TURNOS; t++) {
+            double p = (double) (acumulada(propio, t) - acumulada(propio, t - 1)) / ESCALA;
+            for (int k = 0; k < n && p > 0; k++) {
+                if (k == orden) {
+                    continue;
+                }
+                int otro = elegir((turno + k) % n, r0, r1, r2, r3);
+                int hasta = k < orden ? t : t - 1;
+                p *= 1 - (double) acumulada(otro, hasta) / ESCALA;
+            }
+            total += p;
+        }
+        return total;
+    }
+    
+    private int registro(EstadoPartida estado, int jugador) {
+        int indice = indice(estado, jugador);
+        return indice < 0 ? -1 : registro(indice);
+    }
+    
+    private static int elegir(int jugador, int r0, int r1, int r2, int r3) {
+        switch (jugador) {
+            case 0: return r0;
+            case 1: return r1;
+            case 2: return r2;
+            default: return r3;
+        }
+    }
+    
+    /**
+     * Sortea el ganador con las distribuciones de la tabla, en lugar de jugar
+     * la partida hasta el final; mismo modelo que probabilidadVictoria
+     * @return Asiento ganador, -1 si alguno no esta en la tabla o todos salen de ella
+     */
+    public int sortearGanador(EstadoPartida estado, SplittableRandom random) {
+        int n = estado.getNumJugadores();
+        int turno = estado.getTurno();
+        int ganador = -1;
+        int mejor = Integer.MAX_VALUE;
+        for (int k = 0; k < n; k++) {
+            int jugador = (turno + k) % n;
+            int registro = registro(estado, jugador);
+            if (registro < 0) {
+                return -1;
+            }
+            int t = sortearTurnos(registro, random.nextInt(ESCALA));
+            // Empates para el que juega antes
+            if (t < mejor) {
+                mejor = t;
+                ganador = jugador;
+            }
+        }
+        return ganador;
+    }
+    
+    /**
+     * Primer turno con acumulada mayor que azar, MAX_VALUE si sale de la tabla
+     */
+    private int sortearTurnos(int registro, int azar) {
+        int primero = datos.get(registro + 6) & 0xFF;
+        int cantidad = datos.get(registro + 7) & 0xFF;
+        for (int t = 0; t < cantidad; t++) {
+            if (datos.getChar(registro + 8 + t * 2) > azar) {
+                return primero + t;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+    
+    /**
+     * Mejor ficha del jugador con el turno, la que deja menos turnos esperados
+     * @param estado Estado con el contador de 6 de la tirada ya sumado
+     * @param valorDado Dado pendiente
+     * @param premio Premio pendiente (0 o el de meta), tiene prioridad sobre el dado
+     * @return Slot a mover, -1 si el jugador o el premio no estan en la tabla
+     */
+    public int mejorFicha(EstadoPartida estado, int valorDado, int premio) {
+        int jugador = estado.getTurno();
+        int fichas = fichas(estado, jugador);
+        if (fichas <= 0 || (premio > 0 && premio != expectimax.getPremioMeta()) || (premio == 0 && valorDado <= 0)) {
+            return -1;
+        }
+        int seises = estado.getContadorSeis();
+        int i = premio > 0 ? expectimax.elegirPremio(fichas, valorDado, seises)
+                : expectimax.elegir(fichas, valorDado, seises);
+        int d = ExpectimaxCarrera.distancia(fichas, i);
+        int base = jugador * EstadoPartida.FICHAS_POR_JUGADOR;
+        for (int slot = base; slot < base + EstadoPartida.FICHAS_POR_JUGADOR; slot++) {
+            if (distancia(estado, slot) == d) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+    
+    public int getEstados() { return estados; }
+    public long getBytes() { return datos.capacity(); }
+    public long getNanosGeneracion() { return nanosGeneracion; }
+    public int getPremioMeta() { return expectimax.getPremioMeta(); }
+}
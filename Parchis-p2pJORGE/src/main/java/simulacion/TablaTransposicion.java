@@ -0,0 +1,143 @@
+/**
+ * Tabla de transposicion de tamanio fijo y sin bloqueos
+ * Guarda por hash Zobrist las visitas y victorias de una posicion
+ * Cada entrada son dos long (clave ^ dato, dato): si otro hilo escribe a
+ * la vez la entrada queda inconsistente y simplemente no se encuentra
+ * Cubos de 4 entradas: se reemplaza la de otra busqueda o la de menos visitas
+ */
+package simulacion;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TablaTransposicion {
+    public static final int ENTRADAS_POR_CUBO = 4;
+    private static final int BITS_CONTADOR = 28;
+    private static final long MASCARA_CONTADOR = (1L << BITS_CONTADOR) - 1;
+    private static final int DESPLAZAMIENTO_VICTORIAS = BITS_CONTADOR;
+    private static final int DESPLAZAMIENTO_GENERACION = 2 * BITS_CONTADOR;
+    
+    // Dos long por entrada
+    private final AtomicLongArray entradas;
+    private final int mascaraCubos;
+    private volatile int generacion;
+    private final LongAdder consultas;
+    private final LongAdder aciertos;
+    private final LongAdder escrituras;
+    
+    /**
+     * Constructor de la tabla
+     * @param megabytes Memoria aproximada, se redondea a potencia de 2 cubos
+     */
+    public TablaTransposicion(int megabytes) {
+        long bytesCubo = ENTRADAS_POR_CUBO * 2L * Long.BYTES;
+        long cubos = Long.highestOneBit(Math.max(1, megabytes * 1024L * 1024L / bytesCubo));
+        this.mascaraCubos = (int) (cubos - 1);
+        this.entradas = new AtomicLongArray((int) (cubos * ENTRADAS_POR_CUBO * 2));
+        this.generacion = 1;
+        this.consultas = new LongAdder();
+        this.aciertos = new LongAdder();
+        this.escrituras = new LongAdder();
+    }
+    
+    /**
+     * Empieza otra busqueda: las entradas anteriores pasan a reemplazables
+     */
+    public void nuevaGeneracion() {
+        generacion = generacion % 255 + 1;
+    }
+    
+    private int primera(long clave) {
+        return ((int) (clave ^ (clave >>> 32)) & mascaraCubos) * ENTRADAS_POR_CUBO * 2;
+    }
+    
+    /**
+     * Busca una posicion
+     * @param clave Hash Zobrist de la posicion
+     * @return Dato empaquetado (leer con visitas y victorias), 0 si no esta
+     */
+    public long buscar(long clave) {
+        consultas.increment();
+        int base = primera(clave);
+        for (int i = 0; i < ENTRADAS_POR_CUBO * 2; i += 2) {
+            long dato = entradas.getOpaque(base + i + 1);
+            if (dato != 0 && (entradas.getOpaque(base + i) ^ dato) == clave) {
+                aciertos.increment();
+                return dato;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * Guarda o actualiza una posicion
+     * @param clave Hash Zobrist de la posicion
+     * @param visitas Visitas acumuladas
+     * @param victorias Victorias del jugador que movio a esta posicion
+     */
+    public void guardar(long clave, int visitas, int victorias) {
+        int gen = generacion;
+        long dato = Math.min(visitas, MASCARA_CONTADOR)
+                | (Math.min(victorias, MASCARA_CONTADOR) << DESPLAZAMIENTO_VICTORIAS)
+                | ((long) gen << DESPLAZAMIENTO_GENERACION);
+        int base = primera(clave);
+        
+        // Misma clave, o la entrada mas barata de perder
+        int elegida = base;
+        long peorPeso = Long.MAX_VALUE;
+        for (int i = 0; i < ENTRADAS_POR_CUBO * 2; i += 2) {
+            long actual = entradas.getOpaque(base + i + 1);
+            if (actual == 0 || (entradas.getOpaque(base + i) ^ actual) == clave) {
+                elegida = base + i;
+                break;
+            }
+            long peso = visitas(actual) + (generacion(actual) == gen ? MASCARA_CONTADOR + 1 : 0);
+            if (peso < peorPeso) {
+                peorPeso = peso;
+                elegida = base + i;
+            }
+        }
+        entradas.setOpaque(elegida, clave ^ dato);
+        entradas.setOpaque(elegida + 1, dato);
+        escrituras.increment();
+    }
+    
+    public static int visitas(long dato) {
+        return (int) (dato & MASCARA_CONTADOR);
+    }
+    
+    public static int victorias(long dato) {
+        return (int) ((dato >>> DESPLAZAMIENTO_VICTORIAS) & MASCARA_CONTADOR);
+    }
+    
+    private static int generacion(long dato) {
+        return (int) (dato >>> DESPLAZAMIENTO_GENERACION);
+    }
+    
+    /**
+     * Porcentaje de busquedas que encontraron la posicion
+     */
+    public double getTasaAciertos() {
+        long total = consultas.sum();
+        return total == 0 ? 0 : 100.0 * aciertos.sum() / total;
+    }
+    
+    /**
+     * Entradas con algun dato, recorriendo toda la tabla
+     */
+    public int contarOcupadas() {
+        int ocupadas = 0;
+        for (int i = 1; i < entradas.length(); i += 2) {
+            if (entradas.getOpaque(i) != 0) {
+                ocupadas++;
+            }
+        }
+        return ocupadas;
+    }
+    
+    public long getBytes() { return (long) entradas.length() * Long.BYTES; }
+    public int getEntradas() { return entradas.length() / 2; }
+    public long getConsultas() { return consultas.sum(); }
+    public long getAciertos() { return aciertos.sum(); }
+    public long getEscrituras() { return escrituras.sum(); }
+}
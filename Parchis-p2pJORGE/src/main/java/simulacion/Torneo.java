@@ -0,0 +1,239 @@
+/**
+ * Torneo de bots: liga (todos contra todos) o sistema suizo
+ * Cada mesa se juega con todas las rotaciones de asientos, asi la ventaja
+ * del asiento (el ultimo gana mucho mas) no decide la clasificacion
+ * 
+ * Las partidas se reparten en un ForkJoinPool (robo de trabajo) y cada una
+ * actualiza los ratings Elo y avisa al consumidor en cuanto termina
+ */
+package simulacion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import modelo.Partida;
+
+public class Torneo {
+    public enum Formato { LIGA, SUIZO }
+    
+    private static final int PARTIDAS_POR_TAREA = 16;
+    
+    private final String[] nombres;
+    private final EstrategiaMovimiento[] estrategias;
+    private final int jugadoresPorMesa;
+    private final int repeticiones;
+    private final RatingElo ratings;
+    private int siguienteId;
+    
+    /**
+     * Constructor del torneo
+     * @param nombres Nombre de cada participante
+     * @param estrategias Estrategia de cada participante
+     * @param jugadoresPorMesa Jugadores por partida (2-4)
+     * @param repeticiones Veces que se juega cada rotacion de cada mesa
+     */
+    public Torneo(String[] nombres, EstrategiaMovimiento[] estrategias, int jugadoresPorMesa, int repeticiones) {
+        if (jugadoresPorMesa < 2 || jugadoresPorMesa > 4 || jugadoresPorMesa > estrategias.length) {
+            throw new IllegalArgumentException("Jugadores por mesa no validos: " + jugadoresPorMesa);
+        }
+        this.nombres = nombres;
+        this.estrategias = estrategias;
+        this.jugadoresPorMesa = jugadoresPorMesa;
+        this.repeticiones = repeticiones;
+        this.ratings = new RatingElo(estrategias.length);
+        this.siguienteId = 1;
+    }
+    
+    // ---- Emparejamientos ----
+    
+    /**
+     * Todas las combinaciones de participantes de tamano jugadoresPorMesa
+     */
+    public List<int[]> mesasLiga() {
+        List<int[]> mesas = new ArrayList<>();
+        combinar(new int[jugadoresPorMesa], 0, 0, mesas);
+        return mesas;
+    }
+    
+    private void combinar(int[] mesa, int posicion, int desde, List<int[]> mesas) {
+        if (posicion == mesa.length) {
+            mesas.add(mesa.clone());
+            return;
+        }
+        for (int p = desde; p < estrategias.length; p++) {
+            mesa[posicion] = p;
+            combinar(mesa, posicion + 1, p + 1, mesas);
+        }
+    }
+    
+    /**
+     * Mesas de una ronda suiza: participantes ordenados por rating y agrupados
+     * de jugadoresPorMesa en jugadoresPorMesa; los que sobran descansan
+     */
+    public List<int[]> mesasSuizas() {
+        Integer[] orden = new Integer[estrategias.length];
+        for (int i = 0; i < orden.length; i++) {
+            orden[i] = i;
+        }
+        Arrays.sort(orden, (a, b) -> Double.compare(ratings.getRating(b), ratings.getRating(a)));
+        
+        List<int[]> mesas = new ArrayList<>();
+        for (int i = 0; i + jugadoresPorMesa <= orden.length; i += jugadoresPorMesa) {
+            int[] mesa = new int[jugadoresPorMesa];
+            for (int j = 0; j < jugadoresPorMesa; j++) {
+                mesa[j] = orden[i + j];
+            }
+            mesas.add(mesa);
+        }
+        return mesas;
+    }
+    
+    /**
+     * Partidas de un conjunto de mesas: cada rotacion de asientos, repeticiones veces
+     * @return Participante de cada asiento por partida
+     */
+    public List<int[]> partidas(List<int[]> mesas) {
+        List<int[]> partidas = new ArrayList<>(mesas.size() * jugadoresPorMesa * repeticiones);
+        for (int[] mesa : mesas) {
+            for (int r = 0; r < repeticiones; r++) {
+                for (int rotacion = 0; rotacion < mesa.length; rotacion++) {
+                    int[] asientos = new int[mesa.length];
+                    for (int s = 0; s < mesa.length; s++) {
+                        asientos[s] = mesa[(s + rotacion) % mesa.length];
+                    }
+                    partidas.add(asientos);
+                }
+            }
+        }
+        return partidas;
+    }
+    
+    // ---- Ejecucion ----
+    
+    /**
+     * Juega el torneo completo
+     * @param formato Liga o suizo
+     * @param rondas Rondas del suizo (la liga es una sola pasada)
+     * @param hilos Hilos del pool
+     * @param alTerminar Recibe cada resultado en cuanto acaba, desde el hilo que lo jugo
+     * @return Estadisticas por asiento y tiempo total
+     */
+    public EstadisticasSimulacion ejecutar(Formato formato, int rondas, int hilos, Consumer<Resultado> alTerminar) {
+        ForkJoinPool pool = new ForkJoinPool(hilos);
+        try {
+            long inicio = System.nanoTime();
+            EstadisticasSimulacion total = new EstadisticasSimulacion(jugadoresPorMesa);
+            int pasadas = formato == Formato.LIGA ? 1 : rondas;
+            for (int ronda = 0; ronda < pasadas; ronda++) {
+                // El suizo empareja con los ratings de la ronda anterior
+                List<int[]> mesas = formato == Formato.LIGA ? mesasLiga() : mesasSuizas();
+                List<int[]> partidas = partidas(mesas);
+                int primerId = siguienteId;
+                siguienteId += partidas.size();
+                total.sumar(pool.invoke(new TareaTorneo(partidas, 0, partidas.size(), primerId, alTerminar)));
+            }
+            total.setNanos(System.nanoTime() - inicio);
+            return total;
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    private class TareaTorneo extends RecursiveTask<EstadisticasSimulacion> {
+        private static final long serialVersionUID = 1L;
+        
+        // Las tareas no se serializan nunca, solo viven en el pool
+        private final transient List<int[]> partidas;
+        private final int desde;
+        private final int hasta;
+        private final int primerId;
+        private final transient Consumer<Resultado> alTerminar;
+        
+        TareaTorneo(List<int[]> partidas, int desde, int hasta, int primerId, Consumer<Resultado> alTerminar) {
+            this.partidas = partidas;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.primerId = primerId;
+            this.alTerminar = alTerminar;
+        }
+        
+        @Override
+        protected EstadisticasSimulacion compute() {
+            if (hasta - desde <= PARTIDAS_POR_TAREA) {
+                EstadisticasSimulacion estadisticas = new EstadisticasSimulacion(jugadoresPorMesa);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                // Un simulador y una partida por tarea; solo cambian las estrategias de cada asiento
+                EstrategiaMovimiento[] porAsiento = new EstrategiaMovimiento[jugadoresPorMesa];
+                SimuladorPartida simulador = new SimuladorPartida(porAsiento);
+                Partida partida = new Partida(primerId + desde);
+                for (int i = desde; i < hasta; i++) {
+                    int[] asientos = partidas.get(i);
+                    for (int s = 0; s < asientos.length; s++) {
+                        porAsiento[s] = estrategias[asientos[s]];
+                    }
+                    simulador.prepararPartida(partida, primerId + i);
+                    int ganador = simulador.jugar(partida, random, estadisticas);
+                    ratings.registrar(asientos, ganador);
+                    if (alTerminar != null) {
+                        alTerminar.accept(new Resultado(primerId + i, asientos, ganador));
+                    }
+                }
+                return estadisticas;
+            }
+            
+            int mitad = (desde + hasta) >>> 1;
+            TareaTorneo izquierda = new TareaTorneo(partidas, desde, mitad, primerId, alTerminar);
+            izquierda.fork();
+            EstadisticasSimulacion derecha = new TareaTorneo(partidas, mitad, hasta, primerId, alTerminar).compute();
+            return derecha.sumar(izquierda.join());
+        }
+    }
+    
+    /**
+     * Resultado de una partida del torneo
+     */
+    public static final class Resultado {
+        private final int idPartida;
+        private final int[] asientos;
+        private final int ganador;
+        
+        Resultado(int idPartida, int[] asientos, int ganador) {
+            this.idPartida = idPartida;
+            this.asientos = asientos;
+            this.ganador = ganador;
+        }
+        
+        public int getIdPartida() { return idPartida; }
+        public int getParticipante(int asiento) { return asientos[asiento]; }
+        public int getAsientoGanador() { return ganador; }
+        public int getGanador() { return ganador >= 0 ? asientos[ganador] : -1; }
+    }
+    
+    /**
+     * Clasificacion ordenada por rating
+     */
+    public String clasificacion() {
+        Integer[] orden = new Integer[estrategias.length];
+        for (int i = 0; i < orden.length; i++) {
+            orden[i] = i;
+        }
+        Arrays.sort(orden, (a, b) -> Double.compare(ratings.getRating(b), ratings.getRating(a)));
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-4s %-14s %8s %9s %10s%n", "#", "participante", "rating", "partidas", "victorias"));
+        for (int i = 0; i < orden.length; i++) {
+            int p = orden[i];
+            long jugadas = ratings.getPartidas(p);
+            sb.append(String.format("%-4d %-14s %8.1f %9d %9.1f%%%n", i + 1, nombres[p], ratings.getRating(p),
+                    jugadas, jugadas == 0 ? 0 : 100.0 * ratings.getVictorias(p) / jugadas));
+        }
+        return sb.toString();
+    }
+    
+    public RatingElo getRatings() { return ratings; }
+    public String getNombre(int participante) { return nombres[participante]; }
+    public int getJugadoresPorMesa() { return jugadoresPorMesa; }
+}
@@ -0,0 +1,28 @@
+/**
+ * Pruebas de la paleta de colores
+ */
+package modelo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class ColorFichaTest {
+    @Test
+    void nombreSinDistinguirMayusculas() {
+        // La web manda los colores en mayusculas
+        assertEquals(ColorFicha.ROJO, ColorFicha.desdeNombre("ROJO"));
+        assertEquals(ColorFicha.AMARILLO, ColorFicha.desdeNombre("amarillo"));
+        assertEquals(1, ColorFicha.codigo("VERDE"));
+        assertEquals(2, new Ficha("AZUL", 1).getCodigoColor());
+    }
+    
+    @Test
+    void fueraDeLaPaleta() {
+        assertNull(ColorFicha.desdeNombre("Morado"));
+        assertNull(ColorFicha.desdeNombre(null));
+        assertThrows(IllegalArgumentException.class, () -> ColorFicha.codigo("Morado"));
+    }
+}
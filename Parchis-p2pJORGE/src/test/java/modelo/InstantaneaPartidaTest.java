@@ -0,0 +1,34 @@
+/**
+ * Pruebas de las fotos de una partida
+ */
+package modelo;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class InstantaneaPartidaTest {
+    @Test
+    void jugadorSinNombreNoRompeLaFoto() {
+        Partida partida = new Partida(1);
+        partida.agregarJugador(1, null, "Rojo");
+        partida.agregarJugador(2, "Bot2", "Verde");
+        
+        InstantaneaPartida primera = InstantaneaPartida.tomar(partida, null, null);
+        assertNull(primera.getNombre(0));
+        assertSame(primera, InstantaneaPartida.tomar(partida, null, primera));
+    }
+    
+    @Test
+    void sinGanadorNoEstaTerminada() {
+        Partida partida = new Partida(1);
+        partida.agregarJugador(1, "Bot1", "Rojo");
+        partida.agregarJugador(2, "Bot2", "Verde");
+        partida.iniciarPartida();
+        
+        InstantaneaPartida foto = InstantaneaPartida.tomar(partida, new GestorTurno(partida), null);
+        assertFalse(foto.isTerminada());
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Pruebas del diario: tamano de segmento, textos cortados y compactacion
+ */
+package persistencia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import modelo.EstadoPartida;
+import modelo.Ficha;
+import modelo.GestorTurno;
+import modelo.Jugador;
+import modelo.Partida;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DiarioMovimientosTest {
+    private static final String[] COLORES = {"Rojo", "Verde", "Azul", "Amarillo"};
+    private static final int REGISTROS_POR_SEGMENTO = 16;
+    
+    @TempDir
+    Path directorio;
+    
+    @Test
+    void segmentoQueNoCabeEnUnBuffer() {
+        int demasiados = Integer.MAX_VALUE / DiarioMovimientos.TAMANO_REGISTRO + 1;
+        assertThrows(IllegalArgumentException.class, () -> new DiarioMovimientos(directorio, demasiados));
+        assertThrows(IllegalArgumentException.class, () -> new DiarioMovimientos(directorio, 0));
+    }
+    
+    @Test
+    void nombreCortadoSinPartirCaracteres() throws IOException {
+        // 11 enes son 22 bytes: la ultima no cabe entera y se quita
+        String enes = "ñ".repeat(11);
+        // 5 emojis de 4 bytes son 20 bytes y el sexto no cabe
+        String emojis = "🎲".repeat(6);
+        try (DiarioMovimientos diario = new DiarioMovimientos(directorio, REGISTROS_POR_SEGMENTO)) {
+            diario.registrarJugador(1, 1, enes, "Rojo");
+            diario.registrarJugador(1, 2, emojis, "Verde");
+            diario.registrarJugador(1, 3, "Bot3", "Azul");
+            
+            List<Jugador> jugadores = RecuperacionDiario.leer(diario).get(1).getJugadores();
+            assertEquals("ñ".repeat(10), jugadores.get(0).getNombre());
+            assertEquals("🎲".repeat(5), jugadores.get(1).getNombre());
+            assertEquals("Bot3", jugadores.get(2).getNombre());
+        }
+    }
+    
+    @Test
+    void compactaYRecuperaDesdeElUltimoSnapshot() throws IOException {
+        Partida larga = new Partida(1);
+        long[] ultimoSnapshot = new long[EstadoPartida.MAX_JUGADORES + 1];
+        
+        try (DiarioMovimientos diario = new DiarioMovimientos(directorio, REGISTROS_POR_SEGMENTO)) {
+            // Una partida que dura mucho mientras otras empiezan y terminan
+            for (int j = 0; j < COLORES.length; j++) {
+                diario.registrarJugador(1, j + 1, "Bot" + (j + 1), COLORES[j]);
+                larga.agregarJugador(new Jugador(j + 1, "Bot" + (j + 1), COLORES[j]));
+            }
+            diario.registrarInicio(1);
+            larga.iniciarPartida();
+            GestorTurno turno = new GestorTurno(larga);
+            Random random = new Random(3);
+            
+            for (int corta = 2; corta < 60; corta++) {
+                diario.registrarJugador(corta, 1, "Bot1", "Rojo");
+                diario.registrarJugador(corta, 2, "Bot2", "Verde");
+                diario.registrarInicio(corta);
+                diario.registrarTirada(corta, 3);
+                diario.registrarFin(corta);
+                
+                jugarUnaTirada(turno, random);
+                EstadoPartida estado = larga.getEstado();
+                diario.registrarSnapshot(1, estado, -1);
+                for (int j = 0; j < EstadoPartida.MAX_JUGADORES; j++) {
+                    ultimoSnapshot[j] = estado.getPalabraFichas(j);
+                }
+                ultimoSnapshot[EstadoPartida.MAX_JUGADORES] = estado.getControl();
+            }
+            
+            // Los asientos de la partida larga estaban en el primer segmento y ya no hacen falta
+            assertTrue(diario.getPrimerSegmento() > 0, "Primer segmento " + diario.getPrimerSegmento());
+            assertFalse(Files.exists(DiarioMovimientos.rutaSegmento(directorio, 0)));
+            assertEquals(1, diario.getPartidasVigentes());
+        }
+        
+        try (DiarioMovimientos diario = new DiarioMovimientos(directorio, REGISTROS_POR_SEGMENTO)) {
+            Map<Integer, PartidaRecuperada> partidas = RecuperacionDiario.leer(diario);
+            PartidaRecuperada datos = partidas.get(1);
+            assertNotNull(datos);
+            assertTrue(datos.isIniciada());
+            assertFalse(datos.isTerminada());
+            for (PartidaRecuperada otra : partidas.values()) {
+                assertTrue(otra == datos || otra.isTerminada(), "Partida " + otra.getIdPartida());
+            }
+            
+            Partida recuperada = new Partida(1);
+            datos.reconstruir(recuperada);
+            for (int j = 0; j < COLORES.length; j++) {
+                Jugador jugador = recuperada.getJugadores().get(j);
+                assertEquals(j + 1, jugador.getIdJugador());
+                assertEquals(COLORES[j], jugador.getColor());
+            }
+            EstadoPartida estado = recuperada.getEstado();
+            for (int j = 0; j < EstadoPartida.MAX_JUGADORES; j++) {
+                assertEquals(ultimoSnapshot[j], estado.getPalabraFichas(j), "Fichas del asiento " + j);
+            }
+            assertEquals(ultimoSnapshot[EstadoPartida.MAX_JUGADORES], estado.getControl());
+            // La recuperacion vuelve a apuntar la partida para las siguientes compactaciones
+            assertEquals(1, diario.getPartidasVigentes());
+        }
+    }
+    
+    /**
+     * Tira y mueve la primera ficha posible hasta cerrar la tirada
+     */
+    private static void jugarUnaTirada(GestorTurno turno, Random random) {
+        if (turno.isTerminada()) {
+            return;
+        }
+        turno.aplicarTirada(1 + random.nextInt(6));
+        while (!turno.isTerminada() && (turno.getValorDado() != 0 || turno.getPremioPendiente() > 0)) {
+            List<Ficha> disponibles = turno.getFichasDisponibles();
+            if (disponibles.isEmpty()) {
+                return;
+            }
+            if (turno.getPremioPendiente() > 0) {
+                turno.moverPremio(disponibles.get(0));
+            } else {
+                turno.moverFicha(disponibles.get(0));
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Pruebas del protocolo binario de deltas
+ * Reproduce partidas eligiendo fichas con semilla fija: tras cada mensaje el receptor tiene
+ * que quedar con el mismo estado que el emisor y las casillas al dia
+ */
+package red;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import modelo.EstadoPartida;
+import modelo.Ficha;
+import modelo.GestorTurno;
+import modelo.Jugador;
+import modelo.Partida;
+import org.junit.jupiter.api.Test;
+
+class ProtocoloBinarioTest {
+    private static final String[] COLORES = {"Rojo", "Verde", "Azul", "Amarillo"};
+    private static final int PARTIDAS = 50;
+    
+    @Test
+    void idaYVueltaDePartidasCompletas() {
+        ByteBuffer buffer = ByteBuffer.allocate(ProtocoloBinario.TAMANO_KEYFRAME + ProtocoloBinario.TAMANO_MAXIMO_DELTA);
+        for (int semilla = 0; semilla < PARTIDAS; semilla++) {
+            EmisorDeltas emisor = new EmisorDeltas(1, 8);
+            Partida receptora = crearPartida();
+            ReceptorDeltas receptor = new ReceptorDeltas(receptora);
+            List<EstadoPartida> estados = grabarPartida(semilla);
+            for (int i = 0; i < estados.size(); i++) {
+                buffer.clear();
+                int escritos = emisor.emitir(estados.get(i), buffer);
+                buffer.flip();
+                assertTrue(receptor.recibir(buffer), "Partida " + semilla + ", mensaje " + i);
+                assertEquals(escritos, buffer.position(), "Partida " + semilla + ", mensaje " + i);
+                assertIguales(estados.get(i), receptora, "Partida " + semilla + ", mensaje " + i);
+            }
+        }
+    }
+    
+    @Test
+    void unDeltaPerdidoEsperaAlSiguienteKeyframe() {
+        List<EstadoPartida> estados = grabarPartida(7);
+        EmisorDeltas emisor = new EmisorDeltas(1, 4);
+        Partida receptora = crearPartida();
+        ReceptorDeltas receptor = new ReceptorDeltas(receptora);
+        ByteBuffer buffer = ByteBuffer.allocate(ProtocoloBinario.TAMANO_MAXIMO_DELTA + ProtocoloBinario.TAMANO_KEYFRAME);
+        
+        for (int i = 0; i < 8; i++) {
+            buffer.clear();
+            emisor.emitir(estados.get(i), buffer);
+            buffer.flip();
+            // El mensaje 1 se pierde; el 2 y el 3 son deltas fuera de secuencia y el 4 un keyframe
+            if (i == 1) {
+                continue;
+            }
+            boolean aplicado = receptor.recibir(buffer);
+            assertEquals(i == 0 || i >= 4, aplicado, "Mensaje " + i);
+            if (aplicado) {
+                assertIguales(estados.get(i), receptora, "Mensaje " + i);
+            }
+        }
+    }
+    
+    @Test
+    void keyframeAtrasadoNoDeshaceLoAplicado() {
+        List<EstadoPartida> estados = grabarPartida(11);
+        EmisorDeltas emisor = new EmisorDeltas(1, 4);
+        Partida receptora = crearPartida();
+        ReceptorDeltas receptor = new ReceptorDeltas(receptora);
+        ByteBuffer buffer = ByteBuffer.allocate(ProtocoloBinario.TAMANO_MAXIMO_DELTA + ProtocoloBinario.TAMANO_KEYFRAME);
+        ByteBuffer atrasado = ByteBuffer.allocate(ProtocoloBinario.TAMANO_KEYFRAME);
+        
+        for (int i = 0; i < 6; i++) {
+            buffer.clear();
+            emisor.emitir(estados.get(i), buffer);
+            buffer.flip();
+            assertTrue(receptor.recibir(buffer), "Mensaje " + i);
+            if (i == 0) {
+                atrasado.put(buffer.flip());
+                atrasado.flip();
+            }
+        }
+        
+        // El keyframe 0 llega tarde: se descarta sin perder la sincronizacion
+        assertFalse(receptor.recibir(atrasado));
+        assertTrue(receptor.isSincronizado());
+        assertIguales(estados.get(5), receptora, "Tras el keyframe atrasado");
+        
+        buffer.clear();
+        emisor.emitir(estados.get(6), buffer);
+        buffer.flip();
+        assertTrue(receptor.recibir(buffer));
+        assertIguales(estados.get(6), receptora, "Mensaje 6");
+    }
+    
+    @Test
+    void tipoDesconocidoNoSeConfundeConMensajeIncompleto() {
+        ByteBuffer buffer = ByteBuffer.allocate(ProtocoloBinario.TAMANO_KEYFRAME);
+        ProtocoloBinario.escribirKeyframe(buffer, 1, 0, new EstadoPartida());
+        buffer.put(1, (byte) 99);
+        buffer.flip();
+        
+        assertEquals(ProtocoloBinario.TIPO_DESCONOCIDO, ProtocoloBinario.leer(buffer, new EstadoPartida(), null));
+        assertEquals(0, buffer.position());
+    }
+    
+    @Test
+    void mensajeCortadoEsIncompleto() {
+        ByteBuffer buffer = ByteBuffer.allocate(ProtocoloBinario.TAMANO_KEYFRAME);
+        ProtocoloBinario.escribirKeyframe(buffer, 1, 0, new EstadoPartida());
+        buffer.flip();
+        buffer.limit(buffer.limit() - 1);
+        
+        assertEquals(ProtocoloBinario.MENSAJE_INCOMPLETO, ProtocoloBinario.leer(buffer, new EstadoPartida(), null));
+        assertEquals(0, buffer.position());
+    }
+    
+    @Test
+    void versionDesconocida() {
+        ByteBuffer buffer = ByteBuffer.allocate(ProtocoloBinario.TAMANO_KEYFRAME);
+        ProtocoloBinario.escribirKeyframe(buffer, 1, 0, new EstadoPartida());
+        buffer.put(0, (byte) (ProtocoloBinario.VERSION + 1));
+        buffer.flip();
+        
+        assertEquals(ProtocoloBinario.VERSION_DESCONOCIDA, ProtocoloBinario.leer(buffer, new EstadoPartida(), null));
+    }
+    
+    @Test
+    void intervaloDeKeyframeNoValido() {
+        assertThrows(IllegalArgumentException.class, () -> new EmisorDeltas(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new EmisorDeltas(1, -3));
+    }
+    
+    private static void assertIguales(EstadoPartida esperado, Partida receptora, String mensaje) {
+        EstadoPartida recibido = receptora.getEstado();
+        for (int j = 0; j < EstadoPartida.MAX_JUGADORES; j++) {
+            assertEquals(esperado.getPalabraFichas(j), recibido.getPalabraFichas(j), mensaje);
+        }
+        assertEquals(esperado.getControl(), recibido.getControl(), mensaje);
+        // Las casillas del receptor siguen a las fichas cambiadas
+        for (Jugador jugador : receptora.getJugadores()) {
+            assertEquals(recibido.getTurno() == receptora.getJugadores().indexOf(jugador), jugador.isTurno(), mensaje);
+            for (Ficha ficha : jugador.getFichas()) {
+                if (recibido.isEnTablero(ficha.getSlot())) {
+                    assertTrue(receptora.getTablero().getCasilla(ficha.getPosicion()).getFichas().contains(ficha), mensaje);
+                }
+            }
+        }
+    }
+    
+    private static Partida crearPartida() {
+        Partida partida = new Partida(1);
+        for (int i = 0; i < COLORES.length; i++) {
+            partida.agregarJugador(new Jugador(i + 1, "Jugador" + (i + 1), COLORES[i]));
+        }
+        partida.iniciarPartida();
+        return partida;
+    }
+    
+    /**
+     * Estado tras cada tirada de una partida con elecciones de semilla fija
+     */
+    private static List<EstadoPartida> grabarPartida(long semilla) {
+        Partida partida = crearPartida();
+        GestorTurno turno = new GestorTurno(partida);
+        Random random = new Random(semilla);
+        List<EstadoPartida> estados = new ArrayList<>();
+        while (!turno.isTerminada() && estados.size() < 5_000) {
+            turno.tirarDado();
+            while (!turno.isTerminada() && (turno.getValorDado() != 0 || turno.getPremioPendiente() > 0)) {
+                List<Ficha> disponibles = turno.getFichasDisponibles();
+                Ficha ficha = disponibles.get(random.nextInt(disponibles.size()));
+                if (turno.getPremioPendiente() > 0) {
+                    turno.moverPremio(ficha);
+                } else {
+                    turno.moverFicha(ficha);
+                }
+            }
+            EstadoPartida copia = new EstadoPartida();
+            copia.copiarDe(partida.getEstado());
+            estados.add(copia);
+        }
+        return estados;
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Prueba de carga local del registro de partidas
+ * Juega muchas partidas a la vez, cada una con 4 bots que envian comandos
+ * y mide partidas por segundo y latencia por comando
+ * Un espectador lee a la vez las instantaneas de todas las salas y comprueba
+ * que ninguna version va hacia atras
+ * La prueba juega pocas partidas; main las juega todas y mide
+ * Uso: CargaSalasTest [partidas]
+ */
+package servidor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import metricas.HistogramaLatencia;
+import metricas.MetricasJuego;
+import modelo.InstantaneaPartida;
+import modelo.PoolPartidas;
+import org.junit.jupiter.api.Test;
+
+public class CargaSalasTest {
+    private static final int JUGADORES = 4;
+    private static final int LIMITE_COMANDOS = 20_000;
+    private static final int PARTIDAS_PRUEBA = 200;
+    
+    private final HistogramaLatencia latencias = new HistogramaLatencia();
+    private final AtomicLong comandos = new AtomicLong();
+    private final AtomicLong terminadas = new AtomicLong();
+    private final AtomicLong lecturas = new AtomicLong();
+    private final AtomicLong retrocesos = new AtomicLong();
+    private RegistroPartidas registro;
+    private volatile boolean jugando;
+    
+    @Test
+    void partidasSimultaneasSinRetrocesos() throws InterruptedException {
+        try (RegistroPartidas registro = new RegistroPartidas()) {
+            ejecutar(registro, PARTIDAS_PRUEBA);
+            assertEquals(PARTIDAS_PRUEBA, terminadas.get());
+            assertEquals(0, retrocesos.get());
+            assertEquals(0, registro.getNumPartidas());
+        }
+    }
+    
+    @Test
+    void unirseSinJugadorOSinNombreNoSienta() {
+        try (RegistroPartidas registro = new RegistroPartidas()) {
+            registro.enrutar(new Comando(TipoComando.CREAR, 1)).join();
+            assertFalse(registro.enrutar(Comando.unirse(1, 0, "Bot", null)).join().isOk());
+            assertFalse(registro.enrutar(Comando.unirse(1, 1, null, null)).join().isOk());
+            assertFalse(registro.enrutar(Comando.unirse(1, 1, " ", null)).join().isOk());
+            assertEquals(0, registro.buscar(1).getPartida().getJugadores().size());
+        }
+    }
+    
+    /**
+     * Juega todas las partidas, una por hilo virtual
+     * @param registro Registro donde se crean las partidas
+     * @param partidas Numero de partidas simultaneas
+     * @return Nanosegundos transcurridos
+     */
+    public long ejecutar(RegistroPartidas registro, int partidas) throws InterruptedException {
+        this.registro = registro;
+        long inicio = System.nanoTime();
+        jugando = true;
+        Thread espectador = new Thread(() -> observar(partidas), "espectador");
+        espectador.start();
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 1; i <= partidas; i++) {
+                int idPartida = i;
+                hilos.execute(() -> jugarPartida(idPartida));
+            }
+            hilos.shutdown();
+            hilos.awaitTermination(1, TimeUnit.HOURS);
+        }
+        long nanos = System.nanoTime() - inicio;
+        jugando = false;
+        espectador.join();
+        return nanos;
+    }
+    
+    /**
+     * Recorre las salas leyendo su ultima instantanea mientras se juega
+     */
+    private void observar(int partidas) {
+        long[] versiones = new long[partidas + 1];
+        long leidas = 0;
+        while (jugando) {
+            for (int id = 1; id <= partidas; id++) {
+                SalaPartida sala = registro.buscar(id);
+                if (sala == null) {
+                    continue;
+                }
+                InstantaneaPartida foto = sala.getInstantanea();
+                if (foto.getVersion() < versiones[id]) {
+                    retrocesos.incrementAndGet();
+                }
+                versiones[id] = foto.getVersion();
+                leidas++;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        lecturas.addAndGet(leidas);
+    }
+    
+    private void jugarPartida(int idPartida) {
+        enviar(new Comando(TipoComando.CREAR, idPartida));
+        for (int j = 1; j <= JUGADORES; j++) {
+            enviar(Comando.unirse(idPartida, j, "Bot" + j, null));
+        }
+        Respuesta respuesta = enviar(new Comando(TipoComando.INICIAR, idPartida));
+        
+        int enviados = 0;
+        while (respuesta.isOk() && !respuesta.isTerminada() && enviados < LIMITE_COMANDOS) {
+            int jugador = respuesta.getTurno();
+            respuesta = enviar(new Comando(TipoComando.TIRAR, idPartida, jugador));
+            enviados++;
+            
+            // Mover la primera ficha posible, tambien con los premios
+            while (respuesta.isOk() && respuesta.getMovibles() != null && respuesta.getMovibles().length > 0) {
+                respuesta = enviar(Comando.mover(idPartida, jugador, respuesta.getMovibles()[0]));
+                enviados++;
+            }
+        }
+        
+        if (respuesta.isTerminada()) {
+            terminadas.incrementAndGet();
+        }
+        enviar(new Comando(TipoComando.CERRAR, idPartida));
+    }
+    
+    private Respuesta enviar(Comando comando) {
+        long inicio = System.nanoTime();
+        Respuesta respuesta = registro.enrutar(comando).join();
+        latencias.registrar(System.nanoTime() - inicio);
+        comandos.incrementAndGet();
+        return respuesta;
+    }
+    
+    public static void main(String[] args) throws InterruptedException {
+        int partidas = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        
+        CargaSalasTest prueba = new CargaSalasTest();
+        long nanos;
+        PoolPartidas pool;
+        try (RegistroPartidas registro = new RegistroPartidas()) {
+            nanos = prueba.ejecutar(registro, partidas);
+            pool = registro.getPool();
+        }
+        
+        double segundos = nanos / 1e9;
+        HistogramaLatencia l = prueba.latencias;
+        System.out.println("=== Prueba de carga de salas ===");
+        System.out.printf("Partidas: %d (terminadas: %d) en %.2f s%n", partidas, prueba.terminadas.get(), segundos);
+        System.out.printf("Partidas/s: %.0f%n", partidas / segundos);
+        System.out.printf("Comandos/s: %.0f%n", prueba.comandos.get() / segundos);
+        System.out.printf("Latencia por comando (us): p50=%.1f p99=%.1f p99.9=%.1f%n",
+                l.percentil(50) / 1e3, l.percentil(99) / 1e3, l.percentil(99.9) / 1e3);
+        System.out.printf("Partidas creadas: %d, recicladas del pool: %d%n", pool.getCreadas(), pool.getReutilizadas());
+        System.out.printf("Lecturas del espectador: %d, versiones hacia atras: %d%n",
+                prueba.lecturas.get(), prueba.retrocesos.get());
+        MetricasJuego m = MetricasJuego.getGlobal();
+        System.out.printf("Metricas: movimientos=%d capturas=%d tiradas=%d activas=%d, aplicar p99=%d ns%n",
+                m.getMovimientos(), m.getCapturas(), m.getTiradas(), m.getPartidasActivas(), m.getAplicarP99());
+    }
+}
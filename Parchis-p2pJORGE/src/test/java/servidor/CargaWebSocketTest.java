@@ -0,0 +1,307 @@
+/**
+ * Prueba de carga de extremo a extremo por WebSocket
+ * Arranca el ServidorSalas en este proceso, en localhost, y conecta un cliente
+ * Java-WebSocket por jugador. Cada partida juega completa (tirar y mover hasta
+ * que hay ganador) con un solo comando en vuelo, como un jugador real que
+ * espera la respuesta antes de seguir
+ * 
+ * Repite la prueba para cada nivel de partidas simultaneas y saca la curva
+ * de comandos/s y latencia de ida y vuelta frente a jugadores conectados
+ * La prueba juega un solo nivel pequeno; main saca la curva entera
+ * Uso: CargaWebSocketTest [partidasPorNivel, ej. 1,4,16,64] [jugadoresPorPartida]
+ */
+package servidor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.gson.Gson;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import metricas.HistogramaLatencia;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+import org.junit.jupiter.api.Test;
+
+public class CargaWebSocketTest {
+    private static final int LIMITE_COMANDOS = 20_000;
+    private static final long ESPERA_MAXIMA_MINUTOS = 30;
+    private static final int PARTIDAS_PRUEBA = 8;
+    
+    private final Gson gson = new Gson();
+    private final HistogramaLatencia latencias = new HistogramaLatencia();
+    private final AtomicLong comandos = new AtomicLong();
+    private final AtomicLong errores = new AtomicLong();
+    private final AtomicLong terminadas = new AtomicLong();
+    private URI direccion;
+    private CountDownLatch pendientes;
+    
+    @Test
+    void partidasCompletasPorWebSocket() throws InterruptedException {
+        try (RegistroPartidas registro = new RegistroPartidas()) {
+            ServidorSalas servidor = arrancar(registro);
+            try {
+                Nivel nivel = ejecutar(servidor.getPort(), PARTIDAS_PRUEBA, 4, 1);
+                assertEquals(0, nivel.errores);
+                assertEquals(PARTIDAS_PRUEBA, nivel.terminadas);
+                assertEquals(0, registro.getNumPartidas());
+            } finally {
+                servidor.stop(1000);
+            }
+        }
+    }
+    
+    /**
+     * Arranca un ServidorSalas en localhost, en un puerto libre
+     */
+    private static ServidorSalas arrancar(RegistroPartidas registro) throws InterruptedException {
+        CountDownLatch arrancado = new CountDownLatch(1);
+        ServidorSalas servidor = new ServidorSalas(new InetSocketAddress("localhost", 0), registro) {
+            @Override
+            public void onStart() {
+                arrancado.countDown();
+            }
+        };
+        servidor.start();
+        arrancado.await();
+        return servidor;
+    }
+    
+    /**
+     * Juega un nivel de la curva: varias partidas a la vez, cada una hasta el final
+     * @param puerto Puerto del servidor en localhost
+     * @param partidas Partidas simultaneas
+     * @param jugadores Jugadores por partida (2-4)
+     * @param primerId Id de la primera partida, para no repetir ids entre niveles
+     * @return Resultado del nivel
+     */
+    public Nivel ejecutar(int puerto, int partidas, int jugadores, int primerId) throws InterruptedException {
+        direccion = URI.create("ws://localhost:" + puerto);
+        latencias.reiniciar();
+        comandos.set(0);
+        errores.set(0);
+        terminadas.set(0);
+        pendientes = new CountDownLatch(partidas);
+        
+        List<PartidaRemota> remotas = new ArrayList<>();
+        for (int i = 0; i < partidas; i++) {
+            remotas.add(new PartidaRemota(primerId + i, jugadores));
+        }
+        for (PartidaRemota remota : remotas) {
+            remota.conectar();
+        }
+        
+        long inicio = System.nanoTime();
+        for (PartidaRemota remota : remotas) {
+            remota.empezar();
+        }
+        boolean completo = pendientes.await(ESPERA_MAXIMA_MINUTOS, TimeUnit.MINUTES);
+        long nanos = System.nanoTime() - inicio;
+        
+        for (PartidaRemota remota : remotas) {
+            remota.desconectar();
+        }
+        if (!completo) {
+            System.err.println("[CARGA] Se agoto la espera con partidas sin terminar");
+        }
+        return new Nivel(partidas, partidas * jugadores, nanos, comandos.get(), errores.get(), terminadas.get(),
+                latencias.percentil(50), latencias.percentil(99), latencias.percentil(99.9));
+    }
+    
+    /**
+     * Una partida jugada por sus clientes
+     * Cada respuesta decide el siguiente comando y quien lo envia, siempre uno en vuelo
+     */
+    private final class PartidaRemota {
+        private final int idPartida;
+        private final Jugador[] jugadores;
+        private int paso;
+        private int enviados;
+        private long enviadoEn;
+        private boolean cerrando;
+        
+        PartidaRemota(int idPartida, int numJugadores) {
+            this.idPartida = idPartida;
+            this.jugadores = new Jugador[numJugadores];
+            for (int i = 0; i < numJugadores; i++) {
+                jugadores[i] = new Jugador(this, i + 1);
+            }
+        }
+        
+        void conectar() throws InterruptedException {
+            for (Jugador jugador : jugadores) {
+                if (!jugador.connectBlocking(10, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("No se pudo conectar a " + direccion);
+                }
+            }
+        }
+        
+        void desconectar() throws InterruptedException {
+            for (Jugador jugador : jugadores) {
+                jugador.closeBlocking();
+            }
+        }
+        
+        void empezar() {
+            enviar(jugadores[0], new Comando(TipoComando.CREAR, idPartida));
+        }
+        
+        private void enviar(Jugador jugador, Comando comando) {
+            enviados++;
+            enviadoEn = System.nanoTime();
+            jugador.send(gson.toJson(comando));
+        }
+        
+        /**
+         * Llega en el hilo del cliente que envio el comando; nunca hay dos a la vez,
+         * pero el hilo cambia de un jugador a otro, de ahi el synchronized
+         */
+        synchronized void responder(Respuesta respuesta) {
+            latencias.registrar(System.nanoTime() - enviadoEn);
+            comandos.incrementAndGet();
+            
+            if (cerrando) {
+                pendientes.countDown();
+                return;
+            }
+            if (!respuesta.isOk()) {
+                errores.incrementAndGet();
+                cerrar();
+                return;
+            }
+            
+            // Preparacion: unir a cada jugador e iniciar
+            if (paso < jugadores.length) {
+                Jugador jugador = jugadores[paso++];
+                enviar(jugador, Comando.unirse(idPartida, jugador.id, "Carga" + jugador.id, null));
+                return;
+            }
+            if (paso == jugadores.length) {
+                paso++;
+                enviar(jugadores[0], new Comando(TipoComando.INICIAR, idPartida));
+                return;
+            }
+            
+            if (respuesta.isTerminada()) {
+                terminadas.incrementAndGet();
+                cerrar();
+            } else if (enviados >= LIMITE_COMANDOS) {
+                cerrar();
+            } else {
+                Jugador turno = jugadores[respuesta.getTurno() - 1];
+                int[] movibles = respuesta.getMovibles();
+                if (movibles != null && movibles.length > 0) {
+                    enviar(turno, Comando.mover(idPartida, turno.id, movibles[0]));
+                } else {
+                    enviar(turno, new Comando(TipoComando.TIRAR, idPartida, turno.id));
+                }
+            }
+        }
+        
+        private void cerrar() {
+            cerrando = true;
+            enviar(jugadores[0], new Comando(TipoComando.CERRAR, idPartida));
+        }
+    }
+    
+    private final class Jugador extends WebSocketClient {
+        private final PartidaRemota partida;
+        private final int id;
+        
+        Jugador(PartidaRemota partida, int id) {
+            super(direccion);
+            this.partida = partida;
+            this.id = id;
+        }
+        
+        @Override
+        public void onOpen(ServerHandshake handshake) {
+        }
+        
+        @Override
+        public void onMessage(String mensaje) {
+            partida.responder(gson.fromJson(mensaje, Respuesta.class));
+        }
+        
+        @Override
+        public void onClose(int codigo, String motivo, boolean remoto) {
+        }
+        
+        @Override
+        public void onError(Exception ex) {
+            System.err.println("[CARGA] Error en el cliente " + id + ": " + ex.getMessage());
+        }
+    }
+    
+    /**
+     * Resultado de un nivel de concurrencia
+     */
+    public static final class Nivel {
+        final int partidas;
+        final int jugadores;
+        final long nanos;
+        final long comandos;
+        final long errores;
+        final long terminadas;
+        final long p50;
+        final long p99;
+        final long p999;
+        
+        Nivel(int partidas, int jugadores, long nanos, long comandos, long errores, long terminadas,
+              long p50, long p99, long p999) {
+            this.partidas = partidas;
+            this.jugadores = jugadores;
+            this.nanos = nanos;
+            this.comandos = comandos;
+            this.errores = errores;
+            this.terminadas = terminadas;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.p999 = p999;
+        }
+        
+        public double getComandosPorSegundo() { return comandos / (nanos / 1e9); }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        String[] niveles = (args.length > 0 ? args[0] : "1,4,16,64").split(",");
+        int jugadores = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        if (jugadores < 2 || jugadores > 4) {
+            System.err.println("Se necesitan entre 2 y 4 jugadores");
+            return;
+        }
+        
+        try (RegistroPartidas registro = new RegistroPartidas()) {
+            ServidorSalas servidor = arrancar(registro);
+            
+            System.out.println("=== Prueba de carga WebSocket (puerto " + servidor.getPort() + ") ===");
+            CargaWebSocketTest prueba = new CargaWebSocketTest();
+            List<Nivel> curva = new ArrayList<>();
+            int siguienteId = 1;
+            for (String texto : niveles) {
+                int partidas = Integer.parseInt(texto.trim());
+                Nivel nivel = prueba.ejecutar(servidor.getPort(), partidas, jugadores, siguienteId);
+                siguienteId += partidas;
+                curva.add(nivel);
+                System.out.printf("%d partidas, %d jugadores: %d comandos en %.2f s (terminadas %d, errores %d)%n",
+                        nivel.partidas, nivel.jugadores, nivel.comandos, nivel.nanos / 1e9,
+                        nivel.terminadas, nivel.errores);
+            }
+            
+            System.out.println();
+            System.out.println("Curva de rendimiento frente a concurrencia (latencias en us)");
+            System.out.printf("%10s %10s %12s %10s %10s %10s%n",
+                    "partidas", "jugadores", "comandos/s", "p50", "p99", "p99.9");
+            for (Nivel nivel : curva) {
+                System.out.printf("%10d %10d %12.0f %10.1f %10.1f %10.1f%n",
+                        nivel.partidas, nivel.jugadores, nivel.getComandosPorSegundo(),
+                        nivel.p50 / 1e3, nivel.p99 / 1e3, nivel.p999 / 1e3);
+            }
+            servidor.stop(1000);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Pruebas del reparto a espectadores con canales lentos
+ */
+package servidor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import modelo.InstantaneaPartida;
+import modelo.Partida;
+import org.junit.jupiter.api.Test;
+import red.ProtocoloBinario;
+
+class DifusionEspectadoresTest {
+    private static final String[] COLORES = {"Rojo", "Verde", "Azul"};
+    private static final long ESPERA_MAXIMA_MS = 5_000;
+    
+    /**
+     * Canal que se puede dejar saturado y apunta la secuencia de cada mensaje
+     */
+    private static final class CanalLento implements CanalEspectador {
+        final List<Integer> secuencias = new CopyOnWriteArrayList<>();
+        volatile boolean saturado;
+        
+        @Override
+        public void enviar(ByteBuffer mensaje) {
+            secuencias.add(ProtocoloBinario.secuencia(mensaje));
+        }
+        
+        @Override
+        public boolean isSaturado() {
+            return saturado;
+        }
+        
+        @Override
+        public boolean isAbierto() {
+            return true;
+        }
+    }
+    
+    @Test
+    void elUltimoEstadoLlegaAunqueNoSePubliqueMas() throws InterruptedException {
+        DifusionEspectadores difusion = new DifusionEspectadores(Runnable::run);
+        CanalLento lento = new CanalLento();
+        CanalLento rapido = new CanalLento();
+        Partida partida = new Partida(1);
+        difusion.suscribir(1, lento, null);
+        difusion.suscribir(1, rapido, null);
+        
+        lento.saturado = true;
+        InstantaneaPartida foto = null;
+        for (int i = 1; i <= 3; i++) {
+            partida.agregarJugador(i, "Bot" + i, COLORES[i - 1]);
+            foto = InstantaneaPartida.tomar(partida, null, foto);
+            difusion.publicar(foto);
+        }
+        assertEquals(List.of(1, 2, 3), rapido.secuencias);
+        assertTrue(lento.secuencias.isEmpty());
+        // Del lento solo queda el ultimo: los dos primeros se descartan
+        assertEquals(2, difusion.getDescartados());
+        
+        // El canal se vacia sin que la partida publique nada mas
+        lento.saturado = false;
+        long limite = System.currentTimeMillis() + ESPERA_MAXIMA_MS;
+        while (lento.secuencias.isEmpty() && System.currentTimeMillis() < limite) {
+            Thread.sleep(DifusionEspectadores.REINTENTO_MS);
+        }
+        assertEquals(List.of(3), lento.secuencias);
+        assertEquals(List.of(1, 2, 3), rapido.secuencias);
+    }
+    
+    @Test
+    void sinGuardadosNoHayReintentos() throws InterruptedException {
+        DifusionEspectadores difusion = new DifusionEspectadores(Runnable::run);
+        CanalLento canal = new CanalLento();
+        Partida partida = new Partida(1);
+        partida.agregarJugador(1, "Bot1", "Rojo");
+        DifusionEspectadores.Suscriptor suscriptor = difusion.suscribir(1, canal, null);
+        
+        difusion.publicar(InstantaneaPartida.tomar(partida, null, null));
+        assertFalse(suscriptor.isPendiente());
+        Thread.sleep(DifusionEspectadores.REINTENTO_MS * 3);
+        assertEquals(List.of(1), canal.secuencias);
+        assertEquals(0, difusion.getDescartados());
+    }
+}
@@ -0,0 +1,402 @@
+/**
+ * Prueba del reparto de partidas entre nodos en localhost
+ * Arranca cada nodo en su propia JVM (esta clase con "nodo": un ServidorSalas
+ * interno en un puerto libre) y juega muchas partidas a la vez por EnrutadorNodos,
+ * cada una con un solo comando en vuelo. Con las partidas en marcha entra un
+ * nodo y despues sale uno de los primeros: mide lo que tarda cada reparto,
+ * cuanto esta congelada cada partida movida y la latencia de los comandos
+ * fuera y durante las migraciones
+ * Las partidas que terminan se cierran y se empieza otra; al final cada
+ * partida viva tiene que estar en un solo nodo, el que dice el anillo, y
+ * ningun comando puede haber fallado (una migracion mal hecha deja turnos o
+ * fichas que no cuadran)
+ * La prueba usa pocos nodos, partidas y segundos; main mide con mas
+ * Uso: NodosTest [nodos] [partidas] [segundosPorFase]
+ */
+package servidor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import metricas.HistogramaLatencia;
+import org.junit.jupiter.api.Test;
+
+public class NodosTest {
+    private static final int JUGADORES = 4;
+    private static final String LISTO = "NODO ";
+    private static final String[] FASES = {"estable", "reparto"};
+    private static final int ESTABLE = 0;
+    private static final int REPARTO = 1;
+    private static final int IDS_EQUILIBRIO = 100_000;
+    
+    private final HistogramaLatencia[] latencias = new HistogramaLatencia[FASES.length];
+    private final AtomicLong[] comandos = new AtomicLong[FASES.length];
+    private final AtomicLong errores = new AtomicLong();
+    private final AtomicLong terminadas = new AtomicLong();
+    private final AtomicInteger siguienteId = new AtomicInteger(1);
+    private final List<PartidaJugada> jugadas = new ArrayList<>();
+    private EnrutadorNodos enrutador;
+    private volatile int fase;
+    private volatile boolean parar;
+    private CountDownLatch detenidas;
+    
+    public NodosTest() {
+        for (int f = 0; f < FASES.length; f++) {
+            latencias[f] = new HistogramaLatencia();
+            comandos[f] = new AtomicLong();
+        }
+    }
+    
+    @Test
+    void entraYSaleUnNodoSinPerderPartidas() throws Exception {
+        assertEquals(0, ejecutar(2, 40, TimeUnit.SECONDS.toNanos(1)));
+    }
+    
+    /**
+     * Empieza a jugar partidas; cada una al terminar deja paso a otra
+     * @param enrutador Enrutador por el que van los comandos
+     */
+    public void empezar(EnrutadorNodos enrutador, int partidas) {
+        this.enrutador = enrutador;
+        detenidas = new CountDownLatch(partidas);
+        for (int i = 0; i < partidas; i++) {
+            PartidaJugada jugada = new PartidaJugada();
+            jugadas.add(jugada);
+            jugada.empezar();
+        }
+    }
+    
+    /**
+     * Para todas las partidas tras su comando en vuelo
+     * @return false si alguna no contesto a tiempo
+     */
+    public boolean parar() throws InterruptedException {
+        parar = true;
+        return detenidas.await(EnrutadorNodos.PLAZO_RESPUESTA_MS * 2, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Mide un reparto con las partidas jugando
+     */
+    public EnrutadorNodos.Reparto medir(Cambio cambio) throws InterruptedException {
+        fase = REPARTO;
+        try {
+            return cambio.ejecutar();
+        } finally {
+            fase = ESTABLE;
+        }
+    }
+    
+    /**
+     * Entrada o salida de un nodo
+     */
+    interface Cambio {
+        EnrutadorNodos.Reparto ejecutar() throws InterruptedException;
+    }
+    
+    /**
+     * Una partida jugada por sus 4 jugadores, siempre con un comando en vuelo
+     */
+    private final class PartidaJugada {
+        private int idPartida;
+        private int paso;
+        // Creada y sin cerrar: tiene que seguir en algun nodo
+        private volatile boolean viva;
+        
+        void empezar() {
+            idPartida = siguienteId.getAndIncrement();
+            paso = 0;
+            enviar(new Comando(TipoComando.CREAR, idPartida));
+        }
+        
+        private void enviar(Comando comando) {
+            if (parar) {
+                detenidas.countDown();
+                return;
+            }
+            int f = fase;
+            long inicio = System.nanoTime();
+            enrutador.enviar(comando).thenAccept(respuesta -> {
+                latencias[f].registrar(System.nanoTime() - inicio);
+                comandos[f].incrementAndGet();
+                responder(comando, respuesta);
+            });
+        }
+        
+        private void responder(Comando comando, Respuesta respuesta) {
+            if (!respuesta.isOk()) {
+                if (errores.incrementAndGet() <= 10) {
+                    System.err.printf("[PRUEBA] Partida %d, %s: %s%n", idPartida, comando.getTipo(),
+                            respuesta.getMensaje());
+                }
+                if (comando.getTipo() != TipoComando.CERRAR && viva) {
+                    enviar(new Comando(TipoComando.CERRAR, idPartida));
+                } else {
+                    viva = false;
+                    empezar();
+                }
+                return;
+            }
+            switch (comando.getTipo()) {
+                case CREAR:
+                    viva = true;
+                    break;
+                case CERRAR:
+                    viva = false;
+                    empezar();
+                    return;
+                default:
+                    break;
+            }
+            
+            if (paso < JUGADORES) {
+                paso++;
+                enviar(Comando.unirse(idPartida, paso, "Nodo" + paso, null));
+            } else if (paso == JUGADORES) {
+                paso++;
+                enviar(new Comando(TipoComando.INICIAR, idPartida));
+            } else if (respuesta.isTerminada()) {
+                terminadas.incrementAndGet();
+                enviar(new Comando(TipoComando.CERRAR, idPartida));
+            } else {
+                int[] movibles = respuesta.getMovibles();
+                enviar(movibles != null && movibles.length > 0
+                        ? Comando.mover(idPartida, respuesta.getTurno(), movibles[0])
+                        : new Comando(TipoComando.TIRAR, idPartida, respuesta.getTurno()));
+            }
+        }
+    }
+    
+    /**
+     * Cada partida viva en un solo nodo, el de su dueno en el anillo, y ninguna de mas
+     * @return Problemas encontrados
+     */
+    public int comprobar() {
+        Map<Integer, Integer> vistas = new HashMap<>();
+        int problemas = 0;
+        AnilloHash anillo = enrutador.getAnillo();
+        for (Map.Entry<String, int[]> nodo : enrutador.listar().entrySet()) {
+            if (nodo.getValue() == null) {
+                System.err.println("[PRUEBA] Sin listado de " + nodo.getKey());
+                problemas++;
+                continue;
+            }
+            for (int idPartida : nodo.getValue()) {
+                vistas.merge(idPartida, 1, Integer::sum);
+                if (!nodo.getKey().equals(anillo.nodoDe(idPartida))) {
+                    System.err.println("[PRUEBA] Partida " + idPartida + " fuera de su nodo: " + nodo.getKey());
+                    problemas++;
+                }
+            }
+        }
+        int vivas = 0;
+        for (PartidaJugada jugada : jugadas) {
+            if (jugada.viva) {
+                vivas++;
+                if (vistas.remove(jugada.idPartida) == null) {
+                    System.err.println("[PRUEBA] Partida " + jugada.idPartida + " perdida");
+                    problemas++;
+                }
+            }
+        }
+        for (Map.Entry<Integer, Integer> sobrante : vistas.entrySet()) {
+            System.err.println("[PRUEBA] Partida " + sobrante.getKey() + " sobrante en " + sobrante.getValue() + " nodos");
+            problemas++;
+        }
+        System.out.printf("Partidas vivas: %d, problemas de ubicacion: %d%n", vivas, problemas);
+        return problemas;
+    }
+    
+    private void imprimirFase(String nombre, long nanos) {
+        for (int f = 0; f < FASES.length; f++) {
+            HistogramaLatencia h = latencias[f];
+            if (comandos[f].get() > 0) {
+                System.out.printf("  %s %-8s %8d comandos, p50 %7.1f us, p99 %8.1f us, p99.9 %8.1f us%n",
+                        nombre, FASES[f], comandos[f].get(), h.percentil(50) / 1e3, h.percentil(99) / 1e3,
+                        h.percentil(99.9) / 1e3);
+            }
+            h.reiniciar();
+            comandos[f].set(0);
+        }
+        System.out.printf("  %s: %.1f s, %d partidas terminadas, %d errores%n", nombre, nanos / 1e9,
+                terminadas.getAndSet(0), errores.get());
+    }
+    
+    private static void imprimir(String nombre, EnrutadorNodos.Reparto reparto, int vivas) {
+        System.out.printf("%s: %d de %d partidas a mover (%.1f%%), movidas %d, fallidas %d%n", nombre,
+                reparto.partidas, vivas, 100.0 * reparto.partidas / Math.max(1, vivas), reparto.movidas,
+                reparto.fallidas);
+        System.out.printf("  reparto %.1f ms (listado con comandos parados %.2f ms)%n",
+                reparto.nanos / 1e6, reparto.nanosListado / 1e6);
+        System.out.printf("  congelacion por partida: p50 %.2f ms, p99 %.2f ms, maxima %.2f ms%n",
+                reparto.congelacionP50 / 1e6, reparto.congelacionP99 / 1e6, reparto.congelacionMaxima / 1e6);
+    }
+    
+    /**
+     * Reparto de ids entre nodos con el anillo: maximo y minimo frente a la media
+     */
+    private static void imprimirEquilibrio(AnilloHash anillo) {
+        Map<String, Integer> cuentas = new HashMap<>();
+        for (int id = 1; id <= IDS_EQUILIBRIO; id++) {
+            cuentas.merge(anillo.nodoDe(id), 1, Integer::sum);
+        }
+        double media = (double) IDS_EQUILIBRIO / anillo.getNumNodos();
+        int maximo = cuentas.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        int minimo = cuentas.values().stream().mapToInt(Integer::intValue).min().orElse(0);
+        System.out.printf("Anillo de %d nodos x %d virtuales, %d ids: maximo %.3f y minimo %.3f de la media%n",
+                anillo.getNumNodos(), anillo.getVirtuales(), IDS_EQUILIBRIO, maximo / media, minimo / media);
+    }
+    
+    // ---- Procesos ----
+    
+    /**
+     * Nodo lanzado por la prueba: escucha en un puerto libre, lo escribe y
+     * sigue hasta que se cierra su entrada estandar
+     */
+    private static void nodo() throws IOException, InterruptedException {
+        CountDownLatch arrancado = new CountDownLatch(1);
+        try (RegistroPartidas registro = new RegistroPartidas()) {
+            ServidorSalas servidor = new ServidorSalas(new InetSocketAddress("localhost", 0), registro, true) {
+                @Override
+                public void onStart() {
+                    arrancado.countDown();
+                }
+            };
+            servidor.setTcpNoDelay(true);
+            servidor.start();
+            arrancado.await();
+            System.out.println(LISTO + servidor.getPort());
+            System.out.flush();
+            while (System.in.read() >= 0) {
+                // Nada que leer, solo esperar al cierre
+            }
+            servidor.stop(1000);
+        }
+        System.exit(0);
+    }
+    
+    /**
+     * Lanza un nodo en otra JVM con el mismo classpath
+     * @return Direccion WebSocket del nodo
+     */
+    private static URI lanzar(List<Process> procesos) throws IOException {
+        ProcessBuilder constructor = new ProcessBuilder(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), NodosTest.class.getName(), "nodo");
+        constructor.redirectError(ProcessBuilder.Redirect.INHERIT);
+        Process proceso = constructor.start();
+        procesos.add(proceso);
+        BufferedReader salida = new BufferedReader(new InputStreamReader(proceso.getInputStream(), StandardCharsets.UTF_8));
+        String linea;
+        while ((linea = salida.readLine()) != null) {
+            if (linea.startsWith(LISTO)) {
+                // El resto de su salida se descarta para que no se llene la tuberia
+                Thread.ofVirtual().start(() -> {
+                    try {
+                        salida.transferTo(Writer.nullWriter());
+                    } catch (IOException e) {
+                        // El nodo termino
+                    }
+                });
+                return URI.create("ws://localhost:" + linea.substring(LISTO.length()).trim());
+            }
+        }
+        throw new IOException("El nodo termino sin arrancar");
+    }
+    
+    /**
+     * Lanza los nodos y uno de reserva, juega con los primeros, hace entrar al
+     * de reserva y despues salir al primero
+     * @param nanosFase Duracion de cada fase de juego
+     * @return Problemas: partidas mal ubicadas, migraciones fallidas y comandos con error
+     */
+    private static int ejecutar(int nodos, int partidas, long nanosFase) throws Exception {
+        List<Process> procesos = new ArrayList<>();
+        int problemas;
+        try (EnrutadorNodos enrutador = new EnrutadorNodos()) {
+            long inicio = System.nanoTime();
+            List<URI> direcciones = new ArrayList<>();
+            for (int i = 0; i <= nodos; i++) {
+                direcciones.add(lanzar(procesos));
+            }
+            System.out.printf("=== Reparto entre nodos: %d JVM en localhost (%.1f s en arrancar) ===%n",
+                    nodos + 1, (System.nanoTime() - inicio) / 1e9);
+            for (int i = 0; i < nodos; i++) {
+                enrutador.agregarNodo(direcciones.get(i));
+            }
+            imprimirEquilibrio(enrutador.getAnillo());
+            
+            NodosTest prueba = new NodosTest();
+            prueba.empezar(enrutador, partidas);
+            long fase = System.nanoTime();
+            // La primera fase calienta el JIT de todas las JVM
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(nanosFase));
+            prueba.imprimirFase("Calentamiento", System.nanoTime() - fase);
+            fase = System.nanoTime();
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(nanosFase));
+            prueba.imprimirFase("Fase 1, " + nodos + " nodos", System.nanoTime() - fase);
+            
+            URI nuevo = direcciones.get(nodos);
+            fase = System.nanoTime();
+            EnrutadorNodos.Reparto entrada = prueba.medir(() -> enrutador.agregarNodo(nuevo));
+            imprimir("Entra " + nuevo, entrada, partidas);
+            imprimirEquilibrio(enrutador.getAnillo());
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(nanosFase));
+            prueba.imprimirFase("Fase 2, " + (nodos + 1) + " nodos", System.nanoTime() - fase);
+            
+            URI viejo = direcciones.get(0);
+            fase = System.nanoTime();
+            EnrutadorNodos.Reparto salida = prueba.medir(() -> enrutador.quitarNodo(viejo));
+            imprimir("Sale " + viejo, salida, partidas);
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(nanosFase));
+            prueba.imprimirFase("Fase 3, " + nodos + " nodos", System.nanoTime() - fase);
+            
+            if (!prueba.parar()) {
+                System.err.println("[PRUEBA] Quedaron comandos sin respuesta");
+            }
+            // Los CERRAR en el origen tras migrar no se esperan
+            Thread.sleep(200);
+            problemas = prueba.comprobar() + entrada.fallidas + salida.fallidas;
+            problemas += (int) prueba.errores.get();
+        } finally {
+            for (Process proceso : procesos) {
+                proceso.getOutputStream().close();
+                if (!proceso.waitFor(5, TimeUnit.SECONDS)) {
+                    proceso.destroyForcibly();
+                }
+            }
+        }
+        return problemas;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("nodo")) {
+            nodo();
+            return;
+        }
+        int nodos = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int partidas = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long nanosFase = TimeUnit.SECONDS.toNanos(args.length > 2 ? Long.parseLong(args[2]) : 3);
+        
+        int problemas = ejecutar(nodos, partidas, nanosFase);
+        if (problemas > 0) {
+            System.out.println("Problemas: " + problemas);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Prueba de los plazos de turno
+ * Crea muchas partidas con plazo corto en las que nadie juega despues de
+ * empezar: los plazos vencidos tiran y mueven por los jugadores hasta que
+ * todas terminan, y todos los asientos acaban dados por abandonados
+ * La prueba usa pocas partidas; main crea todas y mide
+ * Uso: PlazosTest [partidas] [plazoMs]
+ */
+package servidor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class PlazosTest {
+    private static final int JUGADORES = 4;
+    
+    @Test
+    void lasPartidasSinJugadoresTerminanPorPlazos() throws InterruptedException {
+        int partidas = 50;
+        try (RegistroPartidas registro = new RegistroPartidas(null, TimeUnit.MILLISECONDS.toNanos(2))) {
+            empezar(registro, partidas);
+            assertEquals(partidas, esperarTerminadas(registro, partidas, TimeUnit.MINUTES.toNanos(1)));
+            assertEquals(partidas * JUGADORES, contarAbandonados(registro, partidas));
+        }
+    }
+    
+    private static void empezar(RegistroPartidas registro, int partidas) {
+        for (int id = 1; id <= partidas; id++) {
+            registro.enrutar(new Comando(TipoComando.CREAR, id)).join();
+            for (int j = 1; j <= JUGADORES; j++) {
+                registro.enrutar(Comando.unirse(id, j, "Bot" + j, null)).join();
+            }
+            registro.enrutar(new Comando(TipoComando.INICIAR, id)).join();
+        }
+    }
+    
+    /**
+     * Nadie mas manda comandos: solo avanzan con los plazos
+     * @return Partidas terminadas al acabar o al llegar al limite
+     */
+    private static int esperarTerminadas(RegistroPartidas registro, int partidas, long espera)
+            throws InterruptedException {
+        int terminadas = 0;
+        long limite = System.nanoTime() + espera;
+        while (terminadas < partidas && System.nanoTime() < limite) {
+            Thread.sleep(200);
+            terminadas = 0;
+            for (int id = 1; id <= partidas; id++) {
+                if (registro.buscar(id).getInstantanea().isTerminada()) {
+                    terminadas++;
+                }
+            }
+        }
+        return terminadas;
+    }
+    
+    private static int contarAbandonados(RegistroPartidas registro, int partidas) {
+        int abandonados = 0;
+        for (int id = 1; id <= partidas; id++) {
+            SalaPartida sala = registro.buscar(id);
+            for (int asiento = 0; asiento < JUGADORES; asiento++) {
+                if (sala.getAusencias(asiento) >= SalaPartida.AUSENCIAS_PARA_ABANDONO) {
+                    abandonados++;
+                }
+            }
+        }
+        return abandonados;
+    }
+    
+    public static void main(String[] args) throws InterruptedException {
+        int partidas = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        long plazo = TimeUnit.MILLISECONDS.toNanos(args.length > 1 ? Long.parseLong(args[1]) : 5);
+        
+        try (RegistroPartidas registro = new RegistroPartidas(null, plazo)) {
+            long inicio = System.nanoTime();
+            empezar(registro, partidas);
+            int terminadas = esperarTerminadas(registro, partidas, TimeUnit.MINUTES.toNanos(5));
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            int abandonados = contarAbandonados(registro, partidas);
+            
+            RuedaTemporizadores rueda = registro.getRueda();
+            System.out.println("=== Prueba de plazos de turno ===");
+            System.out.printf("Partidas: %d, terminadas solo por plazos: %d en %.1f s%n", partidas, terminadas, segundos);
+            System.out.printf("Plazos vencidos: %d (%.0f/s), armados ahora: %d%n", rueda.getVencidos(),
+                    rueda.getVencidos() / segundos, rueda.getArmados());
+            System.out.printf("Asientos abandonados: %d de %d%n", abandonados, partidas * JUGADORES);
+            if (terminadas < partidas) {
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Prueba de recuperacion desde el diario de movimientos
+ * Juega partidas a medias anotando en el diario, simula una caida cerrando
+ * el proceso sin cerrar las partidas y comprueba que al recuperar cada sala
+ * queda exactamente en el mismo estado
+ * La prueba usa pocas partidas y segmentos pequenos, asi el diario se
+ * compacta mientras se juega; main juega todas y mide
+ * Uso: RecuperacionTest [partidas] [directorio]
+ */
+package servidor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import modelo.EstadoPartida;
+import modelo.GestorTurno;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistencia.DiarioMovimientos;
+
+public class RecuperacionTest {
+    private static final int JUGADORES = 4;
+    private static final int VISITA = 99;
+    
+    /**
+     * Resultado de una caida y su recuperacion
+     */
+    private static final class Resultado {
+        final int terminadas;
+        final int recuperadas;
+        final int errores;
+        final int segmentos;
+        final double segundosJuego;
+        final double segundosRecuperacion;
+        
+        Resultado(int terminadas, int recuperadas, int errores, int segmentos,
+                double segundosJuego, double segundosRecuperacion) {
+            this.terminadas = terminadas;
+            this.recuperadas = recuperadas;
+            this.errores = errores;
+            this.segmentos = segmentos;
+            this.segundosJuego = segundosJuego;
+            this.segundosRecuperacion = segundosRecuperacion;
+        }
+    }
+    
+    @TempDir
+    Path directorio;
+    
+    @Test
+    void cadaSalaRecuperadaQuedaIgual() throws IOException {
+        int partidas = 300;
+        Resultado resultado = simularCaida(partidas, directorio, 1 << 10);
+        assertEquals(0, resultado.errores);
+        assertEquals(partidas - resultado.terminadas, resultado.recuperadas);
+    }
+    
+    /**
+     * Juega una partida hasta un numero de comandos y la deja sin cerrar
+     */
+    private static void jugarHasta(RegistroPartidas registro, int idPartida, int limite) {
+        registro.enrutar(new Comando(TipoComando.CREAR, idPartida)).join();
+        for (int j = 1; j <= JUGADORES; j++) {
+            registro.enrutar(Comando.unirse(idPartida, j, "Bot" + j, null)).join();
+            if (j == 1 && idPartida % 2 == 1) {
+                // En la mitad de las partidas entra y sale otro jugador antes de empezar
+                registro.enrutar(Comando.unirse(idPartida, VISITA, "Visita", null)).join();
+            }
+        }
+        if (idPartida % 2 == 1) {
+            registro.enrutar(Comando.salir(idPartida, VISITA)).join();
+        }
+        Respuesta respuesta = registro.enrutar(new Comando(TipoComando.INICIAR, idPartida)).join();
+        
+        int enviados = 0;
+        while (respuesta.isOk() && !respuesta.isTerminada() && enviados < limite) {
+            int jugador = respuesta.getTurno();
+            respuesta = registro.enrutar(new Comando(TipoComando.TIRAR, idPartida, jugador)).join();
+            enviados++;
+            while (respuesta.isOk() && respuesta.getMovibles() != null && respuesta.getMovibles().length > 0
+                    && enviados < limite) {
+                int[] movibles = respuesta.getMovibles();
+                respuesta = registro.enrutar(Comando.mover(idPartida, jugador, movibles[movibles.length - 1])).join();
+                enviados++;
+            }
+        }
+    }
+    
+    private static boolean iguales(SalaPartida original, SalaPartida recuperada) {
+        EstadoPartida a = original.getPartida().getEstado();
+        EstadoPartida b = recuperada.getPartida().getEstado();
+        for (int j = 0; j < EstadoPartida.MAX_JUGADORES; j++) {
+            if (a.getPalabraFichas(j) != b.getPalabraFichas(j)) {
+                return false;
+            }
+        }
+        GestorTurno ta = original.getTurno();
+        GestorTurno tb = recuperada.getTurno();
+        return a.getControl() == b.getControl()
+                && ta.getValorDado() == tb.getValorDado()
+                && ta.getPremioPendiente() == tb.getPremioPendiente()
+                && ta.isTerminada() == tb.isTerminada();
+    }
+    
+    /**
+     * Juega las partidas a medias, cierra el proceso sin cerrarlas y recupera
+     * en otro registro desde el mismo diario
+     * @param registrosPorSegmento Tamano de los segmentos del diario
+     */
+    private static Resultado simularCaida(int partidas, Path directorio, int registrosPorSegmento) throws IOException {
+        Random random = new Random(42);
+        
+        // Primera vida del servidor: se cae con todas las partidas a medias
+        RegistroPartidas antes = new RegistroPartidas(new DiarioMovimientos(directorio, registrosPorSegmento));
+        long inicio = System.nanoTime();
+        for (int id = 1; id <= partidas; id++) {
+            jugarHasta(antes, id, 1 + random.nextInt(400));
+        }
+        double segundosJuego = (System.nanoTime() - inicio) / 1e9;
+        DiarioMovimientos diarioAntes = antes.getDiario();
+        antes.close();
+        diarioAntes.close();
+        
+        // Segunda vida: recupera desde el diario
+        inicio = System.nanoTime();
+        DiarioMovimientos diario = new DiarioMovimientos(directorio, registrosPorSegmento);
+        int recuperadas;
+        int errores = 0;
+        int terminadas = 0;
+        try (RegistroPartidas despues = new RegistroPartidas(diario)) {
+            recuperadas = despues.recuperar();
+            double segundosRecuperacion = (System.nanoTime() - inicio) / 1e9;
+            
+            for (int id = 1; id <= partidas; id++) {
+                SalaPartida original = antes.buscar(id);
+                SalaPartida recuperada = despues.buscar(id);
+                if (original.getTurno().isTerminada()) {
+                    terminadas++;
+                    if (recuperada != null) {
+                        errores++;
+                    }
+                } else if (recuperada == null || !iguales(original, recuperada)) {
+                    errores++;
+                }
+            }
+            
+            return new Resultado(terminadas, recuperadas, errores, diario.getNumSegmentos(),
+                    segundosJuego, segundosRecuperacion);
+        } finally {
+            diario.close();
+        }
+    }
+    
+    public static void main(String[] args) throws IOException {
+        int partidas = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        Path directorio = args.length > 1 ? Paths.get(args[1]) : Files.createTempDirectory("diario");
+        Resultado r = simularCaida(partidas, directorio, 1 << 16);
+        
+        System.out.println("=== Prueba de recuperacion del diario ===");
+        System.out.printf("Partidas: %d (terminadas antes de la caida: %d) en %.2f s%n",
+                partidas, r.terminadas, r.segundosJuego);
+        System.out.printf("Segmentos: %d, recuperadas: %d en %.3f s%n",
+                r.segmentos, r.recuperadas, r.segundosRecuperacion);
+        System.out.printf("Partidas distintas tras recuperar: %d%n", r.errores);
+    }
+}